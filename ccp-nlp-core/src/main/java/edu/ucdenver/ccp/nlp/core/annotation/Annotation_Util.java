@@ -34,24 +34,34 @@ package edu.ucdenver.ccp.nlp.core.annotation;
  */
 
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.log4j.Logger;
 
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.BooleanSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.FloatSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.IntegerSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.Mention;
 import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.SlotMentionType;
 import edu.ucdenver.ccp.nlp.core.mention.StringSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultComplexSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultIntegerSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultPrimitiveSlotMentionFactory;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultStringSlotMention;
 
 /**
@@ -192,6 +202,120 @@ public class Annotation_Util {
 
 	}
 
+	/**
+	 * Creates a detached copy of the input <code>TextAnnotation</code>. The copy is composed
+	 * entirely of <code>Default*</code> objects, so it no longer references any wrapped object
+	 * (e.g. a UIMA CAS) and can be handed to another thread. The class mention is copied
+	 * recursively, including the class mentions that fill complex slots and the text annotations
+	 * that they reference. Annotation information is transferred as described in
+	 * {@link #swapAnnotationInfo(TextAnnotation, TextAnnotation)}; annotation metadata is not
+	 * copied.
+	 * 
+	 * @param ta
+	 *            the text annotation to copy
+	 * @return a <code>DefaultTextAnnotation</code> copy of the input text annotation
+	 */
+	public static DefaultTextAnnotation copyToDefaultTextAnnotation(TextAnnotation ta) {
+		return copyToDefaultTextAnnotation(ta, new IdentityHashMap<Object, Object>());
+	}
+
+	/**
+	 * @param ta
+	 * @param copies
+	 *            stores the copies that have already been made, keyed by the object being wrapped
+	 *            (if there is one) so that cycles in the mention structure are handled
+	 * @return a <code>DefaultTextAnnotation</code> copy of the input text annotation
+	 */
+	private static DefaultTextAnnotation copyToDefaultTextAnnotation(TextAnnotation ta, Map<Object, Object> copies) {
+		Object key = getCopyKey(ta);
+		if (copies.containsKey(key)) {
+			return (DefaultTextAnnotation) copies.get(key);
+		}
+		DefaultTextAnnotation taCopy = new DefaultTextAnnotation(new ArrayList<Span>());
+		copies.put(key, taCopy);
+		swapAnnotationInfo(ta, taCopy);
+		if (ta.getClassMention() != null) {
+			taCopy.setClassMention(copyToDefaultClassMention(ta.getClassMention(), copies));
+		}
+		return taCopy;
+	}
+
+	/**
+	 * @param cm
+	 * @param copies
+	 * @return a <code>DefaultClassMention</code> copy of the input class mention
+	 */
+	private static DefaultClassMention copyToDefaultClassMention(ClassMention cm, Map<Object, Object> copies) {
+		Object key = getCopyKey(cm);
+		if (copies.containsKey(key)) {
+			return (DefaultClassMention) copies.get(key);
+		}
+		DefaultClassMention cmCopy = new DefaultClassMention(cm.getMentionName());
+		copies.put(key, cmCopy);
+		for (PrimitiveSlotMention<?> psm : cm.getPrimitiveSlotMentions()) {
+			cmCopy.addPrimitiveSlotMention(copyToDefaultPrimitiveSlotMention(psm));
+		}
+		for (ComplexSlotMention csm : cm.getComplexSlotMentions()) {
+			DefaultComplexSlotMention csmCopy = new DefaultComplexSlotMention(csm.getMentionName());
+			for (ClassMention slotFiller : csm.getClassMentions()) {
+				csmCopy.addSlotValue(copyToDefaultClassMention(slotFiller, copies));
+			}
+			cmCopy.addComplexSlotMention(csmCopy);
+		}
+		if (cm.getTextAnnotation() != null) {
+			DefaultTextAnnotation taCopy = copyToDefaultTextAnnotation(cm.getTextAnnotation(), copies);
+			if (taCopy.getClassMention() == null) {
+				/*
+				 * the referenced text annotation is still being copied and will assign this class
+				 * mention itself
+				 */
+				cmCopy.setTextAnnotation(taCopy);
+			}
+		}
+		return cmCopy;
+	}
+
+	/**
+	 * @param psm
+	 * @return a <code>Default*SlotMention</code> copy of the input primitive slot mention
+	 */
+	private static PrimitiveSlotMention<?> copyToDefaultPrimitiveSlotMention(PrimitiveSlotMention<?> psm) {
+		String name = psm.getMentionName();
+		if (psm instanceof StringSlotMention) {
+			return DefaultPrimitiveSlotMentionFactory.createPrimitiveSlotMentionWithStringCollection(name,
+					((StringSlotMention) psm).getSlotValues());
+		} else if (psm instanceof IntegerSlotMention) {
+			return DefaultPrimitiveSlotMentionFactory.createPrimitiveSlotMentionWithIntegerCollection(name,
+					((IntegerSlotMention) psm).getSlotValues());
+		} else if (psm instanceof FloatSlotMention) {
+			return DefaultPrimitiveSlotMentionFactory.createPrimitiveSlotMentionWithFloatCollection(name,
+					((FloatSlotMention) psm).getSlotValues());
+		} else if (psm instanceof BooleanSlotMention) {
+			return DefaultPrimitiveSlotMentionFactory.createPrimitiveSlotMentionWithBooleanCollection(name,
+					((BooleanSlotMention) psm).getSlotValues());
+		}
+		throw new IllegalArgumentException("Unable to copy primitive slot mention of type: "
+				+ psm.getClass().getName());
+	}
+
+	/**
+	 * Wrapper classes (e.g. the UIMA wrappers) may create a new wrapper instance each time an
+	 * object is requested, so copies are tracked using the wrapped object when there is one.
+	 * 
+	 * @param o
+	 *            a <code>TextAnnotation</code> or <code>Mention</code>
+	 * @return the object used to track the copy of the input object
+	 */
+	private static Object getCopyKey(Object o) {
+		try {
+			Object wrappedObject = (o instanceof TextAnnotation) ? ((TextAnnotation) o).getWrappedObject()
+					: ((Mention) o).getWrappedObject();
+			return (wrappedObject != null) ? wrappedObject : o;
+		} catch (UnsupportedOperationException e) {
+			return o;
+		}
+	}
+
 	/**
 	 * For a give <code>TextAnnotation</code> return a list of the slot values for a given slot. The
 	 * slot is specified by using the slot name. This name must reference a <code>SlotMention</code>
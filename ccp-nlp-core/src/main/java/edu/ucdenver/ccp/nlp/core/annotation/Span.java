@@ -56,6 +56,9 @@ public class Span implements Comparable<Span>, Serializable {
 
 	private int spanEnd;
 
+	/* incremented by the mutators, used to invalidate hash codes memoized by annotations */
+	private transient int modificationCount;
+
 	public Span(int spanStart, int spanEnd) {
 		this.spanStart = spanStart;
 		this.spanEnd = spanEnd;
@@ -69,6 +72,7 @@ public class Span implements Comparable<Span>, Serializable {
 	public void setSpanEnd(int spanEnd) {
 		this.spanEnd = spanEnd;
 		validateSpan();
+		modificationCount++;
 	}
 
 	public int getSpanStart() {
@@ -78,6 +82,14 @@ public class Span implements Comparable<Span>, Serializable {
 	public void setSpanStart(int spanStart) {
 		this.spanStart = spanStart;
 		validateSpan();
+		modificationCount++;
+	}
+
+	/**
+	 * @return the number of times the offsets of this span have been modified
+	 */
+	public int getModificationCount() {
+		return modificationCount;
 	}
 
 	private void validateSpan() {
@@ -201,7 +213,7 @@ public class Span implements Comparable<Span>, Serializable {
 
 	@Override
 	public int hashCode() {
-		return this.toString().hashCode();
+		return StructuralHashUtil.spanHashCode(this);
 	}
 
 	@Override
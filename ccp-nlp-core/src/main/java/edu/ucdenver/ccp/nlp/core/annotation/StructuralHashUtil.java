@@ -0,0 +1,197 @@
+package edu.ucdenver.ccp.nlp.core.annotation;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.Collection;
+import java.util.List;
+
+import edu.ucdenver.ccp.nlp.core.mention.Mention;
+
+/**
+ * Utility methods for computing hash codes for annotations and mentions directly from their
+ * structure (span offsets, identifiers, mention names and slot values) without first serializing
+ * them to a String. The hash codes computed here are consistent with the comparison performed by
+ * the <code>AnnotationComparator</code> using the <code>StrictSpanComparator</code> and the
+ * <code>IdenticalMentionComparator</code>, i.e. mention names are hashed case-insensitively and
+ * collections of spans and slot values are hashed independently of their order.
+ * <p>
+ * Spans and the default annotation and mention implementations keep a per-object modification
+ * count that is incremented by their mutators. The modification count of an annotation or class
+ * mention includes the counts of the spans and slot mentions it holds, and never decreases, so a
+ * change to a child object is seen by its parent. Implementations that memoize their hash code
+ * store it in a {@link MemoizedHashCode} together with the modification count it was computed at.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class StructuralHashUtil {
+
+	/**
+	 * The modification count reported by objects that do not track their modifications. Hash codes
+	 * that depend on such objects are not memoized.
+	 */
+	public static final long UNTRACKED_MODIFICATION_COUNT = -1;
+
+	/**
+	 * An immutable hash code/modification count pair, so that both values can be published together
+	 * through a single volatile field
+	 */
+	public static final class MemoizedHashCode {
+		private final long modificationCount;
+		private final int hashCode;
+
+		public MemoizedHashCode(long modificationCount, int hashCode) {
+			this.modificationCount = modificationCount;
+			this.hashCode = hashCode;
+		}
+
+		/**
+		 * @param currentModificationCount
+		 * @return true if the hash code was computed at the input modification count
+		 */
+		public boolean isCurrent(long currentModificationCount) {
+			return modificationCount == currentModificationCount;
+		}
+
+		public int getHashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * @param spanList
+	 * @return the sum of the modification counts of the spans in the input list, 0 if the input is
+	 *         null
+	 */
+	public static long spanListModificationCount(List<Span> spanList) {
+		if (spanList == null) {
+			return 0;
+		}
+		long count = 0;
+		for (int i = 0; i < spanList.size(); i++) {
+			count += spanList.get(i).getModificationCount();
+		}
+		return count;
+	}
+
+	/**
+	 * @param mentions
+	 * @return the sum of the modification counts of the input mentions, or
+	 *         {@link #UNTRACKED_MODIFICATION_COUNT} if any of the mentions does not track its
+	 *         modifications
+	 */
+	public static long mentionsModificationCount(Collection<? extends Mention> mentions) {
+		if (mentions == null) {
+			return 0;
+		}
+		long count = 0;
+		for (Mention mention : mentions) {
+			long mentionCount = mention.getModificationCount();
+			if (mentionCount == UNTRACKED_MODIFICATION_COUNT) {
+				return UNTRACKED_MODIFICATION_COUNT;
+			}
+			count += mentionCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a hash code for the input String that is consistent with
+	 * {@link String#equalsIgnoreCase(String)}. Returns 0 if the input is null.
+	 * 
+	 * @param str
+	 * @return
+	 */
+	public static int caseInsensitiveHashCode(String str) {
+		if (str == null) {
+			return 0;
+		}
+		int hash = 0;
+		for (int i = 0; i < str.length(); i++) {
+			hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(str.charAt(i)));
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns a hash code for a single span computed from its start and end offsets
+	 * 
+	 * @param span
+	 * @return
+	 */
+	public static int spanHashCode(Span span) {
+		return 31 * span.getSpanStart() + span.getSpanEnd();
+	}
+
+	/**
+	 * Returns a hash code for a list of spans that does not depend on the order of the spans in the
+	 * list. Returns 0 if the input is null.
+	 * 
+	 * @param spanList
+	 * @return
+	 */
+	public static int spanListHashCode(List<Span> spanList) {
+		if (spanList == null) {
+			return 0;
+		}
+		int hash = 0;
+		for (int i = 0; i < spanList.size(); i++) {
+			hash += spanHashCode(spanList.get(i));
+		}
+		return 31 * hash + spanList.size();
+	}
+
+	/**
+	 * Returns a hash code for a collection of slot values that does not depend on the order of the
+	 * values. Slot values are compared by their String representations, so the hash code for each
+	 * value is computed from its String representation as well. Returns 0 if the input is null.
+	 * 
+	 * @param slotValues
+	 * @return
+	 */
+	public static int slotValuesHashCode(Collection<?> slotValues) {
+		if (slotValues == null) {
+			return 0;
+		}
+		int hash = 0;
+		for (Object value : slotValues) {
+			if (value != null) {
+				hash += value.toString().hashCode();
+			}
+		}
+		return 31 * hash + slotValues.size();
+	}
+
+}
@@ -226,7 +226,9 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 	public abstract void setCoveredText(String coveredText);
 
 	/**
-	 * Get the ordered list of spans for this TextAnnotation
+	 * Get the ordered list of spans for this TextAnnotation. Implementations may return a cached,
+	 * read-only list; use {@link #setSpans(List)}, {@link #setSpan(Span)} or {@link #addSpan(Span)}
+	 * to modify the spans.
 	 * 
 	 * @return
 	 */
@@ -412,7 +414,9 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 
 	/**
 	 * The default equals() method requires exact span match, as well as identical class mention
-	 * match to return true.
+	 * match to return true. Annotations with differing hash codes or differing numbers of spans
+	 * cannot match, so these are checked before the full {@link AnnotationComparator} comparison
+	 * is run.
 	 */
 	@Override
 	public boolean equals(Object textAnnotationToEquate) {
@@ -421,6 +425,15 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 		} else {
 			TextAnnotation ta = (TextAnnotation) textAnnotationToEquate;
 
+			if (this == ta) {
+				return true;
+			}
+			if (this.hashCode() != ta.hashCode()) {
+				return false;
+			}
+			if (this.getSpans().size() != ta.getSpans().size()) {
+				return false;
+			}
 			if (this.compareTo(ta) == 0) {
 				return true;
 			} else {
@@ -455,17 +468,31 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 	 * @return
 	 */
 	public boolean overlaps(TextAnnotation ta) {
-		return this.getAggregateSpan().overlaps(ta.getAggregateSpan());
+		int start1 = this.getAnnotationSpanStart();
+		int end1 = this.getAnnotationSpanEnd();
+		int start2 = ta.getAnnotationSpanStart();
+		int end2 = ta.getAnnotationSpanEnd();
+		/* same criteria as SpanComparator.overlaps(Span, Span) */
+		return (start1 >= start2 && start1 < end2) || (end1 > start2 && end1 <= end2)
+				|| (start1 <= start2 && end1 > start2) || (end1 >= end2 && start1 < end2);
 	}
 
 	public boolean overlaps(int index) {
 		return this.getAggregateSpan().overlaps(index);
 	}
 
+	/**
+	 * The hash code is computed from the span offsets, the document identifiers and the structure of
+	 * the class mention (see {@link ClassMention#getStructuralHashCode()}) without serializing the
+	 * annotation to a String.
+	 */
 	@Override
 	public int hashCode() {
-		return (getSpanStr() + getDocumentCollectionID() + getDocumentID() + getClassMention().toDocumentLevelString())
-				.hashCode();
+		int hash = StructuralHashUtil.spanListHashCode(getSpans());
+		hash = 31 * hash + getDocumentCollectionID();
+		hash = 31 * hash + ((getDocumentID() == null) ? 0 : getDocumentID().hashCode());
+		hash = 31 * hash + ((getClassMention() == null) ? 0 : getClassMention().getStructuralHashCode());
+		return hash;
 	}
 
 	/**
@@ -475,7 +502,7 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 	 * @return
 	 */
 	public int length() {
-		return this.getAggregateSpan().length();
+		return this.getAnnotationSpanEnd() - this.getAnnotationSpanStart();
 	}
 
 	/**
@@ -487,7 +514,8 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 		return new Comparator<TextAnnotation>() {
 			public int compare(TextAnnotation ta1, TextAnnotation ta2) {
 				if (ta1.getSpans().size() > 0 && ta2.getSpans().size() > 0) {
-					return new StrictSpanComparator().compare(ta1.getAggregateSpan(), ta2.getAggregateSpan());
+					return compareAggregateSpans(ta1.getAnnotationSpanStart(), ta1.getAnnotationSpanEnd(),
+							ta2.getAnnotationSpanStart(), ta2.getAnnotationSpanEnd());
 				} else {
 					Span ta1Span = null;
 					Span ta2Span = null;
@@ -517,5 +545,19 @@ public abstract class TextAnnotation implements Comparable<TextAnnotation> {
 		};
 	}
 
+	/**
+	 * Compares aggregate span offsets using the same criteria as the {@link StrictSpanComparator}
+	 * without creating {@link Span} objects
+	 */
+	private static int compareAggregateSpans(int start1, int end1, int start2, int end2) {
+		if (start1 == start2) {
+			if (end1 == end2) {
+				return 0;
+			}
+			return (end1 < end2) ? -1 : 1;
+		}
+		return (start1 < start2) ? -1 : 1;
+	}
+
 	public abstract Object getWrappedObject();
 }
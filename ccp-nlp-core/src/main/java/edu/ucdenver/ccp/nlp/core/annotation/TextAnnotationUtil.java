@@ -129,7 +129,14 @@ public class TextAnnotationUtil {
 		return documentID2AnnotationsMap;
 	}
 
-	private static TextAnnotation getAnnotationFromLine(String line) {
+	/**
+	 * Parses a single line of an annotation file. See
+	 * {@link #loadAnnotationsFromFile(File, CharacterEncoding)} for the line format.
+	 * 
+	 * @param line
+	 * @return the annotation represented by the input line, or null if the line could not be parsed
+	 */
+	public static TextAnnotation getAnnotationFromLine(String line) {
 		String[] toks = line.split("\\|");
 		if (toks.length > 4) {
 			String documentID = toks[0];
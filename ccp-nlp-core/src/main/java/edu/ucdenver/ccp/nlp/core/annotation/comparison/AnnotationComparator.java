@@ -37,11 +37,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.Mention;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.IdenticalMentionComparator;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.MentionComparator;
 
@@ -194,6 +197,27 @@ public class AnnotationComparator implements Comparator<TextAnnotation> {
 			}
 		}
 
+		/*
+		 * If the spans are not required to overlap, then rather than comparing each gold
+		 * annotation to every test annotation, the test annotations are partitioned by the
+		 * properties that must be shared in order for two annotations to match (see
+		 * getMatchKey()). Each gold annotation is then only compared to the test annotations in its
+		 * partition.
+		 */
+		Map<MatchKey, List<Integer>> testTaIndexesByMatchKey = null;
+		if (!spansMustOverlapToMatch) {
+			testTaIndexesByMatchKey = new HashMap<MatchKey, List<Integer>>();
+			for (int j = 0; j < testTaList.size(); j++) {
+				MatchKey key = getMatchKey(testTaList.get(j), mentionComparator, maximumComparisonDepth);
+				List<Integer> testTaIndexes = testTaIndexesByMatchKey.get(key);
+				if (testTaIndexes == null) {
+					testTaIndexes = new ArrayList<Integer>();
+					testTaIndexesByMatchKey.put(key, testTaIndexes);
+				}
+				testTaIndexes.add(j);
+			}
+		}
+
 		for (int i = 0; i < goldTaList.size(); i++) {
 			TextAnnotation goldTA = goldTaList.get(i);
 			if (spansMustOverlapToMatch) {
@@ -272,11 +296,15 @@ public class AnnotationComparator implements Comparator<TextAnnotation> {
 
 			} else {
 				/*
-				 * Since there is no guarantee that the spans must overlap, the brute force approach
-				 * must be applied and each annotation must be compared to every other annotation in
-				 * the document
+				 * Since there is no guarantee that the spans must overlap, each annotation must be
+				 * compared to every test annotation that shares its match key
 				 */
-				for (int j = 0; j < testTaList.size(); j++) {
+				List<Integer> candidateTestTaIndexes = testTaIndexesByMatchKey.get(getMatchKey(goldTA,
+						mentionComparator, maximumComparisonDepth));
+				if (candidateTestTaIndexes == null) {
+					candidateTestTaIndexes = Collections.emptyList();
+				}
+				for (int j : candidateTestTaIndexes) {
 					TextAnnotation testTA = testTaList.get(j);
 
 					/* compare the two TextAnnotations */
@@ -333,6 +361,65 @@ public class AnnotationComparator implements Comparator<TextAnnotation> {
 		return prfResult;
 	}
 
+	/**
+	 * Returns the key used to partition annotations when the span comparator does not require
+	 * spans to overlap. Two annotations can only match if their keys are equal: the document ID and
+	 * document collection ID must be equal (see metaDataCompare()), and the class mention names
+	 * must be equivalent if the mention comparator supplies a key for mention names (see
+	 * {@link MentionComparator#getMentionNameKey(Mention)}). The mention name is not used if
+	 * the maximum comparison depth excludes the class mention itself.
+	 * 
+	 * @param ta
+	 * @param mentionComparator
+	 * @param maximumComparisonDepth
+	 * @return
+	 */
+	private static MatchKey getMatchKey(TextAnnotation ta, MentionComparator mentionComparator,
+			int maximumComparisonDepth) {
+		String mentionNameKey = null;
+		if (maximumComparisonDepth >= -1) {
+			mentionNameKey = mentionComparator.getMentionNameKey(ta.getClassMention());
+		}
+		return new MatchKey(ta.getDocumentCollectionID(), ta.getDocumentID(), mentionNameKey);
+	}
+
+	/**
+	 * Stores the properties that two annotations must share in order to match
+	 */
+	private static class MatchKey {
+		private final int documentCollectionID;
+		private final String documentID;
+		private final String mentionNameKey;
+
+		public MatchKey(int documentCollectionID, String documentID, String mentionNameKey) {
+			this.documentCollectionID = documentCollectionID;
+			this.documentID = documentID;
+			this.mentionNameKey = mentionNameKey;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = documentCollectionID;
+			hash = 31 * hash + ((documentID == null) ? 0 : documentID.hashCode());
+			hash = 31 * hash + ((mentionNameKey == null) ? 0 : mentionNameKey.hashCode());
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MatchKey)) {
+				return false;
+			}
+			MatchKey key = (MatchKey) obj;
+			return documentCollectionID == key.documentCollectionID && equalOrBothNull(documentID, key.documentID)
+					&& equalOrBothNull(mentionNameKey, key.mentionNameKey);
+		}
+
+		private static boolean equalOrBothNull(String str1, String str2) {
+			return (str1 == null) ? str2 == null : str1.equals(str2);
+		}
+	}
+
 	/**
 	 * Compare the meta data of two annotations (document ID, document collection ID, and span(s)).
 	 * A warning is issued if it is determined that two annotations do not have identical meta data
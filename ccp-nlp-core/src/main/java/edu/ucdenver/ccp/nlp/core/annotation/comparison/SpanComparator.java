@@ -33,6 +33,7 @@ package edu.ucdenver.ccp.nlp.core.annotation.comparison;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -124,8 +125,8 @@ public abstract class SpanComparator implements Comparator<Span> {
 	public int matches(List<Span> spanList1, List<Span> spanList2) {
 		SpanComparator sc = new StrictSpanComparator();
 		/* sort the lists just to be certain */
-		Collections.sort(spanList1, sc);
-		Collections.sort(spanList2, sc);
+		spanList1 = sort(spanList1, sc);
+		spanList2 = sort(spanList2, sc);
 
 		// if (spanList1.equals(spanList2)) {
 		// /* if the lists are identical, return 0 */
@@ -151,8 +152,8 @@ public abstract class SpanComparator implements Comparator<Span> {
 			 * there are members in both span lists, so pick the first and last member, since it is
 			 * sorted, and use them to determine what to return.
 			 */
-			Collections.sort(spanList1, sc);
-			Collections.sort(spanList2, sc);
+			spanList1 = sort(spanList1, sc);
+			spanList2 = sort(spanList2, sc);
 			Span firstSpanFromList1 = spanList1.get(0);
 			Span firstSpanFromList2 = spanList2.get(0);
 			Span lastSpanFromList1 = spanList1.get(spanList1.size() - 1);
@@ -304,8 +305,8 @@ public abstract class SpanComparator implements Comparator<Span> {
 			 * there are members in both span lists, so pick the first and last member, since it is
 			 * sorted, and use them to determine what to return.
 			 */
-			Collections.sort(spanList1, sc);
-			Collections.sort(spanList2, sc);
+			spanList1 = sort(spanList1, sc);
+			spanList2 = sort(spanList2, sc);
 			Span firstSpanFromList1 = spanList1.get(0);
 			Span firstSpanFromList2 = spanList2.get(0);
 			Span lastSpanFromList1 = spanList1.get(spanList1.size() - 1);
@@ -369,8 +370,8 @@ public abstract class SpanComparator implements Comparator<Span> {
 			 * there are members in both span lists, so pick the first and last member, since it is
 			 * sorted, and use them to determine what to return.
 			 */
-			Collections.sort(spanList1, sc);
-			Collections.sort(spanList2, sc);
+			spanList1 = sort(spanList1, sc);
+			spanList2 = sort(spanList2, sc);
 			Span firstSpanFromList1 = spanList1.get(0);
 			Span firstSpanFromList2 = spanList2.get(0);
 			Span lastSpanFromList1 = spanList1.get(spanList1.size() - 1);
@@ -434,8 +435,8 @@ public abstract class SpanComparator implements Comparator<Span> {
 			 * there are members in both span lists, so pick the first and last member, since it is
 			 * sorted, and use them to determine what to return.
 			 */
-			Collections.sort(spanList1, sc);
-			Collections.sort(spanList2, sc);
+			spanList1 = sort(spanList1, sc);
+			spanList2 = sort(spanList2, sc);
 			Span firstSpanFromList1 = spanList1.get(0);
 			Span firstSpanFromList2 = spanList2.get(0);
 			Span lastSpanFromList1 = spanList1.get(spanList1.size() - 1);
@@ -466,4 +467,30 @@ public abstract class SpanComparator implements Comparator<Span> {
 		return spansMustOverlapToMatch;
 	}
 
+	/**
+	 * Sorts the input span list in place using the input comparator, unless it is already in order.
+	 * Span lists obtained from annotations are normally already sorted and may be read-only (see
+	 * {@link edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation#getSpans()}); if a read-only list
+	 * is out of order, a sorted copy is returned instead.
+	 * 
+	 * @param spanList
+	 * @param sc
+	 * @return the sorted span list
+	 */
+	private static List<Span> sort(List<Span> spanList, SpanComparator sc) {
+		for (int i = 1; i < spanList.size(); i++) {
+			if (sc.compare(spanList.get(i - 1), spanList.get(i)) > 0) {
+				try {
+					Collections.sort(spanList, sc);
+					return spanList;
+				} catch (UnsupportedOperationException e) {
+					List<Span> sortedSpanList = new ArrayList<Span>(spanList);
+					Collections.sort(sortedSpanList, sc);
+					return sortedSpanList;
+				}
+			}
+		}
+		return spanList;
+	}
+
 }
@@ -43,6 +43,8 @@ import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
 import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
 import edu.ucdenver.ccp.nlp.core.annotation.InvalidSpanException;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil.MemoizedHashCode;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.metadata.AnnotationCommentProperty;
 import edu.ucdenver.ccp.nlp.core.annotation.metadata.AnnotationMetadata;
@@ -78,6 +80,15 @@ public class DefaultTextAnnotation extends TextAnnotation {
 
 	protected AnnotationMetadata annotationMetadata;
 
+	/*
+	 * incremented by the mutators; when spans or the class mention are replaced it is also advanced
+	 * past their counts so that the combined modification count never decreases
+	 */
+	private long modificationCount;
+
+	/* memoized hash code and the modification count it was computed at */
+	private volatile MemoizedHashCode memoizedHashCode;
+
 	/**
 	 * 
 	 * @param beginIndex
@@ -274,6 +285,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void setDocumentCollectionID(int documentCollectionID) {
+		modificationCount++;
 		this.documentCollectionID = documentCollectionID;
 	}
 
@@ -294,6 +306,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void setDocumentID(String documentID) {
+		modificationCount++;
 		this.documentID = documentID;
 	}
 
@@ -352,6 +365,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void setSpans(List<Span> spans) {
+		modificationCount += StructuralHashUtil.spanListModificationCount(spanList) + 1;
 		spanList = new ArrayList<Span>();
 		for (Span span : spans) {
 			addSpan(span);
@@ -365,6 +379,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void setSpan(Span span) {
+		modificationCount += StructuralHashUtil.spanListModificationCount(spanList) + 1;
 		spanList = new ArrayList<Span>();
 		addSpan(span);
 	}
@@ -377,6 +392,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void addSpan(Span span) {
+		modificationCount++;
 		if (!spanList.contains(span)) {
 			spanList.add(span);
 		}
@@ -480,6 +496,7 @@ public class DefaultTextAnnotation extends TextAnnotation {
 	 */
 	@Override
 	public void setClassMention(ClassMention classMention) {
+		modificationCount += Math.max(0, getClassMentionModificationCount()) + 1;
 		if (classMention instanceof DefaultClassMention) {
 			this.classMention = classMention;
 			super.setClassMention(classMention);
@@ -525,4 +542,29 @@ public class DefaultTextAnnotation extends TextAnnotation {
 		annotationMetadata.addMetadataProperty(prop);
 	}
 
+	private long getClassMentionModificationCount() {
+		return (classMention == null) ? 0 : classMention.getModificationCount();
+	}
+
+	/**
+	 * The hash code is memoized and recomputed only after this annotation, one of its spans or its
+	 * class mention has been modified through their mutators. Spans must not be added to or removed
+	 * from the list returned by {@link #getSpans()} directly.
+	 */
+	@Override
+	public int hashCode() {
+		long classMentionCount = getClassMentionModificationCount();
+		if (classMentionCount == StructuralHashUtil.UNTRACKED_MODIFICATION_COUNT) {
+			return super.hashCode();
+		}
+		long currentModificationCount = modificationCount + StructuralHashUtil.spanListModificationCount(spanList)
+				+ classMentionCount;
+		MemoizedHashCode memoized = memoizedHashCode;
+		if (memoized == null || !memoized.isCurrent(currentModificationCount)) {
+			memoized = new MemoizedHashCode(currentModificationCount, super.hashCode());
+			memoizedHashCode = memoized;
+		}
+		return memoized.getHashCode();
+	}
+
 }
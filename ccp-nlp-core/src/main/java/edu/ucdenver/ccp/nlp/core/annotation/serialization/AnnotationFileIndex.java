@@ -0,0 +1,343 @@
+package edu.ucdenver.ccp.nlp.core.annotation.serialization;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationUtil;
+
+/**
+ * Provides random access, by document ID, to the annotations stored in a file produced by
+ * {@link AnnotationToFileOutput}, i.e. one annotation per line:
+ * 
+ * <pre>
+ * documentID|annotatorID|spanStart spanEnd|classMentionName|coveredText|slotname1|slot1value1,slot1Value2
+ * </pre>
+ * 
+ * The first time a file is indexed, the byte offset and length of the lines for each document are
+ * recorded and saved to an index file beside the annotation file (the annotation file name plus
+ * {@link #INDEX_FILE_SUFFIX}). The saved index is reused as long as the annotation file has not
+ * been modified since the index was created. The annotation file is memory-mapped and only the
+ * lines for the requested document are parsed, so memory use does not grow with the size of the
+ * annotation file.
+ * <p>
+ * Lines are located by searching for line feed bytes, so the annotation file must use an encoding
+ * in which the line feed and pipe characters are encoded as single ASCII bytes, e.g. UTF-8 or
+ * US-ASCII.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationFileIndex implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(AnnotationFileIndex.class);
+
+	public static final String INDEX_FILE_SUFFIX = ".idx";
+
+	private static final String INDEX_FILE_HEADER_PREFIX = "#";
+
+	/**
+	 * The annotation file is mapped in segments of this size as a single mapping cannot exceed 2GB
+	 */
+	private static final long MAPPED_SEGMENT_SIZE = 1L << 30;
+
+	private final File annotationFile;
+	private final Charset charset;
+	private final Map<String, List<long[]>> documentID2ByteRangesMap;
+	private final RandomAccessFile randomAccessFile;
+	private final List<MappedByteBuffer> mappedSegments;
+
+	/**
+	 * Creates an index for the input annotation file, loading a previously saved index if a
+	 * current one is available
+	 * 
+	 * @param annotationFile
+	 * @param encoding
+	 * @throws IOException
+	 */
+	public AnnotationFileIndex(File annotationFile, CharacterEncoding encoding) throws IOException {
+		this.annotationFile = annotationFile;
+		this.charset = Charset.forName(encoding.getCharacterSetName());
+
+		File indexFile = getIndexFile(annotationFile);
+		Map<String, List<long[]>> byteRangesMap = loadIndex(annotationFile, indexFile);
+		if (byteRangesMap == null) {
+			logger.info("Indexing annotation file: " + annotationFile.getAbsolutePath());
+			byteRangesMap = buildIndex(annotationFile);
+			try {
+				saveIndex(annotationFile, indexFile, byteRangesMap);
+			} catch (IOException e) {
+				logger.warn("Unable to save annotation file index to: " + indexFile.getAbsolutePath()
+						+ ". The index will be rebuilt next time.", e);
+			}
+		}
+		documentID2ByteRangesMap = byteRangesMap;
+
+		randomAccessFile = new RandomAccessFile(annotationFile, "r");
+		mappedSegments = new ArrayList<MappedByteBuffer>();
+		FileChannel channel = randomAccessFile.getChannel();
+		long fileLength = channel.size();
+		for (long position = 0; position < fileLength; position += MAPPED_SEGMENT_SIZE) {
+			mappedSegments.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(MAPPED_SEGMENT_SIZE, fileLength - position)));
+		}
+	}
+
+	/**
+	 * @param annotationFile
+	 * @return the file used to store the index for the input annotation file
+	 */
+	public static File getIndexFile(File annotationFile) {
+		return new File(annotationFile.getPath() + INDEX_FILE_SUFFIX);
+	}
+
+	/**
+	 * @param documentID
+	 * @return true if the annotation file contains annotations for the specified document
+	 */
+	public boolean containsDocument(String documentID) {
+		return documentID2ByteRangesMap.containsKey(documentID);
+	}
+
+	/**
+	 * @return the IDs of the documents that have annotations in the annotation file
+	 */
+	public Iterable<String> getDocumentIDs() {
+		return Collections.unmodifiableSet(documentID2ByteRangesMap.keySet());
+	}
+
+	/**
+	 * Parses and returns the annotations for the specified document. Annotations are returned in
+	 * the order in which they appear in the annotation file.
+	 * 
+	 * @param documentID
+	 * @return the annotations for the specified document, or an empty list if there are none
+	 */
+	public List<TextAnnotation> getAnnotations(String documentID) {
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		List<long[]> byteRanges = documentID2ByteRangesMap.get(documentID);
+		if (byteRanges == null) {
+			return annotations;
+		}
+		for (long[] byteRange : byteRanges) {
+			String lines = new String(readBytes(byteRange[0], (int) byteRange[1]), charset);
+			for (String line : lines.split("\\r?\\n")) {
+				if (line.trim().length() == 0) {
+					continue;
+				}
+				TextAnnotation ta = TextAnnotationUtil.getAnnotationFromLine(line);
+				if (ta != null) {
+					annotations.add(ta);
+				}
+			}
+		}
+		return annotations;
+	}
+
+	private byte[] readBytes(long offset, int length) {
+		byte[] bytes = new byte[length];
+		int copied = 0;
+		while (copied < length) {
+			long position = offset + copied;
+			MappedByteBuffer segment = mappedSegments.get((int) (position / MAPPED_SEGMENT_SIZE));
+			/* duplicate so that concurrent readers do not share the buffer position */
+			ByteBuffer buffer = segment.duplicate();
+			buffer.position((int) (position % MAPPED_SEGMENT_SIZE));
+			int count = Math.min(length - copied, buffer.remaining());
+			buffer.get(bytes, copied, count);
+			copied += count;
+		}
+		return bytes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		mappedSegments.clear();
+		randomAccessFile.close();
+	}
+
+	/**
+	 * Scans the annotation file and records the byte ranges of the lines belonging to each
+	 * document. Consecutive lines for the same document are stored as a single range.
+	 * 
+	 * @param annotationFile
+	 * @return
+	 * @throws IOException
+	 */
+	private Map<String, List<long[]>> buildIndex(File annotationFile) throws IOException {
+		Map<String, List<long[]>> byteRangesMap = new LinkedHashMap<String, List<long[]>>();
+		InputStream is = new BufferedInputStream(new FileInputStream(annotationFile));
+		try {
+			long lineStart = 0;
+			long position = 0;
+			ByteArrayOutputStream documentIDBuffer = new ByteArrayOutputStream();
+			boolean inDocumentID = true;
+			int b;
+			while ((b = is.read()) != -1) {
+				position++;
+				if (b == '\n') {
+					addLineToIndex(byteRangesMap, documentIDBuffer, inDocumentID, lineStart, position);
+					documentIDBuffer.reset();
+					inDocumentID = true;
+					lineStart = position;
+				} else if (inDocumentID) {
+					if (b == '|') {
+						inDocumentID = false;
+					} else {
+						documentIDBuffer.write(b);
+					}
+				}
+			}
+			if (position > lineStart) {
+				addLineToIndex(byteRangesMap, documentIDBuffer, inDocumentID, lineStart, position);
+			}
+		} finally {
+			is.close();
+		}
+		return byteRangesMap;
+	}
+
+	private void addLineToIndex(Map<String, List<long[]>> byteRangesMap, ByteArrayOutputStream documentIDBuffer,
+			boolean inDocumentID, long lineStart, long lineEnd) {
+		if (inDocumentID) {
+			/* no pipe was found so this line does not hold an annotation */
+			if (documentIDBuffer.size() > 0 && new String(documentIDBuffer.toByteArray(), charset).trim().length() > 0) {
+				logger.error("Expected a pipe-delimited annotation at byte offset " + lineStart + " of annotation file: "
+						+ annotationFile.getAbsolutePath());
+			}
+			return;
+		}
+		String documentID = new String(documentIDBuffer.toByteArray(), charset);
+		List<long[]> byteRanges = byteRangesMap.get(documentID);
+		if (byteRanges == null) {
+			byteRanges = new ArrayList<long[]>();
+			byteRangesMap.put(documentID, byteRanges);
+		}
+		long[] lastRange = (byteRanges.isEmpty()) ? null : byteRanges.get(byteRanges.size() - 1);
+		if (lastRange != null && lastRange[0] + lastRange[1] == lineStart
+				&& lastRange[1] + (lineEnd - lineStart) <= Integer.MAX_VALUE) {
+			lastRange[1] += (lineEnd - lineStart);
+		} else {
+			byteRanges.add(new long[] { lineStart, lineEnd - lineStart });
+		}
+	}
+
+	/**
+	 * The saved index begins with a header line recording the length and modification time of the
+	 * annotation file, followed by one line per byte range: documentID [tab] offset [tab] length
+	 */
+	private static void saveIndex(File annotationFile, File indexFile, Map<String, List<long[]>> byteRangesMap)
+			throws IOException {
+		BufferedWriter writer = FileWriterUtil.initBufferedWriter(indexFile, CharacterEncoding.UTF_8,
+				WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+		try {
+			writer.write(getIndexFileHeader(annotationFile));
+			writer.newLine();
+			for (Map.Entry<String, List<long[]>> entry : byteRangesMap.entrySet()) {
+				for (long[] byteRange : entry.getValue()) {
+					writer.write(entry.getKey() + "\t" + byteRange[0] + "\t" + byteRange[1]);
+					writer.newLine();
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @return the saved index, or null if there is no saved index or it is out of date
+	 */
+	private static Map<String, List<long[]>> loadIndex(File annotationFile, File indexFile) throws IOException {
+		if (!indexFile.exists()) {
+			return null;
+		}
+		BufferedReader reader = FileReaderUtil.initBufferedReader(indexFile, CharacterEncoding.UTF_8);
+		try {
+			String header = reader.readLine();
+			if (header == null || !header.equals(getIndexFileHeader(annotationFile))) {
+				logger.info("Annotation file index is out of date and will be rebuilt: " + indexFile.getAbsolutePath());
+				return null;
+			}
+			Map<String, List<long[]>> byteRangesMap = new LinkedHashMap<String, List<long[]>>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int lengthIndex = line.lastIndexOf('\t');
+				int offsetIndex = line.lastIndexOf('\t', lengthIndex - 1);
+				String documentID = line.substring(0, offsetIndex);
+				List<long[]> byteRanges = byteRangesMap.get(documentID);
+				if (byteRanges == null) {
+					byteRanges = new ArrayList<long[]>();
+					byteRangesMap.put(documentID, byteRanges);
+				}
+				byteRanges.add(new long[] { Long.parseLong(line.substring(offsetIndex + 1, lengthIndex)),
+						Long.parseLong(line.substring(lengthIndex + 1)) });
+			}
+			return byteRangesMap;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static String getIndexFileHeader(File annotationFile) {
+		return INDEX_FILE_HEADER_PREFIX + annotationFile.length() + "\t" + annotationFile.lastModified();
+	}
+
+}
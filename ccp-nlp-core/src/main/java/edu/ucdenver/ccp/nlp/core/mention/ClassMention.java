@@ -33,8 +33,12 @@ package edu.ucdenver.ccp.nlp.core.mention;
  * #L%
  */
 
+import java.util.Collection;
+
 import org.apache.log4j.Logger;
 
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.IdenticalMentionComparator;
 
 /**
@@ -87,9 +91,38 @@ public abstract class ClassMention extends Mention implements IClassMention {
 		return "\"" + annotationString + "\"\t" + spanStr;
 	}
 
+	/**
+	 * Returns a hash code computed from the mention name (ignoring case) and the primitive slot
+	 * mentions of this class mention. The primitive slot mentions are combined independently of
+	 * their order. Complex slot mentions are not considered as the mention graph they reference may
+	 * be cyclic or shared between class mentions.
+	 * 
+	 * @return
+	 */
+	public int getStructuralHashCode() {
+		int hash = StructuralHashUtil.caseInsensitiveHashCode(getMentionName());
+		int slotHash = 0;
+		Collection<PrimitiveSlotMention> primitiveSlotMentions = getPrimitiveSlotMentions();
+		if (primitiveSlotMentions != null) {
+			for (PrimitiveSlotMention psm : primitiveSlotMentions) {
+				slotHash += psm.hashCode();
+			}
+		}
+		return 31 * hash + slotHash;
+	}
+
+	/**
+	 * The hash code combines the structural hash code (see {@link #getStructuralHashCode()}) with the
+	 * spans of the referencing text annotation.
+	 */
 	@Override
 	public int hashCode() {
-		return getSingleLineRepresentation().hashCode();
+		int hash = getStructuralHashCode();
+		TextAnnotation ta = getTextAnnotation();
+		if (ta != null) {
+			hash = 31 * hash + StructuralHashUtil.spanListHashCode(ta.getSpans());
+		}
+		return hash;
 	}
 
 	/**
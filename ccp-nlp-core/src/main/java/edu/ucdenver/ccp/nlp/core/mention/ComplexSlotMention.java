@@ -35,6 +35,8 @@ package edu.ucdenver.ccp.nlp.core.mention;
 
 import java.util.Collection;
 
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
+
 /**
  * A slot mention is deemed "complex" when its slot filler is a class mention as opposed to an
  * Object, which is typically a String.
@@ -145,4 +147,13 @@ public abstract class ComplexSlotMention extends SlotMention<ClassMention> {
 
 	}
 
+	/**
+	 * The hash code is computed from the slot mention name (ignoring case) and the number of class
+	 * mentions filling this slot.
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * StructuralHashUtil.caseInsensitiveHashCode(getMentionName()) + getClassMentions().size();
+	}
+
 }
@@ -45,6 +45,7 @@ import org.apache.log4j.Logger;
 
 import edu.ucdenver.ccp.common.collections.tree.Tree;
 import edu.ucdenver.ccp.common.collections.tree.TreeNode;
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
 
 /**
  * The superclass for all mentions, <code>ClassMention</code>,<code>SlotMention</code>,
@@ -317,8 +318,24 @@ public abstract class Mention implements Comparable<Mention> {
 	@Override
 	public abstract boolean equals(Object obj);
 
+	/**
+	 * Returns a count that increases whenever this mention, or a primitive slot mention it holds, is
+	 * modified. Hash codes derived from the mention may be memoized while the count is unchanged.
+	 * Mentions that do not track their modifications, including this default implementation, return
+	 * {@link StructuralHashUtil#UNTRACKED_MODIFICATION_COUNT}.
+	 * 
+	 * @return
+	 */
+	public long getModificationCount() {
+		return StructuralHashUtil.UNTRACKED_MODIFICATION_COUNT;
+	}
+
+	/**
+	 * The default hash code is computed from the mention name, ignoring case, as mention names are
+	 * compared case-insensitively.
+	 */
 	@Override
 	public int hashCode() {
-		return this.toString().hashCode();
+		return StructuralHashUtil.caseInsensitiveHashCode(getMentionName());
 	}
 }
@@ -35,6 +35,7 @@ package edu.ucdenver.ccp.nlp.core.mention;
 
 import java.util.List;
 
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.IdenticalMentionComparator;
 
 /**
@@ -106,6 +107,16 @@ public abstract class PrimitiveSlotMention<E> extends SlotMention<E> implements
 		}
 	}
 
+	/**
+	 * The hash code is computed from the slot mention name (ignoring case) and the slot values
+	 * (independent of their order).
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * StructuralHashUtil.caseInsensitiveHashCode(getMentionName())
+				+ StructuralHashUtil.slotValuesHashCode(getSlotValues());
+	}
+
 	public abstract void addSlotValueAsString(String slotValue) throws InvalidInputException;
 
 }
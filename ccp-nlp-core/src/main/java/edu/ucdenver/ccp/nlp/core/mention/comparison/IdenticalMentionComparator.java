@@ -52,4 +52,19 @@ public class IdenticalMentionComparator extends MentionComparator {
 		return mention1.getMentionName().equalsIgnoreCase(mention2.getMentionName());
 	}
 
+	/**
+	 * Returns the mention name with each character case-folded in the same manner as
+	 * {@link String#equalsIgnoreCase(String)}. Subclasses that override
+	 * hasEquivalentMentionNames() must also override this method.
+	 */
+	@Override
+	public String getMentionNameKey(Mention mention) {
+		String mentionName = mention.getMentionName();
+		StringBuilder sb = new StringBuilder(mentionName.length());
+		for (int i = 0; i < mentionName.length(); i++) {
+			sb.append(Character.toLowerCase(Character.toUpperCase(mentionName.charAt(i))));
+		}
+		return sb.toString();
+	}
+
 }
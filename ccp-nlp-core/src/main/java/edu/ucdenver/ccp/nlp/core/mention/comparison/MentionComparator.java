@@ -173,6 +173,19 @@ public abstract class MentionComparator implements Comparator<Mention> {
 
 	protected abstract boolean hasEquivalentMentionNames(Mention mention1, Mention mention2);
 
+	/**
+	 * Returns a key for the mention name of the input mention such that
+	 * hasEquivalentMentionNames() can only return true for two mentions if their keys are equal.
+	 * This allows mentions to be partitioned by name prior to comparison. Returns null if the
+	 * comparator does not support such a key, which is the default.
+	 * 
+	 * @param mention
+	 * @return
+	 */
+	public String getMentionNameKey(Mention mention) {
+		return null;
+	}
+
 	private int compareMentionTreeNodes(TreeNode<Mention> nodeForMention1, TreeNode<Mention> nodeForMention2,
 			SpanComparator spanComparator) {
 		Mention mention1 = nodeForMention1.getNodeValue();
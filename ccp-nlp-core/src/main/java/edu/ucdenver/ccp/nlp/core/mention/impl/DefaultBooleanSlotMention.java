@@ -49,6 +49,15 @@ public class DefaultBooleanSlotMention extends BooleanSlotMention {
 	private long mentionID;
 	protected Collection<Boolean> slotValues;
 
+	/* the view returned by getSlotValues(), recreated when slotValues is replaced */
+	private ModificationTrackingCollection<Boolean> slotValuesView;
+
+	/*
+	 * incremented by the mutators and by changes made through the slot values view, used to
+	 * invalidate memoized hash codes
+	 */
+	private long modificationCount;
+
 	public DefaultBooleanSlotMention(String mentionName) {
 		super((Object[]) null);
 		this.mentionName = mentionName;
@@ -67,11 +76,24 @@ public class DefaultBooleanSlotMention extends BooleanSlotMention {
 				+ " class does not support wrapping of another object.");
 	}
 
+	/**
+	 * @return a live view of the slot values. Changes made through the view modify the slot
+	 *         values of this slot mention.
+	 */
 	public Collection<Boolean> getSlotValues() {
-		return slotValues;
+		if (slotValuesView == null || !slotValuesView.isViewOf(slotValues)) {
+			slotValuesView = new ModificationTrackingCollection<Boolean>(slotValues) {
+				@Override
+				protected void modified() {
+					modificationCount++;
+				}
+			};
+		}
+		return slotValuesView;
 	}
 
 	public void overwriteSlotValues(Boolean slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<Boolean>();
 		slotValues.add(slotValue);
 	}
@@ -93,7 +115,13 @@ public class DefaultBooleanSlotMention extends BooleanSlotMention {
 
 	@Override
 	public void setMentionName(String mentionName) {
+		modificationCount++;
 		this.mentionName = mentionName;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 }
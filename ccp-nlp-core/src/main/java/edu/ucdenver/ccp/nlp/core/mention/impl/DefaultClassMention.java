@@ -37,6 +37,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.StructuralHashUtil.MemoizedHashCode;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
@@ -56,6 +58,15 @@ public class DefaultClassMention extends ClassMention {
 	protected Map<String, ComplexSlotMention> complexSlotMentionsMap;
 	protected DefaultTextAnnotation textAnnotation;
 
+	/*
+	 * incremented by the mutators; when slot mentions are replaced it is also advanced past their
+	 * counts so that getModificationCount() never decreases
+	 */
+	private long modificationCount;
+
+	/* memoized structural hash code and the modification count it was computed at */
+	private volatile MemoizedHashCode memoizedStructuralHashCode;
+
 	public DefaultClassMention(String mentionName) {
 		super((Object[]) null);
 		this.mentionName = mentionName;
@@ -83,6 +94,8 @@ public class DefaultClassMention extends ClassMention {
 
 	@Override
 	public void setPrimitiveSlotMentions(Collection<PrimitiveSlotMention> primitiveSlotMentions) {
+		modificationCount += Math.max(0, StructuralHashUtil.mentionsModificationCount(primitiveSlotMentionsMap
+				.values())) + 1;
 		this.primitiveSlotMentionsMap = new HashMap<String, PrimitiveSlotMention>();
 		for (PrimitiveSlotMention psm : primitiveSlotMentions) {
 			addPrimitiveSlotMention(psm);
@@ -104,6 +117,7 @@ public class DefaultClassMention extends ClassMention {
 
 	@Override
 	public void addPrimitiveSlotMention(PrimitiveSlotMention sm) {
+		modificationCount++;
 		if (primitiveSlotMentionsMap.containsKey(sm.getMentionName())) {
 			try {
 				primitiveSlotMentionsMap.get(sm.getMentionName()).addSlotValues(sm.getSlotValues());
@@ -234,7 +248,39 @@ public class DefaultClassMention extends ClassMention {
 
 	@Override
 	public void setMentionName(String mentionName) {
+		modificationCount++;
 		this.mentionName = mentionName;
 	}
 
+	/**
+	 * The modification count of a class mention includes the modification counts of its primitive
+	 * slot mentions, as these contribute to the structural hash code.
+	 */
+	@Override
+	public long getModificationCount() {
+		long slotMentionsCount = StructuralHashUtil.mentionsModificationCount(primitiveSlotMentionsMap.values());
+		if (slotMentionsCount == StructuralHashUtil.UNTRACKED_MODIFICATION_COUNT) {
+			return StructuralHashUtil.UNTRACKED_MODIFICATION_COUNT;
+		}
+		return modificationCount + slotMentionsCount;
+	}
+
+	/**
+	 * The structural hash code is memoized and recomputed only after this class mention or one of
+	 * its primitive slot mentions has been modified (see {@link #getModificationCount()}).
+	 */
+	@Override
+	public int getStructuralHashCode() {
+		long currentModificationCount = getModificationCount();
+		if (currentModificationCount == StructuralHashUtil.UNTRACKED_MODIFICATION_COUNT) {
+			return super.getStructuralHashCode();
+		}
+		MemoizedHashCode memoized = memoizedStructuralHashCode;
+		if (memoized == null || !memoized.isCurrent(currentModificationCount)) {
+			memoized = new MemoizedHashCode(currentModificationCount, super.getStructuralHashCode());
+			memoizedStructuralHashCode = memoized;
+		}
+		return memoized.getHashCode();
+	}
+
 }
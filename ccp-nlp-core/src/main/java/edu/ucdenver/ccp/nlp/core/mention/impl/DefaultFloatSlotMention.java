@@ -48,6 +48,15 @@ public class DefaultFloatSlotMention extends FloatSlotMention {
 	private long mentionID;
 	protected Collection<Float> slotValues;
 
+	/* the view returned by getSlotValues(), recreated when slotValues is replaced */
+	private ModificationTrackingCollection<Float> slotValuesView;
+
+	/*
+	 * incremented by the mutators and by changes made through the slot values view, used to
+	 * invalidate memoized hash codes
+	 */
+	private long modificationCount;
+
 	public DefaultFloatSlotMention(String mentionName) {
 		super((Object[]) null);
 		this.mentionName = mentionName;
@@ -67,6 +76,7 @@ public class DefaultFloatSlotMention extends FloatSlotMention {
 	}
 
 	public void addSlotValue(Float slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues.add(slotValue);
 	}
 
@@ -76,16 +86,30 @@ public class DefaultFloatSlotMention extends FloatSlotMention {
 		}
 	}
 
+	/**
+	 * @return a live view of the slot values. Changes made through the view modify the slot
+	 *         values of this slot mention.
+	 */
 	public Collection<Float> getSlotValues() {
-		return slotValues;
+		if (slotValuesView == null || !slotValuesView.isViewOf(slotValues)) {
+			slotValuesView = new ModificationTrackingCollection<Float>(slotValues) {
+				@Override
+				protected void modified() {
+					modificationCount++;
+				}
+			};
+		}
+		return slotValuesView;
 	}
 
 	public void overwriteSlotValues(Float slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<Float>();
 		addSlotValue(slotValue);
 	}
 
 	public void setSlotValues(Collection<Float> slotValues) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<Float>();
 		addSlotValues(slotValues);
 	}
@@ -107,7 +131,13 @@ public class DefaultFloatSlotMention extends FloatSlotMention {
 
 	@Override
 	public void setMentionName(String mentionName) {
+		modificationCount++;
 		this.mentionName = mentionName;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 }
@@ -48,6 +48,15 @@ public class DefaultIntegerSlotMention extends IntegerSlotMention {
 	private long mentionID;
 	protected Collection<Integer> slotValues;
 
+	/* the view returned by getSlotValues(), recreated when slotValues is replaced */
+	private ModificationTrackingCollection<Integer> slotValuesView;
+
+	/*
+	 * incremented by the mutators and by changes made through the slot values view, used to
+	 * invalidate memoized hash codes
+	 */
+	private long modificationCount;
+
 	public DefaultIntegerSlotMention(String mentionName) {
 		super((Object[]) null);
 		this.mentionName = mentionName;
@@ -67,6 +76,7 @@ public class DefaultIntegerSlotMention extends IntegerSlotMention {
 	}
 
 	public void addSlotValue(Integer slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues.add(slotValue);
 	}
 
@@ -76,16 +86,30 @@ public class DefaultIntegerSlotMention extends IntegerSlotMention {
 		}
 	}
 
+	/**
+	 * @return a live view of the slot values. Changes made through the view modify the slot
+	 *         values of this slot mention.
+	 */
 	public Collection<Integer> getSlotValues() {
-		return slotValues;
+		if (slotValuesView == null || !slotValuesView.isViewOf(slotValues)) {
+			slotValuesView = new ModificationTrackingCollection<Integer>(slotValues) {
+				@Override
+				protected void modified() {
+					modificationCount++;
+				}
+			};
+		}
+		return slotValuesView;
 	}
 
 	public void overwriteSlotValues(Integer slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<Integer>();
 		addSlotValue(slotValue);
 	}
 
 	public void setSlotValues(Collection<Integer> slotValues) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<Integer>();
 		addSlotValues(slotValues);
 	}
@@ -107,7 +131,13 @@ public class DefaultIntegerSlotMention extends IntegerSlotMention {
 
 	@Override
 	public void setMentionName(String mentionName) {
+		modificationCount++;
 		this.mentionName = mentionName;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 }
@@ -48,6 +48,15 @@ public class DefaultStringSlotMention extends StringSlotMention {
 	private long mentionID;
 	Collection<String> slotValues;
 
+	/* the view returned by getSlotValues(), recreated when slotValues is replaced */
+	private ModificationTrackingCollection<String> slotValuesView;
+
+	/*
+	 * incremented by the mutators and by changes made through the slot values view, used to
+	 * invalidate memoized hash codes
+	 */
+	private long modificationCount;
+
 	public DefaultStringSlotMention(String mentionName) {
 		super((Object[]) null);
 		this.mentionName = mentionName;
@@ -67,6 +76,7 @@ public class DefaultStringSlotMention extends StringSlotMention {
 	}
 
 	public void addSlotValue(String slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues.add(slotValue);
 	}
 
@@ -76,16 +86,30 @@ public class DefaultStringSlotMention extends StringSlotMention {
 		}
 	}
 
+	/**
+	 * @return a live view of the slot values. Changes made through the view modify the slot
+	 *         values of this slot mention.
+	 */
 	public Collection<String> getSlotValues() {
-		return slotValues;
+		if (slotValuesView == null || !slotValuesView.isViewOf(slotValues)) {
+			slotValuesView = new ModificationTrackingCollection<String>(slotValues) {
+				@Override
+				protected void modified() {
+					modificationCount++;
+				}
+			};
+		}
+		return slotValuesView;
 	}
 
 	public void overwriteSlotValues(String slotValue) throws InvalidInputException {
+		modificationCount++;
 		slotValues = new ArrayList<String>();
 		addSlotValue(slotValue);
 	}
 
 	public void setSlotValues(Collection<String> slotValues) throws InvalidInputException {
+		modificationCount++;
 		this.slotValues = new ArrayList<String>();
 		addSlotValues(slotValues);
 	}
@@ -107,7 +131,13 @@ public class DefaultStringSlotMention extends StringSlotMention {
 
 	@Override
 	public void setMentionName(String mentionName) {
+		modificationCount++;
 		this.mentionName = mentionName;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 }
@@ -0,0 +1,128 @@
+package edu.ucdenver.ccp.nlp.core.mention.impl;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A live view of the slot values of a default slot mention. Changes made through the view are
+ * written through to the slot values, as they were when the slot values collection itself was
+ * returned, and are reported to the slot mention so that hash codes memoized over it are
+ * invalidated.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ * @param <E>
+ *            the slot value type
+ */
+abstract class ModificationTrackingCollection<E> extends AbstractCollection<E> {
+
+	private final Collection<E> collection;
+
+	public ModificationTrackingCollection(Collection<E> collection) {
+		this.collection = collection;
+	}
+
+	/**
+	 * Called after the underlying collection has been changed through this view
+	 */
+	protected abstract void modified();
+
+	/**
+	 * @param collection
+	 * @return true if this is a view of the input collection
+	 */
+	public boolean isViewOf(Collection<E> collection) {
+		return this.collection == collection;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		final Iterator<E> iterator = collection.iterator();
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				modified();
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return collection.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return collection.contains(o);
+	}
+
+	@Override
+	public boolean add(E e) {
+		boolean changed = collection.add(e);
+		modified();
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		collection.clear();
+		modified();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj == this || collection.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return collection.hashCode();
+	}
+
+}
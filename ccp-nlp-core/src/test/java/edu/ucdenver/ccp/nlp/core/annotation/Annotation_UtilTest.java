@@ -574,4 +574,44 @@ public class Annotation_UtilTest extends DefaultTestCase {
 
 	}
 
+	@Test
+	public void testCopyToDefaultTextAnnotation() throws Exception {
+		DefaultClassMention proteinCm = new DefaultClassMention("protein");
+		StringSlotMention idSlot = new DefaultStringSlotMention("entrez gene id");
+		idSlot.addSlotValue("12345");
+		proteinCm.addPrimitiveSlotMention(idSlot);
+		TextAnnotation proteinTa = new DefaultTextAnnotation(0, 5, "ABC-1", new Annotator(-1, "first", "last",
+				"affiliation"), new AnnotationSet(), -1, -1, "1234", -1, proteinCm);
+
+		DefaultClassMention transportCm = new DefaultClassMention("protein transport");
+		DefaultComplexSlotMention transportedEntitySlot = new DefaultComplexSlotMention("transported entity");
+		transportedEntitySlot.addClassMention(proteinCm);
+		transportCm.addComplexSlotMention(transportedEntitySlot);
+		TextAnnotation transportTa = new DefaultTextAnnotation(10, 19, "transport", new Annotator(-1, "first",
+				"last", "affiliation"), new AnnotationSet(), 7, -1, "1234", -1, transportCm);
+
+		/* create a cycle in the mention structure */
+		DefaultComplexSlotMention transportedBySlot = new DefaultComplexSlotMention("transported by");
+		transportedBySlot.addClassMention(transportCm);
+		proteinCm.addComplexSlotMention(transportedBySlot);
+
+		TextAnnotation transportTaCopy = Annotation_Util.copyToDefaultTextAnnotation(transportTa);
+		assertFalse(transportTa == transportTaCopy);
+		assertEquals(transportTa, transportTaCopy);
+		assertEquals(7, transportTaCopy.getAnnotationID());
+		assertEquals("transport", transportTaCopy.getCoveredText());
+
+		ClassMention proteinCmCopy = transportTaCopy.getClassMention()
+				.getComplexSlotMentionByName("transported entity").getClassMentions().iterator().next();
+		assertFalse(proteinCm == proteinCmCopy);
+		assertEquals(new Span(0, 5), proteinCmCopy.getTextAnnotation().getSpans().get(0));
+		assertEquals("12345", proteinCmCopy.getPrimitiveSlotMentionByName("entrez gene id").getSingleSlotValue());
+		assertTrue(transportTaCopy.getClassMention() == proteinCmCopy.getComplexSlotMentionByName("transported by")
+				.getClassMentions().iterator().next());
+
+		/* changes to the copy do not affect the original */
+		transportTaCopy.getSpans().get(0).setSpanEnd(25);
+		assertEquals(19, transportTa.getAnnotationSpanEnd());
+	}
+
 }
@@ -53,6 +53,7 @@ import org.junit.Test;
 import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.InvalidInputException;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultStringSlotMention;
 
 /**
  * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
@@ -259,6 +260,93 @@ public class TextAnnotationTest {
 		assertFalse(ta0.equals(ta5));
 	}
 
+	/**
+	 * Test that the hash code is consistent with equals() for class mention names that differ only
+	 * in case and slot values that are stored in a different order, and that the memoized hash code
+	 * is updated when the annotation or its class mention is modified.
+	 */
+	@Test
+	public void testHashCode() throws Exception {
+		DefaultClassMention cm1 = new DefaultClassMention("protein");
+		DefaultStringSlotMention sm1 = new DefaultStringSlotMention("entrez_gene_id");
+		sm1.addSlotValue("12345");
+		sm1.addSlotValue("67890");
+		cm1.addPrimitiveSlotMention(sm1);
+		TextAnnotation ta1 = new DefaultTextAnnotation(4, 7, "coveredText", new Annotator(5, "", "", ""),
+				new AnnotationSet(), 12, 8, "9", 10, cm1);
+
+		DefaultClassMention cm2 = new DefaultClassMention("PROTEIN");
+		DefaultStringSlotMention sm2 = new DefaultStringSlotMention("Entrez_Gene_ID");
+		sm2.addSlotValue("67890");
+		sm2.addSlotValue("12345");
+		cm2.addPrimitiveSlotMention(sm2);
+		TextAnnotation ta2 = new DefaultTextAnnotation(4, 7, "coveredText", new Annotator(6, "", "", ""),
+				new AnnotationSet(), 13, 8, "9", 10, cm2);
+
+		assertTrue(ta1.equals(ta2));
+		assertEquals(ta1.hashCode(), ta2.hashCode());
+		Set<TextAnnotation> taSet = new HashSet<TextAnnotation>();
+		taSet.add(ta1);
+		taSet.add(ta2);
+		assertEquals(1, taSet.size());
+
+		/* modifying a slot value must be reflected in the memoized hash code */
+		int hashCode = ta2.hashCode();
+		sm2.addSlotValue("11111");
+		assertFalse(hashCode == ta2.hashCode());
+		assertFalse(ta1.equals(ta2));
+
+		/* as must modifying the span */
+		hashCode = ta1.hashCode();
+		ta1.setAnnotationSpanEnd(9);
+		assertFalse(hashCode == ta1.hashCode());
+	}
+
+	/**
+	 * Test that the memoized hash code follows modifications made directly to spans and slot
+	 * mentions (including through their slot values collections), and to a class mention that
+	 * replaced a more frequently modified one
+	 */
+	@Test
+	public void testMemoizedHashCodeFollowsChildModifications() throws Exception {
+		DefaultClassMention cm = new DefaultClassMention("protein");
+		DefaultStringSlotMention sm = new DefaultStringSlotMention("entrez_gene_id");
+		sm.addSlotValue("12345");
+		sm.addSlotValue("67890");
+		cm.addPrimitiveSlotMention(sm);
+		TextAnnotation ta = new DefaultTextAnnotation(4, 7, "coveredText", new Annotator(5, "", "", ""),
+				new AnnotationSet(), 12, 8, "9", 10, cm);
+
+		int hashCode = ta.hashCode();
+		ta.getSpans().get(0).setSpanStart(5);
+		assertFalse(hashCode == ta.hashCode());
+
+		/* the replacement class mention has been modified fewer times than the original */
+		DefaultClassMention replacementCm = new DefaultClassMention("protein");
+		ta.setClassMention(replacementCm);
+		hashCode = ta.hashCode();
+		replacementCm.setMentionName("gene");
+		replacementCm.setMentionName("protein");
+		replacementCm.setMentionName("gene");
+		assertFalse(hashCode == ta.hashCode());
+		DefaultTextAnnotation expected = new DefaultTextAnnotation(5, 7, "coveredText", new Annotator(5, "", "",
+				""), new AnnotationSet(), 12, 8, "9", 10, new DefaultClassMention("gene"));
+		assertEquals(expected.hashCode(), ta.hashCode());
+
+		/* changes made through the live slot values collection are tracked as well */
+		DefaultClassMention slotCm = new DefaultClassMention("gene");
+		slotCm.addPrimitiveSlotMention(sm);
+		ta.setClassMention(slotCm);
+		hashCode = ta.hashCode();
+		sm.getSlotValues().add("11111");
+		assertEquals(3, sm.getSlotValues().size());
+		assertFalse(hashCode == ta.hashCode());
+		hashCode = ta.hashCode();
+		sm.getSlotValues().clear();
+		assertTrue(sm.getSlotValues().isEmpty());
+		assertFalse(hashCode == ta.hashCode());
+	}
+
 	/**
 	 * Test the overlaps() method
 	 * 
@@ -39,6 +39,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -52,6 +53,7 @@ import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.IdenticalMentionComparator;
 import edu.ucdenver.ccp.nlp.core.mention.comparison.MentionComparator;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultStringSlotMention;
 
 /**
  * TODO: Add tests on annotations at different depths. This is not crucial as the mention
@@ -709,6 +711,102 @@ public class AnnotationComparatorTest {
 
 	}
 
+	/**
+	 * Test that comparing annotation lists with a span comparator that does not require spans to
+	 * overlap (the IgnoreSpanComparator) produces the same result as comparing each gold annotation
+	 * to every test annotation, for randomly generated annotations that differ in document, class
+	 * mention name (including names that differ only in case) and slot values.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testCompareListsWithIgnoreSpanMatchesExhaustiveComparison() throws Exception {
+		AnnotationComparator ac = new AnnotationComparator();
+		SpanComparator sc = new IgnoreSpanComparator();
+		MentionComparator cmc = new IdenticalMentionComparator();
+		Random random = new Random(12345);
+		for (int trial = 0; trial < 25; trial++) {
+			List<TextAnnotation> goldTas = createRandomAnnotations(random, random.nextInt(40));
+			List<TextAnnotation> testTas = createRandomAnnotations(random, random.nextInt(40));
+			for (int maximumComparisonDepth : new int[] { -1, 0, 1 }) {
+				PRFResult expectedPrf = compareExhaustively(ac, goldTas, testTas, sc, cmc, maximumComparisonDepth);
+				PRFResult prf = ac.compare(goldTas, testTas, sc, cmc, maximumComparisonDepth);
+				assertEquals(expectedPrf.getTruePositiveCount(), prf.getTruePositiveCount());
+				assertEquals(expectedPrf.getFalsePositiveCount(), prf.getFalsePositiveCount());
+				assertEquals(expectedPrf.getFalseNegativeCount(), prf.getFalseNegativeCount());
+				assertSame(expectedPrf.getTPAnnotations(), prf.getTPAnnotations());
+				assertSame(expectedPrf.getFPAnnotations(), prf.getFPAnnotations());
+				assertSame(expectedPrf.getFNAnnotations(), prf.getFNAnnotations());
+			}
+		}
+	}
+
+	/**
+	 * Compares each gold annotation to every test annotation
+	 */
+	private PRFResult compareExhaustively(AnnotationComparator ac, List<TextAnnotation> goldTas,
+			List<TextAnnotation> testTas, SpanComparator sc, MentionComparator cmc, int maximumComparisonDepth) {
+		boolean[] foundMatchForTest = new boolean[testTas.size()];
+		List<TextAnnotation> tpAnnotations = new ArrayList<TextAnnotation>();
+		List<TextAnnotation> fpAnnotations = new ArrayList<TextAnnotation>();
+		List<TextAnnotation> fnAnnotations = new ArrayList<TextAnnotation>();
+		for (TextAnnotation goldTa : goldTas) {
+			boolean foundMatchForGold = false;
+			for (int j = 0; j < testTas.size(); j++) {
+				if (ac.compare(goldTa, testTas.get(j), sc, cmc, maximumComparisonDepth) == 0) {
+					foundMatchForGold = true;
+					foundMatchForTest[j] = true;
+				}
+			}
+			if (!foundMatchForGold) {
+				fnAnnotations.add(goldTa);
+			}
+		}
+		for (int j = 0; j < testTas.size(); j++) {
+			if (foundMatchForTest[j]) {
+				tpAnnotations.add(testTas.get(j));
+			} else {
+				fpAnnotations.add(testTas.get(j));
+			}
+		}
+		PRFResult prf = new PRFResult(tpAnnotations.size(), fpAnnotations.size(), fnAnnotations.size());
+		prf.setTPAnnotations(tpAnnotations);
+		prf.setFPAnnotations(fpAnnotations);
+		prf.setFNAnnotations(fnAnnotations);
+		return prf;
+	}
+
+	/**
+	 * Asserts that the two lists contain the same annotation instances in the same order
+	 */
+	private void assertSame(List<TextAnnotation> expectedTas, List<TextAnnotation> tas) {
+		assertEquals(expectedTas.size(), tas.size());
+		for (int i = 0; i < expectedTas.size(); i++) {
+			assertTrue(expectedTas.get(i) == tas.get(i));
+		}
+	}
+
+	/**
+	 * Creates annotations with random spans, document IDs, class mention names and slot values
+	 */
+	private List<TextAnnotation> createRandomAnnotations(Random random, int count) throws Exception {
+		String[] mentionNames = new String[] { "protein", "Protein", "gene", "GENE", "cell" };
+		List<TextAnnotation> tas = new ArrayList<TextAnnotation>();
+		for (int i = 0; i < count; i++) {
+			int spanStart = random.nextInt(100);
+			int spanEnd = spanStart + random.nextInt(10);
+			DefaultClassMention cm = new DefaultClassMention(mentionNames[random.nextInt(mentionNames.length)]);
+			if (random.nextBoolean()) {
+				DefaultStringSlotMention sm = new DefaultStringSlotMention("id");
+				sm.addSlotValue(Integer.toString(random.nextInt(3)));
+				cm.addPrimitiveSlotMention(sm);
+			}
+			tas.add(new DefaultTextAnnotation(spanStart, spanEnd, "", annotator, annotationSet, i,
+					documentCollectionID, Integer.toString(random.nextInt(2)), documentSectionID, cm));
+		}
+		return tas;
+	}
+
 	/**
 	 * Create a protein annotation to be used for testing purposes
 	 */
@@ -0,0 +1,122 @@
+package edu.ucdenver.ccp.nlp.core.annotation.serialization;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationUtil;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationFileIndexTest extends DefaultTestCase {
+
+	private static final String[] ANNOTATION_LINES = new String[] { "doc1|99|0 5|protein|ABC-1",
+			"doc1|99|10 15|gene|abc-1|entrez gene id|12345", "doc2|99|0 4|protein|p53 α",
+			"doc1|99|20 25|protein|XYZ-2", "doc3|98|3 8|cell|cells|tissue|liver,heart" };
+
+	private File createAnnotationFile() throws IOException {
+		File annotationFile = folder.newFile("annotations.txt");
+		PrintStream ps = new PrintStream(annotationFile, CharacterEncoding.UTF_8.getCharacterSetName());
+		for (String line : ANNOTATION_LINES) {
+			ps.println(line);
+		}
+		ps.close();
+		return annotationFile;
+	}
+
+	@Test
+	public void testGetAnnotations() throws IOException {
+		File annotationFile = createAnnotationFile();
+		Map<String, List<TextAnnotation>> expectedDocumentID2AnnotationsMap = TextAnnotationUtil
+				.loadAnnotationsFromFile(annotationFile, CharacterEncoding.UTF_8);
+
+		AnnotationFileIndex index = new AnnotationFileIndex(annotationFile, CharacterEncoding.UTF_8);
+		assertTrue(AnnotationFileIndex.getIndexFile(annotationFile).exists());
+		assertIndexMatches(expectedDocumentID2AnnotationsMap, index);
+		index.close();
+
+		/* the saved index is reused */
+		index = new AnnotationFileIndex(annotationFile, CharacterEncoding.UTF_8);
+		assertIndexMatches(expectedDocumentID2AnnotationsMap, index);
+		index.close();
+	}
+
+	@Test
+	public void testOutOfDateIndexIsRebuilt() throws IOException {
+		File annotationFile = createAnnotationFile();
+		new AnnotationFileIndex(annotationFile, CharacterEncoding.UTF_8).close();
+
+		PrintStream ps = new PrintStream(annotationFile, CharacterEncoding.UTF_8.getCharacterSetName());
+		ps.println("doc4|99|0 5|protein|ABC-1");
+		ps.close();
+
+		AnnotationFileIndex index = new AnnotationFileIndex(annotationFile, CharacterEncoding.UTF_8);
+		assertFalse(index.containsDocument("doc1"));
+		assertEquals(1, index.getAnnotations("doc4").size());
+		index.close();
+	}
+
+	private static void assertIndexMatches(Map<String, List<TextAnnotation>> expectedDocumentID2AnnotationsMap,
+			AnnotationFileIndex index) {
+		for (String documentID : expectedDocumentID2AnnotationsMap.keySet()) {
+			assertTrue(index.containsDocument(documentID));
+			List<TextAnnotation> expectedAnnotations = expectedDocumentID2AnnotationsMap.get(documentID);
+			List<TextAnnotation> annotations = index.getAnnotations(documentID);
+			assertEquals(expectedAnnotations.size(), annotations.size());
+			for (int i = 0; i < expectedAnnotations.size(); i++) {
+				assertEquals(expectedAnnotations.get(i).getSingleLineRepresentation(), annotations.get(i)
+						.getSingleLineRepresentation());
+			}
+		}
+		assertFalse(index.containsDocument("doc5"));
+		assertTrue(index.getAnnotations("doc5").isEmpty());
+	}
+
+}
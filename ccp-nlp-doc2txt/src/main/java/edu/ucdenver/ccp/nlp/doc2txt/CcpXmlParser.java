@@ -88,7 +88,7 @@ public class CcpXmlParser {
 	private boolean inAckSection = false;
 
 	public CcpXmlParser() throws IOException, SAXException {
-		parser = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+		/* the XML reader is created when first needed; see parse(InputSource, String) */
 		// tagSet = new HashSet<String>();
 		// tagSet.addAll(Arrays.asList(tags));
 		// for (String t : tags) {
@@ -137,6 +137,9 @@ public class CcpXmlParser {
 		// this.docID = docID;
 		PubMedCentralXMLContentHandler contentHandler = new PubMedCentralXMLContentHandler();
 
+		if (parser == null) {
+			parser = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+		}
 		parser.setContentHandler(contentHandler);
 		// parser.setEntityResolver(new PMCDTDClasspathResolver());
 		parser.parse(inputSource);
@@ -144,6 +147,25 @@ public class CcpXmlParser {
 		return documentText.toString();
 	}
 
+	/**
+	 * Returns a SAX content handler that can be used to feed CCP XML to this parser directly, e.g.
+	 * from an XSL transformation, without first serializing it. Once the events for a document have
+	 * been passed to the handler, the parsed text is available from {@link #getDocumentText()} and
+	 * the annotations from {@link #getAnnotations()}.
+	 * 
+	 * @return
+	 */
+	public ContentHandler getContentHandler() {
+		return new PubMedCentralXMLContentHandler();
+	}
+
+	/**
+	 * @return the document text parsed so far
+	 */
+	public String getDocumentText() {
+		return documentText.toString();
+	}
+
 	class PubMedCentralXMLContentHandler implements ContentHandler {
 
 		private final Logger logger = Logger.getLogger(PubMedCentralXMLContentHandler.class);
@@ -35,110 +35,286 @@ package edu.ucdenver.ccp.nlp.doc2txt;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.io.StringWriter;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.log4j.Logger;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
 
-import edu.ucdenver.ccp.nlp.doc2txt.pmc.PmcDtdClasspathResolver;
-
+/**
+ * Applies an XSL stylesheet to XML input. The stylesheet can be compiled once using
+ * {@link #compile(InputStream)}; the resulting {@link Templates} object is thread-safe and can be
+ * shared by any number of converters. A converter instance itself is not thread-safe, but is cheap
+ * to create once the stylesheet has been compiled.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
 public class XsltConverter {
 
 	static Logger logger = Logger.getLogger(XsltConverter.class);
 
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+	/**
+	 * The name of the root element added to transformation output that does not contain a
+	 * &lt;doc&gt; element
+	 */
+	private static final String DOCUMENT_ELEMENT_NAME = "DOC";
+
 	private EntityResolver er;
 
+	private final Templates templates;
+
+	private SAXParserFactory saxParserFactory;
+
 	// http://codingwithpassion.blogspot.com/2011/03/saxon-xslt-java-example.htmlsax
 	// http://stackoverflow.com/questions/2968190/how-to-select-saxon-transformerfactory-in-java
 	static final String transformerFactoryPropertyName = "javax.xml.transform.TransformerFactory";
 
+	/**
+	 * Creates a converter that requires the stylesheet to be passed to
+	 * {@link #convert(InputStream, InputStream)}
+	 * 
+	 * @param er
+	 */
 	public XsltConverter(EntityResolver er) {
+		this(er, null);
+	}
+
+	/**
+	 * @param er
+	 * @param templates
+	 *            the compiled stylesheet used by {@link #convert(InputStream)} and
+	 *            {@link #transform(InputStream, ContentHandler)}
+	 */
+	public XsltConverter(EntityResolver er, Templates templates) {
 		this.er = er;
+		this.templates = templates;
 	}
 
-	public String convert(InputStream xmlStream, InputStream xslStream) {
-		String retval = "";
+	/**
+	 * Compiles the stylesheet. The stylesheet stream is closed.
+	 * 
+	 * @param xslStream
+	 * @return a thread-safe compiled representation of the stylesheet
+	 */
+	public static Templates compile(InputStream xslStream) {
 		try {
-			if (xslStream == null) {
-				logger.error("XlstConverter.convert(): couldn't read the xslt file stream. ");
-			} else {
-				// get an xslt Source
-				Source xsltSource = new javax.xml.transform.stream.StreamSource(xslStream);
-
-				// Get a transformer
-				// TransformerFactory transFact = TransformerFactory.newInstance();
-				TransformerFactory transFact = SAXTransformerFactory.newInstance();
-				Transformer trans = transFact.newTransformer(xsltSource);
-				// http://docs.oracle.com/javase/6/docs/api/index.html?javax/xml/transform/URIResolver.html
-				// If an application wants to set the ErrorHandler or EntityResolver for an
-				// XMLReader used during a transformation, it should use a URIResolver to return the
-				// SAXSource
-				// which provides (with getXMLReader) a reference to the XMLReader.
-
-				// get a source to the input xml
-				InputSource xmlSource = new InputSource(xmlStream);
-
-				SAXParserFactory spf = SAXParserFactory.newInstance();
-				spf.setValidating(false);
-				spf.setNamespaceAware(true);
-				SAXParser parser = spf.newSAXParser();
-				XMLReader reader = parser.getXMLReader();
-
-				/**********/
-
-				reader.setEntityResolver(er);
-				SAXSource xmlSaxSource = new SAXSource(reader, xmlSource);
-				// xmlSaxSource.setXMLReader(reader);
-
-				// output
-				StringWriter sw = new StringWriter();
-				Result result = new StreamResult(sw);
-
-				// transform
-				try {
-					trans.transform(xmlSaxSource, result);
-				} catch (Exception e) {
-					logger.error("error transforming " + xmlSaxSource);
-					throw new RuntimeException(e);
-				}
-				retval = sw.toString();
-				sw.close();
+			// get an xslt Source
+			Source xsltSource = new StreamSource(xslStream);
+			// TransformerFactory transFact = TransformerFactory.newInstance();
+			TransformerFactory transFact = SAXTransformerFactory.newInstance();
+			return transFact.newTemplates(xsltSource);
+		} catch (TransformerConfigurationException x) {
+			logger.error("XSLTConverter.compile() failed:" + x);
+			throw new RuntimeException(x);
+		} finally {
+			try {
+				xslStream.close();
+			} catch (IOException x) {
+				throw new RuntimeException(x);
 			}
+		}
+	}
+
+	/**
+	 * Compiles the stylesheet and applies it to the XML input. Use {@link #compile(InputStream)}
+	 * and {@link #convert(InputStream)} when converting more than one document.
+	 * 
+	 * @param xmlStream
+	 * @param xslStream
+	 * @return the transformation output
+	 */
+	public String convert(InputStream xmlStream, InputStream xslStream) {
+		if (xslStream == null) {
+			logger.error("XlstConverter.convert(): couldn't read the xslt file stream. ");
+			return wrapDocument("");
+		}
+		return convert(xmlStream, compile(xslStream));
+	}
+
+	/**
+	 * Applies the compiled stylesheet this converter was constructed with to the XML input
+	 * 
+	 * @param xmlStream
+	 * @return the transformation output
+	 */
+	public String convert(InputStream xmlStream) {
+		return convert(xmlStream, getTemplates());
+	}
+
+	private String convert(InputStream xmlStream, Templates xslTemplates) {
+		StringWriter sw = new StringWriter();
+		transform(xmlStream, xslTemplates, new StreamResult(sw));
+		return wrapDocument(sw.toString());
+	}
+
+	/**
+	 * Applies the compiled stylesheet this converter was constructed with to the XML input, passing
+	 * the output directly to the specified SAX content handler rather than serializing it. As with
+	 * {@link #convert(InputStream)}, output that does not contain a &lt;doc&gt; root element is
+	 * wrapped in a &lt;DOC&gt; element.
+	 * 
+	 * @param xmlStream
+	 * @param contentHandler
+	 */
+	public void transform(InputStream xmlStream, ContentHandler contentHandler) {
+		DocumentRootFilter filter = new DocumentRootFilter();
+		filter.setContentHandler(contentHandler);
+		transform(xmlStream, getTemplates(), new SAXResult(filter));
+	}
+
+	private Templates getTemplates() {
+		if (templates == null) {
+			throw new IllegalStateException(
+					"No compiled stylesheet available. Construct the XsltConverter using XsltConverter.compile().");
+		}
+		return templates;
+	}
+
+	private void transform(InputStream xmlStream, Templates xslTemplates, Result result) {
+		Transformer trans = null;
+		SAXSource xmlSaxSource = null;
+		try {
+			// Get a transformer
+			trans = xslTemplates.newTransformer();
+			// http://docs.oracle.com/javase/6/docs/api/index.html?javax/xml/transform/URIResolver.html
+			// If an application wants to set the ErrorHandler or EntityResolver for an
+			// XMLReader used during a transformation, it should use a URIResolver to return the
+			// SAXSource
+			// which provides (with getXMLReader) a reference to the XMLReader.
+
+			// get a source to the input xml
+			InputSource xmlSource = new InputSource(xmlStream);
+			XMLReader reader = getSaxParserFactory().newSAXParser().getXMLReader();
+			reader.setEntityResolver(er);
+			xmlSaxSource = new SAXSource(reader, xmlSource);
 		} catch (Exception x) {
 			logger.error("XSLTConverter.convert() failed:" + x);
-			x.printStackTrace();
 			throw new RuntimeException(x);
 		}
 
+		// transform
 		try {
-			if (xslStream != null) {
-				xslStream.close();
-			}
-		} catch (IOException x) {
-			throw new RuntimeException(x);
+			trans.transform(xmlSaxSource, result);
+		} catch (Exception e) {
+			logger.error("error transforming " + xmlSaxSource);
+			throw new RuntimeException(e);
 		}
+	}
 
+	private SAXParserFactory getSaxParserFactory() {
+		if (saxParserFactory == null) {
+			saxParserFactory = SAXParserFactory.newInstance();
+			saxParserFactory.setValidating(false);
+			saxParserFactory.setNamespaceAware(true);
+		}
+		return saxParserFactory;
+	}
+
+	/**
+	 * Output that does not contain a &lt;doc&gt; element is wrapped in a &lt;DOC&gt; element
+	 */
+	private static String wrapDocument(String output) {
 		// UGLY HACK TODO
-//		System.out.println("RETVAL: " + retval + ";;;");
-		if (retval.indexOf("<doc>") == -1) {
-			retval = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + "<DOC>" + retval.substring(38) + "</DOC>";
+		if (output.indexOf("<doc>") == -1) {
+			String body = output.startsWith(XML_DECLARATION) ? output.substring(XML_DECLARATION.length()) : output;
+			return XML_DECLARATION + "<" + DOCUMENT_ELEMENT_NAME + ">" + body + "</" + DOCUMENT_ELEMENT_NAME + ">";
 		}
+		return output;
+	}
+
+	/**
+	 * The SAX equivalent of {@link XsltConverter#wrapDocument(String)}: if the first element of the
+	 * output is not &lt;doc&gt;, the output is wrapped in a &lt;DOC&gt; element. Adjacent text
+	 * nodes produced by the transformation are merged into a single characters() call, as they
+	 * would be by a parser reading the serialized output.
+	 */
+	private static class DocumentRootFilter extends XMLFilterImpl {
 
-		return retval;
+		private boolean rootSeen = false;
+		private boolean wrapped = false;
+		private final StringBuilder text = new StringBuilder();
 
+		private void flushText() throws SAXException {
+			if (text.length() > 0) {
+				if (!rootSeen) {
+					if (text.toString().trim().length() == 0) {
+						/* whitespace outside of the root element is not reported by a parser */
+						text.setLength(0);
+						return;
+					}
+					wrap();
+				}
+				char[] ch = new char[text.length()];
+				text.getChars(0, ch.length, ch, 0);
+				text.setLength(0);
+				super.characters(ch, 0, ch.length);
+			}
+		}
+
+		private void wrap() throws SAXException {
+			rootSeen = true;
+			wrapped = true;
+			super.startElement("", DOCUMENT_ELEMENT_NAME, DOCUMENT_ELEMENT_NAME, new AttributesImpl());
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			flushText();
+			if (!rootSeen) {
+				if (localName.equals("doc")) {
+					rootSeen = true;
+				} else {
+					wrap();
+				}
+			}
+			super.startElement(uri, localName, qName, atts);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			flushText();
+			super.endElement(uri, localName, qName);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			text.append(ch, start, length);
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			flushText();
+			if (!rootSeen) {
+				wrap();
+			}
+			if (wrapped) {
+				super.endElement("", DOCUMENT_ELEMENT_NAME, DOCUMENT_ELEMENT_NAME);
+			}
+			super.endDocument();
+		}
 	}
 
 }
@@ -0,0 +1,148 @@
+package edu.ucdenver.ccp.nlp.doc2txt.pmc;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+
+/**
+ * An append-only log of the input files that have been converted successfully, one absolute path
+ * per line. Files listed in an existing log are reported as completed so that an interrupted bulk
+ * conversion can be resumed without converting them again. Each entry is flushed as soon as it is
+ * written, so at most the final line is left incomplete if the process is killed. A final line
+ * that lacks a line terminator is ignored when the log is opened, as it may be a truncated path,
+ * and is terminated before new entries are appended. This class is thread-safe.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ConversionLog {
+
+	private final Set<String> completedPaths = new HashSet<String>();
+
+	private final BufferedWriter writer;
+
+	/**
+	 * @param logFile
+	 *            the log file; created if it does not exist, appended to otherwise
+	 * @throws IOException
+	 */
+	public ConversionLog(File logFile) throws IOException {
+		boolean hasPartialLastLine = false;
+		if (logFile.exists()) {
+			List<String> lines = FileReaderUtil.loadLinesFromFile(logFile, CharacterEncoding.UTF_8);
+			hasPartialLastLine = !lines.isEmpty() && !endsWithLineTerminator(logFile);
+			if (hasPartialLastLine) {
+				lines.remove(lines.size() - 1);
+			}
+			for (String line : lines) {
+				if (line.length() > 0) {
+					completedPaths.add(line);
+				}
+			}
+		}
+		writer = FileWriterUtil.initBufferedWriter(logFile, CharacterEncoding.UTF_8, WriteMode.APPEND,
+				FileSuffixEnforcement.OFF);
+		if (hasPartialLastLine) {
+			writer.newLine();
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return true if the file is empty or its last byte is a line feed or carriage return
+	 * @throws IOException
+	 */
+	private static boolean endsWithLineTerminator(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if (raf.length() == 0) {
+				return true;
+			}
+			raf.seek(raf.length() - 1);
+			int lastByte = raf.read();
+			return lastByte == '\n' || lastByte == '\r';
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return the number of distinct completed files, i.e. those listed in the log when it was
+	 *         opened plus those marked as completed since
+	 */
+	public synchronized int getCompletedCount() {
+		return completedPaths.size();
+	}
+
+	/**
+	 * @param inputFile
+	 * @return true if the file has already been converted
+	 */
+	public synchronized boolean isCompleted(File inputFile) {
+		return completedPaths.contains(inputFile.getAbsolutePath());
+	}
+
+	/**
+	 * Records the file as converted
+	 * 
+	 * @param inputFile
+	 * @throws IOException
+	 */
+	public synchronized void markCompleted(File inputFile) throws IOException {
+		String path = inputFile.getAbsolutePath();
+		if (completedPaths.add(path)) {
+			writer.write(path);
+			writer.newLine();
+			writer.flush();
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+
+}
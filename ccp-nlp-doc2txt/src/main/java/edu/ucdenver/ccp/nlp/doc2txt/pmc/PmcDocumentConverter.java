@@ -41,6 +41,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -91,13 +95,46 @@ public class PmcDocumentConverter {
 	@Option(name = "-l", usage = "a list of files to process. path is relative to the directory specified in the -i parameter. MUST BE ABSOLUTE PATH.")
 	private File listOfNxmlFile;
 
+	@Option(name = "-t", usage = "the number of threads used to convert files in parallel. Default = 1.")
+	private int numThreads = 1;
+
+	@Option(name = "-c", usage = "an append-only log of the input files that have been converted. Files listed in the log are skipped, so an interrupted conversion can be resumed by rerunning with the same log. This parameter is optional.")
+	private File completionLogFile = null;
+
 	@Argument
 	private List<String> fileSuffixesToProcess = CollectionsUtil.createList(".nxml", ".nxml.gz");
 
+	/**
+	 * One converter per thread; all converters share the compiled PMC stylesheet
+	 */
+	private static final ThreadLocal<XsltConverter> xsltConverter = new ThreadLocal<XsltConverter>() {
+		@Override
+		protected XsltConverter initialValue() {
+			return new XsltConverter(new PmcDtdClasspathResolver(), PmcXslLocator.getPmcXslTemplates());
+		}
+	};
+
+	/**
+	 * Converts a PMC XML file to plain text. Runtime exceptions raised during the conversion are
+	 * logged. This method is thread-safe.
+	 * 
+	 * @param pmcXmlFile
+	 * @param outputDirectory
+	 * @param outputAnnotations
+	 * @throws IOException
+	 * @throws SAXException
+	 */
 	public static void convertPmcToPlainText(File pmcXmlFile, File outputDirectory, boolean outputAnnotations)
 			throws IOException, SAXException {
-		// convert PMC XML to simpler CCP XML
-		XsltConverter xslt = new XsltConverter(new PmcDtdClasspathResolver());
+		try {
+			convert(pmcXmlFile, outputDirectory, outputAnnotations);
+		} catch (RuntimeException e) {
+			logger.error("!!!ERROR: Runtime exception for document: " + pmcXmlFile.getAbsolutePath(), e);
+		}
+	}
+
+	private static void convert(File pmcXmlFile, File outputDirectory, boolean outputAnnotations)
+			throws IOException, SAXException {
 		InputStream xmlStream = null;
 		if (pmcXmlFile.getName().endsWith(".gz")) {
 			xmlStream = new GZIPInputStream(new FileInputStream(pmcXmlFile));
@@ -105,12 +142,11 @@ public class PmcDocumentConverter {
 			xmlStream = new FileInputStream(pmcXmlFile);
 		}
 		try {
-			String ccpXml = xslt.convert(xmlStream, PmcXslLocator.getPmcXslStream());
-
-			// convert CCP XML to plain text
+			// convert PMC XML to simpler CCP XML, and the CCP XML to plain text, in a single pass
 			CcpXmlParser parser = new CcpXmlParser();
 			String documentId = pmcXmlFile.getName();
-			String plainText = parser.parse(ccpXml, documentId);
+			xsltConverter.get().transform(xmlStream, parser.getContentHandler());
+			String plainText = parser.getDocumentText();
 
 			String outputFilename = documentId + ".utf8.gz";
 			File outputFile = (outputDirectory == null) ? new File(pmcXmlFile.getParentFile(), outputFilename)
@@ -136,10 +172,63 @@ public class PmcDocumentConverter {
 					annotWriter.close();
 				}
 			}
-		} catch (RuntimeException e) {
-			logger.error("!!!ERROR: Runtime exception for document: " + pmcXmlFile.getAbsolutePath(), e);
+		} finally {
+			xmlStream.close();
+		}
+
+	}
+
+	/**
+	 * Converts a single file as part of a bulk conversion. A failure is logged and counted but does
+	 * not stop the conversion of the remaining files; only successfully converted files are added
+	 * to the completion log.
+	 */
+	private void convertAndRecord(File pmcXmlFile, ConversionLog conversionLog, ConversionStatistics statistics) {
+		logger.info("processing file: " + pmcXmlFile.getAbsolutePath());
+		long start = System.nanoTime();
+		try {
+			convert(pmcXmlFile, outputDirectory, outputAnnotations);
+			if (conversionLog != null) {
+				conversionLog.markCompleted(pmcXmlFile);
+			}
+			statistics.recordConversion(System.nanoTime() - start);
+		} catch (Exception e) {
+			statistics.failed.incrementAndGet();
+			logger.error("!!!ERROR: Failed to convert document: " + pmcXmlFile.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Throughput and per-file latency counters for a bulk conversion
+	 */
+	private static class ConversionStatistics {
+		private final long startTime = System.nanoTime();
+		private final AtomicLong converted = new AtomicLong();
+		private final AtomicLong skipped = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicLong totalLatency = new AtomicLong();
+		private final AtomicLong maxLatency = new AtomicLong();
+
+		public void recordConversion(long latency) {
+			converted.incrementAndGet();
+			totalLatency.addAndGet(latency);
+			long max;
+			while (latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency)) {
+				// retry
+			}
 		}
 
+		public void log() {
+			double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+			long convertedCount = converted.get();
+			logger.info(String.format("Converted %d file(s) in %.1f s (%.2f files/s); skipped %d previously "
+					+ "converted file(s); %d failure(s).", convertedCount, elapsedSeconds,
+					(elapsedSeconds > 0) ? convertedCount / elapsedSeconds : 0.0, skipped.get(), failed.get()));
+			if (convertedCount > 0) {
+				logger.info(String.format("Per-file conversion latency: mean %.1f ms, max %.1f ms",
+						totalLatency.get() / 1e6 / convertedCount, maxLatency.get() / 1e6));
+			}
+		}
 	}
 
 	public static void main(String[] args) {
@@ -198,6 +287,11 @@ public class PmcDocumentConverter {
 
 			logger.info("Set to skip " + numToSkip + " files prior to processing.");
 			logger.info("Set to process " + numToProcess + " files after skip.");
+			logger.info("Files will be converted using " + Math.max(numThreads, 1) + " thread(s).");
+			if (completionLogFile != null) {
+				logger.info("Converted files will be recorded in, and previously converted files listed in, "
+						+ completionLogFile.getAbsolutePath() + " will be skipped.");
+			}
 
 		} catch (CmdLineException e) {
 			logger.error(e);
@@ -216,19 +310,61 @@ public class PmcDocumentConverter {
 						fileSuffixesToProcess.toArray(new String[fileSuffixesToProcess.size()]));
 			}
 
-			int count = 0;
-			while (fileIter.hasNext()) {
-				File pmcXmlFile = fileIter.next();
-				if (count >= numToSkip) {
-					if (numToProcess < 0 || count < (numToSkip + numToProcess)) {
-						logger.info("processing file: " + pmcXmlFile.getAbsolutePath());
-						convertPmcToPlainText(pmcXmlFile, outputDirectory, outputAnnotations);
+			final ConversionLog conversionLog = (completionLogFile == null) ? null : new ConversionLog(
+					completionLogFile);
+			final ConversionStatistics statistics = new ConversionStatistics();
+			ThreadPoolExecutor executor = null;
+			if (numThreads > 1) {
+				/*
+				 * the bounded queue and caller-runs policy keep the file iterator from running
+				 * far ahead of the conversion threads
+				 */
+				executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+						new ArrayBlockingQueue<Runnable>(numThreads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+			}
+
+			try {
+				int count = 0;
+				while (fileIter.hasNext()) {
+					final File pmcXmlFile = fileIter.next();
+					if (count >= numToSkip) {
+						if (numToProcess < 0 || count < (numToSkip + numToProcess)) {
+							if (conversionLog != null && conversionLog.isCompleted(pmcXmlFile)) {
+								statistics.skipped.incrementAndGet();
+							} else {
+								Runnable conversion = new Runnable() {
+									@Override
+									public void run() {
+										convertAndRecord(pmcXmlFile, conversionLog, statistics);
+									}
+								};
+								if (executor == null) {
+									conversion.run();
+								} else {
+									executor.execute(conversion);
+								}
+							}
+						}
+					}
+					count++;
+					if (numToProcess > 0 && count > (numToSkip + numToProcess)) {
+						break;
 					}
 				}
-				count++;
-				if (numToProcess > 0 && count > (numToSkip + numToProcess)) {
-					break;
+			} finally {
+				if (executor != null) {
+					executor.shutdown();
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
 				}
+				if (conversionLog != null) {
+					conversionLog.close();
+				}
+			}
+			statistics.log();
+			if (statistics.failed.get() > 0) {
+				logger.error(statistics.failed.get()
+						+ " file(s) failed to convert. They have not been added to the completion log and will be retried on the next run.");
+				System.exit(-1);
 			}
 		} catch (Exception e) {
 			logger.error("Failure during PMC XML conversion to plain text.");
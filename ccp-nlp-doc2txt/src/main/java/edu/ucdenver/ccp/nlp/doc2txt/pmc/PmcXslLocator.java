@@ -35,7 +35,10 @@ package edu.ucdenver.ccp.nlp.doc2txt.pmc;
 
 import java.io.InputStream;
 
+import javax.xml.transform.Templates;
+
 import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.nlp.doc2txt.XsltConverter;
 
 /**
  * @author Center for Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
@@ -53,4 +56,19 @@ public class PmcXslLocator {
 		}
 		return is;
 	}
+
+	/**
+	 * @return the PMC XSL stylesheet, compiled once per JVM. The returned {@link Templates} object
+	 *         is thread-safe.
+	 */
+	public static Templates getPmcXslTemplates() {
+		return TemplatesHolder.TEMPLATES;
+	}
+
+	/**
+	 * Lazily compiles the stylesheet the first time it is requested
+	 */
+	private static class TemplatesHolder {
+		private static final Templates TEMPLATES = XsltConverter.compile(getPmcXslStream());
+	}
 }
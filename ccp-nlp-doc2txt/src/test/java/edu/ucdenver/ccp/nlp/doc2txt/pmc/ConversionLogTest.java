@@ -0,0 +1,117 @@
+package edu.ucdenver.ccp.nlp.doc2txt.pmc;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ConversionLogTest extends DefaultTestCase {
+
+	@Test
+	public void testCompletedFilesAreRememberedAcrossRuns() throws Exception {
+		File logFile = new File(folder.getRoot(), "completed.log");
+		File doc1 = new File(folder.getRoot(), "doc1.nxml");
+		File doc2 = new File(folder.getRoot(), "doc2.nxml");
+
+		ConversionLog log = new ConversionLog(logFile);
+		assertEquals(0, log.getCompletedCount());
+		assertFalse(log.isCompleted(doc1));
+		log.markCompleted(doc1);
+		log.markCompleted(doc1);
+		assertTrue(log.isCompleted(doc1));
+		assertEquals(1, log.getCompletedCount());
+		log.close();
+
+		ConversionLog resumedLog = new ConversionLog(logFile);
+		assertEquals(1, resumedLog.getCompletedCount());
+		assertTrue(resumedLog.isCompleted(doc1));
+		assertFalse(resumedLog.isCompleted(doc2));
+		resumedLog.markCompleted(doc2);
+		assertEquals(2, resumedLog.getCompletedCount());
+		resumedLog.close();
+
+		ConversionLog finalLog = new ConversionLog(logFile);
+		assertEquals(2, finalLog.getCompletedCount());
+		finalLog.close();
+	}
+
+	@Test
+	public void testPartialFinalLineIsIgnoredAndTerminated() throws Exception {
+		File logFile = new File(folder.getRoot(), "completed.log");
+		File doc1 = new File(folder.getRoot(), "doc1.nxml");
+		File doc2 = new File(folder.getRoot(), "doc2.nxml");
+		String doc2Path = doc2.getAbsolutePath();
+		String truncatedDoc2Path = doc2Path.substring(0, doc2Path.length() - 5);
+		BufferedWriter writer = FileWriterUtil.initBufferedWriter(logFile, CharacterEncoding.UTF_8,
+				WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+		writer.write(doc1.getAbsolutePath());
+		writer.newLine();
+		writer.write(truncatedDoc2Path);
+		writer.close();
+
+		ConversionLog resumedLog = new ConversionLog(logFile);
+		assertEquals(1, resumedLog.getCompletedCount());
+		assertTrue(resumedLog.isCompleted(doc1));
+		assertFalse(resumedLog.isCompleted(new File(truncatedDoc2Path)));
+		assertFalse(resumedLog.isCompleted(doc2));
+		resumedLog.markCompleted(doc2);
+		resumedLog.close();
+
+		assertEquals(Arrays.asList(doc1.getAbsolutePath(), truncatedDoc2Path, doc2Path),
+				FileReaderUtil.loadLinesFromFile(logFile, CharacterEncoding.UTF_8));
+		ConversionLog finalLog = new ConversionLog(logFile);
+		assertEquals(3, finalLog.getCompletedCount());
+		assertTrue(finalLog.isCompleted(doc2));
+		finalLog.close();
+	}
+
+}
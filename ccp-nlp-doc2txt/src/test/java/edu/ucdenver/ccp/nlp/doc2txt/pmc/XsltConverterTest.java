@@ -43,6 +43,7 @@ import org.apache.log4j.Logger;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import edu.ucdenver.ccp.nlp.doc2txt.CcpXmlParser;
 import edu.ucdenver.ccp.nlp.doc2txt.XsltConverter;
 import edu.ucdenver.ccp.nlp.doc2txt.pmc.PmcDtdClasspathResolver;
 import edu.ucdenver.ccp.nlp.doc2txt.pmc.PmcXslLocator;
@@ -116,4 +117,20 @@ public class XsltConverterTest {
 						+ "</doc> ", output);
 	}
 
+	@Test
+	public void testTransformToContentHandler() throws Exception {
+		XsltConverter converter = new XsltConverter(new PmcDtdClasspathResolver(), PmcXslLocator.getPmcXslTemplates());
+		String ccpXml = converter.convert(this.getClass().getResourceAsStream(inputFile));
+		assertEquals(new XsltConverter(new PmcDtdClasspathResolver()).convert(
+				this.getClass().getResourceAsStream(inputFile), PmcXslLocator.getPmcXslStream()), ccpXml);
+
+		CcpXmlParser expectedParser = new CcpXmlParser();
+		String expectedText = expectedParser.parse(ccpXml, "14607334");
+
+		CcpXmlParser parser = new CcpXmlParser();
+		converter.transform(this.getClass().getResourceAsStream(inputFile), parser.getContentHandler());
+		assertEquals(expectedText, parser.getDocumentText());
+		assertEquals(expectedParser.getAnnotations().toString(), parser.getAnnotations().toString());
+	}
+
 }
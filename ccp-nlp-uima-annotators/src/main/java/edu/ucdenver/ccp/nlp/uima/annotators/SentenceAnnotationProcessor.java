@@ -35,10 +35,16 @@ package edu.ucdenver.ccp.nlp.uima.annotators;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -51,7 +57,7 @@ import org.uimafit.factory.ConfigurationParameterFactory;
 import edu.ucdenver.ccp.common.reflection.ConstructorUtil;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.uima.shims.ShimDefaults;
-import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
+import edu.ucdenver.ccp.nlp.uima.util.TextAnnotationBulkLoader;
 import edu.ucdenver.ccp.uima.shims.annotation.AnnotationDataExtractor;
 
 /**
@@ -87,8 +93,40 @@ public abstract class SentenceAnnotationProcessor extends JCasAnnotator_ImplBase
 	@ConfigurationParameter(description = "name of the sentence annotation type to process", defaultValue = "sentence")
 	private String sentenceAnnotationName;
 
+	/**
+	 * Parameter name used in the UIMA descriptor file for the UIMA type of the sentence annotations
+	 */
+	public static final String PARAM_SENTENCE_UIMA_TYPE_NAME = ConfigurationParameterFactory
+			.createConfigurationParameterName(SentenceAnnotationProcessor.class, "sentenceUimaTypeName");
+
+	@ConfigurationParameter(description = "fully qualified name of the UIMA type of the sentence annotations. If set, only the annotation index of this type is iterated and the sentence annotation name and annotation data extractor are not consulted. If not set, every annotation in the CAS is checked using the annotation data extractor.")
+	private String sentenceUimaTypeName;
+
+	/**
+	 * Parameter name used in the UIMA descriptor file for the number of threads used to process
+	 * the sentences of a document
+	 */
+	public static final String PARAM_SENTENCE_PROCESSING_THREAD_COUNT = ConfigurationParameterFactory
+			.createConfigurationParameterName(SentenceAnnotationProcessor.class, "sentenceProcessingThreadCount");
+
+	@ConfigurationParameter(defaultValue = "1", description = "the number of threads used to process the sentences of a single document. Sentences are processed serially if this value is < 2 or if the implementation does not support concurrent sentence processing.")
+	private int sentenceProcessingThreadCount;
+
 	protected Logger logger;
 
+	/**
+	 * The suffix identifying sentence annotation types, lower-cased once at initialization
+	 */
+	private String sentenceAnnotationSuffix;
+
+	/**
+	 * The resolved sentence type and the type system it was resolved from
+	 */
+	private TypeSystem sentenceTypeSystem;
+	private Type sentenceType;
+
+	private ForkJoinPool sentencePool;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -100,38 +138,142 @@ public abstract class SentenceAnnotationProcessor extends JCasAnnotator_ImplBase
 		logger = context.getLogger();
 		annotationDataExtractor = (AnnotationDataExtractor) ConstructorUtil
 				.invokeConstructor(annotationDataExtractorClassName);
+		sentenceAnnotationSuffix = sentenceAnnotationName.toLowerCase();
+		if (sentenceProcessingThreadCount > 1) {
+			if (isSentenceProcessingThreadSafe()) {
+				sentencePool = new ForkJoinPool(sentenceProcessingThreadCount);
+			} else {
+				logger.log(Level.WARNING, getClass().getSimpleName()
+						+ " does not support concurrent sentence processing. Sentences will be processed serially.");
+			}
+		}
+	}
+
+	/**
+	 * Subclasses whose {@link #processSentence(String, int, JCas)} implementation may be called
+	 * concurrently for different sentences of the same document should override this method to
+	 * return true. Such implementations must not modify the CAS, and should avoid reading from it
+	 * as the JCas is not thread-safe; any document-level information should be extracted in
+	 * {@link #process(JCas)} prior to calling the super implementation.
+	 * 
+	 * @return true if sentences can be processed concurrently; false by default
+	 */
+	protected boolean isSentenceProcessingThreadSafe() {
+		return false;
 	}
 
 	@Override
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
-		UIMA_Util uimaUtil = new UIMA_Util();
-
 		/*
 		 * Check to see if there are any Sentence annotations in this CAS. If there are, then
 		 * tokenize each sentence individually. If there are not, then treat the document text as a
 		 * single sentence and tokenize it.
 		 */
-		List<TextAnnotation> annotationsToPutInCas = new ArrayList<TextAnnotation>();
-		int sentenceCount = 0;
-		for (FSIterator<Annotation> annotIter = jCas.getJFSIndexRepository().getAnnotationIndex().iterator(); annotIter
-				.hasNext();) {
+		List<String> sentenceTexts = new ArrayList<String>();
+		List<Integer> sentenceStartOffsets = new ArrayList<Integer>();
+		for (FSIterator<Annotation> annotIter = getSentenceCandidateIterator(jCas); annotIter.hasNext();) {
 			Annotation annot = annotIter.next();
-			String type = annotationDataExtractor.getAnnotationType(annot);
-			if (type != null && type.toLowerCase().endsWith(sentenceAnnotationName)) {
-				sentenceCount++;
-				annotationsToPutInCas.addAll(processSentence(annot.getCoveredText().replaceAll("\\n", " "),
-						annot.getBegin(), jCas));
+			if (sentenceType != null || isSentence(annot)) {
+				sentenceTexts.add(annot.getCoveredText().replace('\n', ' '));
+				sentenceStartOffsets.add(annot.getBegin());
 			}
 		}
-		if (sentenceCount == 0) {
+		if (sentenceTexts.isEmpty()) {
 			logger.log(Level.INFO, "No sentences in CAS, processing document text as a whole...");
-			annotationsToPutInCas.addAll(processSentence(jCas.getDocumentText(), 0, jCas));
+			sentenceTexts.add(jCas.getDocumentText());
+			sentenceStartOffsets.add(0);
+		}
+
+		/* the results are merged in sentence (i.e. offset) order */
+		List<TextAnnotation> annotationsToPutInCas = new ArrayList<TextAnnotation>();
+		if (sentencePool == null || sentenceTexts.size() < 2) {
+			for (int i = 0; i < sentenceTexts.size(); i++) {
+				annotationsToPutInCas.addAll(processSentence(sentenceTexts.get(i), sentenceStartOffsets.get(i), jCas));
+			}
+		} else {
+			for (List<TextAnnotation> sentenceAnnotations : processSentencesConcurrently(sentenceTexts,
+					sentenceStartOffsets, jCas)) {
+				annotationsToPutInCas.addAll(sentenceAnnotations);
+			}
 		}
 		/* add the TextAnnotations to the JCas */
-		uimaUtil.putTextAnnotationsIntoJCas(jCas, annotationsToPutInCas);
+		TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jCas, annotationsToPutInCas);
 
 	}
 
+	/**
+	 * @param jCas
+	 * @return an iterator over the annotation index of the sentence type if one has been
+	 *         configured, otherwise over the entire annotation index
+	 * @throws AnalysisEngineProcessException
+	 *             if the configured sentence type does not exist in the type system of the CAS
+	 */
+	private FSIterator<Annotation> getSentenceCandidateIterator(JCas jCas) throws AnalysisEngineProcessException {
+		if (sentenceUimaTypeName == null) {
+			return jCas.getJFSIndexRepository().getAnnotationIndex().iterator();
+		}
+		TypeSystem typeSystem = jCas.getTypeSystem();
+		if (typeSystem != sentenceTypeSystem) {
+			sentenceType = typeSystem.getType(sentenceUimaTypeName);
+			if (sentenceType == null) {
+				throw new AnalysisEngineProcessException(new IllegalArgumentException(
+						"The configured sentence type is not part of the type system: " + sentenceUimaTypeName));
+			}
+			sentenceTypeSystem = typeSystem;
+		}
+		return jCas.getAnnotationIndex(sentenceType).iterator();
+	}
+
+	/**
+	 * @param annot
+	 * @return true if the type returned by the annotation data extractor ends with the sentence
+	 *         annotation name (ignoring case)
+	 */
+	private boolean isSentence(Annotation annot) {
+		String type = annotationDataExtractor.getAnnotationType(annot);
+		return type != null
+				&& type.regionMatches(true, type.length() - sentenceAnnotationSuffix.length(),
+						sentenceAnnotationSuffix, 0, sentenceAnnotationSuffix.length());
+	}
+
+	/**
+	 * @return the annotations returned for each sentence, in the order of the input sentences
+	 */
+	private List<List<TextAnnotation>> processSentencesConcurrently(List<String> sentenceTexts,
+			List<Integer> sentenceStartOffsets, final JCas jCas) throws AnalysisEngineProcessException {
+		List<Callable<List<TextAnnotation>>> sentenceTasks = new ArrayList<Callable<List<TextAnnotation>>>();
+		for (int i = 0; i < sentenceTexts.size(); i++) {
+			final String sentenceText = sentenceTexts.get(i);
+			final int sentenceStartOffset = sentenceStartOffsets.get(i);
+			sentenceTasks.add(new Callable<List<TextAnnotation>>() {
+				@Override
+				public List<TextAnnotation> call() throws Exception {
+					return processSentence(sentenceText, sentenceStartOffset, jCas);
+				}
+			});
+		}
+		List<List<TextAnnotation>> sentenceAnnotations = new ArrayList<List<TextAnnotation>>();
+		try {
+			for (Future<List<TextAnnotation>> result : sentencePool.invokeAll(sentenceTasks)) {
+				sentenceAnnotations.add(result.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			throw new AnalysisEngineProcessException(e.getCause());
+		}
+		return sentenceAnnotations;
+	}
+
+	@Override
+	public void destroy() {
+		if (sentencePool != null) {
+			sentencePool.shutdown();
+		}
+		super.destroy();
+	}
+
 	protected abstract List<TextAnnotation> processSentence(String sentenceText, int sentenceStartOffset, JCas jCas);
 
 }
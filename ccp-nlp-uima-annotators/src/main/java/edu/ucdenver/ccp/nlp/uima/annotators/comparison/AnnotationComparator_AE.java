@@ -67,6 +67,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -90,6 +94,7 @@ import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
 import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
 import edu.ucdenver.ccp.common.string.RegExPatterns;
 import edu.ucdenver.ccp.common.string.StringConstants;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotation_Util;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationUtil;
 import edu.ucdenver.ccp.nlp.core.annotation.comparison.AnnotationComparator;
@@ -118,6 +123,14 @@ import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
  * the annotations should be compared, i.e. which are the gold standard annotations, etc.
  * <p>
  * See ComparatorConfigurator.java for a detailed description of the configuration file format.
+ * <p>
+ * Comparison results are stored in a {@link ComparisonResultAccumulator}. When a document
+ * collection is processed by multiple instances of this annotator, e.g. by the processing threads
+ * of a CPE, the instances can be assigned a common shared accumulation group name. The results of
+ * all instances in the group are merged, and reported by the last instance in the group to complete.
+ * Results can also be merged across JVMs: each JVM writes its results to a partial results file,
+ * and the partial results files are then merged by a final instance (which need not process any
+ * documents) prior to reporting.
  * 
  * @author William A Baumgartner, Jr.
  * 
@@ -223,6 +236,32 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 			.createConfigurationParameterName(AnnotationComparator_AE.class, "maxComparisonDepth");
 	@ConfigurationParameter(description="by default, comparisons are conducted to the maximum depth of the mention hierarchy (as signified by a maximum comparison depth < 0)")
 	private int maxComparisonDepth = -1;
+
+	public static final String PARAM_COMPARISON_THREAD_COUNT = ConfigurationParameterFactory
+			.createConfigurationParameterName(AnnotationComparator_AE.class, "comparisonThreadCount");
+	@ConfigurationParameter(defaultValue = "1", description = "the number of threads used to compare the comparison groups of a single document. Comparison groups are compared serially if this value is < 2.")
+	private int comparisonThreadCount;
+
+	public static final String PARAM_SHARED_ACCUMULATION_GROUP_NAME = ConfigurationParameterFactory
+			.createConfigurationParameterName(AnnotationComparator_AE.class, "sharedAccumulationGroupName");
+	@ConfigurationParameter(description = "if set, the results of all instances of this annotator in the same JVM that share this name are merged and reported by the last instance to complete. These instances also share the annotation output file.")
+	private String sharedAccumulationGroupName;
+
+	public static final String PARAM_PARTIAL_RESULTS_OUTPUT_FILE = ConfigurationParameterFactory
+			.createConfigurationParameterName(AnnotationComparator_AE.class, "partialResultsOutputFile");
+	@ConfigurationParameter(description = "if set, the accumulated comparison results are serialized to this file so that they can be merged with the results of other JVMs")
+	private File partialResultsOutputFile;
+
+	public static final String PARAM_PARTIAL_RESULTS_INPUT_FILE_PATHS = ConfigurationParameterFactory
+			.createConfigurationParameterName(AnnotationComparator_AE.class, "partialResultsInputFilePaths");
+	@ConfigurationParameter(description = "partial results files, e.g. serialized by other JVMs, that are merged with the results of this annotator prior to reporting")
+	private String[] partialResultsInputFilePaths;
+
+	/**
+	 * Stores the annotation output writers that are shared by instances of this annotator that are
+	 * members of the same shared accumulation group
+	 */
+	private static final Map<String, BufferedWriter> sharedAccumulationGroupName2OutputWriterMap = new HashMap<String, BufferedWriter>();
 	
 	private SpanComparator spanComparator;
 
@@ -241,6 +280,12 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 
 	protected Map<Integer, Set<Integer>> annotationGroupID2ComparisonGroupIDMap;
 
+	/**
+	 * Indexes the annotation groups so that the groups an annotation belongs to can be looked up
+	 * rather than testing each group in turn
+	 */
+	private AnnotationGroupIndex annotationGroupIndex;
+
 	/*
 	 * These sets will be used to track the annotation groups that are used and not used to make the
 	 * comparisons. This information can be used by the user to debug the configuration file setup.
@@ -250,6 +295,10 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 
 	private BufferedWriter annotationOutputWriter;
 
+	private ComparisonResultAccumulator accumulator;
+
+	private ForkJoinPool comparisonPool;
+
 	/**
 	 * Initializes this CAS Consumer with the parameters specified in the descriptor.
 	 * 
@@ -268,29 +317,68 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 		/* Retrieve output file if there is one */
 		if (annotationOutputFile != null)
 			try {
-				annotationOutputWriter = FileWriterUtil.initBufferedWriter(annotationOutputFile,
-						CharacterEncoding.UTF_8, WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+				annotationOutputWriter = initAnnotationOutputWriter();
 			} catch (FileNotFoundException e) {
 				throw new ResourceInitializationException(e);
 			}
 
 		/* Parse the configuration file */
 		parseConfigFile();
+		annotationGroupIndex = new AnnotationGroupIndex(annotationGroupID2GroupMap);
 
 		/* Print the configuration for this comparator to the log */
 		printConfigurationInformationToLog();
 
 		/*
-		 * Initialize the sets that will be used to track the annotations observed during processing
+		 * Initialize the accumulator that will be used to track the scores and the annotations
+		 * observed during processing
 		 */
-		annotationGroupProfilesNotUsedDuringComparisons2CountMap = new HashMap<String, Integer>();
-		annotationGroupProfilesUsedDuringComparisons2CountMap = new HashMap<String, Integer>();
+		accumulator = new ComparisonResultAccumulator();
+		useAccumulatedResults(accumulator);
+		if (sharedAccumulationGroupName != null) {
+			ComparisonResultAccumulator.register(sharedAccumulationGroupName, accumulator);
+		}
 
-		/* Initialize the scores list, and a one PRFResult to the list for each comparison group */
-		comparisonGroupID2ScoreMap = new HashMap<Integer, PRFResult>();
-		for (ComparisonGroup cg : comparisonGroupID2GroupMap.values())
-			comparisonGroupID2ScoreMap.put(cg.getID(), new PRFResult(0, 0, 0));
+		if (comparisonThreadCount > 1) {
+			comparisonPool = new ForkJoinPool(comparisonThreadCount);
+		}
+	}
 
+	/**
+	 * @return a writer for the annotation output file. If this annotator is a member of a shared
+	 *         accumulation group then the writer is shared by all members of the group.
+	 * @throws FileNotFoundException
+	 */
+	private BufferedWriter initAnnotationOutputWriter() throws FileNotFoundException {
+		if (sharedAccumulationGroupName == null) {
+			return FileWriterUtil.initBufferedWriter(annotationOutputFile, CharacterEncoding.UTF_8,
+					WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+		}
+		synchronized (sharedAccumulationGroupName2OutputWriterMap) {
+			if (!sharedAccumulationGroupName2OutputWriterMap.containsKey(sharedAccumulationGroupName)) {
+				sharedAccumulationGroupName2OutputWriterMap.put(sharedAccumulationGroupName, FileWriterUtil
+						.initBufferedWriter(annotationOutputFile, CharacterEncoding.UTF_8, WriteMode.OVERWRITE,
+								FileSuffixEnforcement.OFF));
+			}
+			return sharedAccumulationGroupName2OutputWriterMap.get(sharedAccumulationGroupName);
+		}
+	}
+
+	/**
+	 * Points the score and annotation profile maps at the results stored in the input accumulator.
+	 * Each comparison group is guaranteed to have an entry in the score map.
+	 * 
+	 * @param results
+	 */
+	private void useAccumulatedResults(ComparisonResultAccumulator results) {
+		for (ComparisonGroup cg : comparisonGroupID2GroupMap.values()) {
+			results.addResult(cg.getID(), new PRFResult(0, 0, 0));
+		}
+		comparisonGroupID2ScoreMap = results.getComparisonGroupID2ScoreMap();
+		annotationGroupProfilesUsedDuringComparisons2CountMap = results
+				.getAnnotationGroupProfilesUsedDuringComparisons2CountMap();
+		annotationGroupProfilesNotUsedDuringComparisons2CountMap = results
+				.getAnnotationGroupProfilesNotUsedDuringComparisons2CountMap();
 	}
 
 	/**
@@ -632,32 +720,19 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 		 */
 		for (TextAnnotation ta : annotations) {
 			boolean annotationIsAMemberOfAnAnnotationGroup = false;
-			for (Integer annotationGroupID : annotationGroupID2GroupMap.keySet()) {
-				AnnotationGroup annotationGroup = annotationGroupID2GroupMap.get(annotationGroupID);
-				/* check to see if the annotation belongs to this annotation group */
-				if (annotationGroup.hasMemberAnnotation(ta)) {
-					/*
-					 * The text annotation is a member of this annotation group, so assign it to all
-					 * comparison groups associated with this annotation group
-					 */
-					Set<Integer> comparisonGroupIDs = annotationGroupID2ComparisonGroupIDMap.get(annotationGroupID);
-					for (Integer comparisonGroupID : comparisonGroupIDs) {
-						comparisonGroupID2MemberTextAnnotationsMap.get(comparisonGroupID).add(ta);
-					}
-
-					annotationIsAMemberOfAnAnnotationGroup = true;
-					String annotationGroupProfile = getAnnotationGroupProfile(ta);
-					if (!annotationGroupProfilesUsedDuringComparisons2CountMap.containsKey(annotationGroupProfile)) {
-						annotationGroupProfilesUsedDuringComparisons2CountMap.put(annotationGroupProfile,
-								new Integer(1));
-					} else {
-						int count = annotationGroupProfilesUsedDuringComparisons2CountMap.get(annotationGroupProfile);
-						count++;
-						annotationGroupProfilesUsedDuringComparisons2CountMap.remove(annotationGroupProfile);
-						annotationGroupProfilesUsedDuringComparisons2CountMap.put(annotationGroupProfile, new Integer(
-								count));
-					}
+			/* look up the annotation groups that the annotation belongs to */
+			for (Integer annotationGroupID : annotationGroupIndex.getMemberAnnotationGroupIDs(ta)) {
+				/*
+				 * The text annotation is a member of this annotation group, so assign it to all
+				 * comparison groups associated with this annotation group
+				 */
+				Set<Integer> comparisonGroupIDs = annotationGroupID2ComparisonGroupIDMap.get(annotationGroupID);
+				for (Integer comparisonGroupID : comparisonGroupIDs) {
+					comparisonGroupID2MemberTextAnnotationsMap.get(comparisonGroupID).add(ta);
 				}
+
+				annotationIsAMemberOfAnAnnotationGroup = true;
+				accumulator.incrementProfileCount(getAnnotationGroupProfile(ta), true);
 			}
 
 			if (!annotationIsAMemberOfAnAnnotationGroup) {
@@ -667,17 +742,7 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 				 * is not necessarily a problem, but can serve as useful information if the user has
 				 * not configured the AnnotationComparator correctly).
 				 */
-				String annotationGroupProfile = getAnnotationGroupProfile(ta);
-				if (!annotationGroupProfilesNotUsedDuringComparisons2CountMap.containsKey(annotationGroupProfile)) {
-					annotationGroupProfilesNotUsedDuringComparisons2CountMap
-							.put(annotationGroupProfile, new Integer(1));
-				} else {
-					int count = annotationGroupProfilesNotUsedDuringComparisons2CountMap.get(annotationGroupProfile);
-					count++;
-					annotationGroupProfilesNotUsedDuringComparisons2CountMap.remove(annotationGroupProfile);
-					annotationGroupProfilesNotUsedDuringComparisons2CountMap.put(annotationGroupProfile, new Integer(
-							count));
-				}
+				accumulator.incrementProfileCount(getAnnotationGroupProfile(ta), false);
 			}
 		}
 
@@ -691,21 +756,32 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 	 * @param comparisonGroupID2MemberTextAnnotationsMap
 	 * @param maxComparisonDepth 
 	 * @throws IOException
+	 * @throws AnalysisEngineProcessException
 	 */
 	private Map<Integer, PRFResult> doAnnotationComparisons(String documentID,
-			Map<Integer, Collection<TextAnnotation>> comparisonGroupID2MemberTextAnnotationsMap, int maxComparisonDepth) throws IOException {
-		AnnotationComparator annotationComparator = new AnnotationComparator();
-
-		Map<Integer, PRFResult> comparisonGroupID2ScoreForThisCASOnly = new HashMap<Integer, PRFResult>();
+			Map<Integer, Collection<TextAnnotation>> comparisonGroupID2MemberTextAnnotationsMap, int maxComparisonDepth)
+			throws IOException, AnalysisEngineProcessException {
+		Map<Integer, PRFResult> comparisonGroupID2ScoreForThisCASOnly;
+		if (comparisonPool == null) {
+			comparisonGroupID2ScoreForThisCASOnly = new HashMap<Integer, PRFResult>();
+			AnnotationComparator annotationComparator = new AnnotationComparator();
+			for (Integer comparisonGroupID : comparisonGroupID2MemberTextAnnotationsMap.keySet()) {
+				comparisonGroupID2ScoreForThisCASOnly.put(comparisonGroupID, annotationComparator.compare(
+						comparisonGroupID2MemberTextAnnotationsMap.get(goldStandardComparisonGroupID),
+						comparisonGroupID2MemberTextAnnotationsMap.get(comparisonGroupID), spanComparator,
+						mentionComparator, maxComparisonDepth));
+			}
+		} else {
+			comparisonGroupID2ScoreForThisCASOnly = doAnnotationComparisonsConcurrently(
+					comparisonGroupID2MemberTextAnnotationsMap, maxComparisonDepth);
+		}
 
 		for (Integer comparisonGroupID : comparisonGroupID2MemberTextAnnotationsMap.keySet()) {
 			Collection<TextAnnotation> goldStandardAnnotations = comparisonGroupID2MemberTextAnnotationsMap
 					.get(goldStandardComparisonGroupID);
 			Collection<TextAnnotation> compareAnnotations = comparisonGroupID2MemberTextAnnotationsMap
 					.get(comparisonGroupID);
-
-			PRFResult prf = annotationComparator.compare(goldStandardAnnotations, compareAnnotations, spanComparator,
-					mentionComparator, maxComparisonDepth);
+			PRFResult prf = comparisonGroupID2ScoreForThisCASOnly.get(comparisonGroupID);
 
 			/*
 			 * Do not output the gold standard vs. gold standard comparison for the incremental
@@ -719,9 +795,12 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 						+ comparisonGroupID2GroupMap.get(comparisonGroupID).getDescription() + " ("
 						+ compareAnnotations.size() + ")\n");
 				if (annotationOutputWriter != null) {
-					annotationOutputWriter.write(output.toString());
-					annotationOutputWriter.newLine();
-					prf.printAnnotations(annotationOutputWriter);
+					/* the writer may be shared with other members of a shared accumulation group */
+					synchronized (annotationOutputWriter) {
+						annotationOutputWriter.write(output.toString());
+						annotationOutputWriter.newLine();
+						prf.printAnnotations(annotationOutputWriter);
+					}
 				} else {
 					/*
 					 * Tokenize on new lines and print each line to the logger separately... it just
@@ -735,12 +814,69 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 			}
 
 			/* update the total score with this incremental score */
-			comparisonGroupID2ScoreMap.get(comparisonGroupID).add(prf);
-			comparisonGroupID2ScoreForThisCASOnly.put(comparisonGroupID, prf);
+			accumulator.addResult(comparisonGroupID, prf);
+		}
+		return comparisonGroupID2ScoreForThisCASOnly;
+	}
+
+	/**
+	 * Runs the comparisons for all ComparisonGroups vs. the gold standard ComparisonGroup
+	 * concurrently using the comparison thread pool. Comparing annotations is not free of side
+	 * effects (spans are sorted in place) and annotations that wrap the CAS cannot be accessed
+	 * concurrently, so each comparison is given its own detached copies of the annotations it
+	 * compares. The copies are made prior to starting the comparisons.
+	 * 
+	 * @param comparisonGroupID2MemberTextAnnotationsMap
+	 * @param maxComparisonDepth
+	 * @return a mapping from comparison group ID to the comparison result for this CAS
+	 * @throws AnalysisEngineProcessException
+	 */
+	private Map<Integer, PRFResult> doAnnotationComparisonsConcurrently(
+			Map<Integer, Collection<TextAnnotation>> comparisonGroupID2MemberTextAnnotationsMap,
+			final int maxComparisonDepth) throws AnalysisEngineProcessException {
+		List<Integer> comparisonGroupIDs = new ArrayList<Integer>(comparisonGroupID2MemberTextAnnotationsMap.keySet());
+		List<Callable<PRFResult>> comparisonTasks = new ArrayList<Callable<PRFResult>>();
+		for (Integer comparisonGroupID : comparisonGroupIDs) {
+			final List<TextAnnotation> goldStandardAnnotations = copyAnnotations(comparisonGroupID2MemberTextAnnotationsMap
+					.get(goldStandardComparisonGroupID));
+			final List<TextAnnotation> compareAnnotations = copyAnnotations(comparisonGroupID2MemberTextAnnotationsMap
+					.get(comparisonGroupID));
+			comparisonTasks.add(new Callable<PRFResult>() {
+				@Override
+				public PRFResult call() {
+					return new AnnotationComparator().compare(goldStandardAnnotations, compareAnnotations,
+							spanComparator, mentionComparator, maxComparisonDepth);
+				}
+			});
+		}
+
+		Map<Integer, PRFResult> comparisonGroupID2ScoreForThisCASOnly = new HashMap<Integer, PRFResult>();
+		List<Future<PRFResult>> results = comparisonPool.invokeAll(comparisonTasks);
+		try {
+			for (int i = 0; i < comparisonGroupIDs.size(); i++) {
+				comparisonGroupID2ScoreForThisCASOnly.put(comparisonGroupIDs.get(i), results.get(i).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			throw new AnalysisEngineProcessException(e.getCause());
 		}
 		return comparisonGroupID2ScoreForThisCASOnly;
 	}
 
+	/**
+	 * @param annotations
+	 * @return detached copies of the input annotations
+	 */
+	private static List<TextAnnotation> copyAnnotations(Collection<TextAnnotation> annotations) {
+		List<TextAnnotation> copies = new ArrayList<TextAnnotation>(annotations.size());
+		for (TextAnnotation ta : annotations) {
+			copies.add(Annotation_Util.copyToDefaultTextAnnotation(ta));
+		}
+		return copies;
+	}
+
 	/**
 	 * In this context a duplicate annotation is one that has identical span and identical slot
 	 * fillers (all meta-data is ignored, e.g. annotator, annotation set, etc except for the
@@ -810,6 +946,43 @@ public class AnnotationComparator_AE extends JCasAnnotator_ImplBase {
 	public void collectionProcessComplete() throws AnalysisEngineProcessException {
 		super.collectionProcessComplete();
 
+		if (comparisonPool != null) {
+			comparisonPool.shutdown();
+		}
+
+		/*
+		 * If this annotator is part of a shared accumulation group, then only the last member of
+		 * the group to complete reports the (merged) results
+		 */
+		ComparisonResultAccumulator results = accumulator;
+		if (sharedAccumulationGroupName != null) {
+			results = ComparisonResultAccumulator.deregister(sharedAccumulationGroupName, accumulator);
+			if (results == null) {
+				logger.info("Comparison results will be reported by another member of shared accumulation group: "
+						+ sharedAccumulationGroupName);
+				return;
+			}
+			synchronized (sharedAccumulationGroupName2OutputWriterMap) {
+				sharedAccumulationGroupName2OutputWriterMap.remove(sharedAccumulationGroupName);
+			}
+		}
+
+		/* merge partial results, e.g. from other JVMs, and save the results if requested */
+		try {
+			if (partialResultsInputFilePaths != null) {
+				for (String partialResultsInputFilePath : partialResultsInputFilePaths) {
+					logger.info("Merging partial comparison results from: " + partialResultsInputFilePath);
+					results.merge(ComparisonResultAccumulator.deserialize(new File(partialResultsInputFilePath)));
+				}
+			}
+			useAccumulatedResults(results);
+			if (partialResultsOutputFile != null) {
+				results.serialize(partialResultsOutputFile);
+			}
+		} catch (IOException e) {
+			throw new AnalysisEngineProcessException(e);
+		}
+
 		/* prepare for TP+FN test */
 		PRFResult prf = comparisonGroupID2ScoreMap.get(goldStandardComparisonGroupID);
 		int gsTpFn = prf.getTruePositiveCount() + prf.getFalseNegativeCount();
@@ -56,8 +56,9 @@ package edu.ucdenver.ccp.nlp.uima.annotators.comparison;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
@@ -84,6 +85,14 @@ public class AnnotationGroup {
 	private List<String> annotationTypeList;
 	private List<String> annotationTypeRegexList;
 
+	/*
+	 * The compiled type regexes and a cache of the membership results for class mention types
+	 * that have already been observed. Both are reset whenever the type lists are modified through
+	 * this class.
+	 */
+	private volatile List<Pattern> annotationTypePatternList;
+	private final Map<String, Boolean> classMentionType2IsMemberMap = new ConcurrentHashMap<String, Boolean>();
+
 	public AnnotationGroup() {
 		this.groupID = null;
 		this.annotationSetID = null;
@@ -143,6 +152,26 @@ public class AnnotationGroup {
 			return false;
 		}
 
+		return hasMemberType(classMentionType);
+	}
+
+	/**
+	 * Returns true if the input class mention type meets the type criteria of this annotation group. The annotator
+	 * and annotation set are not considered. Results are cached by class mention type.
+	 * 
+	 * @param classMentionType
+	 * @return
+	 */
+	public boolean hasMemberType(String classMentionType) {
+		Boolean isMember = classMentionType2IsMemberMap.get(classMentionType);
+		if (isMember == null) {
+			isMember = matchesType(classMentionType);
+			classMentionType2IsMemberMap.put(classMentionType, isMember);
+		}
+		return isMember;
+	}
+
+	private boolean matchesType(String classMentionType) {
 		/*
 		 * we check for explicit types if there are any. if there is a match, return true. If not, then check the regex
 		 * matches. If there is an explicit type mentioned then no regexes get checked.
@@ -152,10 +181,8 @@ public class AnnotationGroup {
 				return true;
 			}
 		} else {
-			for (String regex : annotationTypeRegexList) {
-				Pattern p = Pattern.compile(regex);
-				Matcher m = p.matcher(classMentionType);
-				if (m.matches()) {
+			for (Pattern p : getAnnotationTypePatternList()) {
+				if (p.matcher(classMentionType).matches()) {
 					return true;
 				}
 			}
@@ -163,6 +190,26 @@ public class AnnotationGroup {
 		return false;
 	}
 
+	private List<Pattern> getAnnotationTypePatternList() {
+		List<Pattern> patterns = annotationTypePatternList;
+		if (patterns == null) {
+			patterns = new ArrayList<Pattern>(annotationTypeRegexList.size());
+			for (String regex : annotationTypeRegexList) {
+				patterns.add(Pattern.compile(regex));
+			}
+			annotationTypePatternList = patterns;
+		}
+		return patterns;
+	}
+
+	/**
+	 * Discards the compiled type regexes and cached membership results
+	 */
+	private void resetTypeCaches() {
+		annotationTypePatternList = null;
+		classMentionType2IsMemberMap.clear();
+	}
+
 	public Integer getAnnotationSetID() {
 		return annotationSetID;
 	}
@@ -171,28 +218,44 @@ public class AnnotationGroup {
 		this.annotationSetID = annotationSetID;
 	}
 
+	/**
+	 * Note: membership results are cached, so the type criteria of this group should be modified using the set/add
+	 * methods of this class rather than by modifying the returned list directly.
+	 * 
+	 * @return
+	 */
 	public List<String> getAnnotationTypeList() {
 		return annotationTypeList;
 	}
 
 	public void setAnnotationTypeList(List<String> annotationTypeList) {
 		this.annotationTypeList = annotationTypeList;
+		resetTypeCaches();
 	}
 
+	/**
+	 * Note: membership results are cached, so the type criteria of this group should be modified using the set/add
+	 * methods of this class rather than by modifying the returned list directly.
+	 * 
+	 * @return
+	 */
 	public List<String> getAnnotationTypeRegexList() {
 		return annotationTypeRegexList;
 	}
 
 	public void setAnnotationTypeRegexList(List<String> annotationTypeRegexList) {
 		this.annotationTypeRegexList = annotationTypeRegexList;
+		resetTypeCaches();
 	}
 
 	public void addAnnotationType(String type) {
 		this.annotationTypeList.add(type);
+		resetTypeCaches();
 	}
 
 	public void addAnnotationTypeRegex(String type) {
 		this.annotationTypeRegexList.add(type);
+		resetTypeCaches();
 	}
 
 	public Integer getAnnotatorID() {
@@ -0,0 +1,169 @@
+package edu.ucdenver.ccp.nlp.uima.annotators.comparison;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+/**
+ * Indexes a collection of {@link AnnotationGroup}s so that the groups an annotation belongs to can be found without
+ * testing the annotation against every group. Groups are indexed by their (annotator ID, annotation set ID) pair, and
+ * the groups whose type criteria match a given class mention type are cached by type, so that each type is only
+ * matched against the group type regexes once.
+ * <p>
+ * The index does not track changes made to the indexed groups after it has been created.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationGroupIndex {
+
+	private final Map<Integer, AnnotationGroup> annotationGroupID2GroupMap;
+
+	private final Map<AnnotatorAnnotationSetKey, List<Integer>> annotatorAnnotationSetKey2GroupIDsMap;
+
+	private final Map<String, Set<Integer>> classMentionType2MemberGroupIDsMap = new ConcurrentHashMap<String, Set<Integer>>();
+
+	/**
+	 * @param annotationGroupID2GroupMap
+	 *            mapping from annotation group ID to annotation group
+	 */
+	public AnnotationGroupIndex(Map<Integer, AnnotationGroup> annotationGroupID2GroupMap) {
+		this.annotationGroupID2GroupMap = new LinkedHashMap<Integer, AnnotationGroup>(annotationGroupID2GroupMap);
+		annotatorAnnotationSetKey2GroupIDsMap = new HashMap<AnnotatorAnnotationSetKey, List<Integer>>();
+		for (Entry<Integer, AnnotationGroup> entry : this.annotationGroupID2GroupMap.entrySet()) {
+			AnnotatorAnnotationSetKey key = new AnnotatorAnnotationSetKey(entry.getValue().getAnnotatorID(), entry
+					.getValue().getAnnotationSetID());
+			List<Integer> groupIDs = annotatorAnnotationSetKey2GroupIDsMap.get(key);
+			if (groupIDs == null) {
+				groupIDs = new ArrayList<Integer>();
+				annotatorAnnotationSetKey2GroupIDsMap.put(key, groupIDs);
+			}
+			groupIDs.add(entry.getKey());
+		}
+	}
+
+	/**
+	 * Returns the IDs of the annotation groups that the input annotation is a member of. The result is equivalent to
+	 * testing the annotation with {@link AnnotationGroup#hasMemberAnnotation(TextAnnotation)} for each indexed group.
+	 * 
+	 * @param ta
+	 * @return
+	 */
+	public Set<Integer> getMemberAnnotationGroupIDs(TextAnnotation ta) {
+		Integer annotatorID = ta.getAnnotator().getAnnotatorID();
+		Set<Integer> memberTypeGroupIDs = getMemberTypeGroupIDs(ta.getClassMention().getMentionName());
+		if (memberTypeGroupIDs.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		Set<Integer> memberGroupIDs = new LinkedHashSet<Integer>();
+		for (Integer annotationSetID : ta.getAnnotationSetIDs()) {
+			List<Integer> groupIDs = annotatorAnnotationSetKey2GroupIDsMap.get(new AnnotatorAnnotationSetKey(
+					annotatorID, annotationSetID));
+			if (groupIDs != null) {
+				for (Integer groupID : groupIDs) {
+					if (memberTypeGroupIDs.contains(groupID)) {
+						memberGroupIDs.add(groupID);
+					}
+				}
+			}
+		}
+		return memberGroupIDs;
+	}
+
+	/**
+	 * @param classMentionType
+	 * @return the IDs of the annotation groups whose type criteria match the input class mention type
+	 */
+	private Set<Integer> getMemberTypeGroupIDs(String classMentionType) {
+		Set<Integer> groupIDs = classMentionType2MemberGroupIDsMap.get(classMentionType);
+		if (groupIDs == null) {
+			groupIDs = new LinkedHashSet<Integer>();
+			for (Entry<Integer, AnnotationGroup> entry : annotationGroupID2GroupMap.entrySet()) {
+				if (entry.getValue().hasMemberType(classMentionType)) {
+					groupIDs.add(entry.getKey());
+				}
+			}
+			groupIDs = Collections.unmodifiableSet(groupIDs);
+			classMentionType2MemberGroupIDsMap.put(classMentionType, groupIDs);
+		}
+		return groupIDs;
+	}
+
+	/**
+	 * Key used to index annotation groups by annotator ID and annotation set ID
+	 */
+	private static class AnnotatorAnnotationSetKey {
+		private final Integer annotatorID;
+		private final Integer annotationSetID;
+
+		public AnnotatorAnnotationSetKey(Integer annotatorID, Integer annotationSetID) {
+			this.annotatorID = annotatorID;
+			this.annotationSetID = annotationSetID;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = (annotatorID == null) ? 0 : annotatorID.hashCode();
+			return 31 * result + ((annotationSetID == null) ? 0 : annotationSetID.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof AnnotatorAnnotationSetKey)) {
+				return false;
+			}
+			AnnotatorAnnotationSetKey other = (AnnotatorAnnotationSetKey) obj;
+			return (annotatorID == null ? other.annotatorID == null : annotatorID.equals(other.annotatorID))
+					&& (annotationSetID == null ? other.annotationSetID == null : annotationSetID
+							.equals(other.annotationSetID));
+		}
+	}
+
+}
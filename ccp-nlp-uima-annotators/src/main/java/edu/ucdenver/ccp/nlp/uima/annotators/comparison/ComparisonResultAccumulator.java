@@ -0,0 +1,304 @@
+package edu.ucdenver.ccp.nlp.uima.annotators.comparison;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+import edu.ucdenver.ccp.common.string.RegExPatterns;
+import edu.ucdenver.ccp.common.string.StringConstants;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.PRFResult;
+
+/**
+ * Accumulates the results of the annotation comparisons performed by an
+ * {@link AnnotationComparator_AE}: the cumulative {@link PRFResult} for each comparison group and
+ * the counts of the annotation profiles that were (and were not) used during the comparisons.
+ * <p>
+ * Accumulators can be merged, so comparisons can be split across multiple annotator instances
+ * (e.g. the processing threads of a CPE) or across multiple JVMs. Instances running in the same JVM
+ * can share results using {@link #register(String, ComparisonResultAccumulator)} and
+ * {@link #deregister(String, ComparisonResultAccumulator)}. Instances in different JVMs can
+ * serialize their accumulators using {@link #serialize(File)}; the resulting partial results files
+ * can then be merged using {@link #deserialize(File)} and {@link #merge(ComparisonResultAccumulator)}.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ComparisonResultAccumulator {
+
+	private static final String COMPARISON_GROUP_LINE_PREFIX = "CG";
+	private static final String USED_PROFILE_LINE_PREFIX = "USED";
+	private static final String NOT_USED_PROFILE_LINE_PREFIX = "NOT_USED";
+
+	/**
+	 * Stores the accumulators that have been registered in this JVM, keyed by the name of the group
+	 * they have been registered with
+	 */
+	private static final Map<String, SharedAccumulation> sharedAccumulationGroupName2AccumulationMap = new HashMap<String, SharedAccumulation>();
+
+	private final Map<Integer, PRFResult> comparisonGroupID2ScoreMap;
+	private final Map<String, Integer> annotationGroupProfilesUsedDuringComparisons2CountMap;
+	private final Map<String, Integer> annotationGroupProfilesNotUsedDuringComparisons2CountMap;
+
+	public ComparisonResultAccumulator() {
+		comparisonGroupID2ScoreMap = new HashMap<Integer, PRFResult>();
+		annotationGroupProfilesUsedDuringComparisons2CountMap = new HashMap<String, Integer>();
+		annotationGroupProfilesNotUsedDuringComparisons2CountMap = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Adds the counts (TP, FP, FN) of the input {@link PRFResult} to the cumulative result for the
+	 * specified comparison group. The annotations stored in the input {@link PRFResult} are not
+	 * retained.
+	 * 
+	 * @param comparisonGroupID
+	 * @param prf
+	 */
+	public synchronized void addResult(Integer comparisonGroupID, PRFResult prf) {
+		if (!comparisonGroupID2ScoreMap.containsKey(comparisonGroupID)) {
+			comparisonGroupID2ScoreMap.put(comparisonGroupID, new PRFResult(0, 0, 0));
+		}
+		comparisonGroupID2ScoreMap.get(comparisonGroupID).add(prf);
+	}
+
+	/**
+	 * Increments the count for an annotation profile
+	 * 
+	 * @param annotationGroupProfile
+	 * @param usedDuringComparisons
+	 *            true if the profile belongs to an annotation that was included in the comparisons
+	 */
+	public synchronized void incrementProfileCount(String annotationGroupProfile, boolean usedDuringComparisons) {
+		incrementCount(getProfileCountMap(usedDuringComparisons), annotationGroupProfile, 1);
+	}
+
+	/**
+	 * Adds the results stored in the input accumulator to this accumulator
+	 * 
+	 * @param accumulator
+	 */
+	public synchronized void merge(ComparisonResultAccumulator accumulator) {
+		if (accumulator == this) {
+			return;
+		}
+		synchronized (accumulator) {
+			for (Entry<Integer, PRFResult> entry : accumulator.comparisonGroupID2ScoreMap.entrySet()) {
+				addResult(entry.getKey(), entry.getValue());
+			}
+			for (boolean used : new boolean[] { true, false }) {
+				for (Entry<String, Integer> entry : accumulator.getProfileCountMap(used).entrySet()) {
+					incrementCount(getProfileCountMap(used), entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a mapping from comparison group ID to the cumulative {@link PRFResult} for that
+	 *         comparison group. The returned map is backed by this accumulator.
+	 */
+	public Map<Integer, PRFResult> getComparisonGroupID2ScoreMap() {
+		return comparisonGroupID2ScoreMap;
+	}
+
+	/**
+	 * @return a mapping from annotation profile to the number of annotations observed with that
+	 *         profile that were included in the comparisons. The returned map is backed by this
+	 *         accumulator.
+	 */
+	public Map<String, Integer> getAnnotationGroupProfilesUsedDuringComparisons2CountMap() {
+		return annotationGroupProfilesUsedDuringComparisons2CountMap;
+	}
+
+	/**
+	 * @return a mapping from annotation profile to the number of annotations observed with that
+	 *         profile that were not included in the comparisons. The returned map is backed by this
+	 *         accumulator.
+	 */
+	public Map<String, Integer> getAnnotationGroupProfilesNotUsedDuringComparisons2CountMap() {
+		return annotationGroupProfilesNotUsedDuringComparisons2CountMap;
+	}
+
+	private Map<String, Integer> getProfileCountMap(boolean usedDuringComparisons) {
+		return (usedDuringComparisons) ? annotationGroupProfilesUsedDuringComparisons2CountMap
+				: annotationGroupProfilesNotUsedDuringComparisons2CountMap;
+	}
+
+	private static void incrementCount(Map<String, Integer> countMap, String key, int increment) {
+		Integer count = countMap.get(key);
+		countMap.put(key, (count == null) ? increment : count + increment);
+	}
+
+	/**
+	 * Writes the contents of this accumulator to the specified file. One line is written per
+	 * comparison group and per annotation profile, e.g.
+	 * 
+	 * <pre>
+	 * CG [tab] comparison group ID [tab] TP [tab] FP [tab] FN
+	 * USED [tab] count [tab] annotation profile
+	 * NOT_USED [tab] count [tab] annotation profile
+	 * </pre>
+	 * 
+	 * @param partialResultsFile
+	 * @throws IOException
+	 */
+	public synchronized void serialize(File partialResultsFile) throws IOException {
+		BufferedWriter writer = FileWriterUtil.initBufferedWriter(partialResultsFile, CharacterEncoding.UTF_8,
+				WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+		try {
+			for (Entry<Integer, PRFResult> entry : comparisonGroupID2ScoreMap.entrySet()) {
+				PRFResult prf = entry.getValue();
+				writer.write(COMPARISON_GROUP_LINE_PREFIX + StringConstants.TAB + entry.getKey() + StringConstants.TAB
+						+ prf.getTruePositiveCount() + StringConstants.TAB + prf.getFalsePositiveCount()
+						+ StringConstants.TAB + prf.getFalseNegativeCount());
+				writer.newLine();
+			}
+			for (boolean used : new boolean[] { true, false }) {
+				String prefix = (used) ? USED_PROFILE_LINE_PREFIX : NOT_USED_PROFILE_LINE_PREFIX;
+				for (Entry<String, Integer> entry : getProfileCountMap(used).entrySet()) {
+					writer.write(prefix + StringConstants.TAB + entry.getValue() + StringConstants.TAB + entry.getKey());
+					writer.newLine();
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @param partialResultsFile
+	 *            a file produced by {@link #serialize(File)}
+	 * @return an accumulator populated with the contents of the input file
+	 * @throws IOException
+	 */
+	public static ComparisonResultAccumulator deserialize(File partialResultsFile) throws IOException {
+		ComparisonResultAccumulator accumulator = new ComparisonResultAccumulator();
+		BufferedReader reader = FileReaderUtil.initBufferedReader(partialResultsFile, CharacterEncoding.UTF_8);
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() == 0) {
+					continue;
+				}
+				String[] toks = line.split(RegExPatterns.TAB, 3);
+				if (toks[0].equals(COMPARISON_GROUP_LINE_PREFIX)) {
+					String[] counts = toks[2].split(RegExPatterns.TAB);
+					accumulator.addResult(Integer.parseInt(toks[1]), new PRFResult(Integer.parseInt(counts[0]),
+							Integer.parseInt(counts[1]), Integer.parseInt(counts[2])));
+				} else if (toks[0].equals(USED_PROFILE_LINE_PREFIX) || toks[0].equals(NOT_USED_PROFILE_LINE_PREFIX)) {
+					incrementCount(accumulator.getProfileCountMap(toks[0].equals(USED_PROFILE_LINE_PREFIX)), toks[2],
+							Integer.parseInt(toks[1]));
+				} else {
+					throw new IOException("Unexpected line in partial comparison results file ("
+							+ partialResultsFile.getAbsolutePath() + "): " + line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return accumulator;
+	}
+
+	/**
+	 * Registers an accumulator with the named group. Each accumulator registered with a group is
+	 * expected to call {@link #deregister(String, ComparisonResultAccumulator)} once it has finished
+	 * accumulating results.
+	 * 
+	 * @param sharedAccumulationGroupName
+	 * @param accumulator
+	 */
+	public static void register(String sharedAccumulationGroupName, ComparisonResultAccumulator accumulator) {
+		synchronized (sharedAccumulationGroupName2AccumulationMap) {
+			SharedAccumulation sharedAccumulation = sharedAccumulationGroupName2AccumulationMap
+					.get(sharedAccumulationGroupName);
+			if (sharedAccumulation == null) {
+				sharedAccumulation = new SharedAccumulation();
+				sharedAccumulationGroupName2AccumulationMap.put(sharedAccumulationGroupName, sharedAccumulation);
+			}
+			sharedAccumulation.accumulators.add(accumulator);
+			sharedAccumulation.activeCount++;
+		}
+	}
+
+	/**
+	 * Signals that the input accumulator has finished accumulating results.
+	 * 
+	 * @param sharedAccumulationGroupName
+	 * @param accumulator
+	 * @return an accumulator containing the merged results of all accumulators registered with the
+	 *         named group if the input accumulator was the last active member of the group, null
+	 *         otherwise
+	 */
+	public static ComparisonResultAccumulator deregister(String sharedAccumulationGroupName,
+			ComparisonResultAccumulator accumulator) {
+		List<ComparisonResultAccumulator> accumulators;
+		synchronized (sharedAccumulationGroupName2AccumulationMap) {
+			SharedAccumulation sharedAccumulation = sharedAccumulationGroupName2AccumulationMap
+					.get(sharedAccumulationGroupName);
+			if (sharedAccumulation == null || !sharedAccumulation.accumulators.contains(accumulator)) {
+				throw new IllegalStateException("Accumulator is not registered with group: "
+						+ sharedAccumulationGroupName);
+			}
+			if (--sharedAccumulation.activeCount > 0) {
+				return null;
+			}
+			sharedAccumulationGroupName2AccumulationMap.remove(sharedAccumulationGroupName);
+			accumulators = sharedAccumulation.accumulators;
+		}
+		ComparisonResultAccumulator mergedAccumulator = new ComparisonResultAccumulator();
+		for (ComparisonResultAccumulator acc : accumulators) {
+			mergedAccumulator.merge(acc);
+		}
+		return mergedAccumulator;
+	}
+
+	private static class SharedAccumulation {
+		private final List<ComparisonResultAccumulator> accumulators = new ArrayList<ComparisonResultAccumulator>();
+		private int activeCount = 0;
+	}
+
+}
@@ -70,6 +70,7 @@ import org.uimafit.factory.ConfigurationParameterFactory;
 
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotationSet;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.util.AnnotationProvenanceRegistry;
 
 /**
  * A simple utility Analysis Engine that enables the user to change the annotation set assigned to
@@ -122,10 +123,8 @@ public class AnnotationSetOverrider_AE extends JCasAnnotator_ImplBase {
 	public void process(JCas jcas) throws AnalysisEngineProcessException {
 
 		/* create an annotation set list */
-		CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-		ccpAnnotationSet.setAnnotationSetID(setID);
-		ccpAnnotationSet.setAnnotationSetName(setName);
-		ccpAnnotationSet.setAnnotationSetDescription(setDescription);
+		CCPAnnotationSet ccpAnnotationSet = AnnotationProvenanceRegistry.getAnnotationSet(jcas, setID, setName,
+				setDescription);
 		FSArray annotationSets = new FSArray(jcas, 1);
 		annotationSets.set(0, ccpAnnotationSet);
 
@@ -70,6 +70,7 @@ import org.uimafit.factory.ConfigurationParameterFactory;
 
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotator;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.util.AnnotationProvenanceRegistry;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
@@ -131,11 +132,8 @@ public class AnnotatorOverrider_AE extends JCasAnnotator_ImplBase {
 	public void process(JCas jcas) throws AnalysisEngineProcessException {
 
 		/* create an annotation set list */
-		CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
-		ccpAnnotator.setAnnotatorID(annotatorID);
-		ccpAnnotator.setAffiliation(affiliation);
-		ccpAnnotator.setFirstName(firstName);
-		ccpAnnotator.setLastName(lastName);
+		CCPAnnotator ccpAnnotator = AnnotationProvenanceRegistry.getAnnotator(jcas, annotatorID, firstName,
+				lastName, affiliation);
 
 		FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type)
 				.iterator();
@@ -53,7 +53,9 @@ import org.uimafit.factory.ConfigurationParameterFactory;
 import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
-import edu.ucdenver.ccp.nlp.uima.annotation.impl.WrappedCCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPPrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.uima.mention.impl.CCPPrimitiveSlotMentionFactory;
+import edu.ucdenver.ccp.nlp.uima.util.SlotMentionIndex;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
@@ -108,11 +110,12 @@ public class SlotValueToClassMentionPromoter_AE extends JCasAnnotator_ImplBase {
 	public void process(JCas jcas) throws AnalysisEngineProcessException {
 		List<CCPTextAnnotation> annotationsToAddToJcas = new ArrayList<CCPTextAnnotation>();
 		List<CCPTextAnnotation> annotationsToDeleteFromJcas = new ArrayList<CCPTextAnnotation>();
+		SlotMentionIndex slotIndex = SlotMentionIndex.getIndex(jcas);
 		try {
 			for (Iterator<CCPTextAnnotation> annotIter = UIMA_Util.getTextAnnotationIterator(jcas); annotIter.hasNext();) {
 				CCPTextAnnotation ccpTa = annotIter.next();
 				if (ccpTa.getClassMention().getMentionName().matches(mentionTypeRegexString)) {
-					List<String> slotValuesToPromote = getSlotValuesOfInterest(ccpTa);
+					List<String> slotValuesToPromote = getSlotValuesOfInterest(ccpTa, slotIndex);
 					if (slotValuesToPromote.size() > 0) {
 						for (String slotValue : slotValuesToPromote) {
 							String newMentionName = slotValuePrefixToAdd + slotValue;
@@ -150,15 +153,17 @@ public class SlotValueToClassMentionPromoter_AE extends JCasAnnotator_ImplBase {
 	/**
 	 * @param slotType
 	 *            is the SlotType name that, when found, a SlotValue will be extracted and returned.
+	 * @param slotIndex
+	 *            the slot mention index for the CAS being processed
 	 * @return ArrayList<String> of slotValue to promote, or an ArrayList of size 0 if no slots were
 	 *         found.
 	 * 
 	 */
-	private List<String> getSlotValuesOfInterest(CCPTextAnnotation ccpTa) {
+	private List<String> getSlotValuesOfInterest(CCPTextAnnotation ccpTa, SlotMentionIndex slotIndex) {
 		List<String> slotValues = new ArrayList<String>();
-		WrappedCCPTextAnnotation wrappedTa = new WrappedCCPTextAnnotation(ccpTa);
-		PrimitiveSlotMention<?> slot = wrappedTa.getClassMention().getPrimitiveSlotMentionByName(slotNameToPromote);
-		if (slot != null) {
+		CCPPrimitiveSlotMention ccpSlot = slotIndex.getPrimitiveSlotMention(ccpTa.getClassMention(), slotNameToPromote);
+		if (ccpSlot != null) {
+			PrimitiveSlotMention<?> slot = CCPPrimitiveSlotMentionFactory.createPrimitiveSlotMention(ccpSlot);
 			for (Object slotValue : slot.getSlotValues()) {
 				slotValues.add(slotValue.toString());
 			}
@@ -36,6 +36,7 @@ package edu.ucdenver.ccp.nlp.uima.annotators.entitydetection;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.util.Level;
 
@@ -46,6 +47,11 @@ import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
  * This abstract class represented a named entity tagging analysis engine.
+ * <p>
+ * Sentences are passed to the {@link IEntityTagger} one at a time. To tag the sentences of a
+ * document in parallel, set {@link SentenceAnnotationProcessor#PARAM_SENTENCE_PROCESSING_THREAD_COUNT}
+ * and have {@link #isSentenceProcessingThreadSafe()} return true if the entity tagger may be called
+ * concurrently.
  * 
  * @author Bill Baumgartner
  */
@@ -53,6 +59,18 @@ public abstract class EntityTagger_AE extends SentenceAnnotationProcessor {
 
 	protected IEntityTagger entityTagger;
 
+	/**
+	 * The ID of the document being processed; extracted once per document so that sentences can be
+	 * processed without reading from the CAS
+	 */
+	private String documentID;
+
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		documentID = UIMA_Util.getDocumentID(jCas);
+		super.process(jCas);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -62,7 +80,6 @@ public abstract class EntityTagger_AE extends SentenceAnnotationProcessor {
 	 */
 	@Override
 	protected List<TextAnnotation> processSentence(String sentenceText, int sentenceStartOffset, JCas jCas) {
-		String documentID = UIMA_Util.getDocumentID(jCas);
 		List<TextAnnotation> annotationsToReturn = new ArrayList<TextAnnotation>();
 		if (sentenceText.trim().length() > 0) {
 			/* extract entities from the sentence */
@@ -86,7 +103,7 @@ public abstract class EntityTagger_AE extends SentenceAnnotationProcessor {
 		for (TextAnnotation ta : annotations) {
 			if (ta.getCoveredText().trim().length() > 0) {
 				annotationsToKeep.add(ta);
-			} else {
+			} else if (logger.isLoggable(Level.FINEST)) {
 				logger.log(Level.FINEST, "Removing empty annotation: " + ta.getSingleLineRepresentation());
 			}
 		}
@@ -53,7 +53,6 @@ package edu.ucdenver.ccp.nlp.uima.annotators.filter;
  * #L%
  */
 
-import java.util.ArrayList;
 import java.util.Iterator;
 
 import org.apache.uima.UimaContext;
@@ -70,11 +69,13 @@ import org.uimafit.factory.AnalysisEngineFactory;
 import org.uimafit.factory.ConfigurationParameterFactory;
 import org.uimafit.util.JCasUtil;
 
-import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
-import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
-import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
-import edu.ucdenver.ccp.nlp.uima.annotation.impl.WrappedCCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPPrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPSlotMention;
+import edu.ucdenver.ccp.nlp.uima.util.SlotMentionIndex;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 
 /**
@@ -148,32 +149,30 @@ public class SlotRemovalFilter_AE extends JCasAnnotator_ImplBase {
 	public void process(JCas jCas) throws AnalysisEngineProcessException {
 		// List<CCPTextAnnotation> annotationsToRemove = new ArrayList<CCPTextAnnotation>();
 
+		SlotMentionIndex slotIndex = SlotMentionIndex.getIndex(jCas);
 		for (Iterator<CCPTextAnnotation> annotIter = JCasUtil.iterator(jCas, CCPTextAnnotation.class); annotIter
 				.hasNext();) {
 			CCPTextAnnotation ccpTa = annotIter.next();
-			TextAnnotation ta = new WrappedCCPTextAnnotation(ccpTa);
+			CCPClassMention ccpCM = ccpTa.getClassMention();
 			try {
 				switch (removeOption) {
 				case REMOVE_ALL:
-					if (ta.getClassMention().getPrimitiveSlotMentions().size() > 0
-							|| ta.getClassMention().getComplexSlotMentions().size() > 0) {
-//						logger.log(Level.INFO, "Removing ALL slots from: " + ta.toString());
-						ta.getClassMention().setComplexSlotMentions(new ArrayList<ComplexSlotMention>());
-						ta.getClassMention().setPrimitiveSlotMentions(new ArrayList<PrimitiveSlotMention>());
+					if (slotIndex.getPrimitiveSlotMentions(ccpCM).size() > 0
+							|| slotIndex.getComplexSlotMentions(ccpCM).size() > 0) {
+//						logger.log(Level.INFO, "Removing ALL slots from: " + ccpTa.getCoveredText());
+						UIMA_Util.removeSlotMentions(ccpCM, CCPSlotMention.class, jCas);
 					}
 					break;
 				case REMOVE_COMPLEX:
-					if (ta.getClassMention().getComplexSlotMentions().size() > 0) {
-//						logger.log(Level.INFO, "Removing complex slots from: " + ta.toString());
-						ta.getClassMention().setComplexSlotMentions(new ArrayList<ComplexSlotMention>());
-//						logger.log(Level.INFO, "# complex slots remaining: "
-//								+ ta.getClassMention().getComplexSlotMentions().size());
+					if (slotIndex.getComplexSlotMentions(ccpCM).size() > 0) {
+//						logger.log(Level.INFO, "Removing complex slots from: " + ccpTa.getCoveredText());
+						UIMA_Util.removeSlotMentions(ccpCM, CCPComplexSlotMention.class, jCas);
 					}
 					break;
 				case REMOVE_PRIMITIVE:
-					if (ta.getClassMention().getPrimitiveSlotMentions().size() > 0) {
-//						logger.log(Level.INFO, "Removing primitive slots from: " + ta.toString());
-						ta.getClassMention().setPrimitiveSlotMentions(new ArrayList<PrimitiveSlotMention>());
+					if (slotIndex.getPrimitiveSlotMentions(ccpCM).size() > 0) {
+//						logger.log(Level.INFO, "Removing primitive slots from: " + ccpTa.getCoveredText());
+						UIMA_Util.removeSlotMentions(ccpCM, CCPPrimitiveSlotMention.class, jCas);
 					}
 					break;
 				case REMOVE_NONE:
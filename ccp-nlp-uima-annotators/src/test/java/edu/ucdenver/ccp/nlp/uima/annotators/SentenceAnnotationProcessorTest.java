@@ -0,0 +1,244 @@
+package edu.ucdenver.ccp.nlp.uima.annotators;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.Test;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.JCasFactory;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.shims.annotation.impl.CcpAnnotationDataExtractor;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Annotation_Util;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SentenceAnnotationProcessorTest extends DefaultUIMATestCase {
+
+	private static final String SENTENCE_TYPE_NAME = "edu.ucdenver.ccp.nlp.uima.annotators.test.Sentence";
+
+	private static final String CAPITALIZED_TYPE = "capitalized";
+
+	private static final int SENTENCE_COUNT = 40;
+
+	/**
+	 * the names of the threads that have called {@link CapitalizedTokenProcessor#processSentence}
+	 */
+	private static final Set<String> PROCESSING_THREAD_NAMES = Collections.synchronizedSet(new HashSet<String>());
+
+	@Override
+	protected TypeSystemDescription getTypeSystem() {
+		TypeSystemDescription typeSystem = super.getTypeSystem();
+		typeSystem.addType(SENTENCE_TYPE_NAME, "", CAS.TYPE_NAME_ANNOTATION);
+		return typeSystem;
+	}
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		initSentences(jcas);
+	}
+
+	/**
+	 * Adds {@link #SENTENCE_COUNT} sentences to the CAS, each annotated both as a CCP sentence and
+	 * with the {@link #SENTENCE_TYPE_NAME} type
+	 */
+	private static void initSentences(JCas jcas) {
+		StringBuilder documentText = new StringBuilder();
+		List<int[]> sentenceSpans = new ArrayList<int[]>();
+		for (int i = 0; i < SENTENCE_COUNT; i++) {
+			String sentence = "Sentence " + i + " mentions Gene" + i + " and protein P" + i + ".";
+			sentenceSpans.add(new int[] { documentText.length(), documentText.length() + sentence.length() });
+			documentText.append(sentence).append('\n');
+		}
+		jcas.setDocumentText(documentText.toString());
+		Type sentenceType = jcas.getTypeSystem().getType(SENTENCE_TYPE_NAME);
+		for (int[] span : sentenceSpans) {
+			UIMA_Annotation_Util.createCCPTextAnnotation(ClassMentionType.SENTENCE.typeName(), span, jcas);
+			AnnotationFS sentence = jcas.getCas().createAnnotation(sentenceType, span[0], span[1]);
+			jcas.getCas().addFsToIndexes(sentence);
+		}
+	}
+
+	/**
+	 * Annotates every capitalized token of each sentence
+	 */
+	public static class CapitalizedTokenProcessor extends SentenceAnnotationProcessor {
+
+		private static final Pattern CAPITALIZED_TOKEN_PATTERN = Pattern.compile("\\b[A-Z]\\w*");
+
+		@Override
+		protected boolean isSentenceProcessingThreadSafe() {
+			return true;
+		}
+
+		@Override
+		protected List<TextAnnotation> processSentence(String sentenceText, int sentenceStartOffset, JCas jCas) {
+			PROCESSING_THREAD_NAMES.add(Thread.currentThread().getName());
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+			Matcher matcher = CAPITALIZED_TOKEN_PATTERN.matcher(sentenceText);
+			while (matcher.find()) {
+				annotations.add(new DefaultTextAnnotation(sentenceStartOffset + matcher.start(), sentenceStartOffset
+						+ matcher.end(), matcher.group(), new Annotator(1, "", "", ""), new AnnotationSet(), -1, -1,
+						"", -1, new DefaultClassMention(CAPITALIZED_TYPE)));
+			}
+			return annotations;
+		}
+	}
+
+	/**
+	 * Same as {@link CapitalizedTokenProcessor} but does not declare itself safe for concurrent
+	 * sentence processing
+	 */
+	public static class SerialCapitalizedTokenProcessor extends CapitalizedTokenProcessor {
+
+		@Override
+		protected boolean isSentenceProcessingThreadSafe() {
+			return false;
+		}
+	}
+
+	private List<String> process(Class<? extends SentenceAnnotationProcessor> processorClass, JCas jcas,
+			int threadCount, String sentenceUimaTypeName) throws UIMAException {
+		PROCESSING_THREAD_NAMES.clear();
+		AnalysisEngine engine = AnalysisEngineFactory.createPrimitive(processorClass, tsd,
+				SentenceAnnotationProcessor.PARAM_ANNOTATION_DATA_EXTRACTOR_CLASS,
+				CcpAnnotationDataExtractor.class.getName(),
+				SentenceAnnotationProcessor.PARAM_SENTENCE_PROCESSING_THREAD_COUNT, threadCount,
+				SentenceAnnotationProcessor.PARAM_SENTENCE_UIMA_TYPE_NAME, sentenceUimaTypeName);
+		try {
+			engine.process(jcas);
+		} finally {
+			engine.destroy();
+		}
+		List<String> annotations = new ArrayList<String>();
+		for (Iterator<CCPTextAnnotation> annotIter = UIMA_Util.getTextAnnotationIterator(jcas); annotIter.hasNext();) {
+			CCPTextAnnotation ccpTA = annotIter.next();
+			if (ccpTA.getClassMention().getMentionName().equals(CAPITALIZED_TYPE)) {
+				annotations.add(ccpTA.getBegin() + ".." + ccpTA.getEnd() + " " + ccpTA.getCoveredText());
+			}
+		}
+		return annotations;
+	}
+
+	private JCas newJCas() throws UIMAException {
+		JCas newJCas = JCasFactory.createJCas(tsd);
+		initSentences(newJCas);
+		return newJCas;
+	}
+
+	@Test
+	public void testSentenceAnnotationName() throws UIMAException {
+		List<String> annotations = process(CapitalizedTokenProcessor.class, jcas, 1, null);
+		assertEquals(3 * SENTENCE_COUNT, annotations.size());
+		assertEquals("0..8 Sentence", annotations.get(0));
+		assertEquals("20..25 Gene0", annotations.get(1));
+		assertEquals("38..40 P0", annotations.get(2));
+	}
+
+	@Test
+	public void testSentenceUimaTypeName() throws UIMAException {
+		List<String> expectedAnnotations = process(CapitalizedTokenProcessor.class, jcas, 1, null);
+		assertEquals(expectedAnnotations, process(CapitalizedTokenProcessor.class, newJCas(), 1, SENTENCE_TYPE_NAME));
+	}
+
+	@Test
+	public void testSentenceUimaTypeNameOnlyIteratesThatType() throws UIMAException {
+		/* with no annotations of the configured type, the document text is processed as a whole */
+		JCas noTypedSentencesJCas = JCasFactory.createJCas(tsd);
+		noTypedSentencesJCas.setDocumentText("One sentence.\nAnother Sentence.");
+		UIMA_Annotation_Util.createCCPTextAnnotation(ClassMentionType.SENTENCE.typeName(), new int[] { 0, 13 },
+				noTypedSentencesJCas);
+		List<String> annotations = process(CapitalizedTokenProcessor.class, noTypedSentencesJCas, 1,
+				SENTENCE_TYPE_NAME);
+		assertEquals(3, annotations.size());
+		assertEquals("14..21 Another", annotations.get(1));
+	}
+
+	@Test(expected = AnalysisEngineProcessException.class)
+	public void testUnknownSentenceUimaTypeName() throws UIMAException {
+		process(CapitalizedTokenProcessor.class, jcas, 1, "edu.ucdenver.ccp.nlp.uima.annotators.test.Unknown");
+	}
+
+	@Test
+	public void testConcurrentOutputEqualsSerialOutput() throws UIMAException {
+		String callingThreadName = Thread.currentThread().getName();
+		List<String> serialAnnotations = process(CapitalizedTokenProcessor.class, jcas, 1, null);
+		assertEquals(Collections.singleton(callingThreadName), PROCESSING_THREAD_NAMES);
+
+		assertEquals(serialAnnotations, process(CapitalizedTokenProcessor.class, newJCas(), 4, null));
+		assertFalse(PROCESSING_THREAD_NAMES.contains(callingThreadName));
+
+		assertEquals(serialAnnotations, process(CapitalizedTokenProcessor.class, newJCas(), 4, SENTENCE_TYPE_NAME));
+		assertFalse(PROCESSING_THREAD_NAMES.contains(callingThreadName));
+	}
+
+	@Test
+	public void testThreadCountIsIgnoredIfProcessingIsNotThreadSafe() throws UIMAException {
+		List<String> serialAnnotations = process(CapitalizedTokenProcessor.class, jcas, 1, null);
+		assertEquals(serialAnnotations, process(SerialCapitalizedTokenProcessor.class, newJCas(), 4, null));
+		assertEquals(Collections.singleton(Thread.currentThread().getName()), PROCESSING_THREAD_NAMES);
+	}
+
+}
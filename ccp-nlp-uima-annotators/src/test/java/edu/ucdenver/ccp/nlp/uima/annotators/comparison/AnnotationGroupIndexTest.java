@@ -0,0 +1,114 @@
+package edu.ucdenver.ccp.nlp.uima.annotators.comparison;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationGroupIndexTest {
+
+	private static TextAnnotation createAnnotation(int annotatorID, int annotationSetID, String type) {
+		return new DefaultTextAnnotation(0, 5, "ABC-1", new Annotator(annotatorID, "first", "last", "affiliation"),
+				new AnnotationSet(annotationSetID, "set", "description"), -1, -1, "1234", -1, new DefaultClassMention(
+						type));
+	}
+
+	private static Map<Integer, AnnotationGroup> createAnnotationGroups() {
+		Map<Integer, AnnotationGroup> annotationGroupID2GroupMap = new HashMap<Integer, AnnotationGroup>();
+		AnnotationGroup proteinGroup = new AnnotationGroup(1, 10, 100);
+		proteinGroup.addAnnotationType("protein");
+		annotationGroupID2GroupMap.put(1, proteinGroup);
+		AnnotationGroup geneOrProteinGroup = new AnnotationGroup(2, 10, 100);
+		geneOrProteinGroup.addAnnotationTypeRegex("(gene|protein)");
+		annotationGroupID2GroupMap.put(2, geneOrProteinGroup);
+		AnnotationGroup otherSetGroup = new AnnotationGroup(3, 10, 200);
+		otherSetGroup.addAnnotationTypeRegex(".*");
+		annotationGroupID2GroupMap.put(3, otherSetGroup);
+		return annotationGroupID2GroupMap;
+	}
+
+	@Test
+	public void testGetMemberAnnotationGroupIDs() {
+		Map<Integer, AnnotationGroup> annotationGroupID2GroupMap = createAnnotationGroups();
+		AnnotationGroupIndex index = new AnnotationGroupIndex(annotationGroupID2GroupMap);
+
+		TextAnnotation[] annotations = new TextAnnotation[] { createAnnotation(10, 100, "protein"),
+				createAnnotation(10, 100, "gene"), createAnnotation(10, 100, "cell"), createAnnotation(10, 200, "cell"),
+				createAnnotation(11, 100, "protein") };
+		for (TextAnnotation ta : annotations) {
+			/* the indexed lookup must agree with testing each annotation group in turn */
+			Set<Integer> expectedGroupIDs = new HashSet<Integer>();
+			for (Integer groupID : annotationGroupID2GroupMap.keySet()) {
+				if (annotationGroupID2GroupMap.get(groupID).hasMemberAnnotation(ta)) {
+					expectedGroupIDs.add(groupID);
+				}
+			}
+			/* repeated lookups are served from the type cache */
+			assertEquals(expectedGroupIDs, index.getMemberAnnotationGroupIDs(ta));
+			assertEquals(expectedGroupIDs, index.getMemberAnnotationGroupIDs(ta));
+		}
+		assertEquals(CollectionsUtil.createSet(1, 2), index.getMemberAnnotationGroupIDs(annotations[0]));
+		assertEquals(CollectionsUtil.createSet(3), index.getMemberAnnotationGroupIDs(annotations[3]));
+	}
+
+	@Test
+	public void testTypeCacheIsResetWhenTypesChange() {
+		AnnotationGroup annotationGroup = new AnnotationGroup(1, 10, 100);
+		annotationGroup.addAnnotationTypeRegex("gene");
+		assertFalse(annotationGroup.hasMemberType("protein"));
+		annotationGroup.addAnnotationTypeRegex("prot.*");
+		assertTrue(annotationGroup.hasMemberType("protein"));
+	}
+
+}
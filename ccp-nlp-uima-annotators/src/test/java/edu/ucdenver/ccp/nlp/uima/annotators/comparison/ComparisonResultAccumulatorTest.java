@@ -0,0 +1,115 @@
+package edu.ucdenver.ccp.nlp.uima.annotators.comparison;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.PRFResult;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ComparisonResultAccumulatorTest extends DefaultTestCase {
+
+	private static final String USED_PROFILE = "AnnotatorID: 1 AnnotationSetIDs: 1, 2 Type: protein";
+	private static final String NOT_USED_PROFILE = "AnnotatorID: 2 AnnotationSetIDs: 3 Type: gene";
+
+	private static ComparisonResultAccumulator createAccumulator(int tp, int fp, int fn) {
+		ComparisonResultAccumulator accumulator = new ComparisonResultAccumulator();
+		accumulator.addResult(1, new PRFResult(tp + fn, 0, 0));
+		accumulator.addResult(2, new PRFResult(tp, fp, fn));
+		accumulator.incrementProfileCount(USED_PROFILE, true);
+		accumulator.incrementProfileCount(USED_PROFILE, true);
+		accumulator.incrementProfileCount(NOT_USED_PROFILE, false);
+		return accumulator;
+	}
+
+	private static void assertCounts(PRFResult prf, int expectedTp, int expectedFp, int expectedFn) {
+		assertEquals(expectedTp, prf.getTruePositiveCount());
+		assertEquals(expectedFp, prf.getFalsePositiveCount());
+		assertEquals(expectedFn, prf.getFalseNegativeCount());
+	}
+
+	@Test
+	public void testMerge() {
+		ComparisonResultAccumulator accumulator = createAccumulator(1, 2, 3);
+		accumulator.merge(createAccumulator(10, 20, 30));
+		assertCounts(accumulator.getComparisonGroupID2ScoreMap().get(1), 44, 0, 0);
+		assertCounts(accumulator.getComparisonGroupID2ScoreMap().get(2), 11, 22, 33);
+		assertEquals(Integer.valueOf(4), accumulator.getAnnotationGroupProfilesUsedDuringComparisons2CountMap().get(
+				USED_PROFILE));
+		assertEquals(Integer.valueOf(2), accumulator.getAnnotationGroupProfilesNotUsedDuringComparisons2CountMap()
+				.get(NOT_USED_PROFILE));
+	}
+
+	@Test
+	public void testSerializeDeserialize() throws IOException {
+		File partialResultsFile = folder.newFile("partial-results.txt");
+		createAccumulator(1, 2, 3).serialize(partialResultsFile);
+		ComparisonResultAccumulator accumulator = ComparisonResultAccumulator.deserialize(partialResultsFile);
+		assertCounts(accumulator.getComparisonGroupID2ScoreMap().get(1), 4, 0, 0);
+		assertCounts(accumulator.getComparisonGroupID2ScoreMap().get(2), 1, 2, 3);
+		assertEquals(Integer.valueOf(2), accumulator.getAnnotationGroupProfilesUsedDuringComparisons2CountMap().get(
+				USED_PROFILE));
+		assertEquals(Integer.valueOf(1), accumulator.getAnnotationGroupProfilesNotUsedDuringComparisons2CountMap()
+				.get(NOT_USED_PROFILE));
+	}
+
+	@Test
+	public void testSharedAccumulationGroup() {
+		String groupName = "test-group";
+		ComparisonResultAccumulator accumulator1 = createAccumulator(1, 2, 3);
+		ComparisonResultAccumulator accumulator2 = createAccumulator(10, 20, 30);
+		ComparisonResultAccumulator.register(groupName, accumulator1);
+		ComparisonResultAccumulator.register(groupName, accumulator2);
+
+		assertNull("results should not be available until all members of the group have finished",
+				ComparisonResultAccumulator.deregister(groupName, accumulator2));
+		ComparisonResultAccumulator mergedAccumulator = ComparisonResultAccumulator.deregister(groupName,
+				accumulator1);
+		assertNotNull(mergedAccumulator);
+		assertCounts(mergedAccumulator.getComparisonGroupID2ScoreMap().get(2), 11, 22, 33);
+	}
+
+}
@@ -0,0 +1,167 @@
+package edu.ucdenver.ccp.nlp.uima.annotators.entitydetection;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.junit.Test;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.JCasFactory;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.interfaces.IEntityTagger;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.annotators.SentenceAnnotationProcessor;
+import edu.ucdenver.ccp.nlp.uima.shims.annotation.impl.CcpAnnotationDataExtractor;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Annotation_Util;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class EntityTagger_AETest extends DefaultUIMATestCase {
+
+	private static final String[] SENTENCES = { "ABC1 binds DEF2 in vitro.", "The XYZ3 protein is Active.", "   ",
+			"no entities here.", "Gene and Protein are Capitalized." };
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		initSentences(jcas);
+	}
+
+	private static void initSentences(JCas jcas) {
+		StringBuilder documentText = new StringBuilder();
+		List<int[]> sentenceSpans = new ArrayList<int[]>();
+		for (String sentence : SENTENCES) {
+			sentenceSpans.add(new int[] { documentText.length(), documentText.length() + sentence.length() });
+			documentText.append(sentence).append('\n');
+		}
+		jcas.setDocumentText(documentText.toString());
+		for (int[] span : sentenceSpans) {
+			UIMA_Annotation_Util.createCCPTextAnnotation(ClassMentionType.SENTENCE.typeName(), span, jcas);
+		}
+	}
+
+	/**
+	 * Tags every capitalized token as a protein
+	 */
+	public static class CapitalizedTokenTagger implements IEntityTagger {
+
+		private static final Pattern CAPITALIZED_TOKEN_PATTERN = Pattern.compile("\\b[A-Z]\\w*");
+
+		public void initialize(int taggerType, String[] args) {
+			/* nothing to initialize */
+		}
+
+		public List<TextAnnotation> getEntitiesFromText(String inputText, String documentID) {
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+			Matcher matcher = CAPITALIZED_TOKEN_PATTERN.matcher(inputText);
+			while (matcher.find()) {
+				annotations.add(new DefaultTextAnnotation(matcher.start(), matcher.end(), matcher.group(),
+						new Annotator(1, "", "", ""), new AnnotationSet(), -1, -1, documentID, -1,
+						new DefaultClassMention("protein")));
+			}
+			return annotations;
+		}
+
+		public void shutdown() {
+			/* nothing to release */
+		}
+	}
+
+	/**
+	 * Uses the {@link CapitalizedTokenTagger}, which may be called concurrently
+	 */
+	public static class CapitalizedTokenTagger_AE extends EntityTagger_AE {
+
+		@Override
+		public void initialize(UimaContext context) throws ResourceInitializationException {
+			super.initialize(context);
+			entityTagger = new CapitalizedTokenTagger();
+		}
+
+		@Override
+		protected boolean isSentenceProcessingThreadSafe() {
+			return true;
+		}
+	}
+
+	private List<String> tag(JCas jcas, int threadCount) throws UIMAException {
+		AnalysisEngine engine = AnalysisEngineFactory.createPrimitive(CapitalizedTokenTagger_AE.class, tsd,
+				SentenceAnnotationProcessor.PARAM_ANNOTATION_DATA_EXTRACTOR_CLASS,
+				CcpAnnotationDataExtractor.class.getName(),
+				SentenceAnnotationProcessor.PARAM_SENTENCE_PROCESSING_THREAD_COUNT, threadCount);
+		engine.process(jcas);
+		engine.destroy();
+		List<String> entities = new ArrayList<String>();
+		for (Iterator<CCPTextAnnotation> annotIter = UIMA_Util.getTextAnnotationIterator(jcas); annotIter.hasNext();) {
+			CCPTextAnnotation ccpTA = annotIter.next();
+			if (ccpTA.getClassMention().getMentionName().equals("protein")) {
+				entities.add(ccpTA.getBegin() + ".." + ccpTA.getEnd() + " " + ccpTA.getCoveredText());
+			}
+		}
+		return entities;
+	}
+
+	@Test
+	public void testConcurrentOutputEqualsSerialOutput() throws UIMAException {
+		List<String> serialEntities = tag(jcas, 1);
+		assertEquals(8, serialEntities.size());
+		assertEquals("30..34 XYZ3", serialEntities.get(3));
+
+		JCas concurrentJCas = JCasFactory.createJCas(tsd);
+		initSentences(concurrentJCas);
+		assertEquals(serialEntities, tag(concurrentJCas, 3));
+	}
+
+}
@@ -33,7 +33,9 @@ package edu.ucdenver.ccp.nlp.uima.collections;
  * #L%
  */
 
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -114,6 +116,68 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 	@ConfigurationParameter(defaultValue = "false", description = DESCRIPTION_DISABLE_PROGRESS)
 	protected boolean disableProgressTracking;
 
+	private static final String DESCRIPTION_PROGRESS_TRACKING_MODE = "When progress tracking is enabled, this parameter controls "
+			+ "how the number of documents to be processed is obtained. COUNT (the default) counts the documents before the first "
+			+ "document is returned. BACKGROUND_COUNT counts the documents in a background thread while processing proceeds. "
+			+ "ESTIMATE estimates the number of documents from the proportion of the input that has been read; readers that are "
+			+ "unable to report their position in the input fall back to BACKGROUND_COUNT.";
+	public static final String PARAM_PROGRESS_TRACKING_MODE = ConfigurationParameterFactory
+			.createConfigurationParameterName(BaseTextCollectionReader.class, "progressTrackingMode");
+	@ConfigurationParameter(defaultValue = "COUNT", description = DESCRIPTION_PROGRESS_TRACKING_MODE)
+	protected ProgressTrackingMode progressTrackingMode;
+
+	private static final String DESCRIPTION_CACHE_DOCUMENT_COUNT = "If true, the number of documents counted for progress "
+			+ "tracking is saved to a sidecar file next to the input file (the input file name plus \".count\") and reused by "
+			+ "subsequent runs over the same unchanged input. This applies only to collections drawn from a single file.";
+	public static final String PARAM_CACHE_DOCUMENT_COUNT = ConfigurationParameterFactory
+			.createConfigurationParameterName(BaseTextCollectionReader.class, "cacheDocumentCount");
+	@ConfigurationParameter(defaultValue = "false", description = DESCRIPTION_CACHE_DOCUMENT_COUNT)
+	protected boolean cacheDocumentCount;
+
+	private static final String DESCRIPTION_CHECKPOINT_INTERVAL = "If > 0, readers that draw their collection from a single "
+			+ "file record the byte offset of every n-th document in a sidecar file next to the input file (the input file name plus "
+			+ "\".checkpoints\") and use it to seek directly to the nearest checkpoint when skipping documents, e.g. when resuming "
+			+ "an interrupted run. The index is built by scanning the input the first time it is needed and reused thereafter.";
+	public static final String PARAM_CHECKPOINT_INTERVAL = ConfigurationParameterFactory
+			.createConfigurationParameterName(BaseTextCollectionReader.class, "checkpointInterval");
+	@ConfigurationParameter(defaultValue = "0", description = DESCRIPTION_CHECKPOINT_INTERVAL)
+	protected int checkpointInterval;
+
+	private static final String DESCRIPTION_SHARD_COUNT = "Divides the documents in a single-file collection into this number of "
+			+ "contiguous shards of (nearly) equal size so that they can be processed by independent workers. The shard to process is "
+			+ "set by the shard index parameter; the number to skip and number to process parameters then apply within that shard. "
+			+ "Sharding uses the checkpoint index (see the checkpoint interval parameter) and is only supported by readers that "
+			+ "support checkpoints.";
+	public static final String PARAM_SHARD_COUNT = ConfigurationParameterFactory.createConfigurationParameterName(
+			BaseTextCollectionReader.class, "shardCount");
+	@ConfigurationParameter(defaultValue = "1", description = DESCRIPTION_SHARD_COUNT)
+	protected int shardCount;
+
+	private static final String DESCRIPTION_SHARD_INDEX = "The (zero-based) index of the shard to process when the shard count "
+			+ "parameter is > 1.";
+	public static final String PARAM_SHARD_INDEX = ConfigurationParameterFactory.createConfigurationParameterName(
+			BaseTextCollectionReader.class, "shardIndex");
+	@ConfigurationParameter(defaultValue = "0", description = DESCRIPTION_SHARD_INDEX)
+	protected int shardIndex;
+
+	private static final String DESCRIPTION_READ_AHEAD_QUEUE_SIZE = "This parameter enables the user to have documents read "
+			+ "ahead of the pipeline by background threads so that the pipeline does not stall on I/O, decompression or parsing "
+			+ "between CASes. It sets the maximum number of documents held in memory ahead of the pipeline. Any number < 1 disables "
+			+ "reading ahead, in which case each document is read when it is requested.";
+	public static final String PARAM_READ_AHEAD_QUEUE_SIZE = ConfigurationParameterFactory
+			.createConfigurationParameterName(BaseTextCollectionReader.class, "readAheadQueueSize");
+	@ConfigurationParameter(defaultValue = "0", description = DESCRIPTION_READ_AHEAD_QUEUE_SIZE)
+	protected int readAheadQueueSize;
+
+	private static final String DESCRIPTION_READ_AHEAD_THREAD_COUNT = "When reading ahead is enabled, this parameter sets the "
+			+ "number of worker threads used to read documents. Documents are always returned in collection order. Readers that must "
+			+ "parse their input sequentially, e.g. those reading many documents from a single file, benefit only from the first "
+			+ "thread.";
+	public static final String PARAM_READ_AHEAD_THREAD_COUNT = ConfigurationParameterFactory
+			.createConfigurationParameterName(BaseTextCollectionReader.class, "readAheadThreadCount");
+	@ConfigurationParameter(defaultValue = "1", description = DESCRIPTION_READ_AHEAD_THREAD_COUNT)
+	protected int readAheadThreadCount;
+
 	/* ==== DocumentMetadataHandler configuration ==== */
 	/**
 	 * Parameter name used in the UIMA descriptor file for the token attribute extractor
@@ -136,16 +200,81 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 
 	protected int processedDocumentCount = 0;
 
-	private int documentsToBeProcessedCount = 0;
+	/**
+	 * Options for obtaining the number of documents to be processed for progress tracking
+	 */
+	public enum ProgressTrackingMode {
+		/**
+		 * the documents are counted during initialization, before the first document is returned
+		 */
+		COUNT,
+		/**
+		 * the documents are counted in a background thread. Until the count is available progress is
+		 * reported as if progress tracking were disabled.
+		 */
+		BACKGROUND_COUNT,
+		/**
+		 * the number of documents is estimated from the proportion of the input that has been read
+		 * 
+		 * @see BaseTextCollectionReader#getInputByteCount()
+		 * @see BaseTextCollectionReader#getInputBytesRead()
+		 */
+		ESTIMATE
+	}
+
+	private volatile int documentsToBeProcessedCount = 0;
+
+	/**
+	 * false until documentsToBeProcessedCount has been computed
+	 */
+	private volatile boolean documentCountAvailable = false;
+
+	/**
+	 * true if the number of documents to be processed is being estimated from the input read
+	 */
+	private boolean estimatingDocumentCount = false;
+
+	/**
+	 * the checkpoint interval used when sharding is requested without an explicit interval
+	 */
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+	/**
+	 * lazily loaded or built by {@link #getDocumentCheckpointIndex()}
+	 */
+	private DocumentCheckpointIndex documentCheckpointIndex;
+
+	/**
+	 * non-null when documents are being read ahead
+	 */
+	private DocumentReadAheadQueue readAheadQueue;
 
 	@Override
 	public void initialize(UimaContext context) throws ResourceInitializationException {
 		super.initialize(context);
 		try {
+			if (shardCount > 1) {
+				restrictToShard();
+			}
 			if (!disableProgressTracking) {
-				documentsToBeProcessedCount = countDocumentsInCollection();
+				if (shardCount > 1) {
+					setDocumentsToBeProcessedCount(numberToProcess);
+				} else if (progressTrackingMode == ProgressTrackingMode.COUNT) {
+					setDocumentsToBeProcessedCount(countDocuments());
+				} else if (progressTrackingMode == ProgressTrackingMode.BACKGROUND_COUNT) {
+					startBackgroundDocumentCount();
+				}
 			}
 			initializeImplementation(context);
+			if (!disableProgressTracking && shardCount <= 1 && progressTrackingMode == ProgressTrackingMode.ESTIMATE) {
+				if (getInputByteCount() > 0) {
+					estimatingDocumentCount = true;
+				} else {
+					logger.info(getClass().getSimpleName() + " is unable to estimate the size of its collection. "
+							+ "Documents will be counted in the background instead.");
+					startBackgroundDocumentCount();
+				}
+			}
 			skip(numberToSkip);
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
@@ -153,6 +282,12 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 
 		setDocumentMetadataHandler((DocumentMetadataHandler) ConstructorUtil
 				.invokeConstructor(documentMetadataHandlerClassName));
+
+		if (readAheadQueueSize > 0) {
+			readAheadQueue = new DocumentReadAheadQueue(this, readAheadQueueSize, readAheadThreadCount,
+					numberToProcess);
+			readAheadQueue.start();
+		}
 	}
 
 	/**
@@ -173,6 +308,167 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 	 */
 	protected abstract int countDocumentsInCollection() throws IOException;
 
+	/**
+	 * Adjusts numberToSkip and numberToProcess so that they select documents from the shard
+	 * specified by shardIndex. On return numberToProcess is the exact number of documents that
+	 * will be processed.
+	 * 
+	 * @throws IOException
+	 * @throws ResourceInitializationException
+	 *             if the shard parameters are invalid or this reader does not support checkpoints
+	 */
+	private void restrictToShard() throws IOException, ResourceInitializationException {
+		if (shardIndex < 0 || shardIndex >= shardCount) {
+			throw new ResourceInitializationException(new IllegalArgumentException("Invalid shard index: "
+					+ shardIndex + ". The shard index must be >= 0 and < the shard count (" + shardCount + ")."));
+		}
+		DocumentCheckpointIndex index = getDocumentCheckpointIndex();
+		if (index == null) {
+			throw new ResourceInitializationException(new UnsupportedOperationException(getClass().getSimpleName()
+					+ " does not support sharding of its collection."));
+		}
+		int shardStart = (int) ((long) index.getDocumentCount() * shardIndex / shardCount);
+		int shardEnd = (int) ((long) index.getDocumentCount() * (shardIndex + 1) / shardCount);
+		int shardDocumentCount = Math.max(shardEnd - shardStart - numberToSkip, 0);
+		numberToSkip += shardStart;
+		numberToProcess = (numberToProcess < 0) ? shardDocumentCount : Math.min(numberToProcess, shardDocumentCount);
+		logger.info("Processing shard " + shardIndex + " of " + shardCount + ": " + numberToProcess
+				+ " documents starting at document " + numberToSkip + ".");
+	}
+
+	/**
+	 * @return true if checkpoints should be used to skip documents
+	 */
+	protected boolean isCheckpointingEnabled() {
+		return checkpointInterval > 0 || shardCount > 1;
+	}
+
+	/**
+	 * Returns the checkpoint index for this collection, loading it from its sidecar file or, if
+	 * there is no current saved index, building and then saving it.
+	 * 
+	 * @return the checkpoint index, or null if this reader does not support checkpoints
+	 * @throws IOException
+	 */
+	protected DocumentCheckpointIndex getDocumentCheckpointIndex() throws IOException {
+		if (documentCheckpointIndex == null) {
+			File collectionFile = getCollectionFile();
+			if (collectionFile == null) {
+				return null;
+			}
+			int interval = (checkpointInterval > 0) ? checkpointInterval : DEFAULT_CHECKPOINT_INTERVAL;
+			String key = getDocumentCheckpointIndexKey();
+			documentCheckpointIndex = DocumentCheckpointIndex.load(collectionFile, key, interval);
+			if (documentCheckpointIndex == null) {
+				logger.info("Building checkpoint index for: " + collectionFile.getAbsolutePath());
+				documentCheckpointIndex = buildDocumentCheckpointIndex(interval);
+				if (documentCheckpointIndex != null) {
+					documentCheckpointIndex.save(collectionFile, key);
+				}
+			}
+		}
+		return documentCheckpointIndex;
+	}
+
+	/**
+	 * Override to support checkpoints. Implementations must count documents exactly as
+	 * {@link #skip(int)} does.
+	 * 
+	 * @param interval
+	 * @return a checkpoint index built for the file returned by {@link #getCollectionFile()}, or
+	 *         null if checkpoints are not supported
+	 * @throws IOException
+	 */
+	protected DocumentCheckpointIndex buildDocumentCheckpointIndex(@SuppressWarnings("unused") int interval)
+			throws IOException {
+		return null;
+	}
+
+	/**
+	 * @return a key identifying how documents are delimited in the collection file; a saved
+	 *         checkpoint index is only reused if its key matches
+	 */
+	protected String getDocumentCheckpointIndexKey() {
+		return getClass().getName();
+	}
+
+	/**
+	 * Counts the documents in the collection, using the count saved by a previous run if document
+	 * count caching is enabled and the collection is drawn from a single file
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private int countDocuments() throws IOException {
+		File collectionFile = (cacheDocumentCount) ? getCollectionFile() : null;
+		if (collectionFile != null) {
+			Integer count = DocumentCountCache.loadCount(collectionFile, numberToSkip, numberToProcess);
+			if (count != null) {
+				return count;
+			}
+		}
+		int count = countDocumentsInCollection();
+		if (collectionFile != null) {
+			DocumentCountCache.saveCount(collectionFile, numberToSkip, numberToProcess, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the documents in the collection in a daemon thread. Implementations of
+	 * {@link #countDocumentsInCollection()} open their own view of the collection, so counting does
+	 * not interfere with reading.
+	 */
+	private void startBackgroundDocumentCount() {
+		Thread countThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					setDocumentsToBeProcessedCount(countDocuments());
+				} catch (IOException e) {
+					logger.warn("Unable to count the documents in the collection. Progress will be reported as if "
+							+ "progress tracking were disabled.", e);
+				}
+			}
+		}, getClass().getSimpleName() + "-document-count");
+		countThread.setDaemon(true);
+		countThread.start();
+	}
+
+	private void setDocumentsToBeProcessedCount(int count) {
+		documentsToBeProcessedCount = count;
+		documentCountAvailable = true;
+	}
+
+	/**
+	 * Override to allow the document count for this collection to be saved in a sidecar file.
+	 * 
+	 * @return the file from which the entire collection is drawn, or null if the collection is not
+	 *         drawn from a single file
+	 */
+	protected File getCollectionFile() {
+		return null;
+	}
+
+	/**
+	 * Override, along with {@link #getInputBytesRead()}, to support estimating the number of
+	 * documents in the collection.
+	 * 
+	 * @return the total number of bytes of input from which the collection is drawn, or -1 if
+	 *         unknown
+	 */
+	protected long getInputByteCount() {
+		return -1;
+	}
+
+	/**
+	 * @return the number of bytes of input that have been read so far, or -1 if unknown. This may
+	 *         run ahead of the documents returned due to buffering.
+	 */
+	protected long getInputBytesRead() {
+		return -1;
+	}
+
 	/**
 	 * Advances past numberToSkip documents in the collection
 	 * 
@@ -182,7 +478,7 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 
 	@Override
 	public void getNext(JCas jcas) throws IOException, CollectionException {
-		GenericDocument nextDocument = getNextDocument();
+		GenericDocument nextDocument = (readAheadQueue == null) ? getNextDocument() : readAheadQueue.next();
 		try {
 			initializeJCas(jcas, nextDocument);
 		} catch (AnalysisEngineProcessException e) {
@@ -200,7 +496,22 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 
 	@Override
 	public boolean hasNext() throws IOException, CollectionException {
-		return !reachedTargetProcessedDocumentCount() && hasNextDocument();
+		if (reachedTargetProcessedDocumentCount()) {
+			return false;
+		}
+		return (readAheadQueue == null) ? hasNextDocument() : readAheadQueue.hasNext();
+	}
+
+	/**
+	 * Stops reading ahead, if enabled. Subclasses that override this method must call
+	 * super.close() before releasing the resources used to read the collection.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (readAheadQueue != null) {
+			readAheadQueue.close();
+			readAheadQueue = null;
+		}
 	}
 
 	protected abstract boolean hasNextDocument() throws IOException, CollectionException;
@@ -212,6 +523,29 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 	 */
 	protected abstract GenericDocument getNextDocument() throws CollectionException, IOException;
 
+	/**
+	 * Advances to the next document in the collection and returns a task that produces it. This is
+	 * used when documents are read ahead: this method is called from a single thread, in collection
+	 * order, whereas the returned tasks may be run concurrently by several threads. By default the
+	 * document is read by {@link #getNextDocument()} before the task is returned. Subclasses can
+	 * override this method to defer the expensive part of reading a document, e.g. decompression or
+	 * decoding, to the returned task; such a task must not touch state that is used to walk the
+	 * collection.
+	 * 
+	 * @return a task that produces the next document in the collection
+	 * @throws IOException
+	 * @throws CollectionException
+	 */
+	protected Callable<GenericDocument> getNextDocumentTask() throws CollectionException, IOException {
+		final GenericDocument document = getNextDocument();
+		return new Callable<GenericDocument>() {
+			@Override
+			public GenericDocument call() {
+				return document;
+			}
+		};
+	}
+
 	/**
 	 * To be overriden by subclasses for application-specific CAS initialization
 	 * 
@@ -259,10 +593,44 @@ public abstract class BaseTextCollectionReader extends JCasCollectionReader_Impl
 	public Progress[] getProgress() {
 		if (disableProgressTracking) {
 			documentsToBeProcessedCount = processedDocumentCount + 1;
+		} else if (estimatingDocumentCount) {
+			return getEstimatedProgress();
+		} else if (!documentCountAvailable) {
+			return new Progress[] { new ProgressImpl(processedDocumentCount, processedDocumentCount + 1,
+					Progress.ENTITIES) };
 		}
 		return new Progress[] { new ProgressImpl(processedDocumentCount, documentsToBeProcessedCount, Progress.ENTITIES) };
 	}
 
+	/**
+	 * The total number of documents is estimated by extrapolating the number of documents read so
+	 * far (including those skipped) to the entire input. Progress in bytes is reported as well
+	 * when the input is small enough to be represented by {@link ProgressImpl}.
+	 * 
+	 * @return
+	 */
+	private Progress[] getEstimatedProgress() {
+		long inputByteCount = getInputByteCount();
+		long inputBytesRead = Math.min(Math.max(getInputBytesRead(), 0), inputByteCount);
+		long documentsRead = (long) numberToSkip + processedDocumentCount;
+		long estimatedCount = processedDocumentCount + 1;
+		if (inputBytesRead > 0 && documentsRead > 0) {
+			long estimatedCollectionCount = (long) Math.ceil(documentsRead * (inputByteCount / (double) inputBytesRead));
+			estimatedCount = Math.max(estimatedCollectionCount - numberToSkip, processedDocumentCount);
+		}
+		if (numberToProcess > -1) {
+			estimatedCount = Math.min(estimatedCount, numberToProcess);
+		}
+		documentsToBeProcessedCount = (int) Math.min(estimatedCount, Integer.MAX_VALUE);
+		Progress documentProgress = new ProgressImpl(processedDocumentCount, documentsToBeProcessedCount,
+				Progress.ENTITIES);
+		if (inputByteCount > Integer.MAX_VALUE) {
+			return new Progress[] { documentProgress };
+		}
+		return new Progress[] { documentProgress,
+				new ProgressImpl((int) inputBytesRead, (int) inputByteCount, Progress.BYTES) };
+	}
+
 	/**
 	 * @return the documentMetadataHandler
 	 */
@@ -0,0 +1,470 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+
+/**
+ * A sparse index of the byte offsets at which documents begin in a collection file. The offset of
+ * every n-th document (the checkpoint interval) is recorded, so a reader can seek to the nearest
+ * preceding checkpoint instead of parsing every document it has been asked to skip. The index also
+ * records the number of documents in the file, which allows the file to be divided into shards.
+ * <p>
+ * Indexes are built by scanning the raw bytes of the collection file and are saved to a sidecar
+ * file next to it (the file name plus ".checkpoints"). A saved index is used only if the length and
+ * modification time of the collection file, the checkpoint interval and the reader-specific key
+ * all still match.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DocumentCheckpointIndex {
+	private static final Logger logger = Logger.getLogger(DocumentCheckpointIndex.class);
+
+	public static final String CHECKPOINT_FILE_SUFFIX = ".checkpoints";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final int interval;
+
+	private final int documentCount;
+
+	/**
+	 * offsets[i] is the byte offset of document i * interval
+	 */
+	private final long[] offsets;
+
+	/**
+	 * @param interval
+	 * @param documentCount
+	 * @param offsets
+	 */
+	public DocumentCheckpointIndex(int interval, int documentCount, long[] offsets) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be > 0. Interval requested: " + interval);
+		}
+		this.interval = interval;
+		this.documentCount = documentCount;
+		this.offsets = offsets;
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return the number of documents in the collection file
+	 */
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * @param ordinal
+	 *            the (zero-based) position of a document in the collection file
+	 * @return the position of the last checkpointed document at or before the specified position
+	 */
+	public int getCheckpointOrdinal(int ordinal) {
+		if (offsets.length == 0 || ordinal < 0) {
+			return 0;
+		}
+		return Math.min(ordinal / interval, offsets.length - 1) * interval;
+	}
+
+	/**
+	 * @param checkpointOrdinal
+	 *            a value returned by {@link #getCheckpointOrdinal(int)}
+	 * @return the byte offset at which the checkpointed document begins
+	 */
+	public long getOffset(int checkpointOrdinal) {
+		if (checkpointOrdinal % interval != 0 || checkpointOrdinal / interval >= offsets.length) {
+			throw new IllegalArgumentException("No checkpoint has been recorded for document: " + checkpointOrdinal);
+		}
+		return offsets[checkpointOrdinal / interval];
+	}
+
+	/**
+	 * @return the byte offset at which the first document begins, or -1 if the collection file
+	 *         contains no documents. For XML collections this is also the length of the prolog
+	 *         preceding the document elements.
+	 */
+	public long getFirstDocumentOffset() {
+		return (offsets.length == 0) ? -1 : offsets[0];
+	}
+
+	/**
+	 * @param collectionFile
+	 * @return the sidecar file used to store the checkpoint index for the collection file
+	 */
+	public static File getCheckpointFile(File collectionFile) {
+		return new File(collectionFile.getPath() + CHECKPOINT_FILE_SUFFIX);
+	}
+
+	/**
+	 * @param collectionFile
+	 * @param key
+	 *            identifies how documents were delimited when the index was built, e.g. the name of
+	 *            the reader class
+	 * @param interval
+	 * @return the saved checkpoint index, or null if there is no saved index or it is out of date
+	 */
+	public static DocumentCheckpointIndex load(File collectionFile, String key, int interval) {
+		File checkpointFile = getCheckpointFile(collectionFile);
+		if (!checkpointFile.exists()) {
+			return null;
+		}
+		try {
+			BufferedReader reader = FileReaderUtil.initBufferedReader(checkpointFile, CharacterEncoding.UTF_8);
+			try {
+				String header = reader.readLine();
+				String expectedHeaderPrefix = getHeaderPrefix(collectionFile, key, interval);
+				if (header == null || !header.startsWith(expectedHeaderPrefix)) {
+					logger.info("Checkpoint index is out of date and will be rebuilt: "
+							+ checkpointFile.getAbsolutePath());
+					return null;
+				}
+				int documentCount = Integer.parseInt(header.substring(expectedHeaderPrefix.length()));
+				long[] offsets = new long[(documentCount + interval - 1) / interval];
+				for (int i = 0; i < offsets.length; i++) {
+					String line = reader.readLine();
+					if (line == null) {
+						logger.warn("Checkpoint index is incomplete and will be rebuilt: "
+								+ checkpointFile.getAbsolutePath());
+						return null;
+					}
+					offsets[i] = Long.parseLong(line);
+				}
+				return new DocumentCheckpointIndex(interval, documentCount, offsets);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to read checkpoint index: " + checkpointFile.getAbsolutePath(), e);
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid checkpoint index: " + checkpointFile.getAbsolutePath(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Saves this index for the collection file. Failure to do so is logged, but is not otherwise an
+	 * error as the index can always be rebuilt.
+	 * 
+	 * @param collectionFile
+	 * @param key
+	 */
+	public void save(File collectionFile, String key) {
+		File checkpointFile = getCheckpointFile(collectionFile);
+		try {
+			BufferedWriter writer = FileWriterUtil.initBufferedWriter(checkpointFile, CharacterEncoding.UTF_8,
+					WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+			try {
+				writer.write(getHeaderPrefix(collectionFile, key, interval) + documentCount);
+				writer.newLine();
+				for (long offset : offsets) {
+					writer.write(Long.toString(offset));
+					writer.newLine();
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to save checkpoint index to: " + checkpointFile.getAbsolutePath()
+					+ ". The index will be rebuilt next time.", e);
+		}
+	}
+
+	/**
+	 * @return key [tab] length [tab] lastModified [tab] interval [tab]
+	 */
+	private static String getHeaderPrefix(File collectionFile, String key, int interval) {
+		return key + "\t" + collectionFile.length() + "\t" + collectionFile.lastModified() + "\t" + interval + "\t";
+	}
+
+	/**
+	 * @param file
+	 * @param offset
+	 * @return a stream over the file starting at the specified byte offset
+	 * @throws IOException
+	 */
+	public static InputStream openStreamAt(File file, long offset) throws IOException {
+		FileInputStream fis = new FileInputStream(file);
+		fis.getChannel().position(offset);
+		return fis;
+	}
+
+	/**
+	 * Returns a stream over an XML collection file that omits the document elements preceding the
+	 * specified offset. The prolog, i.e. everything before the first document element including the
+	 * start tag of the root element, is retained so that the stream remains a well-formed XML
+	 * document.
+	 * 
+	 * @param file
+	 * @param prologLength
+	 *            the offset of the first document element
+	 * @param offset
+	 *            the offset of the document element at which to resume
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputStream openXmlStreamAt(File file, long prologLength, long offset) throws IOException {
+		if (offset <= prologLength) {
+			return new FileInputStream(file);
+		}
+		byte[] prolog = new byte[(int) prologLength];
+		InputStream is = new FileInputStream(file);
+		try {
+			int read = 0;
+			while (read < prolog.length) {
+				int n = is.read(prolog, read, prolog.length - read);
+				if (n < 0) {
+					throw new IOException("Unexpected end of file while reading XML prolog: " + file.getAbsolutePath());
+				}
+				read += n;
+			}
+		} finally {
+			is.close();
+		}
+		return new SequenceInputStream(new ByteArrayInputStream(prolog), openStreamAt(file, offset));
+	}
+
+	/**
+	 * Indexes an XML collection file in which each document is represented by an element with the
+	 * specified name. Elements are located by their start tags in the raw bytes of the file, so the
+	 * file must use an encoding in which markup characters are single bytes, e.g. UTF-8, and the
+	 * document elements must not be nested within one another.
+	 * 
+	 * @param file
+	 * @param elementName
+	 * @param interval
+	 * @return
+	 * @throws IOException
+	 */
+	public static DocumentCheckpointIndex indexXmlElements(File file, String elementName, int interval)
+			throws IOException {
+		byte[] startTag = ("<" + elementName).getBytes("US-ASCII");
+		Builder builder = new Builder(interval);
+		InputStream is = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long position = 0;
+			int matched = 0;
+			for (int n; (n = is.read(buffer)) > 0;) {
+				for (int i = 0; i < n; i++, position++) {
+					byte b = buffer[i];
+					if (matched == startTag.length) {
+						if (b == '>' || b == '/' || Character.isWhitespace(b)) {
+							builder.addDocument(position - startTag.length);
+						}
+						matched = 0;
+					}
+					if (b == startTag[matched]) {
+						matched++;
+					} else {
+						matched = (b == startTag[0]) ? 1 : 0;
+					}
+				}
+			}
+		} finally {
+			is.close();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Indexes a collection file in which each document begins with a line that starts with the
+	 * specified prefix once leading white space has been trimmed (as by {@link String#trim()}). The
+	 * prefix must consist of ASCII characters and the file must use an encoding in which these
+	 * characters and line terminators are single bytes, e.g. UTF-8.
+	 * 
+	 * @param file
+	 * @param prefix
+	 * @param interval
+	 * @return
+	 * @throws IOException
+	 */
+	public static DocumentCheckpointIndex indexLinesStartingWith(File file, String prefix, int interval)
+			throws IOException {
+		final byte[] prefixBytes = prefix.getBytes("US-ASCII");
+		final Builder builder = new Builder(interval);
+		scanLines(file, new LineHandler() {
+			@Override
+			public void handleLine(byte[] bytes, int length, long offset) {
+				int start = 0;
+				while (start < length && bytes[start] >= 0 && bytes[start] <= ' ') {
+					start++;
+				}
+				if (length - start < prefixBytes.length) {
+					return;
+				}
+				for (int i = 0; i < prefixBytes.length; i++) {
+					if (bytes[start + i] != prefixBytes[i]) {
+						return;
+					}
+				}
+				builder.addDocument(offset);
+			}
+		});
+		return builder.build();
+	}
+
+	/**
+	 * Decides whether a line of a collection file represents a document
+	 */
+	public interface LineFilter {
+		public boolean isDocument(String line);
+	}
+
+	/**
+	 * Indexes a collection file in which each document is represented by a single line. Lines that
+	 * are rejected by the filter are not counted as documents. Lines are terminated by \n, \r or
+	 * \r\n as for {@link BufferedReader#readLine()}; the file must use an encoding in which these
+	 * characters are single bytes, e.g. UTF-8.
+	 * 
+	 * @param file
+	 * @param encoding
+	 * @param interval
+	 * @param filter
+	 * @return
+	 * @throws IOException
+	 */
+	public static DocumentCheckpointIndex indexLines(File file, CharacterEncoding encoding, int interval,
+			final LineFilter filter) throws IOException {
+		final Charset charset = Charset.forName(encoding.getCharacterSetName());
+		final Builder builder = new Builder(interval);
+		scanLines(file, new LineHandler() {
+			@Override
+			public void handleLine(byte[] bytes, int length, long offset) {
+				if (filter.isDocument(charset.decode(ByteBuffer.wrap(bytes, 0, length)).toString())) {
+					builder.addDocument(offset);
+				}
+			}
+		});
+		return builder.build();
+	}
+
+	private interface LineHandler {
+		/**
+		 * @param bytes
+		 *            the content of the line, excluding the line terminator
+		 * @param length
+		 *            the number of bytes in the line
+		 * @param offset
+		 *            the byte offset at which the line begins
+		 */
+		public void handleLine(byte[] bytes, int length, long offset);
+	}
+
+	private static void scanLines(File file, LineHandler handler) throws IOException {
+		InputStream is = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			byte[] line = new byte[256];
+			int lineLength = 0;
+			long lineOffset = 0;
+			long position = 0;
+			boolean previousWasCarriageReturn = false;
+			for (int n; (n = is.read(buffer)) > 0;) {
+				for (int i = 0; i < n; i++, position++) {
+					byte b = buffer[i];
+					if (b == '\n' && previousWasCarriageReturn) {
+						lineOffset = position + 1;
+					} else if (b == '\n' || b == '\r') {
+						handler.handleLine(line, lineLength, lineOffset);
+						lineLength = 0;
+						lineOffset = position + 1;
+					} else {
+						if (lineLength == line.length) {
+							line = Arrays.copyOf(line, line.length * 2);
+						}
+						line[lineLength++] = b;
+					}
+					previousWasCarriageReturn = (b == '\r');
+				}
+			}
+			if (lineOffset < position) {
+				handler.handleLine(line, lineLength, lineOffset);
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Records the offset of every n-th document as documents are encountered in order
+	 */
+	private static class Builder {
+		private final int interval;
+		private long[] offsets = new long[16];
+		private int offsetCount = 0;
+		private int documentCount = 0;
+
+		public Builder(int interval) {
+			this.interval = interval;
+		}
+
+		public void addDocument(long offset) {
+			if (documentCount % interval == 0) {
+				if (offsetCount == offsets.length) {
+					offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				}
+				offsets[offsetCount++] = offset;
+			}
+			documentCount++;
+		}
+
+		public DocumentCheckpointIndex build() {
+			return new DocumentCheckpointIndex(interval, documentCount, Arrays.copyOf(offsets, offsetCount));
+		}
+	}
+
+}
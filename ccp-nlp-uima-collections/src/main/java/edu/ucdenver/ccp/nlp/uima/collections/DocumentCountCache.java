@@ -0,0 +1,140 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+
+/**
+ * Persists the number of documents counted in a collection file to a sidecar file stored next to
+ * it so that the collection need not be counted again. The sidecar records the length and
+ * modification time of the collection file along with the number of documents to skip and process,
+ * and is ignored if any of these no longer match.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+class DocumentCountCache {
+	private static final Logger logger = Logger.getLogger(DocumentCountCache.class);
+
+	public static final String COUNT_FILE_SUFFIX = ".count";
+
+	private DocumentCountCache() {
+		// utility class
+	}
+
+	/**
+	 * @param collectionFile
+	 * @return the sidecar file used to store the document count for the collection file
+	 */
+	static File getCountFile(File collectionFile) {
+		return new File(collectionFile.getPath() + COUNT_FILE_SUFFIX);
+	}
+
+	/**
+	 * @param collectionFile
+	 * @param numberToSkip
+	 * @param numberToProcess
+	 * @return the saved document count, or null if there is no saved count or it is out of date
+	 */
+	static Integer loadCount(File collectionFile, int numberToSkip, int numberToProcess) {
+		File countFile = getCountFile(collectionFile);
+		if (!countFile.exists()) {
+			return null;
+		}
+		try {
+			BufferedReader reader = FileReaderUtil.initBufferedReader(countFile, CharacterEncoding.UTF_8);
+			try {
+				String line = reader.readLine();
+				String key = getKey(collectionFile, numberToSkip, numberToProcess);
+				if (line == null || !line.startsWith(key)) {
+					return null;
+				}
+				return Integer.parseInt(line.substring(key.length()));
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to read document count from: " + countFile.getAbsolutePath(), e);
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid document count in: " + countFile.getAbsolutePath(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Saves the document count for the collection file. Failure to do so is logged, but is not
+	 * otherwise an error as the count can always be recomputed.
+	 * 
+	 * @param collectionFile
+	 * @param numberToSkip
+	 * @param numberToProcess
+	 * @param count
+	 */
+	static void saveCount(File collectionFile, int numberToSkip, int numberToProcess, int count) {
+		File countFile = getCountFile(collectionFile);
+		try {
+			BufferedWriter writer = FileWriterUtil.initBufferedWriter(countFile, CharacterEncoding.UTF_8,
+					WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+			try {
+				writer.write(getKey(collectionFile, numberToSkip, numberToProcess) + count);
+				writer.newLine();
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to save document count to: " + countFile.getAbsolutePath()
+					+ ". The collection will be counted again next time.", e);
+		}
+	}
+
+	/**
+	 * @return length [tab] lastModified [tab] numberToSkip [tab] numberToProcess [tab]
+	 */
+	private static String getKey(File collectionFile, int numberToSkip, int numberToProcess) {
+		return collectionFile.length() + "\t" + collectionFile.lastModified() + "\t" + numberToSkip + "\t"
+				+ numberToProcess + "\t";
+	}
+
+}
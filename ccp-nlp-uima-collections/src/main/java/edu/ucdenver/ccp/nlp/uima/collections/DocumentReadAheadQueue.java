@@ -0,0 +1,261 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.collection.CollectionException;
+
+import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
+
+/**
+ * Reads documents ahead of the consumer of a {@link BaseTextCollectionReader}. A single dispatcher
+ * thread walks the collection, i.e. calls {@link BaseTextCollectionReader#hasNextDocument()} and
+ * {@link BaseTextCollectionReader#getNextDocumentTask()}, so the reader's own iteration state is
+ * only ever touched by one thread. The tasks it obtains are run by a fixed pool of worker threads
+ * and their results are queued in collection order. The queue is bounded, so the dispatcher blocks
+ * once it is a full queue ahead of the consumer.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+class DocumentReadAheadQueue {
+	private static final Logger logger = Logger.getLogger(DocumentReadAheadQueue.class);
+
+	/**
+	 * Marks the end of the collection in the queue
+	 */
+	private static final Future<GenericDocument> END_OF_COLLECTION = new FutureTask<GenericDocument>(
+			new Callable<GenericDocument>() {
+				@Override
+				public GenericDocument call() {
+					return null;
+				}
+			});
+
+	private static final AtomicInteger instanceCount = new AtomicInteger();
+
+	private final BaseTextCollectionReader collectionReader;
+
+	private final BlockingQueue<Future<GenericDocument>> queue;
+
+	private final ExecutorService workerPool;
+
+	private final Thread dispatcher;
+
+	/**
+	 * the maximum number of documents to read; any number < 0 indicates the entire collection
+	 */
+	private final int maxDocumentCount;
+
+	private volatile boolean closed = false;
+
+	/**
+	 * the next entry to hand to the consumer; only accessed by the consumer thread
+	 */
+	private Future<GenericDocument> head = null;
+
+	/**
+	 * @param collectionReader
+	 *            the reader whose documents will be read ahead. It must already be positioned at
+	 *            the first document to return, i.e. any documents to skip have been skipped.
+	 * @param queueSize
+	 *            the maximum number of documents that are read ahead of the consumer
+	 * @param threadCount
+	 *            the number of threads used to run the document tasks
+	 * @param maxDocumentCount
+	 *            the maximum number of documents to read; any number < 0 indicates the entire
+	 *            collection
+	 */
+	DocumentReadAheadQueue(BaseTextCollectionReader collectionReader, int queueSize, int threadCount,
+			int maxDocumentCount) {
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("The read-ahead queue size must be > 0. Size requested: " + queueSize);
+		}
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The read-ahead thread count must be > 0. Count requested: "
+					+ threadCount);
+		}
+		this.collectionReader = collectionReader;
+		this.maxDocumentCount = maxDocumentCount;
+		this.queue = new ArrayBlockingQueue<Future<GenericDocument>>(queueSize);
+		final String threadNamePrefix = "document-read-ahead-" + instanceCount.incrementAndGet();
+		this.workerPool = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			private final AtomicInteger workerCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, threadNamePrefix + "-worker-" + workerCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.dispatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatch();
+			}
+		}, threadNamePrefix + "-dispatcher");
+		this.dispatcher.setDaemon(true);
+	}
+
+	void start() {
+		dispatcher.start();
+	}
+
+	/**
+	 * Walks the collection, submitting a task for each document and queuing its result. Any
+	 * exception raised while walking the collection is queued in place of the next document so
+	 * that it surfaces to the consumer in order.
+	 */
+	private void dispatch() {
+		int documentCount = 0;
+		try {
+			while (!closed && (maxDocumentCount < 0 || documentCount < maxDocumentCount)
+					&& collectionReader.hasNextDocument()) {
+				queue.put(workerPool.submit(collectionReader.getNextDocumentTask()));
+				documentCount++;
+			}
+			queue.put(END_OF_COLLECTION);
+		} catch (InterruptedException e) {
+			/* the queue has been closed */
+		} catch (final Throwable t) {
+			if (!closed) {
+				FutureTask<GenericDocument> failure = new FutureTask<GenericDocument>(new Callable<GenericDocument>() {
+					@Override
+					public GenericDocument call() throws Exception {
+						if (t instanceof Exception) {
+							throw (Exception) t;
+						}
+						throw (Error) t;
+					}
+				});
+				failure.run();
+				try {
+					queue.put(failure);
+					queue.put(END_OF_COLLECTION);
+				} catch (InterruptedException e) {
+					/* the queue has been closed */
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if there is another document in the collection. Blocks until the dispatcher has
+	 *         either queued the next document or reached the end of the collection.
+	 * @throws CollectionException
+	 *             if interrupted while waiting
+	 */
+	boolean hasNext() throws CollectionException {
+		if (head == null) {
+			if (closed) {
+				return false;
+			}
+			try {
+				head = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CollectionException(e);
+			}
+		}
+		return head != END_OF_COLLECTION;
+	}
+
+	/**
+	 * @return the next document in the collection, waiting for it to be read if necessary
+	 * @throws IOException
+	 * @throws CollectionException
+	 */
+	GenericDocument next() throws IOException, CollectionException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Future<GenericDocument> nextDocument = head;
+		head = null;
+		try {
+			return nextDocument.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CollectionException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof CollectionException) {
+				throw (CollectionException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CollectionException(cause);
+		}
+	}
+
+	/**
+	 * Stops the dispatcher and worker threads, discarding any documents that have been read ahead.
+	 * Returns once the dispatcher has stopped so that the collection reader's resources may then be
+	 * released safely.
+	 */
+	void close() {
+		closed = true;
+		dispatcher.interrupt();
+		workerPool.shutdownNow();
+		queue.clear();
+		head = null;
+		try {
+			dispatcher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while waiting for the read-ahead dispatcher to stop.");
+		}
+	}
+
+}
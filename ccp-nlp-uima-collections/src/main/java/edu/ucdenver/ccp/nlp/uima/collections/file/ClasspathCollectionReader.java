@@ -174,7 +174,7 @@ public class ClasspathCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		if (!hasNext())
+		if (!hasNextDocument())
 			throw new NoSuchElementException();
 		GenericDocument gd = nextDocument;
 		nextDocument = null;
@@ -36,6 +36,7 @@ package edu.ucdenver.ccp.nlp.uima.collections.file;
 import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
 
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -190,6 +191,16 @@ public class FileSystemCollectionReader extends BaseTextCollectionReader {
 		return count;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getCollectionFile()
+	 */
+	@Override
+	protected File getCollectionFile() {
+		return (baseFileOrDirectory.isFile()) ? baseFileOrDirectory : null;
+	}
+
 	/**
 	 * Advances the input Iterator<File> forward numberToSkip times.
 	 * 
@@ -205,6 +216,7 @@ public class FileSystemCollectionReader extends BaseTextCollectionReader {
 
 	@Override
 	public void close() throws IOException {
+		super.close();
 	}
 
 	/*
@@ -252,7 +264,32 @@ public class FileSystemCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		File file = fileIterator.next();
+		return readDocument(fileIterator.next());
+	}
+
+	/**
+	 * Only advancing the file iterator happens in the calling thread; the file itself is read by
+	 * the returned task.
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getNextDocumentTask()
+	 */
+	@Override
+	protected Callable<GenericDocument> getNextDocumentTask() throws CollectionException, IOException {
+		final File file = fileIterator.next();
+		return new Callable<GenericDocument>() {
+			@Override
+			public GenericDocument call() throws IOException {
+				return readDocument(file);
+			}
+		};
+	}
+
+	/**
+	 * @param file
+	 * @return a {@link GenericDocument} containing the contents of the specified file
+	 * @throws IOException
+	 */
+	private GenericDocument readDocument(File file) throws IOException {
 		String documentId = file.getName();
 		String text = FileUtil.copyToString(file, this.encoding);
 		GenericDocument gd = new GenericDocument(documentId);
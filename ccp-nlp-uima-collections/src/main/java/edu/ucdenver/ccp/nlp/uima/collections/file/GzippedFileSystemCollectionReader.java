@@ -38,7 +38,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.log4j.Logger;
@@ -111,6 +113,27 @@ public class GzippedFileSystemCollectionReader extends BaseTextCollectionReader
 	@ConfigurationParameter(description = DESCRIPTION_FILESUFFIXES_TO_PROCESS)
 	protected String[] fileSuffixesToProcess;
 
+	/**
+	 * size of the buffers used when decompressing and decoding a file
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * a gzip file consists of at least a 10-byte header and an 8-byte trailer
+	 */
+	private static final int GZIP_MIN_LENGTH = 18;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	/**
+	 * the initial buffer capacity is limited to this multiple of the compressed file length so
+	 * that a corrupt or hostile ISIZE field cannot force a huge allocation; text rarely compresses
+	 * better than this, and the buffer grows as needed when it does
+	 */
+	private static final int MAX_COMPRESSION_RATIO_HINT = 16;
+
 	private Iterator<File> fileIterator;
 
 	/**
@@ -194,6 +217,16 @@ public class GzippedFileSystemCollectionReader extends BaseTextCollectionReader
 		return count;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getCollectionFile()
+	 */
+	@Override
+	protected File getCollectionFile() {
+		return (baseFileOrDirectory.isFile()) ? baseFileOrDirectory : null;
+	}
+
 	/**
 	 * Advances the input Iterator<File> forward numberToSkip times.
 	 * 
@@ -209,6 +242,7 @@ public class GzippedFileSystemCollectionReader extends BaseTextCollectionReader
 
 	@Override
 	public void close() throws IOException {
+		super.close();
 	}
 
 	/*
@@ -256,24 +290,98 @@ public class GzippedFileSystemCollectionReader extends BaseTextCollectionReader
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		File file = fileIterator.next();
-		String filePath = file.getAbsolutePath();
-		String documentId = file.getName();
-		
-		BufferedReader gzreader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(filePath))));
-	    
-		String text = "";
-		for(String line; (line = gzreader.readLine()) != null; ) {
-			if(text.equals("")) {
-				text = line;
-			} else {
-				text = text + " " + line;
+		return readDocument(fileIterator.next());
+	}
+
+	/**
+	 * Only advancing the file iterator happens in the calling thread; the file itself is read by
+	 * the returned task.
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getNextDocumentTask()
+	 */
+	@Override
+	protected Callable<GenericDocument> getNextDocumentTask() throws CollectionException, IOException {
+		final File file = fileIterator.next();
+		return new Callable<GenericDocument>() {
+			@Override
+			public GenericDocument call() throws IOException {
+				return readDocument(file);
 			}
-		}
-		//String text = FileUtil.copyToString(file, this.encoding);
+		};
+	}
+
+	/**
+	 * @param file
+	 * @return a {@link GenericDocument} containing the contents of the specified file
+	 * @throws IOException
+	 */
+	private GenericDocument readDocument(File file) throws IOException {
+		String documentId = file.getName();
+		String text = readDocumentText(file, encoding);
 		GenericDocument gd = new GenericDocument(documentId);
 		gd.setDocumentText(text);
 		return gd;
 	}
 
+	/**
+	 * Decompresses and decodes the specified gzipped file, joining its lines with a single space.
+	 * Leading empty lines are dropped, which mirrors how document text has always been assembled by
+	 * this reader. The text buffer is pre-sized using the uncompressed size recorded in the gzip
+	 * trailer so that assembly is linear in the length of the document.
+	 * 
+	 * @param gzippedFile
+	 * @param encoding
+	 *            the character encoding of the uncompressed content
+	 * @return the document text
+	 * @throws IOException
+	 */
+	public static String readDocumentText(File gzippedFile, CharacterEncoding encoding) throws IOException {
+		StringBuilder text = new StringBuilder(getUncompressedSizeHint(gzippedFile));
+		BufferedReader gzreader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(
+				gzippedFile), BUFFER_SIZE), encoding.getDecoder()), BUFFER_SIZE);
+		try {
+			for (String line; (line = gzreader.readLine()) != null;) {
+				if (text.length() > 0) {
+					text.append(' ');
+				}
+				text.append(line);
+			}
+		} finally {
+			gzreader.close();
+		}
+		return text.toString();
+	}
+
+	/**
+	 * The last four bytes of a gzip file (ISIZE) store the size of the uncompressed input modulo
+	 * 2^32 in little-endian order. The value is used only as an initial buffer capacity; it will be
+	 * low for files larger than 4GB or files composed of multiple gzip members, in which case the
+	 * buffer simply grows as needed. Decoded text never has more characters than the decoded
+	 * content has bytes for the single-byte and UTF-8 encodings, so the hint is not an
+	 * under-estimate in the common case. The ISIZE field is not verified until the file has been
+	 * decompressed, so the hint is capped at {@link #MAX_COMPRESSION_RATIO_HINT} times the
+	 * compressed file length.
+	 * 
+	 * @param gzippedFile
+	 * @return the capacity to use for the text buffer
+	 * @throws IOException
+	 */
+	static int getUncompressedSizeHint(File gzippedFile) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(gzippedFile, "r");
+		try {
+			if (raf.length() < GZIP_MIN_LENGTH) {
+				return DEFAULT_CAPACITY;
+			}
+			raf.seek(raf.length() - 4);
+			long isize = (raf.read() & 0xffL) | ((raf.read() & 0xffL) << 8) | ((raf.read() & 0xffL) << 16)
+					| ((raf.read() & 0xffL) << 24);
+			if (isize <= 0) {
+				return DEFAULT_CAPACITY;
+			}
+			return (int) Math.min(Math.min(isize, raf.length() * MAX_COMPRESSION_RATIO_HINT), MAX_CAPACITY);
+		} finally {
+			raf.close();
+		}
+	}
+
 }
@@ -36,8 +36,10 @@ package edu.ucdenver.ccp.nlp.uima.collections.file.medline;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.NoSuchElementException;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.uima.UimaContext;
 import org.apache.uima.collection.CollectionException;
 import org.apache.uima.collection.CollectionReader;
@@ -53,6 +55,7 @@ import edu.ucdenver.ccp.medline.parser.MedlineCitation.AbstractText;
 import edu.ucdenver.ccp.medline.parser.MedlineXmlDeserializer;
 import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
 import edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader;
+import edu.ucdenver.ccp.nlp.uima.collections.DocumentCheckpointIndex;
 import edu.ucdenver.ccp.nlp.uima.shims.document.impl.CcpDocumentMetadataHandler;
 import edu.ucdenver.ccp.nlp.uima.util.View;
 
@@ -75,6 +78,17 @@ public class MedlineXmlFileCollectionReader extends BaseTextCollectionReader {
 
 	private MedlineXmlDeserializer medlineXmlDeserializer;
 
+	/**
+	 * tracks the position of the deserializer in the input file
+	 */
+	private CountingInputStream inputStream;
+
+	/**
+	 * the number of bytes of the input file omitted from inputStream when resuming from a
+	 * checkpoint
+	 */
+	private long inputBytesOmitted = 0;
+
 	private GenericDocument nextDocument = null;
 
 	/*
@@ -87,7 +101,8 @@ public class MedlineXmlFileCollectionReader extends BaseTextCollectionReader {
 	@Override
 	protected void initializeImplementation(UimaContext context) throws ResourceInitializationException {
 		try {
-			medlineXmlDeserializer = new MedlineXmlDeserializer(new FileInputStream(medlineXmlFile));
+			inputStream = new CountingInputStream(new FileInputStream(medlineXmlFile));
+			medlineXmlDeserializer = new MedlineXmlDeserializer(inputStream);
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
 		}
@@ -101,13 +116,68 @@ public class MedlineXmlFileCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected int countDocumentsInCollection() throws IOException {
-		MedlineXmlDeserializer deserializer = new MedlineXmlDeserializer(new FileInputStream(medlineXmlFile));
-		int documentCount = 0;
-		while (deserializer.hasNext()) {
-			documentCount++;
-			deserializer.next();
+		InputStream fileStream = new FileInputStream(medlineXmlFile);
+		try {
+			MedlineXmlDeserializer deserializer = new MedlineXmlDeserializer(fileStream);
+			int documentCount = 0;
+			while (deserializer.hasNext()) {
+				documentCount++;
+				deserializer.next();
+			}
+			return documentCount;
+		} finally {
+			fileStream.close();
 		}
-		return documentCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (inputStream != null) {
+			inputStream.close();
+			inputStream = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getCollectionFile()
+	 */
+	@Override
+	protected File getCollectionFile() {
+		return medlineXmlFile;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputByteCount()
+	 */
+	@Override
+	protected long getInputByteCount() {
+		return medlineXmlFile.length();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputBytesRead()
+	 */
+	@Override
+	protected long getInputBytesRead() {
+		return (inputStream == null) ? -1 : inputBytesOmitted + inputStream.getByteCount();
+	}
+
+	/**
+	 * Documents are located by the start tags of the MedlineCitation elements. Other elements returned by the deserializer, e.g. DeleteCitation, are
+	 * not indexed, so checkpoints assume that these do not precede the documents being skipped.
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#buildDocumentCheckpointIndex(int)
+	 */
+	@Override
+	protected DocumentCheckpointIndex buildDocumentCheckpointIndex(int interval) throws IOException {
+		return DocumentCheckpointIndex.indexXmlElements(medlineXmlFile, "MedlineCitation", interval);
 	}
 
 	/*
@@ -118,6 +188,23 @@ public class MedlineXmlFileCollectionReader extends BaseTextCollectionReader {
 	@Override
 	protected void skip(int numberToSkip) throws ResourceInitializationException {
 		int numSkipped = 0;
+		if (isCheckpointingEnabled() && numberToSkip > 0) {
+			try {
+				DocumentCheckpointIndex index = getDocumentCheckpointIndex();
+				if (index != null && index.getCheckpointOrdinal(numberToSkip) > 0) {
+					numSkipped = index.getCheckpointOrdinal(numberToSkip);
+					long offset = index.getOffset(numSkipped);
+					long prologLength = index.getFirstDocumentOffset();
+					inputBytesOmitted = offset - prologLength;
+					inputStream.close();
+					inputStream = new CountingInputStream(DocumentCheckpointIndex.openXmlStreamAt(medlineXmlFile,
+							prologLength, offset));
+					medlineXmlDeserializer = new MedlineXmlDeserializer(inputStream);
+				}
+			} catch (IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
 		while (numSkipped < numberToSkip && medlineXmlDeserializer.hasNext()) {
 			numSkipped++;
 			medlineXmlDeserializer.next();
@@ -160,7 +247,7 @@ public class MedlineXmlFileCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		if (!hasNext())
+		if (!hasNextDocument())
 			throw new NoSuchElementException();
 		GenericDocument gd = nextDocument;
 		nextDocument = null;
@@ -40,6 +40,7 @@ import java.io.InputStream;
 import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -59,6 +60,7 @@ import edu.ucdenver.ccp.medline.parser.PubmedArticleBase;
 import edu.ucdenver.ccp.medline.parser.PubmedXmlDeserializer;
 import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
 import edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader;
+import edu.ucdenver.ccp.nlp.uima.collections.DocumentCheckpointIndex;
 import edu.ucdenver.ccp.nlp.uima.shims.document.impl.CcpDocumentMetadataHandler;
 import edu.ucdenver.ccp.nlp.uima.util.View;
 
@@ -83,6 +85,17 @@ public class PubmedXmlFileCollectionReader extends BaseTextCollectionReader {
 
 	private PubmedXmlDeserializer pubmedXmlDeserializer;
 
+	/**
+	 * tracks the position of the deserializer in the (possibly compressed) input file
+	 */
+	private CountingInputStream inputStream;
+
+	/**
+	 * the number of bytes of the input file omitted from inputStream when resuming from a
+	 * checkpoint
+	 */
+	private long inputBytesOmitted = 0;
+
 	private GenericDocument nextDocument = null;
 
 	/**
@@ -124,18 +137,26 @@ public class PubmedXmlFileCollectionReader extends BaseTextCollectionReader {
 	@Override
 	protected void initializeImplementation(UimaContext context) throws ResourceInitializationException {
 		try {
-			InputStream is = null;
-			if (pubmedXmlFile.getName().endsWith(".gz")) {
-				is = new GZIPInputStream(new FileInputStream(pubmedXmlFile));
-			} else {
-				is = new FileInputStream(pubmedXmlFile);
-			}
-			pubmedXmlDeserializer = new PubmedXmlDeserializer(is);
+			inputStream = new CountingInputStream(new FileInputStream(pubmedXmlFile));
+			pubmedXmlDeserializer = new PubmedXmlDeserializer(decompressIfNecessary(inputStream));
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
 		}
 	}
 
+	/**
+	 * @param fileStream
+	 *            a stream over the Pubmed XML file
+	 * @return a stream over the Pubmed XML, decompressing it if the file is gzipped
+	 * @throws IOException
+	 */
+	private InputStream decompressIfNecessary(InputStream fileStream) throws IOException {
+		if (pubmedXmlFile.getName().endsWith(".gz")) {
+			return new GZIPInputStream(fileStream);
+		}
+		return fileStream;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -144,13 +165,71 @@ public class PubmedXmlFileCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected int countDocumentsInCollection() throws IOException {
-		PubmedXmlDeserializer deserializer = new PubmedXmlDeserializer(new FileInputStream(pubmedXmlFile));
-		int documentCount = 0;
-		while (deserializer.hasNext()) {
-			documentCount++;
-			deserializer.next();
+		InputStream fileStream = new FileInputStream(pubmedXmlFile);
+		try {
+			PubmedXmlDeserializer deserializer = new PubmedXmlDeserializer(decompressIfNecessary(fileStream));
+			int documentCount = 0;
+			while (deserializer.hasNext()) {
+				documentCount++;
+				deserializer.next();
+			}
+			return documentCount;
+		} finally {
+			fileStream.close();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (inputStream != null) {
+			inputStream.close();
+			inputStream = null;
 		}
-		return documentCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getCollectionFile()
+	 */
+	@Override
+	protected File getCollectionFile() {
+		return pubmedXmlFile;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputByteCount()
+	 */
+	@Override
+	protected long getInputByteCount() {
+		return pubmedXmlFile.length();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputBytesRead()
+	 */
+	@Override
+	protected long getInputBytesRead() {
+		return (inputStream == null) ? -1 : inputBytesOmitted + inputStream.getByteCount();
+	}
+
+	/**
+	 * Documents are located by the start tags of the PubmedArticle elements. Gzipped input cannot be
+	 * indexed as it does not support seeking.
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#buildDocumentCheckpointIndex(int)
+	 */
+	@Override
+	protected DocumentCheckpointIndex buildDocumentCheckpointIndex(int interval) throws IOException {
+		if (pubmedXmlFile.getName().endsWith(".gz")) {
+			return null;
+		}
+		return DocumentCheckpointIndex.indexXmlElements(pubmedXmlFile, "PubmedArticle", interval);
 	}
 
 	/*
@@ -161,6 +240,23 @@ public class PubmedXmlFileCollectionReader extends BaseTextCollectionReader {
 	@Override
 	protected void skip(int numberToSkip) throws ResourceInitializationException {
 		int numSkipped = 0;
+		if (isCheckpointingEnabled() && numberToSkip > 0) {
+			try {
+				DocumentCheckpointIndex index = getDocumentCheckpointIndex();
+				if (index != null && index.getCheckpointOrdinal(numberToSkip) > 0) {
+					numSkipped = index.getCheckpointOrdinal(numberToSkip);
+					long offset = index.getOffset(numSkipped);
+					long prologLength = index.getFirstDocumentOffset();
+					inputBytesOmitted = offset - prologLength;
+					inputStream.close();
+					inputStream = new CountingInputStream(DocumentCheckpointIndex.openXmlStreamAt(pubmedXmlFile,
+							prologLength, offset));
+					pubmedXmlDeserializer = new PubmedXmlDeserializer(inputStream);
+				}
+			} catch (IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
 		while (numSkipped < numberToSkip && pubmedXmlDeserializer.hasNext()) {
 			numSkipped++;
 			pubmedXmlDeserializer.next();
@@ -202,7 +298,7 @@ public class PubmedXmlFileCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		if (!hasNext())
+		if (!hasNextDocument())
 			throw new NoSuchElementException();
 		GenericDocument gd = nextDocument;
 		nextDocument = null;
@@ -37,8 +37,10 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.NoSuchElementException;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.collection.CollectionException;
@@ -53,6 +55,7 @@ import edu.ucdenver.ccp.common.file.FileReaderUtil;
 import edu.ucdenver.ccp.common.reflection.ConstructorUtil;
 import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
 import edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader;
+import edu.ucdenver.ccp.nlp.uima.collections.DocumentCheckpointIndex;
 import edu.ucdenver.ccp.nlp.uima.util.View;
 import edu.ucdenver.ccp.uima.shims.document.DocumentMetadataHandler;
 
@@ -95,6 +98,16 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 
 	private BufferedReader reader;
 
+	/**
+	 * tracks the position of the reader in the collection file
+	 */
+	private CountingInputStream inputStream;
+
+	/**
+	 * the byte offset in the collection file at which inputStream starts
+	 */
+	private long inputStreamOffset = 0;
+
 	private GenericDocument nextDocument = null;
 
 	@Override
@@ -125,7 +138,7 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 	@Override
 	protected void initializeImplementation(UimaContext context) throws ResourceInitializationException {
 		try {
-			reader = FileReaderUtil.initBufferedReader(collectionFile, encoding);
+			openCollectionFileAt(0);
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
 		}
@@ -133,6 +146,21 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 
 	}
 
+	/**
+	 * (Re)opens the reader over the collection file starting at the specified byte offset
+	 * 
+	 * @param offset
+	 * @throws IOException
+	 */
+	private void openCollectionFileAt(long offset) throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+		inputStreamOffset = offset;
+		inputStream = new CountingInputStream(DocumentCheckpointIndex.openStreamAt(collectionFile, offset));
+		reader = new BufferedReader(new InputStreamReader(inputStream, encoding.getDecoder()));
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -148,6 +176,67 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 		return lineCount;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getCollectionFile()
+	 */
+	@Override
+	protected File getCollectionFile() {
+		return collectionFile;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputByteCount()
+	 */
+	@Override
+	protected long getInputByteCount() {
+		return collectionFile.length();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getInputBytesRead()
+	 */
+	@Override
+	protected long getInputBytesRead() {
+		return (inputStream == null) ? -1 : inputStreamOffset + inputStream.getByteCount();
+	}
+
+	/**
+	 * Lines are counted as documents exactly as they are by {@link #skip(int)}, i.e. if the
+	 * {@link DocumentExtractor} extracts a document from them.
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#buildDocumentCheckpointIndex(int)
+	 */
+	@Override
+	protected DocumentCheckpointIndex buildDocumentCheckpointIndex(int interval) throws IOException {
+		final DocumentExtractor extractor = (DocumentExtractor) ConstructorUtil
+				.invokeConstructor(documentExtractorClassName);
+		return DocumentCheckpointIndex.indexLines(collectionFile, encoding, interval,
+				new DocumentCheckpointIndex.LineFilter() {
+					@Override
+					public boolean isDocument(String line) {
+						return extractor.extractDocument(line) != null;
+					}
+				});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#getDocumentCheckpointIndexKey()
+	 */
+	@Override
+	protected String getDocumentCheckpointIndexKey() {
+		return super.getDocumentCheckpointIndexKey() + "|" + documentExtractorClassName + "|"
+				+ encoding.getCharacterSetName();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -157,6 +246,13 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 	protected void skip(int numberToSkip) throws ResourceInitializationException {
 		int numSkipped = 0;
 		try {
+			if (isCheckpointingEnabled() && numberToSkip > 0) {
+				DocumentCheckpointIndex index = getDocumentCheckpointIndex();
+				numSkipped = index.getCheckpointOrdinal(numberToSkip);
+				if (numSkipped > 0) {
+					openCollectionFileAt(index.getOffset(numSkipped));
+				}
+			}
 			String line;
 			while (numSkipped < numberToSkip && (line = reader.readLine()) != null) {
 				if (documentExtractor.extractDocument(line) != null)
@@ -175,7 +271,7 @@ public class DocumentPerLineCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected GenericDocument getNextDocument() throws CollectionException, IOException {
-		if (!hasNext())
+		if (!hasNextDocument())
 			throw new NoSuchElementException();
 		GenericDocument gd = nextDocument;
 		nextDocument = null;
@@ -34,8 +34,10 @@ package edu.ucdenver.ccp.nlp.uima.collections.termvariant;
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Iterator;
 
 import org.apache.uima.UimaContext;
@@ -51,7 +53,8 @@ import org.uimafit.factory.ConfigurationParameterFactory;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
 import edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader;
-import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
+import edu.ucdenver.ccp.nlp.uima.collections.DocumentCheckpointIndex;
+import edu.ucdenver.ccp.nlp.uima.util.TextAnnotationBulkLoader;
 import edu.ucdenver.ccp.uima.shims.document.DocumentMetadataHandler;
 
 /**
@@ -68,6 +71,8 @@ public class TermVariantCollectionReader extends BaseTextCollectionReader {
 	@ConfigurationParameter(mandatory = true, description = "file path to the file containing the term/variant info. For format, see TermVariantFileParser documentation")
 	protected File termVariantFile;
 
+	private Reader reader;
+
 	private Iterator<GenericDocument> documentIterator;
 
 	@Override
@@ -79,10 +84,11 @@ public class TermVariantCollectionReader extends BaseTextCollectionReader {
 		}
 
 		try {
-			documentIterator = TermVariantFileParser.getDocumentIteratorFromFile(termVariantFile);
-		} catch (FileNotFoundException e) {
+			reader = new FileReader(termVariantFile);
+		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
 		}
+		documentIterator = TermVariantFileParser.getDocumentIterator(reader);
 
 	}
 
@@ -91,19 +97,63 @@ public class TermVariantCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected int countDocumentsInCollection() throws IOException {
-		Iterator<GenericDocument> docIter = TermVariantFileParser.getDocumentIteratorFromFile(termVariantFile);
-		int count = 0;
-		skip(docIter, numberToSkip);
-		while (docIter.hasNext()) {
-			docIter.next();
-			count++;
+		Reader countReader = new FileReader(termVariantFile);
+		try {
+			Iterator<GenericDocument> docIter = TermVariantFileParser.getDocumentIterator(countReader);
+			int count = 0;
+			skip(docIter, numberToSkip);
+			while (docIter.hasNext()) {
+				docIter.next();
+				count++;
+			}
+			return count;
+		} finally {
+			countReader.close();
 		}
-		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+	@Override
+	protected File getCollectionFile() {
+		return termVariantFile;
+	}
+
+	/**
+	 * Documents begin with a title line, i.e. a line starting with '#'
+	 * 
+	 * @see edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader#buildDocumentCheckpointIndex(int)
+	 */
+	@Override
+	protected DocumentCheckpointIndex buildDocumentCheckpointIndex(int interval) throws IOException {
+		return DocumentCheckpointIndex.indexLinesStartingWith(termVariantFile, "#", interval);
 	}
 
 	@Override
 	protected void skip(int numberToSkip) throws ResourceInitializationException {
-		skip(documentIterator, numberToSkip);
+		int numSkipped = 0;
+		if (isCheckpointingEnabled() && numberToSkip > 0) {
+			try {
+				DocumentCheckpointIndex index = getDocumentCheckpointIndex();
+				numSkipped = index.getCheckpointOrdinal(numberToSkip);
+				if (numSkipped > 0) {
+					reader.close();
+					reader = new InputStreamReader(DocumentCheckpointIndex.openStreamAt(termVariantFile,
+							index.getOffset(numSkipped)));
+					documentIterator = TermVariantFileParser.getDocumentIterator(reader);
+				}
+			} catch (IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+		skip(documentIterator, numberToSkip - numSkipped);
 	}
 
 	/**
@@ -140,8 +190,7 @@ public class TermVariantCollectionReader extends BaseTextCollectionReader {
 	 */
 	@Override
 	protected void loadAnnotationsIntoCas(JCas jcas, GenericDocument document) {
-		UIMA_Util uu = new UIMA_Util();
-		uu.putTextAnnotationsIntoJCas(jcas, document.getAnnotations());
+		TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, document.getAnnotations());
 	}
 
 	/**
@@ -0,0 +1,156 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DocumentCheckpointIndexTest extends DefaultTestCase {
+
+	private static final CharacterEncoding ENCODING = CharacterEncoding.UTF_8;
+
+	@Test
+	public void testIndexLines() throws Exception {
+		List<String> lines = CollectionsUtil.createList("1\tdocument one", "", "2\tdocument twö", "3\tdocument three",
+				"invalid", "4\tdocument four", "5\tdocument five");
+		File collectionFile = writeFile("collection.txt", lines);
+		DocumentCheckpointIndex index = DocumentCheckpointIndex.indexLines(collectionFile, ENCODING, 2,
+				new DocumentCheckpointIndex.LineFilter() {
+					@Override
+					public boolean isDocument(String line) {
+						return line.contains("\t");
+					}
+				});
+		assertEquals(5, index.getDocumentCount());
+		assertEquals(0, index.getCheckpointOrdinal(1));
+		assertEquals(2, index.getCheckpointOrdinal(3));
+		assertEquals(4, index.getCheckpointOrdinal(4));
+		assertEquals(4, index.getCheckpointOrdinal(100));
+		assertEquals("3\tdocument three", readLineAt(collectionFile, index.getOffset(2)));
+		assertEquals("5\tdocument five", readLineAt(collectionFile, index.getOffset(4)));
+	}
+
+	@Test
+	public void testIndexLinesStartingWith() throws Exception {
+		List<String> lines = CollectionsUtil.createList("// comment", "#doc1", "text 1", "", " #doc2", "text 2",
+				"#doc3", "text 3");
+		File collectionFile = writeFile("collection.txt", lines);
+		DocumentCheckpointIndex index = DocumentCheckpointIndex.indexLinesStartingWith(collectionFile, "#", 1);
+		assertEquals(3, index.getDocumentCount());
+		assertEquals(" #doc2", readLineAt(collectionFile, index.getOffset(1)));
+		assertEquals("#doc3", readLineAt(collectionFile, index.getOffset(2)));
+	}
+
+	@Test
+	public void testIndexXmlElements() throws Exception {
+		List<String> lines = CollectionsUtil.createList("<?xml version=\"1.0\"?>", "<MedlineCitationSet>",
+				"<MedlineCitation Owner=\"NLM\"><PMID>1</PMID></MedlineCitation>",
+				"<MedlineCitation><PMID>2</PMID></MedlineCitation>",
+				"<MedlineCitation\n Owner=\"NLM\"><PMID>3</PMID></MedlineCitation>",
+				"<MedlineCitation><PMID>4</PMID></MedlineCitation>",
+				"<MedlineCitation><PMID>5</PMID></MedlineCitation>", "</MedlineCitationSet>");
+		File collectionFile = writeFile("collection.xml", lines);
+		DocumentCheckpointIndex index = DocumentCheckpointIndex.indexXmlElements(collectionFile, "MedlineCitation",
+				2);
+		assertEquals(5, index.getDocumentCount());
+
+		InputStream is = DocumentCheckpointIndex.openXmlStreamAt(collectionFile, index.getFirstDocumentOffset(),
+				index.getOffset(2));
+		try {
+			Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
+			NodeList pmids = document.getElementsByTagName("PMID");
+			assertEquals(3, pmids.getLength());
+			assertEquals("3", pmids.item(0).getTextContent());
+			assertEquals("5", pmids.item(2).getTextContent());
+		} finally {
+			is.close();
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		File collectionFile = writeFile("collection.txt", CollectionsUtil.createList("#doc1", "#doc2", "#doc3"));
+		DocumentCheckpointIndex index = DocumentCheckpointIndex.indexLinesStartingWith(collectionFile, "#", 2);
+		index.save(collectionFile, "key");
+
+		DocumentCheckpointIndex loadedIndex = DocumentCheckpointIndex.load(collectionFile, "key", 2);
+		assertEquals(3, loadedIndex.getDocumentCount());
+		assertEquals(index.getOffset(0), loadedIndex.getOffset(0));
+		assertEquals(index.getOffset(2), loadedIndex.getOffset(2));
+
+		assertNull(DocumentCheckpointIndex.load(collectionFile, "another key", 2));
+		assertNull(DocumentCheckpointIndex.load(collectionFile, "key", 3));
+	}
+
+	private File writeFile(String fileName, List<String> lines) throws IOException {
+		File file = new File(folder.getRoot(), fileName);
+		FileWriterUtil.printLines(lines, file, ENCODING, WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+		return file;
+	}
+
+	private String readLineAt(File file, long offset) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(DocumentCheckpointIndex.openStreamAt(file,
+				offset), ENCODING.getDecoder()));
+		try {
+			return reader.readLine();
+		} finally {
+			reader.close();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
+import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DocumentCountCacheTest extends DefaultTestCase {
+
+	private File collectionFile;
+
+	@Before
+	public void setUp() throws IOException {
+		collectionFile = folder.newFile("collection.txt");
+		FileWriterUtil.printLines(CollectionsUtil.createList("doc1", "doc2", "doc3"), collectionFile,
+				CharacterEncoding.UTF_8, WriteMode.OVERWRITE, FileSuffixEnforcement.OFF);
+	}
+
+	@Test
+	public void testSaveAndLoadCount() {
+		assertNull(DocumentCountCache.loadCount(collectionFile, 0, -1));
+		DocumentCountCache.saveCount(collectionFile, 0, -1, 3);
+		assertTrue(DocumentCountCache.getCountFile(collectionFile).exists());
+		assertEquals(Integer.valueOf(3), DocumentCountCache.loadCount(collectionFile, 0, -1));
+	}
+
+	@Test
+	public void testCountIsIgnoredWhenParametersDiffer() {
+		DocumentCountCache.saveCount(collectionFile, 0, -1, 3);
+		assertNull(DocumentCountCache.loadCount(collectionFile, 1, -1));
+		assertNull(DocumentCountCache.loadCount(collectionFile, 0, 2));
+	}
+
+	@Test
+	public void testCountIsIgnoredWhenCollectionFileChanges() throws IOException {
+		DocumentCountCache.saveCount(collectionFile, 0, -1, 3);
+		FileWriterUtil.printLines(CollectionsUtil.createList("doc4"), collectionFile, CharacterEncoding.UTF_8,
+				WriteMode.APPEND, FileSuffixEnforcement.OFF);
+		assertNull(DocumentCountCache.loadCount(collectionFile, 0, -1));
+	}
+
+}
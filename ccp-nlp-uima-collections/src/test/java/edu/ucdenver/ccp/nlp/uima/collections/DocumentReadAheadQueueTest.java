@@ -0,0 +1,198 @@
+package edu.ucdenver.ccp.nlp.uima.collections;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.collection.CollectionException;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.document.GenericDocument;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DocumentReadAheadQueueTest {
+
+	@Test
+	public void testDocumentsAreReturnedInCollectionOrder() throws IOException, CollectionException {
+		InMemoryCollectionReader reader = new InMemoryCollectionReader(100, -1);
+		DocumentReadAheadQueue queue = new DocumentReadAheadQueue(reader, 4, 8, -1);
+		queue.start();
+		List<String> documentIds = new ArrayList<String>();
+		while (queue.hasNext()) {
+			documentIds.add(queue.next().getDocumentID());
+		}
+		queue.close();
+		assertEquals(reader.getDocumentIds(), documentIds);
+	}
+
+	@Test
+	public void testMaxDocumentCount() throws IOException, CollectionException {
+		InMemoryCollectionReader reader = new InMemoryCollectionReader(100, -1);
+		DocumentReadAheadQueue queue = new DocumentReadAheadQueue(reader, 4, 2, 10);
+		queue.start();
+		List<String> documentIds = new ArrayList<String>();
+		while (queue.hasNext()) {
+			documentIds.add(queue.next().getDocumentID());
+		}
+		queue.close();
+		assertEquals(reader.getDocumentIds().subList(0, 10), documentIds);
+	}
+
+	@Test
+	public void testExceptionIsRaisedInOrder() throws CollectionException {
+		InMemoryCollectionReader reader = new InMemoryCollectionReader(20, 5);
+		DocumentReadAheadQueue queue = new DocumentReadAheadQueue(reader, 4, 4, -1);
+		queue.start();
+		int documentCount = 0;
+		try {
+			while (queue.hasNext()) {
+				queue.next();
+				documentCount++;
+			}
+			fail("An IOException should have been raised for the document at index 5.");
+		} catch (IOException e) {
+			assertEquals(5, documentCount);
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void testCloseBeforeCollectionIsConsumed() throws IOException, CollectionException {
+		InMemoryCollectionReader reader = new InMemoryCollectionReader(1000, -1);
+		DocumentReadAheadQueue queue = new DocumentReadAheadQueue(reader, 2, 2, -1);
+		queue.start();
+		assertTrue(queue.hasNext());
+		assertEquals("0", queue.next().getDocumentID());
+		queue.close();
+		assertFalse(queue.hasNext());
+		assertTrue(reader.getReadCount() < 1000);
+	}
+
+	/**
+	 * Produces documents whose text is their ID after a short random delay. The delay is incurred
+	 * by the tasks so that, when read ahead with several threads, documents complete out of order.
+	 */
+	private static class InMemoryCollectionReader extends BaseTextCollectionReader {
+
+		private final List<String> documentIds = new ArrayList<String>();
+		private final int failingDocumentIndex;
+		private final Random random = new Random(0);
+		private int documentIndex = 0;
+
+		/**
+		 * @param documentCount
+		 * @param failingDocumentIndex
+		 *            the index of the document whose task throws an IOException; -1 for none
+		 */
+		public InMemoryCollectionReader(int documentCount, int failingDocumentIndex) {
+			for (int i = 0; i < documentCount; i++) {
+				documentIds.add(Integer.toString(i));
+			}
+			this.failingDocumentIndex = failingDocumentIndex;
+		}
+
+		public List<String> getDocumentIds() {
+			return documentIds;
+		}
+
+		public int getReadCount() {
+			return documentIndex;
+		}
+
+		@Override
+		protected void initializeImplementation(UimaContext context) {
+			// nothing to initialize
+		}
+
+		@Override
+		protected int countDocumentsInCollection() {
+			return documentIds.size();
+		}
+
+		@Override
+		protected void skip(int numberToSkip) {
+			documentIndex += numberToSkip;
+		}
+
+		@Override
+		protected boolean hasNextDocument() {
+			return documentIndex < documentIds.size();
+		}
+
+		@Override
+		protected GenericDocument getNextDocument() throws CollectionException, IOException {
+			try {
+				return getNextDocumentTask().call();
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CollectionException(e);
+			}
+		}
+
+		@Override
+		protected Callable<GenericDocument> getNextDocumentTask() {
+			final int index = documentIndex++;
+			final long delay = random.nextInt(5);
+			return new Callable<GenericDocument>() {
+				@Override
+				public GenericDocument call() throws Exception {
+					Thread.sleep(delay);
+					if (index == failingDocumentIndex) {
+						throw new IOException("Unable to read document " + index);
+					}
+					String documentId = documentIds.get(index);
+					GenericDocument gd = new GenericDocument(documentId);
+					gd.setDocumentText(documentId);
+					return gd;
+				}
+			};
+		}
+	}
+
+}
@@ -38,7 +38,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.collection.CollectionReaderDescription;
@@ -46,6 +48,7 @@ import org.apache.uima.jcas.JCas;
 import org.junit.Before;
 import org.junit.Test;
 import org.uimafit.factory.CollectionReaderFactory;
+import org.uimafit.factory.ResourceCreationSpecifierFactory;
 import org.uimafit.pipeline.JCasIterable;
 
 import edu.ucdenver.ccp.common.collections.CollectionsUtil;
@@ -54,6 +57,7 @@ import edu.ucdenver.ccp.common.file.FileWriterUtil;
 import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
 import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
 import edu.ucdenver.ccp.common.test.DefaultTestCase;
+import edu.ucdenver.ccp.nlp.uima.collections.BaseTextCollectionReader;
 import edu.ucdenver.ccp.nlp.uima.util.TypeSystemUtil;
 import edu.ucdenver.ccp.nlp.uima.util.View;
 
@@ -260,4 +264,30 @@ public class FileSystemCollectionReaderTest extends DefaultTestCase {
 		assertEquals(8, casCount);
 	}
 
+	@Test
+	public void testFileSystemCollectionReader_readAhead() throws UIMAException, IOException {
+		boolean recurse = true;
+		int num2process = 3;
+		int num2skip = 1;
+		String viewName = View.DEFAULT.viewName();
+		String[] fileSuffixesToProcess = new String[] { ".txt" };
+		CollectionReaderDescription desc = FileSystemCollectionReader.createDescription(
+				TypeSystemUtil.getCcpTypeSystem(), baseDir, recurse, ENCODING, "en", false, num2process, num2skip,
+				viewName, fileSuffixesToProcess);
+		List<String> expectedDocumentTexts = new ArrayList<String>();
+		for (JCas jcas : new JCasIterable(CollectionReaderFactory.createCollectionReader(desc))) {
+			expectedDocumentTexts.add(jcas.getDocumentText());
+		}
+		assertEquals(3, expectedDocumentTexts.size());
+
+		ResourceCreationSpecifierFactory.setConfigurationParameters(desc,
+				BaseTextCollectionReader.PARAM_READ_AHEAD_QUEUE_SIZE, 2,
+				BaseTextCollectionReader.PARAM_READ_AHEAD_THREAD_COUNT, 3);
+		List<String> documentTexts = new ArrayList<String>();
+		for (JCas jcas : new JCasIterable(CollectionReaderFactory.createCollectionReader(desc))) {
+			documentTexts.add(jcas.getDocumentText());
+		}
+		assertEquals(expectedDocumentTexts, documentTexts);
+	}
+
 }
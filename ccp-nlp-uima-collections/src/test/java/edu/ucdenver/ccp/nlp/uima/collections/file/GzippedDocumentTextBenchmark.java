@@ -0,0 +1,148 @@
+package edu.ucdenver.ccp.nlp.uima.collections.file;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+
+/**
+ * Times the assembly of document text from gzipped files of increasing size using
+ * {@link GzippedFileSystemCollectionReader#readDocumentText(File, CharacterEncoding)}. The time per
+ * megabyte should remain roughly constant as the input size doubles. For comparison, the
+ * string-concatenation approach previously used by the reader is also timed for the smaller inputs,
+ * where its time per megabyte can be seen to grow with the input size.
+ * <p>
+ * This is not a unit test; run it via the main method, optionally passing the largest input size
+ * in megabytes (default 32).
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class GzippedDocumentTextBenchmark {
+
+	private static final CharacterEncoding ENCODING = CharacterEncoding.UTF_8;
+
+	private static final String LINE = "The protein encoded by this gene is a member of the catenin family of proteins.";
+
+	private static final int MAX_LEGACY_MB = 2;
+
+	private static final int REPETITIONS = 3;
+
+	public static void main(String[] args) throws IOException {
+		int maxMb = (args.length > 0) ? Integer.parseInt(args[0]) : 32;
+		File dir = File.createTempFile("gz-benchmark", "");
+		dir.delete();
+		dir.mkdir();
+		System.out.println("MB\tlinear ms\tlinear ms/MB\tlegacy ms\tlegacy ms/MB");
+		for (int mb = 1; mb <= maxMb; mb *= 2) {
+			File gzFile = createGzippedFile(dir, mb);
+			long linearMs = time(gzFile, false);
+			StringBuilder sb = new StringBuilder();
+			sb.append(mb + "\t" + linearMs + "\t" + (linearMs / (double) mb));
+			if (mb <= MAX_LEGACY_MB) {
+				long legacyMs = time(gzFile, true);
+				sb.append("\t" + legacyMs + "\t" + (legacyMs / (double) mb));
+			}
+			System.out.println(sb.toString());
+			gzFile.delete();
+		}
+		dir.delete();
+	}
+
+	/**
+	 * @return the best time, in milliseconds, over {@link #REPETITIONS} runs
+	 */
+	private static long time(File gzFile, boolean legacy) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < REPETITIONS; i++) {
+			long start = System.nanoTime();
+			String text = (legacy) ? readLegacy(gzFile) : GzippedFileSystemCollectionReader.readDocumentText(gzFile,
+					ENCODING);
+			long elapsed = (System.nanoTime() - start) / 1000000;
+			if (text.length() == 0) {
+				throw new IllegalStateException("No text read from " + gzFile);
+			}
+			best = Math.min(best, elapsed);
+		}
+		return best;
+	}
+
+	private static File createGzippedFile(File dir, int mb) throws IOException {
+		File gzFile = new File(dir, "doc-" + mb + "mb.txt.gz");
+		Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(gzFile)),
+				ENCODING.getCharacterSetName());
+		try {
+			long target = mb * 1024L * 1024L;
+			for (long written = 0; written < target; written += LINE.length() + 1) {
+				writer.write(LINE);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		return gzFile;
+	}
+
+	/**
+	 * The document assembly previously used by {@link GzippedFileSystemCollectionReader}
+	 */
+	private static String readLegacy(File gzFile) throws IOException {
+		BufferedReader gzreader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(
+				gzFile))));
+		try {
+			String text = "";
+			for (String line; (line = gzreader.readLine()) != null;) {
+				if (text.equals("")) {
+					text = line;
+				} else {
+					text = text + " " + line;
+				}
+			}
+			return text;
+		} finally {
+			gzreader.close();
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package edu.ucdenver.ccp.nlp.uima.collections.file;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class GzippedFileSystemCollectionReaderTest extends DefaultTestCase {
+
+	@Test
+	public void testReadDocumentText() throws IOException {
+		File gzFile = writeGzippedFile("doc1.txt.gz", "line one\nline two\r\nline three\rline four\n",
+				CharacterEncoding.UTF_8);
+		assertEquals("line one line two line three line four",
+				GzippedFileSystemCollectionReader.readDocumentText(gzFile, CharacterEncoding.UTF_8));
+	}
+
+	/**
+	 * Leading empty lines are dropped while subsequent empty lines each contribute a space, which
+	 * is how the reader has always joined lines
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadDocumentText_EmptyLines() throws IOException {
+		File gzFile = writeGzippedFile("doc2.txt.gz", "\n\nfirst\n\nsecond\n", CharacterEncoding.UTF_8);
+		assertEquals("first  second",
+				GzippedFileSystemCollectionReader.readDocumentText(gzFile, CharacterEncoding.UTF_8));
+	}
+
+	@Test
+	public void testReadDocumentText_Encoding() throws IOException {
+		String text = "α-catenin and ßeta";
+		File gzFile = writeGzippedFile("doc3.txt.gz", text, CharacterEncoding.UTF_8);
+		assertEquals(text, GzippedFileSystemCollectionReader.readDocumentText(gzFile, CharacterEncoding.UTF_8));
+	}
+
+	/**
+	 * Round trips a multi-megabyte document, which is where assembling the text by repeated string
+	 * concatenation used to take quadratic time
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadDocumentText_LargeDocument() throws IOException {
+		StringBuilder content = new StringBuilder();
+		StringBuilder expectedText = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			String line = "Sentence " + i + " of a large document mentions α-catenin.";
+			content.append(line).append('\n');
+			expectedText.append((i == 0) ? "" : " ").append(line);
+		}
+		File gzFile = writeGzippedFile("doc6.txt.gz", content.toString(), CharacterEncoding.UTF_8);
+		assertTrue("Expected the gzipped file to be smaller than its content",
+				gzFile.length() < content.length() / 4);
+		assertEquals(expectedText.toString(),
+				GzippedFileSystemCollectionReader.readDocumentText(gzFile, CharacterEncoding.UTF_8));
+	}
+
+	@Test
+	public void testGetUncompressedSizeHint() throws IOException {
+		String text = "This is sample document 1.\nThis is sample document 1.\n";
+		File gzFile = writeGzippedFile("doc4.txt.gz", text, CharacterEncoding.UTF_8);
+		assertEquals(text.length(), GzippedFileSystemCollectionReader.getUncompressedSizeHint(gzFile));
+	}
+
+	@Test
+	public void testUncompressedSizeHintIsCappedByCompressedLength() throws IOException {
+		String text = "This is sample document 1.\nThis is sample document 1.\n";
+		File gzFile = writeGzippedFile("doc5.txt.gz", text, CharacterEncoding.UTF_8);
+		/* overwrite ISIZE with a (corrupt) value of nearly 2GB */
+		RandomAccessFile raf = new RandomAccessFile(gzFile, "rw");
+		try {
+			raf.seek(raf.length() - 4);
+			raf.write(new byte[] { (byte) 0xf0, (byte) 0xff, (byte) 0xff, (byte) 0x7f });
+		} finally {
+			raf.close();
+		}
+		assertEquals(gzFile.length() * 16, GzippedFileSystemCollectionReader.getUncompressedSizeHint(gzFile));
+	}
+
+	private File writeGzippedFile(String fileName, String content, CharacterEncoding encoding) throws IOException {
+		File gzFile = new File(folder.getRoot(), fileName);
+		OutputStream os = new GZIPOutputStream(new FileOutputStream(gzFile));
+		try {
+			os.write(content.getBytes(encoding.getCharacterSetName()));
+		} finally {
+			os.close();
+		}
+		return gzFile;
+	}
+
+}
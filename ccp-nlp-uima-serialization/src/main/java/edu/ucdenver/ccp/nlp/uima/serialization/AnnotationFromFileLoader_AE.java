@@ -35,9 +35,11 @@ package edu.ucdenver.ccp.nlp.uima.serialization;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -46,7 +48,8 @@ import org.apache.uima.resource.ResourceInitializationException;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
-import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.serialization.AnnotationFileIndex;
+import edu.ucdenver.ccp.nlp.uima.util.TextAnnotationBulkLoader;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
@@ -55,18 +58,33 @@ import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
  * file is one annotation per line: <br>
  * <br>
  * documentID|annotatorID|spanStart spanEnd|classMentionName|coveredText
+ * <p>
+ * The annotation file is not loaded into memory. Instead, an index of the location of each
+ * document's annotations is created (and saved beside the annotation file for reuse, see
+ * {@link AnnotationFileIndex}), and only the annotations for the document in the current CAS are
+ * parsed. Recently parsed documents can optionally be cached.
  * 
  * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
  * 
  */
 public class AnnotationFromFileLoader_AE extends JCasAnnotator_ImplBase {
 
+	private static final Logger logger = Logger.getLogger(AnnotationFromFileLoader_AE.class);
+
 	public static final String PARAM_ANNOTATION_FILE = "AnnotationFile";
 
-	private Map<String, List<TextAnnotation>> documentID2AnnotationsMap;
+	/**
+	 * Optional parameter: the number of most recently used documents whose parsed annotations are
+	 * kept in memory. Defaults to 0, i.e. no caching.
+	 */
+	public static final String PARAM_DOCUMENT_CACHE_SIZE = "DocumentCacheSize";
+
+	private AnnotationFileIndex annotationFileIndex;
+
+	private Map<String, List<TextAnnotation>> documentID2AnnotationsCache;
 
 	/**
-	 * Initialize the AnnotationFromFileLoader_AE by loading the annotations from file into a hash.
+	 * Initialize the AnnotationFromFileLoader_AE by indexing the annotation file.
 	 */
 	@Override
 	public void initialize(UimaContext context) throws ResourceInitializationException {
@@ -74,13 +92,25 @@ public class AnnotationFromFileLoader_AE extends JCasAnnotator_ImplBase {
 		String annotationsFile;
 		annotationsFile = (String) context.getConfigParameterValue(PARAM_ANNOTATION_FILE);
 
-		/* load documentid to annotation map */
+		/* index the annotation file by document ID */
 		try {
-			System.err.println("Initializing AnnotationFromFileLoader: Loading annotations from: " + annotationsFile);
-			documentID2AnnotationsMap = TextAnnotationUtil.loadAnnotationsFromFile(new File(annotationsFile),
-					CharacterEncoding.UTF_8);
+			logger.info("Initializing AnnotationFromFileLoader: Indexing annotations in: " + annotationsFile);
+			annotationFileIndex = new AnnotationFileIndex(new File(annotationsFile), CharacterEncoding.UTF_8);
 		} catch (IOException e) {
-			e.printStackTrace();
+			throw new ResourceInitializationException(e);
+		}
+
+		Integer documentCacheSize = (Integer) context.getConfigParameterValue(PARAM_DOCUMENT_CACHE_SIZE);
+		if (documentCacheSize != null && documentCacheSize > 0) {
+			final int maxCacheSize = documentCacheSize;
+			documentID2AnnotationsCache = new LinkedHashMap<String, List<TextAnnotation>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<TextAnnotation>> eldest) {
+					return size() > maxCacheSize;
+				}
+			};
 		}
 
 		super.initialize(context);
@@ -88,7 +118,7 @@ public class AnnotationFromFileLoader_AE extends JCasAnnotator_ImplBase {
 
 	/**
 	 * For each CAS, lookup the document ID and insert any annotations associated with that document
-	 * ID from the hash.
+	 * ID from the annotation file.
 	 */
 	@Override
 	public void process(JCas jcas) throws AnalysisEngineProcessException {
@@ -100,13 +130,34 @@ public class AnnotationFromFileLoader_AE extends JCasAnnotator_ImplBase {
 		// documentID = docInfo.getDocumentID();
 		// }
 
-		if (documentID2AnnotationsMap.containsKey(documentID)) {
-			List<TextAnnotation> taList = documentID2AnnotationsMap.get(documentID);
-			UIMA_Util uimaUtil = new UIMA_Util();
-			uimaUtil.putTextAnnotationsIntoJCas(jcas, taList);
+		if (annotationFileIndex.containsDocument(documentID)) {
+			List<TextAnnotation> taList = getAnnotations(documentID);
+			TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, taList);
 		} else {
 			// warn("DocumentID not detected in annotationfile: " + documentID);
 		}
 	}
 
+	private List<TextAnnotation> getAnnotations(String documentID) {
+		if (documentID2AnnotationsCache == null) {
+			return annotationFileIndex.getAnnotations(documentID);
+		}
+		List<TextAnnotation> taList = documentID2AnnotationsCache.get(documentID);
+		if (taList == null) {
+			taList = annotationFileIndex.getAnnotations(documentID);
+			documentID2AnnotationsCache.put(documentID, taList);
+		}
+		return taList;
+	}
+
+	@Override
+	public void destroy() {
+		try {
+			annotationFileIndex.close();
+		} catch (IOException e) {
+			logger.warn("Unable to close annotation file index.", e);
+		}
+		super.destroy();
+	}
+
 }
@@ -50,6 +50,7 @@ import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.uima.serialization.bionlp.parser.BioNlpThemeIterator;
+import edu.ucdenver.ccp.nlp.uima.util.TextAnnotationBulkLoader;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
@@ -81,8 +82,6 @@ public class BioNlpEntityFileLoader_AE extends JCasAnnotator_ImplBase {
 		String documentId = UIMA_Util.getDocumentID(jcas);
 		String documentIdPrefix = documentId.substring(0, documentId.lastIndexOf("."));
 		File entityFile = new File(entityFilesDirectory, documentIdPrefix + ".a1");
-		UIMA_Util uimaUtil = new UIMA_Util();
-
 		System.out.println("# annotations before: "
 				+ jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size());
 
@@ -92,7 +91,7 @@ public class BioNlpEntityFileLoader_AE extends JCasAnnotator_ImplBase {
 		// for (TextAnnotation ta : taList)
 		// System.out.println(ta.toString());
 
-		uimaUtil.putTextAnnotationsIntoJCas(jcas, taList);
+		TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, taList);
 		System.out.println("# annotations after: "
 				+ jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size());
 	}
@@ -51,6 +51,7 @@ import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.uima.serialization.bionlp.parser.BioNlpEventIterator;
 import edu.ucdenver.ccp.nlp.uima.serialization.bionlp.parser.BioNlpThemeIterator;
+import edu.ucdenver.ccp.nlp.uima.util.TextAnnotationBulkLoader;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
@@ -90,8 +91,6 @@ public class BioNlpEventFileLoader_AE extends JCasAnnotator_ImplBase {
 		File entityFile = new File(entityFilesDirectory, documentIdPrefix + ".a1");
 		File eventFile = new File(eventFilesDirectory, documentIdPrefix + ".a2");
 
-		UIMA_Util uimaUtil = new UIMA_Util();
-
 		System.out.println("# annotations before: "
 				+ jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size());
 
@@ -104,7 +103,7 @@ public class BioNlpEventFileLoader_AE extends JCasAnnotator_ImplBase {
 		// for (TextAnnotation ta : taList)
 		// System.out.println(ta.toString());
 
-		uimaUtil.putTextAnnotationsIntoJCas(jcas, taList);
+		TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, taList);
 		System.out.println("# entity + event annotations after: "
 				+ jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size());
 	}
@@ -34,11 +34,13 @@ package edu.ucdenver.ccp.nlp.uima.annotation.impl;
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 import org.apache.uima.cas.CASException;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
 
 import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
 import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
@@ -53,12 +55,19 @@ import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotationSet;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
 import edu.ucdenver.ccp.nlp.uima.mention.impl.WrappedCCPClassMention;
+import edu.ucdenver.ccp.nlp.uima.util.AnnotationProvenanceRegistry;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Annotation_Util;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
 /**
  * Wrapper class for the {@link CCPTextAnnotation} that complies with the {@link TextAnnotation}
  * abstract class
+ * <p>
+ * The spans of the wrapped annotation are materialized from its CCPSpan FSArray the first time
+ * they are requested and cached as a sorted, read-only list until they are modified through this
+ * wrapper or the FSArray is replaced, so that sorting and comparing wrapped annotations does not
+ * rebuild the span list for every comparison. Code that modifies the CCPSpan feature structures of
+ * the wrapped annotation in place should do so through this wrapper or create a new wrapper.
  * 
  * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
  * 
@@ -69,6 +78,17 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	private JCas jcas;
 
+	/**
+	 * The sorted spans of the wrapped annotation; null if they have not been materialized or have
+	 * been modified
+	 */
+	private List<Span> cachedSpans;
+
+	/**
+	 * The address of the CCPSpan FSArray from which the cached spans were materialized
+	 */
+	private int cachedSpanArrayAddress;
+
 	public WrappedCCPTextAnnotation(CCPTextAnnotation ccpTA) {
 		super(ccpTA);
 	}
@@ -96,13 +116,13 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	@Override
 	public void addAnnotationSet(AnnotationSet annotationSet) {
-		CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-		UIMA_Util.swapAnnotationSetInfo(annotationSet, ccpAnnotationSet);
+		CCPAnnotationSet ccpAnnotationSet = AnnotationProvenanceRegistry.getAnnotationSet(jcas, annotationSet);
 		UIMA_Util.addAnnotationSet(wrappedCCPTextAnnotation, ccpAnnotationSet, jcas);
 	}
 
 	@Override
 	public void addSpan(Span span) {
+		cachedSpans = null;
 		UIMA_Annotation_Util.addSpan(wrappedCCPTextAnnotation, span, jcas);
 		UIMA_Annotation_Util.sortSpanList(wrappedCCPTextAnnotation);
 	}
@@ -174,15 +194,58 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 	@Override
 	public List<Span> getSpans() {
 		try {
-			return UIMA_Annotation_Util.getSpanList(wrappedCCPTextAnnotation);
+			return getCachedSpans();
 		} catch (KnowledgeRepresentationWrapperException e) {
 			e.printStackTrace();
 			return null;
 		}
 	}
 
+	/**
+	 * @return the start offset of the first span, without modifying the span list of the wrapped
+	 *         annotation
+	 */
+	@Override
+	public int getAnnotationSpanStart() {
+		return getSpans().get(0).getSpanStart();
+	}
+
+	/**
+	 * @return the end offset of the last span, without modifying the span list of the wrapped
+	 *         annotation
+	 */
+	@Override
+	public int getAnnotationSpanEnd() {
+		List<Span> spans = getSpans();
+		return spans.get(spans.size() - 1).getSpanEnd();
+	}
+
+	/**
+	 * @return the cached spans of the wrapped annotation, materializing them if the cache is empty
+	 *         or the CCPSpan FSArray of the wrapped annotation has been replaced
+	 * @throws KnowledgeRepresentationWrapperException
+	 *             if the wrapped annotation has no spans
+	 */
+	private List<Span> getCachedSpans() throws KnowledgeRepresentationWrapperException {
+		FSArray ccpSpans = wrappedCCPTextAnnotation.getSpans();
+		if (cachedSpans == null || ccpSpans == null || ccpSpans.getAddress() != cachedSpanArrayAddress) {
+			cachedSpans = null;
+			List<Span> spans = UIMA_Annotation_Util.getSpanList(wrappedCCPTextAnnotation);
+			for (int i = 1; i < spans.size(); i++) {
+				if (Span.ASCENDING().compare(spans.get(i - 1), spans.get(i)) > 0) {
+					Collections.sort(spans, Span.ASCENDING());
+					break;
+				}
+			}
+			cachedSpans = Collections.unmodifiableList(spans);
+			cachedSpanArrayAddress = ccpSpans.getAddress();
+		}
+		return cachedSpans;
+	}
+
 	@Override
 	public void offsetAnnotationSpans(int offset) {
+		cachedSpans = null;
 		try {
 			UIMA_Annotation_Util.offsetSpans(wrappedCCPTextAnnotation, offset);
 		} catch (KnowledgeRepresentationWrapperException e) {
@@ -205,6 +268,7 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	@Override
 	public void setAnnotationSpanEnd(int spanEnd) {
+		cachedSpans = null;
 		try {
 			UIMA_Annotation_Util.setAggregateSpanEnd(wrappedCCPTextAnnotation, spanEnd, jcas);
 		} catch (KnowledgeRepresentationWrapperException e) {
@@ -216,6 +280,7 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	@Override
 	public void setAnnotationSpanStart(int spanStart) {
+		cachedSpans = null;
 		try {
 			UIMA_Annotation_Util.setAggregateSpanStart(wrappedCCPTextAnnotation, spanStart, jcas);
 		} catch (KnowledgeRepresentationWrapperException e) {
@@ -257,12 +322,14 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	@Override
 	public void setSpan(Span span) {
+		cachedSpans = null;
 		wrappedCCPTextAnnotation.setSpans(null);
 		addSpan(span);
 	}
 
 	@Override
 	public void setSpans(List<Span> spans) {
+		cachedSpans = null;
 		wrappedCCPTextAnnotation.setSpans(null);
 		for (Span span : spans) {
 			addSpan(span);
@@ -271,6 +338,7 @@ public class WrappedCCPTextAnnotation extends TextAnnotation {
 
 	@Override
 	protected void sortSpanList() {
+		cachedSpans = null;
 		UIMA_Annotation_Util.sortSpanList(wrappedCCPTextAnnotation);
 	}
 
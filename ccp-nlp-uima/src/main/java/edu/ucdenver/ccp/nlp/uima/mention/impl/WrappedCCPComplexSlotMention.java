@@ -113,9 +113,19 @@ public class WrappedCCPComplexSlotMention extends ComplexSlotMention {
 	}
 
 	public void addSlotValues(Collection<ClassMention> slotValues) throws InvalidInputException {
+		List<CCPClassMention> ccpCMs = new ArrayList<CCPClassMention>(slotValues.size());
 		for (ClassMention cm : slotValues) {
-			addSlotValue(cm);
+			Object wrappedClassMention = cm.getWrappedObject();
+			if (wrappedClassMention instanceof CCPClassMention) {
+				ccpCMs.add((CCPClassMention) wrappedClassMention);
+			} else {
+				throw new InvalidInputException("Expected CCPClassMention. Cannot add class"
+						+ wrappedClassMention.getClass().getName()
+						+ " to the ClassMentions list of a CCPComplexSlotMention");
+			}
 		}
+		FSArray updatedClassMentions = UIMA_Util.addToFSArray(wrappedCSM.getClassMentions(), ccpCMs, jcas);
+		wrappedCSM.setClassMentions(updatedClassMentions);
 	}
 
 	public Collection<ClassMention> getSlotValues() {
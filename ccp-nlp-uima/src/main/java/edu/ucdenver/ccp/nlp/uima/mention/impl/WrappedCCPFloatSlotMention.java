@@ -97,9 +97,8 @@ public class WrappedCCPFloatSlotMention extends FloatSlotMention {
 	}
 
 	public void addSlotValues(Collection<Float> slotValues) throws InvalidInputException {
-		for (Float floatToAdd : slotValues) {
-			addSlotValue(floatToAdd);
-		}
+		FloatArray updatedFloatArray = UIMA_Util.addToFloatArray(wrappedSM.getSlotValues(), slotValues, jcas);
+		wrappedSM.setSlotValues(updatedFloatArray);
 	}
 
 	public Collection<Float> getSlotValues() {
@@ -97,9 +97,8 @@ public class WrappedCCPIntegerSlotMention extends IntegerSlotMention {
 	}
 
 	public void addSlotValues(Collection<Integer> slotValues) throws InvalidInputException {
-		for (Integer integerToAdd : slotValues) {
-			addSlotValue(integerToAdd);
-		}
+		IntegerArray updatedIntegerArray = UIMA_Util.addToIntegerArray(wrappedSM.getSlotValues(), slotValues, jcas);
+		wrappedSM.setSlotValues(updatedIntegerArray);
 	}
 
 	public Collection<Integer> getSlotValues() {
@@ -97,9 +97,8 @@ public class WrappedCCPStringSlotMention extends StringSlotMention {
 	}
 
 	public void addSlotValues(Collection<String> slotValues) throws InvalidInputException {
-		for (String stringToAdd : slotValues) {
-			addSlotValue(stringToAdd);
-		}
+		StringArray updatedStringArray = UIMA_Util.addToStringArray(wrappedSM.getSlotValues(), slotValues, jcas);
+		wrappedSM.setSlotValues(updatedStringArray);
 	}
 
 	public Collection<String> getSlotValues() {
@@ -0,0 +1,246 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.TOP;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotationSet;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotator;
+
+/**
+ * A per-CAS registry of {@link CCPAnnotator} and {@link CCPAnnotationSet} feature structures.
+ * Annotations produced by the same annotator, or belonging to the same annotation set, typically
+ * carry identical annotator/annotation set information, so rather than creating a new feature
+ * structure (and its strings) for every annotation, the registry returns a single shared feature
+ * structure for each distinct (annotatorID, first name, last name, affiliation) and (setID, name,
+ * description). This keeps the CAS, and any XMI serialized from it, from filling up with
+ * duplicates.
+ * <p>
+ * Shared feature structures must be treated as immutable; to change the annotator or annotation
+ * sets of a single annotation, assign a different feature structure rather than modifying the one
+ * returned by this registry. Registered feature structures are discarded automatically when their
+ * CAS is reset. A reset is detected by a {@link CasResetTracker}, without dereferencing the
+ * addresses of previously registered feature structures.
+ * <p>
+ * The registry of a CAS is held in a weak map keyed by the CAS, so it records only feature
+ * structure addresses and a weak reference to the Sofa. Holding JCas cover objects, which refer to
+ * their CAS, would keep the CAS from ever being collected.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationProvenanceRegistry {
+
+	private static final Map<CAS, AnnotationProvenanceRegistry> casToRegistryMap = Collections
+			.synchronizedMap(new WeakHashMap<CAS, AnnotationProvenanceRegistry>());
+
+	/**
+	 * annotator feature structure addresses keyed by annotator information
+	 */
+	private final Map<List<Object>, Integer> annotators = new HashMap<List<Object>, Integer>();
+
+	/**
+	 * annotation set feature structure addresses keyed by annotation set information
+	 */
+	private final Map<List<Object>, Integer> annotationSets = new HashMap<List<Object>, Integer>();
+
+	private final CasResetTracker resetTracker = new CasResetTracker();
+
+	private AnnotationProvenanceRegistry() {
+		// instances are retrieved via getRegistry(JCas)
+	}
+
+	private static AnnotationProvenanceRegistry getRegistry(JCas jcas) {
+		CAS cas = jcas.getCas();
+		synchronized (casToRegistryMap) {
+			AnnotationProvenanceRegistry registry = casToRegistryMap.get(cas);
+			if (registry == null) {
+				registry = new AnnotationProvenanceRegistry();
+				casToRegistryMap.put(cas, registry);
+			}
+			registry.clearIfReset(jcas);
+			return registry;
+		}
+	}
+
+	/**
+	 * Discards all registered feature structures if the CAS has been reset since the registry was
+	 * last used.
+	 * 
+	 * @param jcas
+	 */
+	private synchronized void clearIfReset(JCas jcas) {
+		if (resetTracker.checkReset(jcas.getCas())) {
+			annotators.clear();
+			annotationSets.clear();
+		}
+	}
+
+	/**
+	 * @param featureStructure
+	 * @return true if the input {@link CCPAnnotator} or {@link CCPAnnotationSet} was returned by
+	 *         this registry for the current document in its CAS, i.e. it may be shared by several
+	 *         annotations and must not be modified
+	 */
+	public static boolean isShared(FeatureStructure featureStructure) {
+		CAS cas = featureStructure.getCAS();
+		AnnotationProvenanceRegistry registry = casToRegistryMap.get(cas);
+		if (registry == null) {
+			return false;
+		}
+		synchronized (registry) {
+			if (!registry.resetTracker.isCurrent(cas)) {
+				return false;
+			}
+			Integer address = ((TOP) featureStructure).getAddress();
+			return registry.annotators.containsValue(address) || registry.annotationSets.containsValue(address);
+		}
+	}
+
+	/**
+	 * Removes the input {@link CCPAnnotator} or {@link CCPAnnotationSet} from the registry of its
+	 * CAS, if it is registered, so that it is no longer handed out for its current information and
+	 * may be modified. Annotations that were assigned the feature structure keep referring to it.
+	 * 
+	 * @param featureStructure
+	 */
+	static void unregister(FeatureStructure featureStructure) {
+		AnnotationProvenanceRegistry registry = casToRegistryMap.get(featureStructure.getCAS());
+		if (registry == null) {
+			return;
+		}
+		synchronized (registry) {
+			Integer address = ((TOP) featureStructure).getAddress();
+			registry.annotators.values().remove(address);
+			registry.annotationSets.values().remove(address);
+		}
+	}
+
+	/**
+	 * @param jcas
+	 * @param annotatorID
+	 * @param firstName
+	 * @param lastName
+	 * @param affiliation
+	 * @return the shared {@link CCPAnnotator} for the input annotator information, created if it
+	 *         does not already exist in the CAS
+	 */
+	public static CCPAnnotator getAnnotator(JCas jcas, int annotatorID, String firstName, String lastName,
+			String affiliation) {
+		List<Object> key = Arrays.<Object> asList(annotatorID, firstName, lastName, affiliation);
+		AnnotationProvenanceRegistry registry = getRegistry(jcas);
+		synchronized (registry) {
+			Integer address = registry.annotators.get(key);
+			if (address != null) {
+				return jcas.getLowLevelCas().ll_getFSForRef(address);
+			}
+			CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
+			ccpAnnotator.setAnnotatorID(annotatorID);
+			ccpAnnotator.setFirstName(firstName);
+			ccpAnnotator.setLastName(lastName);
+			ccpAnnotator.setAffiliation(affiliation);
+			registry.annotators.put(key, ccpAnnotator.getAddress());
+			return ccpAnnotator;
+		}
+	}
+
+	/**
+	 * @param jcas
+	 * @param annotator
+	 * @return the shared {@link CCPAnnotator} corresponding to the input {@link Annotator}. If the
+	 *         input annotator is null, an annotator with no information is returned.
+	 */
+	public static CCPAnnotator getAnnotator(JCas jcas, Annotator annotator) {
+		if (annotator == null) {
+			return getAnnotator(jcas, 0, null, null, null);
+		}
+		return getAnnotator(jcas, annotator.getAnnotatorID().intValue(), annotator.getFirstName(),
+				annotator.getLastName(), annotator.getAffiliation());
+	}
+
+	/**
+	 * @param jcas
+	 * @param annotationSetID
+	 * @param annotationSetName
+	 * @param annotationSetDescription
+	 * @return the shared {@link CCPAnnotationSet} for the input annotation set information, created
+	 *         if it does not already exist in the CAS
+	 */
+	public static CCPAnnotationSet getAnnotationSet(JCas jcas, int annotationSetID, String annotationSetName,
+			String annotationSetDescription) {
+		List<Object> key = Arrays.<Object> asList(annotationSetID, annotationSetName, annotationSetDescription);
+		AnnotationProvenanceRegistry registry = getRegistry(jcas);
+		synchronized (registry) {
+			Integer address = registry.annotationSets.get(key);
+			if (address != null) {
+				return jcas.getLowLevelCas().ll_getFSForRef(address);
+			}
+			CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
+			ccpAnnotationSet.setAnnotationSetID(annotationSetID);
+			ccpAnnotationSet.setAnnotationSetName(annotationSetName);
+			ccpAnnotationSet.setAnnotationSetDescription(annotationSetDescription);
+			registry.annotationSets.put(key, ccpAnnotationSet.getAddress());
+			return ccpAnnotationSet;
+		}
+	}
+
+	/**
+	 * @param jcas
+	 * @param annotationSet
+	 * @return the shared {@link CCPAnnotationSet} corresponding to the input {@link AnnotationSet}.
+	 *         If the input annotation set is null, an annotation set with no information is
+	 *         returned.
+	 */
+	public static CCPAnnotationSet getAnnotationSet(JCas jcas, AnnotationSet annotationSet) {
+		if (annotationSet == null) {
+			return getAnnotationSet(jcas, 0, null, null);
+		}
+		return getAnnotationSet(jcas, annotationSet.getAnnotationSetID().intValue(),
+				annotationSet.getAnnotationSetName(), annotationSet.getAnnotationSetDescription());
+	}
+
+}
@@ -0,0 +1,426 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+
+/**
+ * A per-CAS index over the begin/end offsets of the annotations in a CAS view. The index for a
+ * given annotation type is built lazily the first time it is queried and answers within,
+ * overlapping, encompassing, same-start and preceding span queries in logarithmic time (plus the
+ * number of annotations returned), instead of filtering the entire annotation index for each query.
+ * Annotations are returned in annotation index order, i.e. the same order produced by the
+ * constraint-based filtered iterators of the corresponding {@link UIMA_Util} methods.
+ * <p>
+ * The index is opt-in: the {@link UIMA_Util} span queries always filter the annotation index and
+ * are therefore correct whatever has happened to the CAS. Code that issues many span queries
+ * against a CAS whose annotations do not change (or change only through feature structure
+ * creation, removal and the span mutators in {@link UIMA_Util} and {@link UIMA_Annotation_Util})
+ * can use this index instead. The index of a type is rebuilt when
+ * <ul>
+ * <li>the CAS has been reset (detected through its Sofa, see {@link CasResetTracker})</li>
+ * <li>the number of annotations of the type (including its subtypes) has changed</li>
+ * <li>a feature structure has been created in the CAS since the index was built, which covers
+ * removing one annotation and adding another</li>
+ * <li>{@link #invalidate(Annotation)} has been called for an annotation of the type</li>
+ * </ul>
+ * Changing the begin/end offsets of an existing annotation (in place, or by removing it from the
+ * indexes and adding it back) cannot be detected otherwise; code that does so without going
+ * through the span mutators mentioned above must call {@link #invalidate(Annotation)}.
+ * <p>
+ * Only feature structure addresses are stored, so an index does not prevent its CAS from being
+ * garbage collected.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationSpanIndex {
+
+	private static final Map<CAS, AnnotationSpanIndex> casToSpanIndexMap = Collections
+			.synchronizedMap(new WeakHashMap<CAS, AnnotationSpanIndex>());
+
+	private final Map<Type, TypeSpanIndex> typeToSpanIndexMap = new HashMap<Type, TypeSpanIndex>();
+
+	private final CasResetTracker resetTracker = new CasResetTracker();
+
+	private AnnotationSpanIndex() {
+		// instances are retrieved via getIndex(JCas)
+	}
+
+	/**
+	 * @param jcas
+	 * @return the span index for the input CAS view, created if it does not already exist
+	 */
+	public static AnnotationSpanIndex getIndex(JCas jcas) {
+		CAS cas = jcas.getCas();
+		synchronized (casToSpanIndexMap) {
+			AnnotationSpanIndex index = casToSpanIndexMap.get(cas);
+			if (index == null) {
+				index = new AnnotationSpanIndex();
+				casToSpanIndexMap.put(cas, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Discards any span indexes that have been built for the input CAS view. They will be rebuilt
+	 * the next time they are queried.
+	 * 
+	 * @param jcas
+	 */
+	public static void invalidate(JCas jcas) {
+		invalidate(jcas.getCas());
+	}
+
+	/**
+	 * Discards any span indexes that have been built for the input CAS view. They will be rebuilt
+	 * the next time they are queried.
+	 * 
+	 * @param cas
+	 */
+	public static void invalidate(CAS cas) {
+		casToSpanIndexMap.remove(cas);
+	}
+
+	/**
+	 * Discards the span indexes that have been built, for the CAS view of the input annotation, for
+	 * the type of the annotation and its supertypes. This should be called after the offsets of an
+	 * annotation have been changed. The discarded indexes are rebuilt the next time they are
+	 * queried, so calling this method repeatedly, e.g. while updating many annotations, is cheap.
+	 * 
+	 * @param annotation
+	 */
+	public static void invalidate(Annotation annotation) {
+		AnnotationSpanIndex index = casToSpanIndexMap.get(annotation.getCAS());
+		if (index != null) {
+			index.typeChanged(annotation.getType(), annotation.getCAS().getTypeSystem());
+		}
+	}
+
+	private synchronized void typeChanged(Type type, TypeSystem typeSystem) {
+		for (Iterator<Type> typeIter = typeToSpanIndexMap.keySet().iterator(); typeIter.hasNext();) {
+			if (typeSystem.subsumes(typeIter.next(), type)) {
+				typeIter.remove();
+			}
+		}
+	}
+
+	/**
+	 * return all annotations of the input type within the input span, i.e. annotations with begin
+	 * &gt;= span start and end &lt;= span end
+	 * 
+	 * <pre>
+	 *                           ccccc
+	 *                          ssssssss
+	 * </pre>
+	 * 
+	 * @param span
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	public synchronized Iterator<Annotation> getAnnotationsWithinSpan(Span span, JCas jcas, Type annotationType) {
+		TypeSpanIndex index = getTypeSpanIndex(jcas, annotationType);
+		List<Integer> positions = new ArrayList<Integer>();
+		index.collectEndAtMost(index.firstBeginAtLeast(span.getSpanStart()), index.size(), span.getSpanEnd(),
+				positions);
+		return index.toAnnotationIterator(positions, jcas);
+	}
+
+	/**
+	 * return all annotations of the input type that overlap the input span, or are contained
+	 * within it. This is the query historically performed by
+	 * {@link UIMA_Util#getAnnotationsEncompassingSpan(Span, JCas, int)}.
+	 * 
+	 * <pre>
+	 *              cccccccc          ccccccccc          cccc
+	 *                  ssssssss   sssssss             sssssssssss
+	 * </pre>
+	 * 
+	 * @param span
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	public synchronized Iterator<Annotation> getOverlappingAnnotations(Span span, JCas jcas, Type annotationType) {
+		TypeSpanIndex index = getTypeSpanIndex(jcas, annotationType);
+		int spanStart = span.getSpanStart();
+		int spanEnd = span.getSpanEnd();
+		int startsAtSpanStart = index.firstBeginAtLeast(spanStart);
+		int startsAfterSpanEnd = index.firstBeginAtLeast(spanEnd + 1);
+
+		/*
+		 * candidates are annotations that start before the span and end inside or after it,
+		 * annotations that start inside the span, and (for annotations with malformed offsets) those
+		 * that start after the span but end within it. Each block is visited in index order.
+		 */
+		List<Integer> candidates = new ArrayList<Integer>();
+		index.collectEndAtLeast(0, startsAtSpanStart, spanStart, candidates);
+		for (int i = startsAtSpanStart; i < startsAfterSpanEnd; i++) {
+			candidates.add(i);
+		}
+		index.collectEndAtMost(startsAfterSpanEnd, index.size(), spanEnd, candidates);
+
+		List<Integer> positions = new ArrayList<Integer>(candidates.size());
+		for (int position : candidates) {
+			int begin = index.begins[position];
+			int end = index.ends[position];
+			if ((begin <= spanStart && end > spanStart) || (begin < spanEnd && end >= spanEnd)
+					|| (begin >= spanStart && end <= spanEnd)) {
+				positions.add(position);
+			}
+		}
+		return index.toAnnotationIterator(positions, jcas);
+	}
+
+	/**
+	 * return all annotations of the input type that completely cover the input span, i.e.
+	 * annotations with begin &lt;= span start and end &gt;= span end
+	 * 
+	 * <pre>
+	 *                        cccccccccc
+	 *                          ssssss
+	 * </pre>
+	 * 
+	 * @param span
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	public synchronized Iterator<Annotation> getAnnotationsEncompassingSpan(Span span, JCas jcas,
+			Type annotationType) {
+		TypeSpanIndex index = getTypeSpanIndex(jcas, annotationType);
+		List<Integer> positions = new ArrayList<Integer>();
+		index.collectEndAtLeast(0, index.firstBeginAtLeast(span.getSpanStart() + 1), span.getSpanEnd(), positions);
+		return index.toAnnotationIterator(positions, jcas);
+	}
+
+	/**
+	 * return all annotations of the input type that start at the input startIndex
+	 * 
+	 * @param startIndex
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	public synchronized Iterator<Annotation> getAnnotationsWithSameStart(int startIndex, JCas jcas,
+			Type annotationType) {
+		TypeSpanIndex index = getTypeSpanIndex(jcas, annotationType);
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int i = index.firstBeginAtLeast(startIndex); i < index.firstBeginAtLeast(startIndex + 1); i++) {
+			positions.add(i);
+		}
+		return index.toAnnotationIterator(positions, jcas);
+	}
+
+	/**
+	 * return all annotations of the input type that end before the input startIndex
+	 * 
+	 * @param startIndex
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	public synchronized Iterator<Annotation> getPrecedingAnnotations(int startIndex, JCas jcas, Type annotationType) {
+		TypeSpanIndex index = getTypeSpanIndex(jcas, annotationType);
+		List<Integer> positions = new ArrayList<Integer>();
+		index.collectEndAtMost(0, index.size(), startIndex - 1, positions);
+		return index.toAnnotationIterator(positions, jcas);
+	}
+
+	/**
+	 * Returns the index for the specified type, (re)building it if the CAS content has changed since
+	 * it was last built
+	 * 
+	 * @param jcas
+	 * @param annotationType
+	 * @return
+	 */
+	private TypeSpanIndex getTypeSpanIndex(JCas jcas, Type annotationType) {
+		if (resetTracker.checkReset(jcas.getCas())) {
+			typeToSpanIndexMap.clear();
+		}
+		AnnotationIndex<Annotation> annotationIndex = jcas.getAnnotationIndex(annotationType);
+		int heapTop = jcas.getCasImpl().getHeap().getNextId();
+		TypeSpanIndex index = typeToSpanIndexMap.get(annotationType);
+		if (index == null || index.size() != annotationIndex.size() || index.heapTop != heapTop) {
+			index = new TypeSpanIndex(annotationIndex, heapTop);
+			typeToSpanIndexMap.put(annotationType, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Stores the begin offsets, end offsets and feature structure addresses of all annotations of a
+	 * single type in annotation index order (sorted by begin offset). Two segment trees, holding the
+	 * minimum and maximum end offset of each subrange, allow all positions in a range whose end
+	 * offset is above/below a threshold to be enumerated without visiting the others.
+	 */
+	private static class TypeSpanIndex {
+		private final int[] begins;
+		private final int[] ends;
+		private final int[] addresses;
+		private final int[] minEnds;
+		private final int[] maxEnds;
+
+		/**
+		 * the next free address of the CAS heap when the index was built; it grows whenever a
+		 * feature structure is created
+		 */
+		private final int heapTop;
+
+		public TypeSpanIndex(AnnotationIndex<Annotation> annotationIndex, int heapTop) {
+			this.heapTop = heapTop;
+			int size = annotationIndex.size();
+			begins = new int[size];
+			ends = new int[size];
+			addresses = new int[size];
+			int i = 0;
+			for (FSIterator<Annotation> annotIter = annotationIndex.iterator(); annotIter.hasNext(); i++) {
+				Annotation annotation = annotIter.next();
+				begins[i] = annotation.getBegin();
+				ends[i] = annotation.getEnd();
+				addresses[i] = annotation.getAddress();
+			}
+			int treeSize = (size == 0) ? 0 : 4 * size;
+			minEnds = new int[treeSize];
+			maxEnds = new int[treeSize];
+			if (size > 0) {
+				build(1, 0, size);
+			}
+		}
+
+		public int size() {
+			return begins.length;
+		}
+
+		private void build(int node, int lo, int hi) {
+			if (hi - lo == 1) {
+				minEnds[node] = ends[lo];
+				maxEnds[node] = ends[lo];
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			build(2 * node, lo, mid);
+			build(2 * node + 1, mid, hi);
+			minEnds[node] = Math.min(minEnds[2 * node], minEnds[2 * node + 1]);
+			maxEnds[node] = Math.max(maxEnds[2 * node], maxEnds[2 * node + 1]);
+		}
+
+		/**
+		 * @param offset
+		 * @return the first position whose begin offset is &gt;= the input offset, or size() if
+		 *         there is no such position
+		 */
+		public int firstBeginAtLeast(int offset) {
+			int lo = 0;
+			int hi = begins.length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (begins[mid] < offset) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+
+		/**
+		 * Adds, in order, the positions in [from, to) with end offset &lt;= the input threshold
+		 */
+		public void collectEndAtMost(int from, int to, int threshold, List<Integer> positions) {
+			if (from < to) {
+				collect(1, 0, size(), from, to, threshold, false, positions);
+			}
+		}
+
+		/**
+		 * Adds, in order, the positions in [from, to) with end offset &gt;= the input threshold
+		 */
+		public void collectEndAtLeast(int from, int to, int threshold, List<Integer> positions) {
+			if (from < to) {
+				collect(1, 0, size(), from, to, threshold, true, positions);
+			}
+		}
+
+		private void collect(int node, int lo, int hi, int from, int to, int threshold, boolean atLeast,
+				List<Integer> positions) {
+			if (hi <= from || lo >= to) {
+				return;
+			}
+			if (atLeast ? maxEnds[node] < threshold : minEnds[node] > threshold) {
+				return;
+			}
+			if (hi - lo == 1) {
+				positions.add(lo);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			collect(2 * node, lo, mid, from, to, threshold, atLeast, positions);
+			collect(2 * node + 1, mid, hi, from, to, threshold, atLeast, positions);
+		}
+
+		public Iterator<Annotation> toAnnotationIterator(List<Integer> positions, JCas jcas) {
+			if (positions.isEmpty()) {
+				return Collections.<Annotation> emptyList().iterator();
+			}
+			Annotation[] annotations = new Annotation[positions.size()];
+			int i = 0;
+			for (int position : positions) {
+				annotations[i++] = (Annotation) jcas.getJfsFromCaddr(addresses[position]);
+			}
+			return Arrays.asList(annotations).iterator();
+		}
+	}
+
+}
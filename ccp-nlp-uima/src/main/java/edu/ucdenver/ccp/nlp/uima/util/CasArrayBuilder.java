@@ -0,0 +1,321 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.uima.cas.CommonArrayFS;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.DoubleArray;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.cas.FloatArray;
+import org.apache.uima.jcas.cas.IntegerArray;
+import org.apache.uima.jcas.cas.LongArray;
+import org.apache.uima.jcas.cas.StringArray;
+
+/**
+ * Collects values destined for a CAS array in a Java-side buffer and materializes a single,
+ * right-sized CAS array when {@link #build(JCas)} is called. CAS arrays have a fixed length, so
+ * appending to one element at a time (as the <code>UIMA_Util.addTo*Array</code> methods do) copies
+ * the entire array on every call and leaves each intermediate copy on the CAS heap until the CAS
+ * is reset. Using a builder, adding k values to a feature costs a single CAS allocation.
+ * <p>
+ * Builders are not thread-safe and are intended to be short-lived, e.g.
+ * 
+ * <pre>
+ * ccpSSM.setSlotValues(CasArrayBuilder.forStringArray(ccpSSM.getSlotValues()).addAll(values).build(jcas));
+ * </pre>
+ * 
+ * @param <T>
+ *            the type of value stored in the CAS array
+ * @param <A>
+ *            the CAS array type
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public abstract class CasArrayBuilder<T, A extends CommonArrayFS> {
+
+	/**
+	 * The CAS array whose contents will precede any added values; may be null
+	 */
+	protected final A existingArray;
+
+	protected final List<T> values;
+
+	private CasArrayBuilder(A existingArray) {
+		this.existingArray = existingArray;
+		this.values = new ArrayList<T>();
+	}
+
+	/**
+	 * @param value
+	 * @return this builder
+	 */
+	public CasArrayBuilder<T, A> add(T value) {
+		values.add(value);
+		return this;
+	}
+
+	/**
+	 * @param valuesToAdd
+	 * @return this builder
+	 */
+	public CasArrayBuilder<T, A> addAll(Collection<? extends T> valuesToAdd) {
+		values.addAll(valuesToAdd);
+		return this;
+	}
+
+	/**
+	 * @return the number of elements the built array will contain
+	 */
+	public int size() {
+		return getExistingSize() + values.size();
+	}
+
+	/**
+	 * @param jcas
+	 * @return a CAS array containing the contents of the existing array (if there is one) followed
+	 *         by the added values. If no values have been added then the existing array itself is
+	 *         returned so that no CAS allocation takes place.
+	 */
+	public A build(JCas jcas) {
+		if (existingArray != null && values.isEmpty()) {
+			return existingArray;
+		}
+		return buildArray(jcas, getExistingSize());
+	}
+
+	private int getExistingSize() {
+		return (existingArray == null) ? 0 : existingArray.size();
+	}
+
+	/**
+	 * @param jcas
+	 * @param existingSize
+	 * @return a newly allocated CAS array populated with the existing and added values
+	 */
+	protected abstract A buildArray(JCas jcas, int existingSize);
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link FSArray}
+	 */
+	public static CasArrayBuilder<FeatureStructure, FSArray> forFSArray(FSArray existingArray) {
+		return new FSArrayBuilder(existingArray);
+	}
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link StringArray}
+	 */
+	public static CasArrayBuilder<String, StringArray> forStringArray(StringArray existingArray) {
+		return new StringArrayBuilder(existingArray);
+	}
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link IntegerArray}
+	 */
+	public static CasArrayBuilder<Integer, IntegerArray> forIntegerArray(IntegerArray existingArray) {
+		return new IntegerArrayBuilder(existingArray);
+	}
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link LongArray}
+	 */
+	public static CasArrayBuilder<Long, LongArray> forLongArray(LongArray existingArray) {
+		return new LongArrayBuilder(existingArray);
+	}
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link FloatArray}
+	 */
+	public static CasArrayBuilder<Float, FloatArray> forFloatArray(FloatArray existingArray) {
+		return new FloatArrayBuilder(existingArray);
+	}
+
+	/**
+	 * @param existingArray
+	 *            may be null
+	 * @return a builder whose contents are initialized to those of the input {@link DoubleArray}
+	 */
+	public static CasArrayBuilder<Double, DoubleArray> forDoubleArray(DoubleArray existingArray) {
+		return new DoubleArrayBuilder(existingArray);
+	}
+
+	private static class FSArrayBuilder extends CasArrayBuilder<FeatureStructure, FSArray> {
+
+		public FSArrayBuilder(FSArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected FSArray buildArray(JCas jcas, int existingSize) {
+			FeatureStructure[] buffer = new FeatureStructure[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (FeatureStructure value : values) {
+				buffer[index++] = value;
+			}
+			FSArray array = new FSArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+	private static class StringArrayBuilder extends CasArrayBuilder<String, StringArray> {
+
+		public StringArrayBuilder(StringArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected StringArray buildArray(JCas jcas, int existingSize) {
+			String[] buffer = new String[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (String value : values) {
+				buffer[index++] = value;
+			}
+			StringArray array = new StringArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+	private static class IntegerArrayBuilder extends CasArrayBuilder<Integer, IntegerArray> {
+
+		public IntegerArrayBuilder(IntegerArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected IntegerArray buildArray(JCas jcas, int existingSize) {
+			int[] buffer = new int[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (Integer value : values) {
+				buffer[index++] = value;
+			}
+			IntegerArray array = new IntegerArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+	private static class LongArrayBuilder extends CasArrayBuilder<Long, LongArray> {
+
+		public LongArrayBuilder(LongArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected LongArray buildArray(JCas jcas, int existingSize) {
+			long[] buffer = new long[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (Long value : values) {
+				buffer[index++] = value;
+			}
+			LongArray array = new LongArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+	private static class FloatArrayBuilder extends CasArrayBuilder<Float, FloatArray> {
+
+		public FloatArrayBuilder(FloatArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected FloatArray buildArray(JCas jcas, int existingSize) {
+			float[] buffer = new float[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (Float value : values) {
+				buffer[index++] = value;
+			}
+			FloatArray array = new FloatArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+	private static class DoubleArrayBuilder extends CasArrayBuilder<Double, DoubleArray> {
+
+		public DoubleArrayBuilder(DoubleArray existingArray) {
+			super(existingArray);
+		}
+
+		@Override
+		protected DoubleArray buildArray(JCas jcas, int existingSize) {
+			double[] buffer = new double[existingSize + values.size()];
+			if (existingSize > 0) {
+				existingArray.copyToArray(0, buffer, 0, existingSize);
+			}
+			int index = existingSize;
+			for (Double value : values) {
+				buffer[index++] = value;
+			}
+			DoubleArray array = new DoubleArray(jcas, buffer.length);
+			array.copyFromArray(buffer, 0, 0, buffer.length);
+			return array;
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.lang.ref.WeakReference;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.SofaFS;
+
+/**
+ * Detects that a CAS view has been reset since it was last seen. Per-CAS caches that record
+ * feature structure addresses use it to discard their entries once the addresses may refer to
+ * feature structures of a different document. A reset discards the Sofa, and the JCas cover
+ * objects, of the previous document, so comparing the Sofa of the CAS view with the Sofa seen
+ * previously detects a reset even if the new document is given the same document text instance.
+ * <p>
+ * Only a weak reference to the Sofa is held, so a tracker stored in a weak map keyed by the CAS
+ * does not keep the CAS from being garbage collected.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+class CasResetTracker {
+
+	private WeakReference<SofaFS> sofaReference = new WeakReference<SofaFS>(null);
+
+	/**
+	 * @param cas
+	 * @return true if the Sofa of the CAS view differs from the Sofa seen by the previous call, i.e.
+	 *         if the CAS has been reset since then; the current Sofa is remembered for the next call
+	 */
+	public synchronized boolean checkReset(CAS cas) {
+		SofaFS currentSofa = cas.getSofa();
+		if (currentSofa != sofaReference.get()) {
+			sofaReference = new WeakReference<SofaFS>(currentSofa);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param cas
+	 * @return true if the CAS still has the Sofa seen by the last call to
+	 *         {@link #checkReset(CAS)}, i.e. it has not been reset since then
+	 */
+	public synchronized boolean isCurrent(CAS cas) {
+		return cas.getSofa() == sofaReference.get();
+	}
+
+}
@@ -0,0 +1,301 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPPrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPSlotMention;
+
+/**
+ * A per-CAS index from {@link CCPClassMention} to the names of its slot mentions. The slots of a
+ * class mention are indexed lazily the first time they are queried, after which slot lookups by
+ * name are answered with a hash lookup instead of a linear scan over the slotMentions FSArray with
+ * String comparisons and instanceof checks. This benefits code that looks up several slots per
+ * class mention, or repeatedly visits the same class mentions, e.g. inside per-annotation loops.
+ * <p>
+ * The index entry for a class mention is refreshed automatically when the slotMentions FSArray of
+ * the class mention is replaced, which is how {@link UIMA_Util#addSlotMentions(CCPClassMention,
+ * java.util.Collection, JCas)}, {@link UIMA_Util#removeSlotMentions(CCPClassMention, Class, JCas)}
+ * and the other UIMA_Util slot mutators modify slots. Code that modifies the slotMentions FSArray in
+ * place, or renames a slot mention that has already been indexed, should call
+ * {@link #invalidate(JCas)}. Entries are discarded when the CAS is reset (detected through its
+ * Sofa, see {@link CasResetTracker}), as the recorded addresses may then refer to feature
+ * structures of a different document.
+ * <p>
+ * The lookups return the same slot mentions as the corresponding linear-scan methods in
+ * {@link UIMA_Util}; where several slots share a name the first one in the FSArray is returned.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SlotMentionIndex {
+
+	private static final Logger logger = Logger.getLogger(SlotMentionIndex.class);
+
+	private static final Map<CAS, SlotMentionIndex> casToSlotIndexMap = Collections
+			.synchronizedMap(new WeakHashMap<CAS, SlotMentionIndex>());
+
+	/**
+	 * Index entries keyed by class mention address
+	 */
+	private final Map<Integer, MentionSlots> addressToSlotsMap = new HashMap<Integer, MentionSlots>();
+
+	private final CasResetTracker resetTracker = new CasResetTracker();
+
+	private SlotMentionIndex() {
+		// instances are retrieved via getIndex(JCas)
+	}
+
+	/**
+	 * @param jcas
+	 * @return the slot mention index for the input CAS view, created if it does not already exist
+	 */
+	public static SlotMentionIndex getIndex(JCas jcas) {
+		CAS cas = jcas.getCas();
+		synchronized (casToSlotIndexMap) {
+			SlotMentionIndex index = casToSlotIndexMap.get(cas);
+			if (index == null) {
+				index = new SlotMentionIndex();
+				casToSlotIndexMap.put(cas, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Discards the slot mention index for the input CAS view. It will be rebuilt as it is queried.
+	 * 
+	 * @param jcas
+	 */
+	public static void invalidate(JCas jcas) {
+		casToSlotIndexMap.remove(jcas.getCas());
+	}
+
+	/**
+	 * Re-indexes the slots of the input class mention if an index exists for its CAS and the class
+	 * mention has already been indexed. This is called by the UIMA_Util methods that replace the
+	 * slot mentions of a class mention.
+	 * 
+	 * @param ccpCM
+	 */
+	static void slotMentionsChanged(CCPClassMention ccpCM) {
+		SlotMentionIndex index = casToSlotIndexMap.get(ccpCM.getCAS());
+		if (index != null) {
+			index.update(ccpCM);
+		}
+	}
+
+	/**
+	 * @param ccpCM
+	 * @param slotMentionName
+	 * @return the first slot mention of the input class mention with the input name, or null if
+	 *         there is none
+	 */
+	public synchronized CCPSlotMention getSlotMention(CCPClassMention ccpCM, String slotMentionName) {
+		List<Integer> addresses = getSlots(ccpCM).slotsByName.get(slotMentionName);
+		return (addresses == null) ? null : SlotMentionIndex.<CCPSlotMention> getFS(ccpCM, addresses.get(0));
+	}
+
+	/**
+	 * @param ccpCM
+	 * @param slotMentionName
+	 * @return the first primitive slot mention of the input class mention with the input name, or
+	 *         null if there is none
+	 */
+	public synchronized CCPPrimitiveSlotMention getPrimitiveSlotMention(CCPClassMention ccpCM, String slotMentionName) {
+		return getFirst(ccpCM, getSlots(ccpCM).slotsByName.get(slotMentionName), CCPPrimitiveSlotMention.class);
+	}
+
+	/**
+	 * @param ccpCM
+	 * @param slotMentionName
+	 * @return the first complex slot mention of the input class mention with the input name, or null
+	 *         if there is none
+	 */
+	public synchronized CCPComplexSlotMention getComplexSlotMention(CCPClassMention ccpCM, String slotMentionName) {
+		return getFirst(ccpCM, getSlots(ccpCM).slotsByName.get(slotMentionName), CCPComplexSlotMention.class);
+	}
+
+	/**
+	 * @param ccpCM
+	 * @param slotMentionName
+	 * @return a read-only list of the slot mentions of the input class mention with the input name,
+	 *         in FSArray order; empty if there are none
+	 */
+	public synchronized List<CCPSlotMention> getSlotMentions(CCPClassMention ccpCM, String slotMentionName) {
+		List<Integer> addresses = getSlots(ccpCM).slotsByName.get(slotMentionName);
+		if (addresses == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(SlotMentionIndex.<CCPSlotMention> getFSs(ccpCM, addresses));
+	}
+
+	/**
+	 * @param ccpCM
+	 * @return a read-only list of the primitive slot mentions of the input class mention
+	 */
+	public synchronized List<CCPPrimitiveSlotMention> getPrimitiveSlotMentions(CCPClassMention ccpCM) {
+		return Collections.unmodifiableList(SlotMentionIndex.<CCPPrimitiveSlotMention> getFSs(ccpCM,
+				getSlots(ccpCM).primitiveSlots));
+	}
+
+	/**
+	 * @param ccpCM
+	 * @return a read-only list of the complex slot mentions of the input class mention
+	 */
+	public synchronized List<CCPComplexSlotMention> getComplexSlotMentions(CCPClassMention ccpCM) {
+		return Collections.unmodifiableList(SlotMentionIndex.<CCPComplexSlotMention> getFSs(ccpCM,
+				getSlots(ccpCM).complexSlots));
+	}
+
+	private synchronized void update(CCPClassMention ccpCM) {
+		if (addressToSlotsMap.containsKey(ccpCM.getAddress())) {
+			addressToSlotsMap.put(ccpCM.getAddress(), new MentionSlots(ccpCM));
+		}
+	}
+
+	/**
+	 * @param ccpCM
+	 * @return the index entry for the input class mention, creating it if it does not exist or is
+	 *         out of date
+	 */
+	private MentionSlots getSlots(CCPClassMention ccpCM) {
+		if (resetTracker.checkReset(ccpCM.getCAS())) {
+			addressToSlotsMap.clear();
+		}
+		MentionSlots slots = addressToSlotsMap.get(ccpCM.getAddress());
+		if (slots == null || !slots.isCurrent(ccpCM)) {
+			slots = new MentionSlots(ccpCM);
+			addressToSlotsMap.put(ccpCM.getAddress(), slots);
+		}
+		return slots;
+	}
+
+	private static <T extends CCPSlotMention> T getFirst(CCPClassMention ccpCM, List<Integer> addresses,
+			Class<T> slotType) {
+		if (addresses != null) {
+			for (Integer address : addresses) {
+				CCPSlotMention slotMention = getFS(ccpCM, address);
+				if (slotType.isInstance(slotMention)) {
+					return slotType.cast(slotMention);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the feature structure at the input address in the CAS of the input class mention
+	 */
+	private static <T extends FeatureStructure> T getFS(CCPClassMention ccpCM, int address) {
+		return ccpCM.getCAS().getLowLevelCAS().ll_getFSForRef(address);
+	}
+
+	private static <T extends FeatureStructure> List<T> getFSs(CCPClassMention ccpCM, List<Integer> addresses) {
+		List<T> featureStructures = new ArrayList<T>(addresses.size());
+		for (Integer address : addresses) {
+			featureStructures.add(SlotMentionIndex.<T> getFS(ccpCM, address));
+		}
+		return featureStructures;
+	}
+
+	/**
+	 * The indexed slots of a single class mention. Slot mentions are recorded by address: the index
+	 * is held in a weak map keyed by the CAS, and JCas cover objects, which refer to their CAS,
+	 * would keep the CAS from ever being collected.
+	 */
+	private static class MentionSlots {
+		/**
+		 * The address of the slotMentions FSArray the slots were indexed from, used to detect a
+		 * replaced FSArray. Addresses are not reused until the CAS is reset, and all entries are
+		 * discarded on a reset, so comparing addresses is sufficient.
+		 */
+		private final int slotMentionsArrayAddress;
+
+		private final Map<String, List<Integer>> slotsByName = new LinkedHashMap<String, List<Integer>>();
+		private final List<Integer> primitiveSlots = new ArrayList<Integer>();
+		private final List<Integer> complexSlots = new ArrayList<Integer>();
+
+		public MentionSlots(CCPClassMention ccpCM) {
+			FSArray slotMentionsArray = ccpCM.getSlotMentions();
+			this.slotMentionsArrayAddress = getAddress(slotMentionsArray);
+			if (slotMentionsArray != null) {
+				for (int i = 0; i < slotMentionsArray.size(); i++) {
+					FeatureStructure fs = slotMentionsArray.get(i);
+					if (fs instanceof CCPSlotMention) {
+						CCPSlotMention ccpSM = (CCPSlotMention) fs;
+						List<Integer> addresses = slotsByName.get(ccpSM.getMentionName());
+						if (addresses == null) {
+							addresses = new ArrayList<Integer>(1);
+							slotsByName.put(ccpSM.getMentionName(), addresses);
+						}
+						addresses.add(ccpSM.getAddress());
+						if (ccpSM instanceof CCPPrimitiveSlotMention) {
+							primitiveSlots.add(ccpSM.getAddress());
+						} else if (ccpSM instanceof CCPComplexSlotMention) {
+							complexSlots.add(ccpSM.getAddress());
+						}
+					} else if (fs != null) {
+						logger.error("Expecting CCPSlotMention but got a : " + fs.getClass().getName());
+					}
+				}
+			}
+		}
+
+		public boolean isCurrent(CCPClassMention ccpCM) {
+			return slotMentionsArrayAddress == getAddress(ccpCM.getSlotMentions());
+		}
+
+		private static int getAddress(FSArray fsArray) {
+			return (fsArray == null) ? 0 : fsArray.getAddress();
+		}
+	}
+
+}
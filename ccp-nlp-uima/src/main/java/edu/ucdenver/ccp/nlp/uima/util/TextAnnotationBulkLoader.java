@@ -0,0 +1,350 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.KnowledgeRepresentationWrapperException;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPPrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.uima.mention.impl.CCPPrimitiveSlotMentionFactory;
+
+/**
+ * Converts a collection of {@link TextAnnotation} objects into {@link CCPTextAnnotation} feature
+ * structures in a single pass. This is a faster alternative to
+ * {@link UIMA_Util#putTextAnnotationsIntoJCas(JCas, Collection)} for annotation-heavy documents:
+ * <ul>
+ * <li>duplicate annotations are detected using a key computed from the structural hash code and
+ * equality of the annotation (see {@link TextAnnotation#hashCode()}) together with its
+ * identifier, annotator, annotation sets, comment and covered text, instead of comparing
+ * single-line String representations</li>
+ * <li>the input annotations are sorted by span before conversion so that feature structures are
+ * allocated, and added to the index, in the order of the annotation index</li>
+ * <li>annotators and annotation sets are shared per CAS via the
+ * {@link AnnotationProvenanceRegistry}</li>
+ * <li>class mentions are tracked by identity, so mention structures that refer back to themselves
+ * through complex slot mentions (e.g. coreference chains) are converted exactly once</li>
+ * <li>the converted annotations are added to the CAS indexes once all of them have been created</li>
+ * </ul>
+ * Annotations that are reachable only as complex slot fillers are converted and indexed as well.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class TextAnnotationBulkLoader {
+
+	private static final Logger logger = Logger.getLogger(TextAnnotationBulkLoader.class);
+
+	/**
+	 * Orders annotations the way the UIMA annotation index does: by ascending start offset, then by
+	 * descending end offset. Spanless annotations are treated as [0..0], consistent with
+	 * {@link UIMA_Util#swapAnnotationInfo(TextAnnotation, CCPTextAnnotation, JCas)}.
+	 */
+	private static final Comparator<TextAnnotation> INDEX_ORDER = new Comparator<TextAnnotation>() {
+		public int compare(TextAnnotation ta1, TextAnnotation ta2) {
+			return compareOffsets(getStart(ta1), getEnd(ta1), getStart(ta2), getEnd(ta2));
+		}
+	};
+
+	private static final Comparator<CCPTextAnnotation> CCP_INDEX_ORDER = new Comparator<CCPTextAnnotation>() {
+		public int compare(CCPTextAnnotation ccpTA1, CCPTextAnnotation ccpTA2) {
+			return compareOffsets(ccpTA1.getBegin(), ccpTA1.getEnd(), ccpTA2.getBegin(), ccpTA2.getEnd());
+		}
+	};
+
+	private final JCas jcas;
+
+	/**
+	 * The converted annotations, keyed by the structure of the annotation they were created from
+	 */
+	private final Map<AnnotationKey, CCPTextAnnotation> createdAnnotations = new HashMap<AnnotationKey, CCPTextAnnotation>();
+
+	/**
+	 * The converted class mentions, keyed by the identity of the class mention they were created
+	 * from
+	 */
+	private final Map<ClassMention, CCPClassMention> createdMentions = new IdentityHashMap<ClassMention, CCPClassMention>();
+
+	/**
+	 * The converted annotations in creation order; these are added to the CAS indexes at the end
+	 */
+	private final List<CCPTextAnnotation> annotationsToIndex = new ArrayList<CCPTextAnnotation>();
+
+	private TextAnnotationBulkLoader(JCas jcas) {
+		this.jcas = jcas;
+	}
+
+	/**
+	 * Converts the input {@link TextAnnotation} objects into {@link CCPTextAnnotation} feature
+	 * structures and adds them to the CAS indexes. Duplicate annotations are added only once.
+	 * 
+	 * @param jcas
+	 * @param textAnnotations
+	 * @return the {@link CCPTextAnnotation} instances that were added to the CAS indexes, including
+	 *         those created for annotations referenced by complex slot mentions, in index order
+	 */
+	public static List<CCPTextAnnotation> putTextAnnotationsIntoJCas(JCas jcas,
+			Collection<? extends TextAnnotation> textAnnotations) {
+		TextAnnotationBulkLoader loader = new TextAnnotationBulkLoader(jcas);
+		List<TextAnnotation> sortedAnnotations = new ArrayList<TextAnnotation>(textAnnotations);
+		Collections.sort(sortedAnnotations, INDEX_ORDER);
+		for (TextAnnotation ta : sortedAnnotations) {
+			loader.createAnnotation(ta, null);
+		}
+		return loader.index();
+	}
+
+	/**
+	 * Adds all converted annotations to the CAS indexes in index order. Annotations created for
+	 * complex slot fillers are interleaved with the top-level annotations, so the creation order is
+	 * nearly sorted already.
+	 * 
+	 * @return the indexed annotations
+	 */
+	private List<CCPTextAnnotation> index() {
+		Collections.sort(annotationsToIndex, CCP_INDEX_ORDER);
+		for (CCPTextAnnotation ccpTA : annotationsToIndex) {
+			ccpTA.addToIndexes();
+		}
+		return annotationsToIndex;
+	}
+
+	/**
+	 * @param ta
+	 * @param ccpClassMention
+	 *            the already converted class mention of the annotation, or null if the class
+	 *            mention should be converted as well
+	 * @return the {@link CCPTextAnnotation} for the input annotation; if an identical annotation
+	 *         has already been converted, the previously created instance is returned unchanged
+	 */
+	private CCPTextAnnotation createAnnotation(TextAnnotation ta, CCPClassMention ccpClassMention) {
+		AnnotationKey key = new AnnotationKey(ta);
+		CCPTextAnnotation ccpTA = createdAnnotations.get(key);
+		if (ccpTA != null) {
+			return ccpTA;
+		}
+
+		ccpTA = new CCPTextAnnotation(jcas);
+		UIMA_Util.swapAnnotationInfo(ta, ccpTA, jcas);
+		String comment = ta.getAnnotationComment();
+		if (comment != null) {
+			UIMA_Annotation_Util.addAnnotationCommentProperty(ccpTA, comment, jcas);
+		}
+		createdAnnotations.put(key, ccpTA);
+		annotationsToIndex.add(ccpTA);
+
+		if (ccpClassMention == null) {
+			ccpClassMention = createClassMention(ta.getClassMention());
+		}
+		if (ccpClassMention == null) {
+			logger.warn("Annotation has no class mention: " + ta.getAggregateSpan());
+		} else {
+			ccpClassMention.setCcpTextAnnotation(ccpTA);
+			ccpTA.setClassMention(ccpClassMention);
+		}
+		return ccpTA;
+	}
+
+	/**
+	 * @param classMention
+	 * @return the {@link CCPClassMention} for the input class mention, creating it (and the
+	 *         annotation it belongs to) if it has not been converted already
+	 */
+	private CCPClassMention createClassMention(ClassMention classMention) {
+		if (classMention == null) {
+			return null;
+		}
+		CCPClassMention ccpCM = createdMentions.get(classMention);
+		if (ccpCM != null) {
+			return ccpCM;
+		}
+
+		/*
+		 * an identical annotation may already have been converted from a different object; if so,
+		 * share its class mention
+		 */
+		TextAnnotation ta = classMention.getTextAnnotation();
+		if (ta != null) {
+			CCPTextAnnotation existingCcpTA = createdAnnotations.get(new AnnotationKey(ta));
+			if (existingCcpTA != null && existingCcpTA.getClassMention() != null) {
+				ccpCM = existingCcpTA.getClassMention();
+				createdMentions.put(classMention, ccpCM);
+				return ccpCM;
+			}
+		}
+
+		ccpCM = new CCPClassMention(jcas);
+		ccpCM.setMentionName(classMention.getMentionName());
+		/* register before descending into the slots so that cycles resolve to this mention */
+		createdMentions.put(classMention, ccpCM);
+
+		List<FeatureStructure> slotMentions = new ArrayList<FeatureStructure>();
+		for (ComplexSlotMention csm : classMention.getComplexSlotMentions()) {
+			CCPComplexSlotMention ccpCSM = createComplexSlotMention(csm);
+			if (ccpCSM != null) {
+				slotMentions.add(ccpCSM);
+			}
+		}
+		try {
+			for (PrimitiveSlotMention psm : classMention.getPrimitiveSlotMentions()) {
+				CCPPrimitiveSlotMention ccpPSM = CCPPrimitiveSlotMentionFactory.createCCPPrimitiveSlotMention(
+						psm.getMentionName(), psm.getSlotValues(), jcas);
+				if (ccpPSM != null) {
+					slotMentions.add(ccpPSM);
+				}
+			}
+		} catch (KnowledgeRepresentationWrapperException e) {
+			logger.error("Unable to convert primitive slot mentions for class mention: "
+					+ classMention.getMentionName(), e);
+		}
+		ccpCM.setSlotMentions(toFSArray(slotMentions));
+
+		if (ta != null) {
+			CCPTextAnnotation ccpTA = createAnnotation(ta, ccpCM);
+			if (ccpCM.getCcpTextAnnotation() == null) {
+				ccpCM.setCcpTextAnnotation(ccpTA);
+			}
+		}
+		return ccpCM;
+	}
+
+	/**
+	 * @param complexSlotMention
+	 * @return the {@link CCPComplexSlotMention} for the input slot mention, or null if it has no
+	 *         slot fillers
+	 */
+	private CCPComplexSlotMention createComplexSlotMention(ComplexSlotMention complexSlotMention) {
+		Collection<ClassMention> classMentions = complexSlotMention.getClassMentions();
+		if (classMentions.size() == 0) {
+			return null;
+		}
+		CCPComplexSlotMention ccpCSM = new CCPComplexSlotMention(jcas);
+		ccpCSM.setMentionName(complexSlotMention.getMentionName());
+		List<FeatureStructure> ccpClassMentions = new ArrayList<FeatureStructure>(classMentions.size());
+		for (ClassMention cm : classMentions) {
+			ccpClassMentions.add(createClassMention(cm));
+		}
+		ccpCSM.setClassMentions(toFSArray(ccpClassMentions));
+		return ccpCSM;
+	}
+
+	private FSArray toFSArray(List<FeatureStructure> featureStructures) {
+		FSArray fsArray = new FSArray(jcas, featureStructures.size());
+		fsArray.copyFromArray(featureStructures.toArray(new FeatureStructure[featureStructures.size()]), 0, 0,
+				featureStructures.size());
+		return fsArray;
+	}
+
+	private static int getStart(TextAnnotation ta) {
+		return (ta.getSpans().isEmpty()) ? 0 : ta.getAnnotationSpanStart();
+	}
+
+	private static int getEnd(TextAnnotation ta) {
+		return (ta.getSpans().isEmpty()) ? 0 : ta.getAnnotationSpanEnd();
+	}
+
+	private static int compareOffsets(int start1, int end1, int start2, int end2) {
+		if (start1 != start2) {
+			return (start1 < start2) ? -1 : 1;
+		}
+		if (end1 != end2) {
+			return (end1 > end2) ? -1 : 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Identifies duplicate annotations by their structure: span offsets, document identifiers and
+	 * class mention structure (as compared by {@link TextAnnotation#equals(Object)}) as well as the
+	 * annotation identifier, annotator, annotation sets, comment, covered text and document section.
+	 * These are the fields that make up the single-line representation previously used to detect
+	 * duplicates.
+	 */
+	private static final class AnnotationKey {
+		private final TextAnnotation ta;
+		private final int hash;
+
+		public AnnotationKey(TextAnnotation ta) {
+			this.ta = ta;
+			this.hash = 31 * ta.hashCode() + ta.getAnnotationID();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof AnnotationKey)) {
+				return false;
+			}
+			AnnotationKey key = (AnnotationKey) obj;
+			if (ta == key.ta) {
+				return true;
+			}
+			TextAnnotation ta2 = key.ta;
+			return hash == key.hash && ta.getAnnotationID() == ta2.getAnnotationID()
+					&& ta.getDocumentSectionID() == ta2.getDocumentSectionID()
+					&& equal(ta.getAnnotator(), ta2.getAnnotator())
+					&& equal(ta.getAnnotationSets(), ta2.getAnnotationSets())
+					&& equal(ta.getAnnotationComment(), ta2.getAnnotationComment())
+					&& equal(ta.getCoveredText(), ta2.getCoveredText()) && ta.equals(ta2);
+		}
+
+		private static boolean equal(Object o1, Object o2) {
+			return (o1 == null) ? o2 == null : o1.equals(o2);
+		}
+	}
+
+}
@@ -104,15 +104,9 @@ public class UIMA_Annotation_Util {
 		ccpSpans.set(0, ccpSpan);
 		ccpTA.setSpans(ccpSpans);
 		/* set annotator and annotation set */
-		CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
-		ccpAnnotator.setAffiliation("N/A");
-		ccpAnnotator.setFirstName("Default Annotator");
-		ccpAnnotator.setAnnotatorID(-1);
-		ccpAnnotator.setLastName("Default Annotator");
-		CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-		ccpAnnotationSet.setAnnotationSetID(-1);
-		ccpAnnotationSet.setAnnotationSetName("Default Set");
-		ccpAnnotationSet.setAnnotationSetDescription("");
+		CCPAnnotator ccpAnnotator = AnnotationProvenanceRegistry.getAnnotator(jcas, -1, "Default Annotator",
+				"Default Annotator", "N/A");
+		CCPAnnotationSet ccpAnnotationSet = AnnotationProvenanceRegistry.getAnnotationSet(jcas, -1, "Default Set", "");
 		ccpTA.setAnnotator(ccpAnnotator);
 		FSArray asets = new FSArray(jcas, 1);
 		asets.set(0, ccpAnnotationSet);
@@ -322,6 +316,7 @@ public class UIMA_Annotation_Util {
 			}
 			ccpTA.setBegin(aggregateSpanStart);
 			ccpTA.setEnd(aggregateSpanEnd);
+			AnnotationSpanIndex.invalidate(ccpTA);
 		} else {
 			throw new KnowledgeRepresentationWrapperException(
 					"Cannot update aggregate span, the CCPTextAnnotation has no span list.");
@@ -344,11 +339,13 @@ public class UIMA_Annotation_Util {
 		ccpTA.setSpans(new FSArray(jcas, 0));
 		ccpTA.setBegin(-1);
 		ccpTA.setEnd(-1);
+		AnnotationSpanIndex.invalidate(ccpTA);
 	}
 
 	public static void setAggregateSpanStart(CCPTextAnnotation ccpTA, int spanStart, JCas jcas)
 			throws KnowledgeRepresentationWrapperException, InvalidSpanException {
 		ccpTA.setBegin(spanStart);
+		AnnotationSpanIndex.invalidate(ccpTA);
 		CCPSpan leadingSpan = getLeadingSpan(ccpTA);
 		if (spanStart < leadingSpan.getSpanEnd()) {
 			leadingSpan.setSpanStart(spanStart);
@@ -361,6 +358,7 @@ public class UIMA_Annotation_Util {
 	public static void setAggregateSpanEnd(CCPTextAnnotation ccpTA, int spanEnd, JCas jcas)
 			throws KnowledgeRepresentationWrapperException, InvalidSpanException {
 		ccpTA.setEnd(spanEnd);
+		AnnotationSpanIndex.invalidate(ccpTA);
 		CCPSpan trailingSpan = getTrailingSpan(ccpTA);
 		if (spanEnd > trailingSpan.getSpanStart()) {
 			trailingSpan.setSpanEnd(spanEnd);
@@ -521,9 +519,7 @@ public class UIMA_Annotation_Util {
 		FSArray updatedAnnotationSets = new FSArray(jcas, annotationSets.size());
 		int index = 0;
 		for (AnnotationSet aSet : annotationSets) {
-			CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-			UIMA_Util.swapAnnotationSetInfo(aSet, ccpAnnotationSet);
-			updatedAnnotationSets.set(index++, ccpAnnotationSet);
+			updatedAnnotationSets.set(index++, AnnotationProvenanceRegistry.getAnnotationSet(jcas, aSet));
 		}
 		ccpTA.setAnnotationSets(updatedAnnotationSets);
 	}
@@ -541,9 +537,7 @@ public class UIMA_Annotation_Util {
 	 * @param jcas
 	 */
 	public static void setAnnotator(CCPTextAnnotation ccpTA, Annotator annotator, JCas jcas) {
-		CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
-		UIMA_Util.swapAnnotatorInfo(annotator, ccpAnnotator);
-		ccpTA.setAnnotator(ccpAnnotator);
+		ccpTA.setAnnotator(AnnotationProvenanceRegistry.getAnnotator(jcas, annotator));
 	}
 
 	/**
@@ -714,6 +708,7 @@ public class UIMA_Annotation_Util {
 								+ annotation.getBegin() + "  Start index after removal: ");
 			}
 			annotation.setBegin(matcher.end(1));
+			AnnotationSpanIndex.invalidate(annotation);
 			if (DEBUG) {
 				System.out.println(annotation.getBegin());
 			}
@@ -727,6 +722,7 @@ public class UIMA_Annotation_Util {
 								+ annotation.getEnd() + "  End index after removal: ");
 			}
 			annotation.setEnd(matcher.start(1));
+			AnnotationSpanIndex.invalidate(annotation);
 			if (DEBUG) {
 				System.out.println(annotation.getEnd());
 			}
@@ -1044,15 +1040,9 @@ public class UIMA_Annotation_Util {
 		ccpSpans.set(0, ccpSpan);
 		ccpTA.setSpans(ccpSpans);
 		/* set annotator and annotation set */
-		CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
-		ccpAnnotator.setAffiliation("N/A");
-		ccpAnnotator.setFirstName("Default Annotator");
-		ccpAnnotator.setAnnotatorID(-1);
-		ccpAnnotator.setLastName("Default Annotator");
-		CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-		ccpAnnotationSet.setAnnotationSetID(-1);
-		ccpAnnotationSet.setAnnotationSetName("Default Set");
-		ccpAnnotationSet.setAnnotationSetDescription("");
+		CCPAnnotator ccpAnnotator = AnnotationProvenanceRegistry.getAnnotator(jcas, -1, "Default Annotator",
+				"Default Annotator", "N/A");
+		CCPAnnotationSet ccpAnnotationSet = AnnotationProvenanceRegistry.getAnnotationSet(jcas, -1, "Default Set", "");
 		ccpTA.setAnnotator(ccpAnnotator);
 		FSArray asets = new FSArray(jcas, 1);
 		asets.set(0, ccpAnnotationSet);
@@ -455,14 +455,10 @@ public class UIMA_Util {
 		FSArray ccpAnnotationSets = new FSArray(jcas, annotationSets.size());
 		int index = 0;
 		for (AnnotationSet aSet : annotationSets) {
-			CCPAnnotationSet ccpAnnotationSet = new CCPAnnotationSet(jcas);
-			UIMA_Util.swapAnnotationSetInfo(aSet, ccpAnnotationSet);
-			ccpAnnotationSets.set(index++, ccpAnnotationSet);
+			ccpAnnotationSets.set(index++, AnnotationProvenanceRegistry.getAnnotationSet(jcas, aSet));
 		}
 		toUIMA.setAnnotationSets(ccpAnnotationSets);
-		CCPAnnotator ccpAnnotator = new CCPAnnotator(jcas);
-		UIMA_Util.swapAnnotatorInfo(fromTA.getAnnotator(), ccpAnnotator);
-		toUIMA.setAnnotator(ccpAnnotator);
+		toUIMA.setAnnotator(AnnotationProvenanceRegistry.getAnnotator(jcas, fromTA.getAnnotator()));
 
 		/* Swap metadata info */
 		edu.ucdenver.ccp.nlp.core.annotation.metadata.AnnotationMetadata annotationMetadata = fromTA
@@ -478,7 +474,7 @@ public class UIMA_Util {
 		 */
 		int minSpanIndex = Integer.MAX_VALUE;
 		int maxSpanIndex = Integer.MIN_VALUE;
-		ArrayList<Span> spans = (ArrayList<Span>) fromTA.getSpans();
+		List<Span> spans = fromTA.getSpans();
 
 		toUIMA.setNumberOfSpans(spans.size());
 		FSArray supplementarySpans = new FSArray(jcas, spans.size());
@@ -509,6 +505,7 @@ public class UIMA_Util {
 			toUIMA.setBegin(0);
 			toUIMA.setEnd(0);
 		}
+		AnnotationSpanIndex.invalidate(toUIMA);
 
 		// set the DocumentSection ID
 		toUIMA.setDocumentSectionID(fromTA.getDocumentSectionID());
@@ -621,6 +618,7 @@ public class UIMA_Util {
 		// set the default Begin and End fields
 		toUIMA.setBegin(fromUIMA.getBegin());
 		toUIMA.setEnd(fromUIMA.getEnd());
+		AnnotationSpanIndex.invalidate(toUIMA);
 
 		// set the DocumentSection ID
 		toUIMA.setDocumentSectionID(fromUIMA.getDocumentSectionID());
@@ -749,8 +747,22 @@ public class UIMA_Util {
 		}
 	}
 
+	/**
+	 * Copies the annotator information into the input {@link CCPAnnotator}. Every annotation that
+	 * refers to the {@link CCPAnnotator} sees the change. Annotator feature structures returned by
+	 * the {@link AnnotationProvenanceRegistry} are shared by all annotations with the same annotator
+	 * in a CAS; such a feature structure is removed from the registry before it is modified, so it is
+	 * not handed out for its previous annotator information again.
+	 * 
+	 * @param annotator
+	 * @param ccpAnnotator
+	 * @deprecated use {@link #swapAnnotatorInfo(Annotator, CCPTextAnnotation, JCas)} to change the
+	 *             annotator of a single annotation
+	 */
+	@Deprecated
 	public static void swapAnnotatorInfo(Annotator annotator, CCPAnnotator ccpAnnotator) {
 		if (annotator != null) {
+			AnnotationProvenanceRegistry.unregister(ccpAnnotator);
 			ccpAnnotator.setAnnotatorID(annotator.getAnnotatorID().intValue());
 			ccpAnnotator.setFirstName(annotator.getFirstName());
 			ccpAnnotator.setLastName(annotator.getLastName());
@@ -758,6 +770,20 @@ public class UIMA_Util {
 		}
 	}
 
+	/**
+	 * Assigns the shared {@link CCPAnnotator} for the input annotator to the annotation. The
+	 * annotator previously assigned to the annotation is left unchanged.
+	 * 
+	 * @param annotator
+	 * @param ccpTA
+	 * @param jcas
+	 */
+	public static void swapAnnotatorInfo(Annotator annotator, CCPTextAnnotation ccpTA, JCas jcas) {
+		if (annotator != null) {
+			ccpTA.setAnnotator(AnnotationProvenanceRegistry.getAnnotator(jcas, annotator));
+		}
+	}
+
 	public static void swapAnnotationSetInfo(CCPAnnotationSet ccpAnnotationSet, AnnotationSet annotationSet) {
 		if (ccpAnnotationSet != null) {
 			annotationSet.setAnnotationSetID(new Integer(ccpAnnotationSet.getAnnotationSetID()));
@@ -766,14 +792,47 @@ public class UIMA_Util {
 		}
 	}
 
+	/**
+	 * Copies the annotation set information into the input {@link CCPAnnotationSet}. Every
+	 * annotation that refers to the {@link CCPAnnotationSet} sees the change. Annotation set feature
+	 * structures returned by the {@link AnnotationProvenanceRegistry} are shared by all annotations
+	 * with the same annotation set in a CAS; such a feature structure is removed from the registry
+	 * before it is modified, so it is not handed out for its previous annotation set information
+	 * again.
+	 * 
+	 * @param annotationSet
+	 * @param ccpAnnotationSet
+	 * @deprecated use {@link #swapAnnotationSetInfo(AnnotationSet, CCPTextAnnotation, int, JCas)} to
+	 *             change an annotation set of a single annotation
+	 */
+	@Deprecated
 	public static void swapAnnotationSetInfo(AnnotationSet annotationSet, CCPAnnotationSet ccpAnnotationSet) {
 		if (annotationSet != null) {
+			AnnotationProvenanceRegistry.unregister(ccpAnnotationSet);
 			ccpAnnotationSet.setAnnotationSetID(annotationSet.getAnnotationSetID().intValue());
 			ccpAnnotationSet.setAnnotationSetName(annotationSet.getAnnotationSetName());
 			ccpAnnotationSet.setAnnotationSetDescription(annotationSet.getAnnotationSetDescription());
 		}
 	}
 
+	/**
+	 * Assigns the shared {@link CCPAnnotationSet} for the input annotation set to the specified
+	 * position of the annotation sets of the annotation. The annotation set previously at that
+	 * position is left unchanged.
+	 * 
+	 * @param annotationSet
+	 * @param ccpTA
+	 * @param index
+	 *            the position in the annotationSets FSArray of the annotation
+	 * @param jcas
+	 */
+	public static void swapAnnotationSetInfo(AnnotationSet annotationSet, CCPTextAnnotation ccpTA, int index,
+			JCas jcas) {
+		if (annotationSet != null) {
+			ccpTA.getAnnotationSets().set(index, AnnotationProvenanceRegistry.getAnnotationSet(jcas, annotationSet));
+		}
+	}
+
 	public static void swapAnnotationMetadata(
 			edu.ucdenver.ccp.nlp.core.annotation.metadata.AnnotationMetadata annotationMetadata,
 			edu.ucdenver.ccp.nlp.core.uima.annotation.AnnotationMetadata ccpAnnotationMetadata, JCas jcas) {
@@ -801,27 +860,13 @@ public class UIMA_Util {
 				ccpMetadataPropertiesToAdd.add(annotationCommentProp);
 			}
 
-			/* Swap properties here */
+			/*
+			 * Swap properties here -- any properties that already exist are retained, so this could
+			 * cause duplicates
+			 */
 			FSArray metaDataProperties = ccpAnnotationMetadata.getMetadataProperties();
-			int propertiesToAddCount = ccpMetadataPropertiesToAdd.size();
-			if (metaDataProperties == null) {
-				metaDataProperties = new FSArray(jcas, propertiesToAddCount);
-				for (int i = 0; i < ccpMetadataPropertiesToAdd.size(); i++) {
-					metaDataProperties.set(i, ccpMetadataPropertiesToAdd.get(i));
-				}
-				ccpAnnotationMetadata.setMetadataProperties(metaDataProperties);
-			} else {
-				/* add the properties that already exists */
-				FSArray newMetaDataProperties = new FSArray(jcas, metaDataProperties.size() + propertiesToAddCount);
-				for (int i = 0; i < metaDataProperties.size(); i++) {
-					newMetaDataProperties.set(i, metaDataProperties.get(i));
-				}
-				/* now add the properties that are being transferred -- this could cause duplicates */
-				int addIndex = metaDataProperties.size() - 1;
-				for (int i = 0; i < ccpMetadataPropertiesToAdd.size(); i++) {
-					newMetaDataProperties.set(i + addIndex, metaDataProperties.get(i));
-				}
-			}
+			ccpAnnotationMetadata.setMetadataProperties(addToFSArray(metaDataProperties, ccpMetadataPropertiesToAdd,
+					jcas));
 		}
 	}
 
@@ -857,19 +902,20 @@ public class UIMA_Util {
 	}
 
 	public static void addAnnotationSet(CCPTextAnnotation ccpTA, CCPAnnotationSet annotationSet, JCas jcas) {
-		FSArray updatedAnnotationSets = null;
-		FSArray annotationSets = ccpTA.getAnnotationSets();
-		if (annotationSets != null) {
-			updatedAnnotationSets = new FSArray(jcas, annotationSets.size() + 1);
-			for (int i = 0; i < annotationSets.size(); i++) {
-				updatedAnnotationSets.set(i, annotationSets.get(i));
-			}
-		} else {
-			updatedAnnotationSets = new FSArray(jcas, 1);
-		}
+		ccpTA.setAnnotationSets(addToFSArray(ccpTA.getAnnotationSets(), annotationSet, jcas));
+	}
 
-		updatedAnnotationSets.set(updatedAnnotationSets.size() - 1, annotationSet);
-		ccpTA.setAnnotationSets(updatedAnnotationSets);
+	/**
+	 * Adds the input annotation sets to the {@link CCPTextAnnotation} using a single CAS array
+	 * allocation
+	 * 
+	 * @param ccpTA
+	 * @param annotationSets
+	 * @param jcas
+	 */
+	public static void addAnnotationSets(CCPTextAnnotation ccpTA, Collection<CCPAnnotationSet> annotationSets,
+			JCas jcas) {
+		ccpTA.setAnnotationSets(addToFSArray(ccpTA.getAnnotationSets(), annotationSets, jcas));
 	}
 
 	/**
@@ -917,6 +963,15 @@ public class UIMA_Util {
 		}
 	}
 
+	/**
+	 * Converts the input {@link TextAnnotation} objects to {@link CCPTextAnnotation} instances and
+	 * adds them to the CAS indexes, detecting duplicates by comparing their single-line String
+	 * representations. See {@link TextAnnotationBulkLoader} for a faster alternative suited to
+	 * annotation-heavy documents.
+	 * 
+	 * @param jcas
+	 * @param textAnnotations
+	 */
 	public void putTextAnnotationsIntoJCas(JCas jcas, Collection<TextAnnotation> textAnnotations) {
 		HashMap<String, String> alreadyCreatedAnnotations = new HashMap<String, String>();
 		HashMap<String, CCPClassMention> alreadyCreatedMentions = new HashMap<String, CCPClassMention>();
@@ -1117,6 +1172,15 @@ public class UIMA_Util {
 		return getSlotMentionByName(ccpTextAnnotation.getClassMention(), slotMentionName);
 	}
 
+	/**
+	 * Returns the first slot mention of the input class mention with the input name by scanning its
+	 * slot mentions. Code that looks up slots repeatedly should consider the
+	 * {@link SlotMentionIndex} instead.
+	 * 
+	 * @param ccpClassMention
+	 * @param slotMentionName
+	 * @return
+	 */
 	public static CCPSlotMention getSlotMentionByName(CCPClassMention ccpClassMention, String slotMentionName) {
 		FSArray slotMentionsArray = ccpClassMention.getSlotMentions();
 		if (slotMentionsArray != null) {
@@ -1201,14 +1265,12 @@ public class UIMA_Util {
 			updatedSlotMentions.set(i, slotMentionsToKeep.get(i));
 		}
 		ccpCM.setSlotMentions(updatedSlotMentions);
+		SlotMentionIndex.slotMentionsChanged(ccpCM);
 	}
 
 	public static void addSlotMentions(CCPClassMention ccpCM, Collection<CCPSlotMention> slotMentions, JCas jcas) {
-		FSArray updatedSlotMentions = ccpCM.getSlotMentions();
-		for (CCPSlotMention ccpSM : slotMentions) {
-			updatedSlotMentions = addToFSArray(updatedSlotMentions, ccpSM, jcas);
-		}
-		ccpCM.setSlotMentions(updatedSlotMentions);
+		ccpCM.setSlotMentions(addToFSArray(ccpCM.getSlotMentions(), slotMentions, jcas));
+		SlotMentionIndex.slotMentionsChanged(ccpCM);
 	}
 
 	/**
@@ -1315,26 +1377,18 @@ public class UIMA_Util {
 
 	/**
 	 * Returns a new FSArray consisting of the contents of the input FSArray and the Collection of
-	 * FeatureStructure objects
+	 * FeatureStructure objects. The returned array is allocated once, so callers with many feature
+	 * structures to add should collect them and make a single call rather than calling
+	 * {@link #addToFSArray(FSArray, TOP, JCas)} repeatedly. See {@link CasArrayBuilder}.
 	 * 
 	 * @param fsArray
 	 * @param featureStructuresToAdd
 	 * @return
 	 * @throws CASException
 	 */
-	public static FSArray addToFSArray(FSArray fsArray, Collection<TOP> featureStructuresToAdd, JCas jcas) {
-		if (fsArray == null) {
-			fsArray = new FSArray(jcas, 0);
-		}
-		FSArray fsArrayToReturn = new FSArray(jcas, fsArray.size() + featureStructuresToAdd.size());
-		for (int i = 0; i < fsArray.size(); i++) {
-			fsArrayToReturn.set(i, fsArray.get(i));
-		}
-		int index = fsArray.size();
-		for (TOP fs : featureStructuresToAdd) {
-			fsArrayToReturn.set(index++, fs);
-		}
-		return fsArrayToReturn;
+	public static FSArray addToFSArray(FSArray fsArray, Collection<? extends FeatureStructure> featureStructuresToAdd,
+			JCas jcas) {
+		return CasArrayBuilder.forFSArray(fsArray).addAll(featureStructuresToAdd).build(jcas);
 	}
 
 	/**
@@ -1346,75 +1400,48 @@ public class UIMA_Util {
 	 * @return
 	 */
 	public static FSArray addToFSArray(FSArray fsArray, TOP featureStructureToAdd, JCas jcas) {
-		if (fsArray == null) {
-			fsArray = new FSArray(jcas, 0);
-		}
-		FSArray fsArrayToReturn = new FSArray(jcas, fsArray.size() + 1);
-		for (int i = 0; i < fsArray.size(); i++) {
-			fsArrayToReturn.set(i, fsArray.get(i));
-		}
-		fsArrayToReturn.set(fsArray.size(), featureStructureToAdd);
-		return fsArrayToReturn;
+		return CasArrayBuilder.forFSArray(fsArray).add(featureStructureToAdd).build(jcas);
 	}
 
 	public static StringArray addToStringArray(StringArray stringArray, String stringToAdd, JCas jcas) {
-		if (stringArray == null) {
-			stringArray = new StringArray(jcas, 0);
-		}
-		StringArray stringArrayToReturn = new StringArray(jcas, stringArray.size() + 1);
-		for (int i = 0; i < stringArray.size(); i++) {
-			stringArrayToReturn.set(i, stringArray.get(i));
-		}
-		stringArrayToReturn.set(stringArray.size(), stringToAdd);
-		return stringArrayToReturn;
+		return CasArrayBuilder.forStringArray(stringArray).add(stringToAdd).build(jcas);
+	}
+
+	public static StringArray addToStringArray(StringArray stringArray, Collection<String> stringsToAdd, JCas jcas) {
+		return CasArrayBuilder.forStringArray(stringArray).addAll(stringsToAdd).build(jcas);
 	}
 
 	public static IntegerArray addToIntegerArray(IntegerArray integerArray, Integer integerToAdd, JCas jcas) {
-		if (integerArray == null) {
-			integerArray = new IntegerArray(jcas, 0);
-		}
-		IntegerArray integerArrayToReturn = new IntegerArray(jcas, integerArray.size() + 1);
-		for (int i = 0; i < integerArray.size(); i++) {
-			integerArrayToReturn.set(i, integerArray.get(i));
-		}
-		integerArrayToReturn.set(integerArray.size(), integerToAdd);
-		return integerArrayToReturn;
+		return CasArrayBuilder.forIntegerArray(integerArray).add(integerToAdd).build(jcas);
+	}
+
+	public static IntegerArray addToIntegerArray(IntegerArray integerArray, Collection<Integer> integersToAdd,
+			JCas jcas) {
+		return CasArrayBuilder.forIntegerArray(integerArray).addAll(integersToAdd).build(jcas);
 	}
 
 	public static LongArray addToLongArray(LongArray longArray, Long longToAdd, JCas jcas) {
-		if (longArray == null) {
-			longArray = new LongArray(jcas, 0);
-		}
-		LongArray longArrayToReturn = new LongArray(jcas, longArray.size() + 1);
-		for (int i = 0; i < longArray.size(); i++) {
-			longArrayToReturn.set(i, longArray.get(i));
-		}
-		longArrayToReturn.set(longArray.size(), longToAdd);
-		return longArrayToReturn;
+		return CasArrayBuilder.forLongArray(longArray).add(longToAdd).build(jcas);
+	}
+
+	public static LongArray addToLongArray(LongArray longArray, Collection<Long> longsToAdd, JCas jcas) {
+		return CasArrayBuilder.forLongArray(longArray).addAll(longsToAdd).build(jcas);
 	}
 
 	public static FloatArray addToFloatArray(FloatArray floatArray, Float floatToAdd, JCas jcas) {
-		if (floatArray == null) {
-			floatArray = new FloatArray(jcas, 0);
-		}
-		FloatArray floatArrayToReturn = new FloatArray(jcas, floatArray.size() + 1);
-		for (int i = 0; i < floatArray.size(); i++) {
-			floatArrayToReturn.set(i, floatArray.get(i));
-		}
-		floatArrayToReturn.set(floatArray.size(), floatToAdd);
-		return floatArrayToReturn;
+		return CasArrayBuilder.forFloatArray(floatArray).add(floatToAdd).build(jcas);
+	}
+
+	public static FloatArray addToFloatArray(FloatArray floatArray, Collection<Float> floatsToAdd, JCas jcas) {
+		return CasArrayBuilder.forFloatArray(floatArray).addAll(floatsToAdd).build(jcas);
 	}
 
 	public static DoubleArray addToDoubleArray(DoubleArray doubleArray, Double doubleToAdd, JCas jcas) {
-		if (doubleArray == null) {
-			doubleArray = new DoubleArray(jcas, 0);
-		}
-		DoubleArray doubleArrayToReturn = new DoubleArray(jcas, doubleArray.size() + 1);
-		for (int i = 0; i < doubleArray.size(); i++) {
-			doubleArrayToReturn.set(i, doubleArray.get(i));
-		}
-		doubleArrayToReturn.set(doubleArray.size(), doubleToAdd);
-		return doubleArrayToReturn;
+		return CasArrayBuilder.forDoubleArray(doubleArray).add(doubleToAdd).build(jcas);
+	}
+
+	public static DoubleArray addToDoubleArray(DoubleArray doubleArray, Collection<Double> doublesToAdd, JCas jcas) {
+		return CasArrayBuilder.forDoubleArray(doubleArray).addAll(doublesToAdd).build(jcas);
 	}
 
 	public static int indexOf(IntegerArray intArray, Integer intValue) {
@@ -1684,38 +1711,14 @@ public class UIMA_Util {
 
 	private static void addClassMentionAsCSMSlotFiller(CCPComplexSlotMention ccpCSM, CCPClassMention ccpCM)
 			throws CASException {
-		FSArray slotFillerCMs = ccpCSM.getClassMentions();
-		if (slotFillerCMs == null) {
-			slotFillerCMs = new FSArray(ccpCSM.getCAS().getJCas(), 1);
-			slotFillerCMs.set(0, ccpCM);
-			ccpCSM.setClassMentions(slotFillerCMs);
-		} else {
-			FeatureStructure[] featureStructures = slotFillerCMs.toArray();
-			FSArray fsArray = new FSArray(ccpCSM.getCAS().getJCas(), featureStructures.length + 1);
-			for (int i = 0; i < featureStructures.length; i++) {
-				fsArray.set(i, featureStructures[i]);
-			}
-			fsArray.set(fsArray.size() - 1, ccpCM);
-			ccpCSM.setClassMentions(fsArray);
-		}
+		ccpCSM.setClassMentions(addToFSArray(ccpCSM.getClassMentions(), ccpCM, ccpCSM.getCAS().getJCas()));
 	}
 
 	private static void addSlotMention(CCPClassMention ccpClassMention, CCPSlotMention ccpSlotMention)
 			throws CASException {
-		FSArray slotMentions = ccpClassMention.getSlotMentions();
-		if (slotMentions == null) {
-			slotMentions = new FSArray(ccpClassMention.getCAS().getJCas(), 1);
-			slotMentions.set(0, ccpSlotMention);
-		} else {
-			FeatureStructure[] featureStructures = slotMentions.toArray();
-			int index = 0;
-			slotMentions = new FSArray(ccpClassMention.getCAS().getJCas(), featureStructures.length + 1);
-			for (FeatureStructure fs : featureStructures) {
-				slotMentions.set(index++, fs);
-			}
-			slotMentions.set(index, ccpSlotMention);
-		}
-		ccpClassMention.setSlotMentions(slotMentions);
+		ccpClassMention.setSlotMentions(addToFSArray(ccpClassMention.getSlotMentions(), ccpSlotMention,
+				ccpClassMention.getCAS().getJCas()));
+		SlotMentionIndex.slotMentionsChanged(ccpClassMention);
 	}
 
 	/**
@@ -2236,6 +2239,7 @@ public class UIMA_Util {
 		ccpTA.setSpans(ccpSpans);
 		ccpTA.setBegin(spanStart);
 		ccpTA.setEnd(spanEnd);
+		AnnotationSpanIndex.invalidate(ccpTA);
 
 		// /* update class mention to point to this text annotation */
 		// CCPClassMention ccpCM = ccpTA.getClassMention();
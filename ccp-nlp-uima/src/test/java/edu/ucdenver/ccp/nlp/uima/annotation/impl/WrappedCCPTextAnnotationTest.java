@@ -0,0 +1,122 @@
+package edu.ucdenver.ccp.nlp.uima.annotation.impl;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class WrappedCCPTextAnnotationTest extends DefaultUIMATestCase {
+
+	private static final String DOCUMENT_TEXT = "ABC-1 interacts with DEF-2.";
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		jcas.setDocumentText(DOCUMENT_TEXT);
+	}
+
+	@Test
+	public void testSpansAreCached() throws Exception {
+		WrappedCCPTextAnnotation wrappedTA = new WrappedCCPTextAnnotation(addTextAnnotationToJCas(0, 5, "protein"));
+		List<Span> spans = wrappedTA.getSpans();
+		assertSame(spans, wrappedTA.getSpans());
+		assertEquals(Collections.singletonList(new Span(0, 5)), spans);
+		assertEquals(0, wrappedTA.getAnnotationSpanStart());
+		assertEquals(5, wrappedTA.getAnnotationSpanEnd());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedSpansAreReadOnly() throws Exception {
+		WrappedCCPTextAnnotation wrappedTA = new WrappedCCPTextAnnotation(addTextAnnotationToJCas(0, 5, "protein"));
+		wrappedTA.getSpans().add(new Span(6, 15));
+	}
+
+	@Test
+	public void testCacheIsInvalidatedBySpanModification() throws Exception {
+		CCPTextAnnotation ccpTA = addTextAnnotationToJCas(21, 26, "protein");
+		WrappedCCPTextAnnotation wrappedTA = new WrappedCCPTextAnnotation(ccpTA);
+		List<Span> spans = wrappedTA.getSpans();
+
+		wrappedTA.addSpan(new Span(0, 5));
+		assertNotSame(spans, wrappedTA.getSpans());
+		List<Span> expectedSpans = new ArrayList<Span>();
+		expectedSpans.add(new Span(0, 5));
+		expectedSpans.add(new Span(21, 26));
+		assertEquals(expectedSpans, wrappedTA.getSpans());
+		assertEquals(0, wrappedTA.getAnnotationSpanStart());
+		assertEquals(26, wrappedTA.getAnnotationSpanEnd());
+
+		wrappedTA.offsetAnnotationSpans(1);
+		assertEquals(1, wrappedTA.getAnnotationSpanStart());
+		assertEquals(27, wrappedTA.getAnnotationSpanEnd());
+
+		wrappedTA.setSpan(new Span(6, 15));
+		assertEquals(Collections.singletonList(new Span(6, 15)), wrappedTA.getSpans());
+		assertEquals(6, ccpTA.getBegin());
+		assertEquals(15, ccpTA.getEnd());
+	}
+
+	@Test
+	public void testSortBySpan() throws Exception {
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(new WrappedCCPTextAnnotation(addTextAnnotationToJCas(21, 26, "protein")));
+		annotations.add(new WrappedCCPTextAnnotation(addTextAnnotationToJCas(0, 15, "protein")));
+		annotations.add(new WrappedCCPTextAnnotation(addTextAnnotationToJCas(0, 5, "protein")));
+		Collections.sort(annotations, TextAnnotation.BY_SPAN());
+		assertEquals(new Span(0, 5), annotations.get(0).getAggregateSpan());
+		assertEquals(new Span(0, 15), annotations.get(1).getAggregateSpan());
+		assertEquals(new Span(21, 26), annotations.get(2).getAggregateSpan());
+		assertEquals(5, annotations.get(0).length());
+		assertEquals(true, annotations.get(0).overlaps(annotations.get(1)));
+		assertEquals(false, annotations.get(1).overlaps(annotations.get(2)));
+	}
+
+}
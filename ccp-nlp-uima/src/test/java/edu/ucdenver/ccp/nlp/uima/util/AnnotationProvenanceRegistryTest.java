@@ -0,0 +1,185 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotationSet;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotator;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationProvenanceRegistryTest extends DefaultUIMATestCase {
+
+	private static final String DOCUMENT_TEXT = "ABC-1 interacts with DEF-2.";
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		jcas.setDocumentText(DOCUMENT_TEXT);
+	}
+
+	@Test
+	public void testAnnotatorIsShared() {
+		CCPAnnotator annotator = AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last", "affiliation");
+		assertSame(annotator,
+				AnnotationProvenanceRegistry.getAnnotator(jcas, new Annotator(7, "first", "last", "affiliation")));
+		assertEquals("last", annotator.getLastName());
+		assertNotSame(annotator, AnnotationProvenanceRegistry.getAnnotator(jcas, 8, "first", "last", "affiliation"));
+		assertNotSame(annotator, AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last", null));
+	}
+
+	@Test
+	public void testAnnotationSetIsShared() {
+		CCPAnnotationSet set = AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "set", "description");
+		assertSame(set, AnnotationProvenanceRegistry.getAnnotationSet(jcas, new AnnotationSet(3, "set",
+				"description")));
+		assertNotSame(set, AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "set", ""));
+	}
+
+	@Test
+	public void testCreatedAnnotationsShareAnnotatorAndSet() throws Exception {
+		CCPTextAnnotation ccpTA1 = addTextAnnotationToJCas(0, 5, "protein");
+		CCPTextAnnotation ccpTA2 = addTextAnnotationToJCas(21, 26, "protein");
+		assertSame(ccpTA1.getAnnotator(), ccpTA2.getAnnotator());
+		assertSame(ccpTA1.getAnnotationSets().get(0), ccpTA2.getAnnotationSets().get(0));
+
+		ByteArrayOutputStream xmi = new ByteArrayOutputStream();
+		XmiCasSerializer.serialize(jcas.getCas(), xmi);
+		String xmiStr = xmi.toString("UTF-8");
+		assertEquals(1, countOccurrences(xmiStr, "<annotation:CCPAnnotator "));
+		assertEquals(1, countOccurrences(xmiStr, "<annotation:CCPAnnotationSet "));
+	}
+
+	@Test
+	public void testRegistryIsClearedOnReset() {
+		CCPAnnotator annotator = AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last", "affiliation");
+		jcas.reset();
+		jcas.setDocumentText(DOCUMENT_TEXT);
+		/* allocate a feature structure at the address previously occupied by the annotator */
+		new CCPTextAnnotation(jcas);
+		CCPAnnotator annotatorAfterReset = AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last",
+				"affiliation");
+		assertNotSame(annotator, annotatorAfterReset);
+		assertFalse(annotator.getAddress() == annotatorAfterReset.getAddress());
+		assertEquals(7, annotatorAfterReset.getAnnotatorID());
+	}
+
+	@Test
+	public void testRegistryIsClearedOnResetWhenHeapHasGrown() {
+		CCPAnnotationSet set = AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "set", "description");
+		jcas.reset();
+		jcas.setDocumentText(new String(DOCUMENT_TEXT));
+		/* fill the heap beyond the point it had reached before the reset */
+		for (int i = 0; i < 100; i++) {
+			new CCPTextAnnotation(jcas);
+		}
+		CCPAnnotationSet setAfterReset = AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "set", "description");
+		assertNotSame(set, setAfterReset);
+		assertEquals("set", setAfterReset.getAnnotationSetName());
+		assertSame(setAfterReset, AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "set", "description"));
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testModifiedSharedAnnotatorIsUnregistered() {
+		CCPAnnotator annotator = AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last", "affiliation");
+		assertTrue(AnnotationProvenanceRegistry.isShared(annotator));
+		UIMA_Util.swapAnnotatorInfo(new Annotator(8, "other", "other", "other"), annotator);
+		assertEquals(8, annotator.getAnnotatorID());
+		assertFalse(AnnotationProvenanceRegistry.isShared(annotator));
+
+		CCPAnnotator original = AnnotationProvenanceRegistry.getAnnotator(jcas, 7, "first", "last", "affiliation");
+		assertNotSame(annotator, original);
+		assertEquals(7, original.getAnnotatorID());
+		assertEquals("first", original.getFirstName());
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testModifiedSharedAnnotationSetIsUnregistered() {
+		CCPAnnotationSet set = AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "name", "description");
+		assertTrue(AnnotationProvenanceRegistry.isShared(set));
+		UIMA_Util.swapAnnotationSetInfo(new AnnotationSet(4, "other", "other"), set);
+		assertEquals(4, set.getAnnotationSetID());
+		assertFalse(AnnotationProvenanceRegistry.isShared(set));
+
+		CCPAnnotationSet original = AnnotationProvenanceRegistry.getAnnotationSet(jcas, 3, "name", "description");
+		assertNotSame(set, original);
+		assertEquals(3, original.getAnnotationSetID());
+	}
+
+	@Test
+	public void testSwapAssignsSharedProvenanceToASingleAnnotation() throws Exception {
+		CCPTextAnnotation ccpTA1 = addTextAnnotationToJCas(0, 5, "protein");
+		CCPTextAnnotation ccpTA2 = addTextAnnotationToJCas(21, 26, "protein");
+		CCPAnnotator annotator = ccpTA1.getAnnotator();
+		CCPAnnotationSet set = (CCPAnnotationSet) ccpTA1.getAnnotationSets().get(0);
+
+		UIMA_Util.swapAnnotatorInfo(new Annotator(8, "other", "other", "other"), ccpTA2, jcas);
+		UIMA_Util.swapAnnotationSetInfo(new AnnotationSet(4, "other", "other"), ccpTA2, 0, jcas);
+
+		assertEquals(8, ccpTA2.getAnnotator().getAnnotatorID());
+		assertEquals(4, ((CCPAnnotationSet) ccpTA2.getAnnotationSets().get(0)).getAnnotationSetID());
+		assertSame("The other annotation should keep its annotator", annotator, ccpTA1.getAnnotator());
+		assertFalse(annotator.getAnnotatorID() == 8);
+		assertSame(set, ccpTA1.getAnnotationSets().get(0));
+		assertFalse(set.getAnnotationSetID() == 4);
+	}
+
+	private static int countOccurrences(String str, String substring) {
+		int count = 0;
+		for (int index = str.indexOf(substring); index >= 0; index = str.indexOf(substring, index + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,271 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * Compares the results returned by the {@link AnnotationSpanIndex} against a linear scan of the
+ * annotation index
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class AnnotationSpanIndexTest extends DefaultUIMATestCase {
+
+	private static final int DOCUMENT_LENGTH = 500;
+
+	private final Random random = new Random(42);
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < DOCUMENT_LENGTH; i++) {
+			sb.append('a');
+		}
+		jcas.setDocumentText(sb.toString());
+		for (int i = 0; i < 400; i++) {
+			int begin = random.nextInt(DOCUMENT_LENGTH);
+			int end = Math.min(DOCUMENT_LENGTH, begin + random.nextInt(40));
+			addTextAnnotationToJCas(begin, end, (i % 2 == 0) ? ClassMentionType.GENE.typeName()
+					: ClassMentionType.SENTENCE.typeName());
+		}
+	}
+
+	private enum Query {
+		WITHIN, OVERLAPPING, ENCOMPASSING, SAME_START, PRECEDING;
+
+		boolean matches(Annotation annot, int spanStart, int spanEnd) {
+			int begin = annot.getBegin();
+			int end = annot.getEnd();
+			switch (this) {
+			case WITHIN:
+				return begin >= spanStart && end <= spanEnd;
+			case OVERLAPPING:
+				return (begin <= spanStart && end > spanStart) || (begin < spanEnd && end >= spanEnd)
+						|| (begin >= spanStart && end <= spanEnd);
+			case ENCOMPASSING:
+				return begin <= spanStart && end >= spanEnd;
+			case SAME_START:
+				return begin == spanStart;
+			case PRECEDING:
+				return end < spanStart;
+			default:
+				throw new IllegalStateException("Unhandled query: " + this.name());
+			}
+		}
+
+		Iterator<Annotation> query(AnnotationSpanIndex index, Span span, JCas jcas) {
+			Type type = jcas.getCasType(CCPTextAnnotation.type);
+			switch (this) {
+			case WITHIN:
+				return index.getAnnotationsWithinSpan(span, jcas, type);
+			case OVERLAPPING:
+				return index.getOverlappingAnnotations(span, jcas, type);
+			case ENCOMPASSING:
+				return index.getAnnotationsEncompassingSpan(span, jcas, type);
+			case SAME_START:
+				return index.getAnnotationsWithSameStart(span.getSpanStart(), jcas, type);
+			case PRECEDING:
+				return index.getPrecedingAnnotations(span.getSpanStart(), jcas, type);
+			default:
+				throw new IllegalStateException("Unhandled query: " + this.name());
+			}
+		}
+	}
+
+	private List<Integer> getExpectedAddresses(Query query, int spanStart, int spanEnd) {
+		List<Integer> addresses = new ArrayList<Integer>();
+		for (FSIterator<Annotation> annotIter = jcas.getAnnotationIndex(CCPTextAnnotation.type).iterator(); annotIter
+				.hasNext();) {
+			Annotation annot = annotIter.next();
+			if (query.matches(annot, spanStart, spanEnd)) {
+				addresses.add(annot.getAddress());
+			}
+		}
+		return addresses;
+	}
+
+	private static List<Integer> getAddresses(Iterator<Annotation> annotIter) {
+		List<Integer> addresses = new ArrayList<Integer>();
+		while (annotIter.hasNext()) {
+			addresses.add(annotIter.next().getAddress());
+		}
+		return addresses;
+	}
+
+	private void checkAllQueries() {
+		AnnotationSpanIndex index = AnnotationSpanIndex.getIndex(jcas);
+		for (int i = 0; i < 200; i++) {
+			int spanStart = random.nextInt(DOCUMENT_LENGTH);
+			int spanEnd = Math.min(DOCUMENT_LENGTH, spanStart + random.nextInt(60));
+			Span span = new Span(spanStart, spanEnd);
+			for (Query query : Query.values()) {
+				assertEquals(String.format("%s query results differ for span [%d..%d]", query.name(), spanStart,
+						spanEnd), getExpectedAddresses(query, spanStart, spanEnd),
+						getAddresses(query.query(index, span, jcas)));
+			}
+		}
+	}
+
+	@Test
+	public void testQueriesMatchLinearScan() {
+		checkAllQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterAnnotationsAreAdded() {
+		checkAllQueries();
+		for (int i = 0; i < 50; i++) {
+			int begin = random.nextInt(DOCUMENT_LENGTH);
+			addSentenceAnnotationToJCas(begin, Math.min(DOCUMENT_LENGTH, begin + random.nextInt(20)));
+		}
+		checkAllQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterAnnotationsAreRemoved() {
+		checkAllQueries();
+		List<Annotation> annotationsToRemove = new ArrayList<Annotation>();
+		int count = 0;
+		for (FSIterator<Annotation> annotIter = jcas.getAnnotationIndex(CCPTextAnnotation.type).iterator(); annotIter
+				.hasNext();) {
+			Annotation annot = annotIter.next();
+			if (count++ % 3 == 0) {
+				annotationsToRemove.add(annot);
+			}
+		}
+		for (Annotation annot : annotationsToRemove) {
+			annot.removeFromIndexes();
+		}
+		checkAllQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterMovedAnnotationIsInvalidated() {
+		checkAllQueries();
+		List<Annotation> annotationsToMove = new ArrayList<Annotation>();
+		int count = 0;
+		for (FSIterator<Annotation> annotIter = jcas.getAnnotationIndex(CCPTextAnnotation.type).iterator(); annotIter
+				.hasNext();) {
+			Annotation annot = annotIter.next();
+			if (count++ % 5 == 0) {
+				annotationsToMove.add(annot);
+			}
+		}
+		for (Annotation annot : annotationsToMove) {
+			annot.removeFromIndexes();
+			int begin = random.nextInt(DOCUMENT_LENGTH);
+			annot.setBegin(begin);
+			annot.setEnd(Math.min(DOCUMENT_LENGTH, begin + random.nextInt(40)));
+			annot.addToIndexes();
+			/* the number of annotations is unchanged, so the move must be reported */
+			AnnotationSpanIndex.invalidate(annot);
+		}
+		checkAllQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterSpanIsUpdatedInPlace() throws Exception {
+		checkAllQueries();
+		for (FSIterator<Annotation> annotIter = jcas.getAnnotationIndex(CCPTextAnnotation.type).iterator(); annotIter
+				.hasNext();) {
+			CCPTextAnnotation ccpTA = (CCPTextAnnotation) annotIter.next();
+			if (ccpTA.getEnd() - ccpTA.getBegin() > 2) {
+				UIMA_Annotation_Util.setAggregateSpanStart(ccpTA, ccpTA.getBegin() + 1, jcas);
+				break;
+			}
+		}
+		checkAllQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterAnnotationIsReplaced() {
+		checkAllQueries();
+		/* the number of annotations is unchanged, and nothing is reported to the index */
+		jcas.getAnnotationIndex(CCPTextAnnotation.type).iterator().next().removeFromIndexes();
+		addTextAnnotationToJCas(450, 470, ClassMentionType.GENE.typeName());
+		checkAllQueries();
+		checkUIMAUtilQueries();
+	}
+
+	@Test
+	public void testIndexIsRebuiltAfterResetWithSameDocumentText() {
+		checkAllQueries();
+		String documentText = jcas.getDocumentText();
+		jcas.reset();
+		jcas.setDocumentText(documentText);
+		for (int i = 0; i < 400; i++) {
+			int begin = random.nextInt(DOCUMENT_LENGTH);
+			addTextAnnotationToJCas(begin, Math.min(DOCUMENT_LENGTH, begin + random.nextInt(40)),
+					ClassMentionType.GENE.typeName());
+		}
+		checkAllQueries();
+	}
+
+	private void checkUIMAUtilQueries() {
+		Span span = new Span(100, 160);
+		assertEquals(getExpectedAddresses(Query.WITHIN, 100, 160),
+				getAddresses(UIMA_Util.getAnnotationsWithinSpan(span, jcas, CCPTextAnnotation.type)));
+		assertEquals(getExpectedAddresses(Query.OVERLAPPING, 100, 160),
+				getAddresses(UIMA_Util.getAnnotationsEncompassingSpan(span, jcas, CCPTextAnnotation.type)));
+		assertEquals(getExpectedAddresses(Query.SAME_START, 100, 100),
+				getAddresses(UIMA_Util.getAnnotationsWithSameStart(100, jcas)));
+		assertEquals(getExpectedAddresses(Query.PRECEDING, 100, 100),
+				getAddresses(UIMA_Util.getPrecedingAnnotations(100, CCPTextAnnotation.type, jcas)));
+	}
+
+	@Test
+	public void testUIMAUtilQueriesMatchIndex() {
+		checkUIMAUtilQueries();
+	}
+
+}
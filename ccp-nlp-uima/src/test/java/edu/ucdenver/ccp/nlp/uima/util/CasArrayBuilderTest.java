@@ -0,0 +1,147 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.jcas.cas.DoubleArray;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.cas.IntegerArray;
+import org.apache.uima.jcas.cas.LongArray;
+import org.apache.uima.jcas.cas.StringArray;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotationSet;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class CasArrayBuilderTest extends DefaultUIMATestCase {
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		jcas.setDocumentText("This is some document text.");
+	}
+
+	@Test
+	public void testBuildFromNull() {
+		StringArray array = CasArrayBuilder.forStringArray(null).add("a").addAll(Arrays.asList("b", "c")).build(jcas);
+		assertEquals(3, array.size());
+		assertEquals("a", array.get(0));
+		assertEquals("c", array.get(2));
+
+		assertEquals(0, CasArrayBuilder.forIntegerArray(null).build(jcas).size());
+	}
+
+	@Test
+	public void testBuildAppendsToExistingArray() {
+		IntegerArray existing = new IntegerArray(jcas, 2);
+		existing.set(0, 10);
+		existing.set(1, 11);
+		IntegerArray array = CasArrayBuilder.forIntegerArray(existing).addAll(Arrays.asList(12, 13)).build(jcas);
+		assertEquals(4, array.size());
+		for (int i = 0; i < array.size(); i++) {
+			assertEquals(10 + i, array.get(i));
+		}
+		assertEquals(2, existing.size());
+
+		LongArray longArray = CasArrayBuilder.forLongArray(null).add(1L).build(jcas);
+		longArray = CasArrayBuilder.forLongArray(longArray).add(2L).build(jcas);
+		assertEquals(2L, longArray.get(1));
+
+		DoubleArray doubleArray = UIMA_Util.addToDoubleArray(null, Arrays.asList(1.5, 2.5), jcas);
+		assertEquals(2.5, doubleArray.get(1), 0.0);
+	}
+
+	@Test
+	public void testBuildWithoutAdditionsReturnsExistingArray() {
+		FSArray existing = new FSArray(jcas, 1);
+		existing.set(0, new CCPAnnotationSet(jcas));
+		assertSame(existing, CasArrayBuilder.forFSArray(existing).build(jcas));
+	}
+
+	@Test
+	public void testAddAnnotationSets() {
+		CCPTextAnnotation ccpTA = addTextAnnotationToJCas(0, 4, "class");
+		int setCount = ccpTA.getAnnotationSets().size();
+		CCPAnnotationSet set1 = new CCPAnnotationSet(jcas);
+		set1.setAnnotationSetID(101);
+		CCPAnnotationSet set2 = new CCPAnnotationSet(jcas);
+		set2.setAnnotationSetID(102);
+		UIMA_Util.addAnnotationSets(ccpTA, Arrays.asList(set1, set2), jcas);
+		assertEquals(setCount + 2, ccpTA.getAnnotationSets().size());
+		assertSame(set2, ccpTA.getAnnotationSets().get(setCount + 1));
+	}
+
+	/**
+	 * Adding k values with a builder should consume only the cells for a single array of length k
+	 * on the CAS heap, whereas repeated single-value appends consume cells for arrays of length
+	 * 1..k
+	 */
+	@Test
+	public void testCasHeapUsage() {
+		int k = 100;
+		CASImpl cas = (CASImpl) jcas.getCas();
+
+		int start = cas.getHeap().getNextId();
+		StringArray appended = null;
+		for (int i = 0; i < k; i++) {
+			appended = UIMA_Util.addToStringArray(appended, "value", jcas);
+		}
+		int appendCells = cas.getHeap().getNextId() - start;
+
+		start = cas.getHeap().getNextId();
+		CasArrayBuilder<String, StringArray> builder = CasArrayBuilder.forStringArray(null);
+		for (int i = 0; i < k; i++) {
+			builder.add("value");
+		}
+		StringArray built = builder.build(jcas);
+		int builderCells = cas.getHeap().getNextId() - start;
+
+		assertEquals(k, appended.size());
+		assertEquals(k, built.size());
+		assertEquals(2 + k, builderCells);
+		assertEquals(k * 2 + k * (k + 1) / 2, appendCells);
+	}
+
+}
@@ -0,0 +1,155 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.uima.UIMAException;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPPrimitiveSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPSlotMention;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SlotMentionIndexTest extends DefaultUIMATestCase {
+
+	private static final String DOCUMENT_TEXT = "ABC-1 interacts with DEF-2.";
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		jcas.setDocumentText(DOCUMENT_TEXT);
+	}
+
+	@Test
+	public void testSlotLookupMatchesUimaUtil() throws Exception {
+		CCPClassMention interaction = addTextAnnotationToJCas(0, 26, "interaction").getClassMention();
+		CCPClassMention protein = addTextAnnotationToJCas(0, 5, "protein").getClassMention();
+		UIMA_Util.addSlotValue(interaction, "source", "curated");
+		UIMA_Util.addSlotValue(interaction, "participant", protein);
+
+		SlotMentionIndex index = SlotMentionIndex.getIndex(jcas);
+		assertSame(UIMA_Util.getSlotMentionByName(interaction, "source"), index.getSlotMention(interaction, "source"));
+		assertSame(UIMA_Util.getPrimitiveSlotMentionByName(interaction, "source"), index.getPrimitiveSlotMention(
+				interaction, "source"));
+		assertNull(index.getComplexSlotMention(interaction, "source"));
+		assertSame(UIMA_Util.getComplexSlotMentionByName(interaction, "participant"), index.getComplexSlotMention(
+				interaction, "participant"));
+		assertNull(index.getPrimitiveSlotMention(interaction, "participant"));
+		assertNull(index.getSlotMention(interaction, "unknown"));
+		assertTrue(index.getSlotMentions(interaction, "unknown").isEmpty());
+		assertEquals(1, index.getPrimitiveSlotMentions(interaction).size());
+		assertEquals(1, index.getComplexSlotMentions(interaction).size());
+		assertTrue(index.getPrimitiveSlotMentions(protein).isEmpty());
+	}
+
+	@Test
+	public void testIndexIsUpdatedWhenSlotsChange() throws Exception {
+		CCPClassMention protein = addTextAnnotationToJCas(0, 5, "protein").getClassMention();
+		SlotMentionIndex index = SlotMentionIndex.getIndex(jcas);
+		assertNull(index.getSlotMention(protein, "entrez_gene_id"));
+
+		UIMA_Util.addSlotValue(protein, "entrez_gene_id", "12345");
+		CCPSlotMention idSlot = index.getSlotMention(protein, "entrez_gene_id");
+		assertSame(UIMA_Util.getSlotMentionByName(protein, "entrez_gene_id"), idSlot);
+
+		UIMA_Util.addSlotMentions(protein, Collections.singletonList(idSlot), jcas);
+		assertEquals(2, index.getSlotMentions(protein, "entrez_gene_id").size());
+		assertEquals(UIMA_Util.getMultipleSlotMentionsByName(protein, "entrez_gene_id"), index.getSlotMentions(
+				protein, "entrez_gene_id"));
+
+		UIMA_Util.removeSlotMentions(protein, CCPPrimitiveSlotMention.class, jcas);
+		assertNull(index.getSlotMention(protein, "entrez_gene_id"));
+		assertTrue(index.getPrimitiveSlotMentions(protein).isEmpty());
+	}
+
+	@Test
+	public void testIndexIsNotReusedAfterReset() throws Exception {
+		CCPTextAnnotation ccpTA = addTextAnnotationToJCas(0, 5, "protein");
+		UIMA_Util.addSlotValue(ccpTA.getClassMention(), "entrez_gene_id", "12345");
+		SlotMentionIndex index = SlotMentionIndex.getIndex(jcas);
+		assertEquals(1, index.getPrimitiveSlotMentions(ccpTA.getClassMention()).size());
+
+		jcas.reset();
+		jcas.setDocumentText(DOCUMENT_TEXT);
+		ccpTA = addTextAnnotationToJCas(0, 5, "protein");
+		assertSame(index, SlotMentionIndex.getIndex(jcas));
+		assertTrue(index.getPrimitiveSlotMentions(ccpTA.getClassMention()).isEmpty());
+		assertTrue(index.getComplexSlotMentions(ccpTA.getClassMention()).isEmpty());
+	}
+
+	@Test
+	public void testIndexIsNotReusedAfterResetWithSameSlotMentionsAddress() throws Exception {
+		CCPClassMention protein = addTextAnnotationToJCas(0, 5, "protein").getClassMention();
+		UIMA_Util.addSlotValue(protein, "entrez_gene_id", "12345");
+		SlotMentionIndex index = SlotMentionIndex.getIndex(jcas);
+		assertEquals(1, index.getSlotMentions(protein, "entrez_gene_id").size());
+
+		/* the same sequence of feature structures places the new slotMentions FSArray at the same address */
+		jcas.reset();
+		jcas.setDocumentText(DOCUMENT_TEXT);
+		protein = addTextAnnotationToJCas(0, 5, "protein").getClassMention();
+		UIMA_Util.addSlotValue(protein, "uniprot_id", "12345");
+		assertNull(index.getSlotMention(protein, "entrez_gene_id"));
+		assertSame(UIMA_Util.getSlotMentionByName(protein, "uniprot_id"), index.getSlotMention(protein, "uniprot_id"));
+	}
+
+	@Test
+	public void testInvalidateAfterInPlaceModification() throws Exception {
+		CCPClassMention protein = addTextAnnotationToJCas(0, 5, "protein").getClassMention();
+		UIMA_Util.addSlotValue(protein, "entrez_gene_id", "12345");
+		assertEquals(1, SlotMentionIndex.getIndex(jcas).getPrimitiveSlotMentions(protein).size());
+
+		CCPComplexSlotMention ccpCSM = new CCPComplexSlotMention(jcas);
+		ccpCSM.setMentionName("participant");
+		protein.getSlotMentions().set(0, ccpCSM);
+		SlotMentionIndex.invalidate(jcas);
+		SlotMentionIndex index = SlotMentionIndex.getIndex(jcas);
+		assertTrue(index.getPrimitiveSlotMentions(protein).isEmpty());
+		assertSame(ccpCSM, index.getComplexSlotMention(protein, "participant"));
+	}
+
+}
@@ -0,0 +1,134 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.jcas.JCas;
+import org.uimafit.factory.JCasFactory;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultStringSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+
+/**
+ * Compares the throughput of {@link UIMA_Util#putTextAnnotationsIntoJCas(JCas, java.util.Collection)}
+ * against {@link TextAnnotationBulkLoader#putTextAnnotationsIntoJCas(JCas, java.util.Collection)}
+ * for documents with n annotations, 10% of which are duplicates, presented in random span order.
+ * <p>
+ * This is not a unit test; run it via the main method, optionally passing the largest n (default
+ * 16384) and the number of timed repetitions per n (default 5).
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class TextAnnotationBulkLoaderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int maxN = (args.length > 0) ? Integer.parseInt(args[0]) : 16384;
+		int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		JCas jcas = JCasFactory.createJCas("edu.ucdenver.ccp.nlp.core.uima.TypeSystem");
+		System.out.println("n\tindexed\tUIMA_Util ms\tbulk loader ms\tspeedup");
+		for (int n = 256; n <= maxN; n *= 4) {
+			List<TextAnnotation> annotations = createAnnotations(n);
+			/* warm up both code paths */
+			measure(jcas, annotations, false);
+			measure(jcas, annotations, true);
+			long utilMs = 0;
+			long bulkMs = 0;
+			for (int i = 0; i < repetitions; i++) {
+				utilMs += measure(jcas, annotations, false);
+				bulkMs += measure(jcas, annotations, true);
+			}
+			int indexed = jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size();
+			System.out.println(n + "\t" + indexed + "\t" + (utilMs / repetitions) + "\t" + (bulkMs / repetitions)
+					+ "\t" + String.format("%.1f", (double) utilMs / Math.max(1, bulkMs)));
+		}
+	}
+
+	/**
+	 * @return the elapsed milliseconds
+	 */
+	private static long measure(JCas jcas, List<TextAnnotation> annotations, boolean useBulkLoader)
+			throws UIMAException {
+		jcas.reset();
+		jcas.setDocumentText(createDocumentText(annotations.size()));
+		long start = System.nanoTime();
+		if (useBulkLoader) {
+			TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, annotations);
+		} else {
+			new UIMA_Util().putTextAnnotationsIntoJCas(jcas, annotations);
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private static String createDocumentText(int n) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			sb.append("gene ");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return n annotations over consecutive tokens in a pseudo-random order, every tenth of which
+	 *         duplicates its predecessor
+	 */
+	private static List<TextAnnotation> createAnnotations(int n) throws Exception {
+		Annotator annotator = new Annotator(5, "first", "last", "affiliation");
+		AnnotationSet annotationSet = new AnnotationSet(2, "set", "description");
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>(n);
+		int token = 0;
+		for (int i = 0; i < n; i++) {
+			if (i % 10 != 9) {
+				token = (int) ((i * 7919L) % n);
+			}
+			DefaultClassMention cm = new DefaultClassMention("gene");
+			DefaultStringSlotMention idSlot = new DefaultStringSlotMention("gene_id");
+			idSlot.addSlotValue("GENE:" + token);
+			cm.addPrimitiveSlotMention(idSlot);
+			annotations.add(new DefaultTextAnnotation(token * 5, token * 5 + 4, "gene", annotator, annotationSet, -1,
+					0, "doc", 0, cm));
+		}
+		return annotations;
+	}
+
+}
@@ -0,0 +1,180 @@
+package edu.ucdenver.ccp.nlp.uima.util;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.annotation.AnnotationSet;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultIntegerSlotMention;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPComplexSlotMention;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class TextAnnotationBulkLoaderTest extends DefaultUIMATestCase {
+
+	private static final String DOCUMENT_TEXT = "EBV LMP1 and gated nuclear transport of E2F-4 from the nucleus.";
+
+	private final Annotator annotator = new Annotator(5, "first", "last", "affiliation");
+	private final AnnotationSet annotationSet = new AnnotationSet(2, "set", "description");
+
+	@Override
+	protected void initJCas() throws UIMAException {
+		jcas.setDocumentText(DOCUMENT_TEXT);
+	}
+
+	@Test
+	public void testDuplicatesAreAddedOnce() throws Exception {
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(createProteinAnnotation(0, 8, 888888));
+		annotations.add(createProteinAnnotation(0, 8, 888888));
+		annotations.add(createProteinAnnotation(0, 8, 777777));
+
+		List<CCPTextAnnotation> added = TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, annotations);
+		assertEquals(2, added.size());
+		assertEquals(2, jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type).size());
+	}
+
+	@Test
+	public void testAnnotationsAreIndexedInOrderWithSharedProvenance() throws Exception {
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(createProteinAnnotation(40, 45, 1));
+		annotations.add(createProteinAnnotation(0, 3, 2));
+		annotations.add(createProteinAnnotation(0, 8, 3));
+
+		List<CCPTextAnnotation> added = TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, annotations);
+		FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository().getAnnotationIndex(CCPTextAnnotation.type)
+				.iterator();
+		for (CCPTextAnnotation ccpTA : added) {
+			assertSame(ccpTA, annotIter.next());
+			assertSame(added.get(0).getAnnotator(), ccpTA.getAnnotator());
+			assertSame(added.get(0).getAnnotationSets().get(0), ccpTA.getAnnotationSets().get(0));
+		}
+		assertEquals(0, added.get(0).getBegin());
+		assertEquals(8, added.get(0).getEnd());
+		assertEquals(40, added.get(2).getBegin());
+	}
+
+	@Test
+	public void testSharedSlotFillersAreConvertedOnce() throws Exception {
+		DefaultClassMention transportMention = new DefaultClassMention("gated nuclear transport");
+		DefaultClassMention nucleusMention = new DefaultClassMention("nucleus");
+		new DefaultTextAnnotation(55, 62, "nucleus", annotator, annotationSet, -1, 2, "33", 0, nucleusMention);
+		DefaultComplexSlotMention originSlot = new DefaultComplexSlotMention("transport origin");
+		originSlot.addClassMention(nucleusMention);
+		transportMention.addComplexSlotMention(originSlot);
+		DefaultComplexSlotMention locationSlot = new DefaultComplexSlotMention("transport location");
+		locationSlot.addClassMention(nucleusMention);
+		transportMention.addComplexSlotMention(locationSlot);
+		TextAnnotation transportAnnotation = new DefaultTextAnnotation(13, 36, "gated nuclear transport", annotator,
+				annotationSet, 1010, 2, "33", 0, transportMention);
+
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(transportAnnotation);
+		List<CCPTextAnnotation> added = TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, annotations);
+
+		/* the nucleus annotation is created for the slot filler */
+		assertEquals(2, added.size());
+		CCPClassMention ccpTransport = added.get(0).getClassMention();
+		assertEquals("gated nuclear transport", ccpTransport.getMentionName());
+		assertEquals(2, ccpTransport.getSlotMentions().size());
+		CCPClassMention origin = (CCPClassMention) ((CCPComplexSlotMention) ccpTransport.getSlotMentions().get(0))
+				.getClassMentions().get(0);
+		CCPClassMention location = (CCPClassMention) ((CCPComplexSlotMention) ccpTransport.getSlotMentions().get(1))
+				.getClassMentions().get(0);
+		assertSame(origin, location);
+		assertSame(added.get(1), origin.getCcpTextAnnotation());
+		assertSame(origin, added.get(1).getClassMention());
+		assertTrue(UIMA_Util.validateCCPTextAnnotation(added.get(0)));
+	}
+
+	@Test
+	public void testCyclicMentionsAreResolved() throws Exception {
+		DefaultClassMention mentionA = new DefaultClassMention("class-A");
+		DefaultClassMention mentionB = new DefaultClassMention("class-B");
+		TextAnnotation annotationA = new DefaultTextAnnotation(0, 3, "EBV", annotator, annotationSet, 1, 2, "33", 0,
+				mentionA);
+		TextAnnotation annotationB = new DefaultTextAnnotation(4, 8, "LMP1", annotator, annotationSet, 2, 2, "33", 0,
+				mentionB);
+		DefaultComplexSlotMention sameAsA = new DefaultComplexSlotMention("sameAs");
+		sameAsA.addClassMention(mentionB);
+		mentionA.addComplexSlotMention(sameAsA);
+		DefaultComplexSlotMention sameAsB = new DefaultComplexSlotMention("sameAs");
+		sameAsB.addClassMention(mentionA);
+		mentionB.addComplexSlotMention(sameAsB);
+
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(annotationB);
+		annotations.add(annotationA);
+		List<CCPTextAnnotation> added = TextAnnotationBulkLoader.putTextAnnotationsIntoJCas(jcas, annotations);
+
+		assertEquals(2, added.size());
+		CCPClassMention ccpA = added.get(0).getClassMention();
+		CCPClassMention ccpB = added.get(1).getClassMention();
+		assertEquals("class-A", ccpA.getMentionName());
+		assertSame(ccpB, ((CCPComplexSlotMention) ccpA.getSlotMentions().get(0)).getClassMentions().get(0));
+		assertSame(ccpA, ((CCPComplexSlotMention) ccpB.getSlotMentions().get(0)).getClassMentions().get(0));
+		assertSame(added.get(1), ccpB.getCcpTextAnnotation());
+	}
+
+	private TextAnnotation createProteinAnnotation(int begin, int end, int entrezId) throws Exception {
+		DefaultClassMention proteinMention = new DefaultClassMention("protein");
+		DefaultIntegerSlotMention entrezIdSlot = new DefaultIntegerSlotMention("entrez_gene_id");
+		entrezIdSlot.addSlotValue(entrezId);
+		proteinMention.addPrimitiveSlotMention(entrezIdSlot);
+		return new DefaultTextAnnotation(begin, end, DOCUMENT_TEXT.substring(begin, end), annotator, annotationSet,
+				1011, 2, "33", 1, proteinMention);
+	}
+
+}
@@ -0,0 +1,415 @@
+package edu.ucdenver.ccp.nlp.wrapper.banner;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Extracts BANNER model and data files from the classpath into a directory on disk, so that
+ * building several analysis engine descriptions in a JVM, or in later JVMs, reuses one copy of the
+ * model and the lemmatiser/POS tagger data rather than writing a fresh copy each time.
+ * <p>
+ * By default the cache lives in a per-user directory under <code>java.io.tmpdir</code>, where it
+ * is cleaned up along with other temporary files. A persistent cache directory can be specified
+ * using the {@link #CACHE_DIRECTORY_PROPERTY} system property. The BANNER model is deserialized
+ * when it is loaded, so on file systems with POSIX permissions the cache directory must be owned
+ * by the current user and must not be writable by anyone else; the default directory is created
+ * accessible to its owner only.
+ * <p>
+ * Each group of resources is extracted to a directory named by a hash of the resource paths
+ * followed by a hash of the location, size and modification time of each resource (or of the
+ * resource content where the size or modification time cannot be determined), so the content of
+ * the resources only needs to be read when they are extracted. Extracting a changed version of a
+ * group of resources deletes the directories of its earlier versions. Files are extracted to a
+ * temporary directory that is then renamed, so concurrent extraction by several threads or
+ * processes is safe.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class BannerResourceCache {
+
+	private static final Logger logger = Logger.getLogger(BannerResourceCache.class);
+
+	/**
+	 * System property that can be used to specify a persistent directory where extracted
+	 * resources are cached
+	 */
+	public static final String CACHE_DIRECTORY_PROPERTY = "ccp.banner.cache.directory";
+
+	private static final String DEFAULT_CACHE_DIRECTORY_PREFIX = "ccp-nlp-banner-";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private BannerResourceCache() {
+		// utility class
+	}
+
+	/**
+	 * @param clazz
+	 *            the class used to load the resource
+	 * @param resourcePath
+	 *            the classpath location of the resource
+	 * @return a file on disk containing the content of the specified classpath resource. The file
+	 *         is named after the resource.
+	 * @throws IOException
+	 */
+	public static File getFile(Class<?> clazz, String resourcePath) throws IOException {
+		String fileName = getFileName(resourcePath);
+		File directory = getCacheDirectory(clazz, new String[] { resourcePath });
+		return new File(directory, fileName);
+	}
+
+	/**
+	 * @param clazz
+	 *            the class used to load the resources
+	 * @param resourceDirectory
+	 *            the classpath directory containing the resources, e.g.
+	 *            /banner/nlpdata/lemmatiser
+	 * @param fileNames
+	 *            the names of the resources in the classpath directory to extract
+	 * @return a directory on disk containing a copy of each of the specified classpath resources
+	 * @throws IOException
+	 */
+	public static File getDirectory(Class<?> clazz, String resourceDirectory, String... fileNames) throws IOException {
+		String[] resourcePaths = new String[fileNames.length];
+		for (int i = 0; i < fileNames.length; i++) {
+			resourcePaths[i] = resourceDirectory + "/" + fileNames[i];
+		}
+		return getCacheDirectory(clazz, resourcePaths);
+	}
+
+	/**
+	 * Returns the cache directory for the specified group of resources, extracting the resources if
+	 * they have not already been cached
+	 */
+	private static File getCacheDirectory(Class<?> clazz, String[] resourcePaths) throws IOException {
+		File cacheRoot = getCacheRoot();
+		File directory = new File(cacheRoot, getDirectoryName(clazz, resourcePaths));
+		if (isExtracted(resourcePaths, directory)) {
+			return directory;
+		}
+		delete(directory);
+
+		File workDirectory = new File(cacheRoot, directory.getName() + ".tmp-" + System.nanoTime() + "-"
+				+ Thread.currentThread().getId());
+		if (!workDirectory.mkdirs()) {
+			throw new IOException("Unable to create directory: " + workDirectory.getAbsolutePath());
+		}
+		try {
+			for (String resourcePath : resourcePaths) {
+				copy(clazz, resourcePath, new File(workDirectory, getFileName(resourcePath)));
+			}
+			if (!workDirectory.renameTo(directory) && !isExtracted(resourcePaths, directory)) {
+				throw new IOException("Unable to move " + workDirectory.getAbsolutePath() + " to "
+						+ directory.getAbsolutePath());
+			}
+			logger.debug("Extracted BANNER resources to " + directory.getAbsolutePath());
+		} finally {
+			/* only non-empty if another thread/process populated the cache first */
+			delete(workDirectory);
+		}
+		deleteEarlierVersions(directory);
+		return directory;
+	}
+
+	/**
+	 * @return true if each of the resources has been extracted to the directory
+	 */
+	private static boolean isExtracted(String[] resourcePaths, File directory) {
+		for (String resourcePath : resourcePaths) {
+			if (!new File(directory, getFileName(resourcePath)).isFile()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the directories holding other versions of the resources extracted to the specified
+	 * directory
+	 */
+	private static void deleteEarlierVersions(final File directory) {
+		final String groupPrefix = directory.getName().substring(0, directory.getName().indexOf('-') + 1);
+		File[] earlierVersions = directory.getParentFile().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isDirectory() && file.getName().startsWith(groupPrefix)
+						&& !file.getName().equals(directory.getName()) && !file.getName().contains(".tmp-");
+			}
+		});
+		if (earlierVersions != null) {
+			for (File earlierVersion : earlierVersions) {
+				logger.debug("Deleting outdated BANNER resources: " + earlierVersion.getAbsolutePath());
+				delete(earlierVersion);
+			}
+		}
+	}
+
+	/**
+	 * @return the cache directory specified by the {@link #CACHE_DIRECTORY_PROPERTY} system
+	 *         property, or by default a directory for the current user in
+	 *         <code>java.io.tmpdir</code>, created if it does not exist
+	 */
+	static File getCacheRoot() throws IOException {
+		String path = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+		File cacheRoot = (path == null) ? new File(System.getProperty("java.io.tmpdir"),
+				DEFAULT_CACHE_DIRECTORY_PREFIX + System.getProperty("user.name").replaceAll("[^A-Za-z0-9._-]", "_"))
+				: new File(path);
+		Path rootPath = cacheRoot.toPath();
+		boolean posix = rootPath.getFileSystem().supportedFileAttributeViews().contains("posix");
+		if (!cacheRoot.isDirectory()) {
+			try {
+				if (posix) {
+					Files.createDirectories(rootPath,
+							PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ,
+									PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+				} else {
+					Files.createDirectories(rootPath);
+				}
+			} catch (IOException e) {
+				throw new IOException("Unable to create BANNER resource cache directory: "
+						+ cacheRoot.getAbsolutePath(), e);
+			}
+		}
+		if (posix) {
+			checkOwnership(rootPath);
+		}
+		return cacheRoot;
+	}
+
+	/**
+	 * Ensures that nobody but the current user can place files in the cache directory, as the
+	 * cached model is deserialized when it is loaded
+	 */
+	private static void checkOwnership(Path rootPath) throws IOException {
+		UserPrincipal owner = Files.getOwner(rootPath);
+		/* a file created in the directory is owned by the current user */
+		Path probe = Files.createTempFile(rootPath, "owner", ".tmp");
+		UserPrincipal currentUser;
+		try {
+			currentUser = Files.getOwner(probe);
+		} finally {
+			Files.deleteIfExists(probe);
+		}
+		if (!owner.equals(currentUser)) {
+			throw new IOException("The BANNER resource cache directory " + rootPath.toAbsolutePath()
+					+ " is owned by " + owner.getName() + " rather than by the current user. Please specify a "
+					+ "different directory using the " + CACHE_DIRECTORY_PROPERTY + " system property.");
+		}
+		Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(rootPath);
+		if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+				|| permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+			throw new IOException("The BANNER resource cache directory " + rootPath.toAbsolutePath()
+					+ " is writable by other users (" + PosixFilePermissions.toString(permissions)
+					+ "). Please restrict its permissions or specify a different directory using the "
+					+ CACHE_DIRECTORY_PROPERTY + " system property.");
+		}
+	}
+
+	/**
+	 * @return the name of the cache directory for the specified resources: a hash of the resource
+	 *         paths, followed by a hash of their stamp, or of their content if they cannot be
+	 *         stamped
+	 */
+	static String getDirectoryName(Class<?> clazz, String[] resourcePaths) throws IOException {
+		MessageDigest digest = createDigest();
+		for (String resourcePath : resourcePaths) {
+			digest.update(resourcePath.getBytes("UTF-8"));
+			digest.update((byte) 0);
+		}
+		String groupHash = toHex(digest.digest()).substring(0, 16);
+		String stamp = getStamp(clazz, resourcePaths);
+		String versionHash = (stamp == null) ? computeHash(clazz, resourcePaths) : toHex(digest.digest(stamp
+				.getBytes("UTF-8")));
+		return groupHash + "-" + versionHash;
+	}
+
+	/**
+	 * @return a string identifying the location, size and modification time of each of the
+	 *         specified resources, or null if the size or modification time of a resource cannot
+	 *         be determined
+	 */
+	static String getStamp(Class<?> clazz, String[] resourcePaths) throws IOException {
+		StringBuilder stamp = new StringBuilder();
+		for (String resourcePath : resourcePaths) {
+			URL url = getResourceUrl(clazz, resourcePath);
+			long length;
+			long lastModified;
+			if ("file".equals(url.getProtocol())) {
+				File file;
+				try {
+					file = new File(url.toURI());
+				} catch (URISyntaxException e) {
+					return null;
+				}
+				length = file.length();
+				lastModified = file.lastModified();
+			} else if ("jar".equals(url.getProtocol())) {
+				URLConnection connection = url.openConnection();
+				if (!(connection instanceof JarURLConnection)) {
+					return null;
+				}
+				JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+				if (entry == null) {
+					return null;
+				}
+				length = entry.getSize();
+				lastModified = entry.getTime();
+			} else {
+				return null;
+			}
+			if (length < 0 || lastModified <= 0) {
+				return null;
+			}
+			stamp.append(url.toExternalForm()).append('|').append(length).append('|').append(lastModified)
+					.append('\n');
+		}
+		return stamp.toString();
+	}
+
+	/**
+	 * @return the hex-encoded SHA-1 hash of the names and content of the specified resources
+	 */
+	static String computeHash(Class<?> clazz, String[] resourcePaths) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		for (String resourcePath : resourcePaths) {
+			digest.update(getFileName(resourcePath).getBytes("UTF-8"));
+			digest.update((byte) 0);
+			InputStream is = openResource(clazz, resourcePath);
+			try {
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			} finally {
+				is.close();
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void copy(Class<?> clazz, String resourcePath, File file) throws IOException {
+		InputStream is = openResource(clazz, resourcePath);
+		try {
+			OutputStream os = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					os.write(buffer, 0, read);
+				}
+			} finally {
+				os.close();
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * @return the location of the resource. Paths starting with a slash are resolved by the
+	 *         class, other paths by its class loader. The same location is used both to stamp and
+	 *         to read the resource.
+	 */
+	private static URL getResourceUrl(Class<?> clazz, String resourcePath) throws IOException {
+		URL url = resourcePath.startsWith("/") ? clazz.getResource(resourcePath) : clazz.getClassLoader()
+				.getResource(resourcePath);
+		if (url == null) {
+			throw new IOException("Unable to find resource on the classpath: " + resourcePath);
+		}
+		return url;
+	}
+
+	private static InputStream openResource(Class<?> clazz, String resourcePath) throws IOException {
+		return new BufferedInputStream(getResourceUrl(clazz, resourcePath).openStream(), BUFFER_SIZE);
+	}
+
+	private static String getFileName(String resourcePath) {
+		return resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
+	}
+
+	private static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+}
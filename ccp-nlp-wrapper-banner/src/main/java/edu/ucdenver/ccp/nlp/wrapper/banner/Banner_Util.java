@@ -38,12 +38,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -64,7 +60,6 @@ import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.impl.DefaultTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.interfaces.IEntityTagger;
 import edu.ucdenver.ccp.nlp.core.interfaces.ITagger;
-import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
 import edu.umass.cs.mallet.base.fst.CRF;
 import edu.umass.cs.mallet.base.util.MalletLogger;
@@ -130,49 +125,34 @@ public class Banner_Util extends Base implements IEntityTagger {
 	 */
 	private List<TextAnnotation> findEntities(String line, String documentID) {
 		List<TextAnnotation> entityAnnotations = new ArrayList<TextAnnotation>();
+		if (line == null || line.length() == 0) {
+			return entityAnnotations;
+		}
+		/*
+		 * The sentence is built directly rather than via Base.getSentence(), which tokenizes and
+		 * attaches gold-standard training mentions that are not needed for tagging.
+		 */
+		Sentence sentence = new Sentence(null, line);
+		tokenizer.tokenize(sentence);
 
-		HashMap<String, LinkedList<Base.Tag>> tags = new HashMap<String, LinkedList<Base.Tag>>();
-		Set<Mention> mentionsTest = new HashSet<Mention>();
-		// commented out this line bc it spills too much info to the console.
-		// properties.log();
-		Sentence sentence = null;
-		if (line != null && !line.equals("")) {
-			String sentenceText = line;
-			sentence = getSentence(null, sentenceText, properties.getTokenizer(), tags);
-			mentionsTest.addAll(sentence.getMentions());
-			sentenceText = sentence.getText();
-			Sentence sentence2 = new Sentence(sentence.getTag(), sentenceText);
-			tokenizer.tokenize(sentence2);
-
-			try {
-				tagger.tag(sentence2);
-			} catch (Exception x) {
-				logger.warn("BANNER failure to process (" + documentID + ") sentence: \"" + sentence2.getText() + "\"");
-				return entityAnnotations;
-			}
+		try {
+			tagger.tag(sentence);
+		} catch (Exception x) {
+			logger.warn("BANNER failure to process (" + documentID + ") sentence: \"" + sentence.getText() + "\"");
+			return entityAnnotations;
+		}
 
-			if (postProcessor != null)
-				postProcessor.postProcess(sentence2);
-			// For training text sentence2.getTrainingText(properties.getTagFormat());
-			List<Mention> mentions = sentence2.getMentions();
-			for (Mention mention : mentions) {
-				int start = mention.getStartChar();
-				int end = mention.getEndChar();
-				String str = mention.getText();
-				String type = mention.getType().getText();
-
-				TextAnnotation ta = new DefaultTextAnnotation(start, end);
-				ta.setAnnotator(annotator);
-				ta.setDocumentID(documentID);
-				ta.setCoveredText(str);
-				ta.addAnnotationSet(new AnnotationSet());
-
-				ClassMention cm;
-				cm = new DefaultClassMention(type.toLowerCase());
-				ta.setClassMention(cm);
-
-				entityAnnotations.add(ta);
-			}
+		if (postProcessor != null)
+			postProcessor.postProcess(sentence);
+		// For training text sentence.getTrainingText(properties.getTagFormat());
+		for (Mention mention : sentence.getMentions()) {
+			TextAnnotation ta = new DefaultTextAnnotation(mention.getStartChar(), mention.getEndChar());
+			ta.setAnnotator(annotator);
+			ta.setDocumentID(documentID);
+			ta.setCoveredText(mention.getText());
+			ta.addAnnotationSet(new AnnotationSet());
+			ta.setClassMention(new DefaultClassMention(mention.getType().getText().toLowerCase()));
+			entityAnnotations.add(ta);
 		}
 		return entityAnnotations;
 	}
@@ -0,0 +1,381 @@
+package edu.ucdenver.ccp.nlp.wrapper.banner;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.log4j.Logger;
+
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.exception.InitializationException;
+import edu.ucdenver.ccp.nlp.core.interfaces.IEntityTagger;
+import edu.ucdenver.ccp.nlp.core.interfaces.ITagger;
+
+/**
+ * A thread-safe BANNER entity tagger. The BANNER CRF tagger, lemmatiser, POS tagger and tokenizer
+ * keep per-call state, so a single {@link Banner_Util} cannot be used by more than one thread at a
+ * time. Instead of each caller loading its own copy of the model, all {@link SharedBannerTagger}
+ * instances that are initialized with the same properties file, model file and data directories
+ * share a JVM-wide pool of {@link Banner_Util} instances. Each call to
+ * {@link #getEntitiesFromText(String, String)} borrows an instance from the pool for the duration
+ * of the call.
+ * <p>
+ * The first instance is loaded when the pool is created, without holding the registry lock, so
+ * engines using other models are not held up; engines using the same model wait for it. Further
+ * instances are loaded only when all existing instances are in use, so a model is loaded once no
+ * matter how many analysis engines reference it, and at most once per concurrently tagging thread.
+ * The number of instances can be capped using the optional fifth initialization argument, in which
+ * case callers wait for an instance to become available. The cap is set by the tagger that creates
+ * the pool; a different cap requested by a later tagger is logged and ignored. The pool is
+ * discarded once every tagger using it has been shut down; idle instances are shut down at that
+ * point, and instances still in use are shut down when they are returned.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SharedBannerTagger implements IEntityTagger {
+
+	private static final Logger logger = Logger.getLogger(SharedBannerTagger.class);
+
+	/**
+	 * JVM-wide registry of tagger pools keyed by the canonical paths of the files used to load them
+	 */
+	private static final Map<String, TaggerPool> pools = new HashMap<String, TaggerPool>();
+
+	private volatile TaggerPool pool;
+
+	/**
+	 * @param taggerType
+	 *            must be {@link ITagger#ENTITY_TAGGER}
+	 * @param args
+	 *            the path to the BANNER properties file, the path to the entity model file, the
+	 *            lemmatiser data directory, the POS tagger data directory, and optionally the
+	 *            maximum number of tagger instances to load for this model (values &lt; 1 indicate
+	 *            no limit)
+	 */
+	public void initialize(int taggerType, String[] args) throws InitializationException {
+		if (taggerType != ITagger.ENTITY_TAGGER) {
+			throw new UnsupportedOperationException("Tagger type: " + ITagger.TAGGER_TYPES[taggerType]
+					+ " not supported by " + this.getClass().getName());
+		}
+		if (args.length != 4 && args.length != 5) {
+			throw new InitializationException("Unexpected number of arguments (" + args.length + ") for "
+					+ this.getClass().getName() + " initialization. Expected the path to the properties file, "
+					+ "the path to the entity model file, the lemmatiser data directory, the POS tagger data "
+					+ "directory, and optionally the maximum number of tagger instances.");
+		}
+		int maxInstances = 0;
+		if (args.length == 5) {
+			try {
+				maxInstances = Integer.parseInt(args[4]);
+			} catch (NumberFormatException e) {
+				throw new InitializationException(e);
+			}
+		}
+		String[] taggerArgs = { args[0], args[1], args[2], args[3] };
+		shutdown();
+		pool = acquirePool(taggerArgs, maxInstances);
+	}
+
+	public List<TextAnnotation> getEntitiesFromText(String inputText, String documentID) {
+		TaggerPool taggerPool = getPool();
+		IEntityTagger tagger = borrowTagger(taggerPool);
+		try {
+			return tagger.getEntitiesFromText(inputText, documentID);
+		} finally {
+			taggerPool.giveBack(tagger);
+		}
+	}
+
+	/**
+	 * @return the pool used by this tagger. Callers return borrowed instances to the pool they
+	 *         were borrowed from, even if this tagger is shut down in the meantime.
+	 */
+	private TaggerPool getPool() {
+		TaggerPool taggerPool = pool;
+		if (taggerPool == null) {
+			throw new IllegalStateException("The " + this.getClass().getSimpleName() + " has not been initialized.");
+		}
+		return taggerPool;
+	}
+
+	private static IEntityTagger borrowTagger(TaggerPool taggerPool) {
+		try {
+			return taggerPool.borrow();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a BANNER tagger instance.", e);
+		}
+	}
+
+	/**
+	 * Releases this tagger's reference to the shared pool. The pool (and the models it has loaded)
+	 * is discarded once it is no longer referenced.
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			releasePool(pool);
+			pool = null;
+		}
+	}
+
+	private static TaggerPool acquirePool(String[] args, int maxInstances) throws InitializationException {
+		String key = getKey(args);
+		TaggerPool taggerPool;
+		boolean created = false;
+		synchronized (pools) {
+			taggerPool = pools.get(key);
+			if (taggerPool == null) {
+				taggerPool = new TaggerPool(key, args, maxInstances);
+				pools.put(key, taggerPool);
+				created = true;
+			} else if (taggerPool.maxInstances != maxInstances) {
+				logger.warn("The BANNER tagger pool for model " + args[1] + " was created with a maximum of "
+						+ taggerPool.maxInstances + " instances. The requested maximum of " + maxInstances
+						+ " is ignored.");
+			}
+			taggerPool.referenceCount++;
+		}
+		/*
+		 * the first instance is loaded outside of the lock so that other models can be acquired and
+		 * released in the meantime; callers sharing this pool wait for it to load
+		 */
+		if (created) {
+			taggerPool.load();
+		}
+		try {
+			taggerPool.awaitLoaded();
+		} catch (InitializationException e) {
+			releasePool(taggerPool);
+			throw e;
+		}
+		return taggerPool;
+	}
+
+	private static void releasePool(TaggerPool taggerPool) {
+		synchronized (pools) {
+			if (--taggerPool.referenceCount == 0) {
+				pools.remove(taggerPool.key, taggerPool);
+				taggerPool.clear();
+			}
+		}
+	}
+
+	/**
+	 * Removes a pool whose first instance could not be loaded so that later callers try again
+	 */
+	private static void discardPool(TaggerPool taggerPool) {
+		synchronized (pools) {
+			pools.remove(taggerPool.key, taggerPool);
+		}
+	}
+
+	private static String getKey(String[] args) throws InitializationException {
+		StringBuilder key = new StringBuilder();
+		for (String path : args) {
+			try {
+				key.append(new File(path).getCanonicalPath());
+			} catch (IOException e) {
+				throw new InitializationException(e);
+			}
+			key.append(File.pathSeparatorChar);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * A pool of {@link Banner_Util} instances that were all loaded using the same arguments
+	 */
+	static class TaggerPool {
+		private final String key;
+		private final String[] args;
+		private final int maxInstances;
+		private final BlockingQueue<IEntityTagger> idleTaggers = new LinkedBlockingQueue<IEntityTagger>();
+		/* completed once the first instance has been loaded, or has failed to load */
+		private final CompletableFuture<Void> loaded = new CompletableFuture<Void>();
+		/* guarded by this */
+		private int instanceCount = 0;
+		/* guarded by this */
+		private boolean closed = false;
+		/* guarded by SharedBannerTagger.pools */
+		private int referenceCount = 0;
+
+		public TaggerPool(String key, String[] args, int maxInstances) {
+			this.key = key;
+			this.args = args;
+			this.maxInstances = maxInstances;
+		}
+
+		/**
+		 * Loads the first instance of the pool, recording the outcome for callers waiting in
+		 * {@link #awaitLoaded()}
+		 */
+		void load() {
+			InitializationException failure = null;
+			try {
+				reserveInstance();
+				giveBack(createTagger());
+			} catch (InitializationException e) {
+				failure = e;
+			} catch (Error e) {
+				failure = new InitializationException(new IllegalStateException(
+						"Unable to load BANNER tagger instance for model: " + args[1], e));
+				throw e;
+			} finally {
+				if (failure == null) {
+					loaded.complete(null);
+				} else {
+					discardPool(this);
+					loaded.completeExceptionally(failure);
+				}
+			}
+		}
+
+		/**
+		 * Waits until the first instance of the pool has been loaded
+		 * 
+		 * @throws InitializationException
+		 *             if the first instance could not be loaded
+		 */
+		void awaitLoaded() throws InitializationException {
+			try {
+				loaded.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InitializationException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof InitializationException) {
+					throw (InitializationException) e.getCause();
+				}
+				throw new InitializationException(e);
+			}
+		}
+
+		/**
+		 * @return an idle tagger instance if one is available, otherwise a newly loaded instance
+		 *         if the maximum number of instances has not been reached, otherwise waits for an
+		 *         instance to be returned to the pool
+		 * @throws InterruptedException
+		 */
+		public IEntityTagger borrow() throws InterruptedException {
+			IEntityTagger tagger = idleTaggers.poll();
+			if (tagger != null) {
+				return tagger;
+			}
+			if (reserveInstance()) {
+				try {
+					return createTagger();
+				} catch (InitializationException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return idleTaggers.take();
+		}
+
+		/**
+		 * Returns a borrowed instance to the pool, or shuts it down if the pool has been cleared
+		 */
+		public synchronized void giveBack(IEntityTagger tagger) {
+			if (closed) {
+				tagger.shutdown();
+			} else {
+				idleTaggers.offer(tagger);
+			}
+		}
+
+		/**
+		 * @return true if the maximum number of instances has not been reached, in which case the
+		 *         caller must load a new instance using {@link #createTagger()}
+		 */
+		public synchronized boolean reserveInstance() {
+			if (maxInstances < 1 || instanceCount < maxInstances) {
+				instanceCount++;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Loads a new tagger instance. A slot must have been reserved using
+		 * {@link #reserveInstance()} prior to calling this method.
+		 */
+		public IEntityTagger createTagger() throws InitializationException {
+			try {
+				IEntityTagger tagger = newTagger();
+				tagger.initialize(ITagger.ENTITY_TAGGER, args);
+				logger.info("Loaded BANNER tagger instance for model: " + args[1]);
+				return tagger;
+			} catch (InitializationException e) {
+				releaseInstance();
+				throw e;
+			} catch (RuntimeException e) {
+				releaseInstance();
+				throw new InitializationException(e);
+			}
+		}
+
+		private synchronized void releaseInstance() {
+			instanceCount--;
+		}
+
+		/**
+		 * @return a new, uninitialized tagger instance
+		 */
+		IEntityTagger newTagger() {
+			return new Banner_Util();
+		}
+
+		/**
+		 * Shuts down the idle instances. Instances that are currently borrowed are shut down when
+		 * they are returned.
+		 */
+		public synchronized void clear() {
+			closed = true;
+			IEntityTagger tagger;
+			while ((tagger = idleTaggers.poll()) != null) {
+				tagger.shutdown();
+			}
+		}
+	}
+
+}
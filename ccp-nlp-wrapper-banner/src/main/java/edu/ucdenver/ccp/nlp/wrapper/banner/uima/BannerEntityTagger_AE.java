@@ -44,16 +44,17 @@ import org.apache.uima.resource.DataResource;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.util.InvalidXMLException;
+import org.uimafit.descriptor.ConfigurationParameter;
 import org.uimafit.descriptor.ExternalResource;
 import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.ConfigurationParameterFactory;
 import org.uimafit.factory.ExternalResourceFactory;
 
-import edu.ucdenver.ccp.common.file.FileUtil;
-import edu.ucdenver.ccp.common.io.ClassPathUtil;
 import edu.ucdenver.ccp.nlp.core.exception.InitializationException;
 import edu.ucdenver.ccp.nlp.core.interfaces.ITagger;
 import edu.ucdenver.ccp.nlp.uima.annotators.entitydetection.EntityTagger_AE;
-import edu.ucdenver.ccp.nlp.wrapper.banner.Banner_Util;
+import edu.ucdenver.ccp.nlp.wrapper.banner.BannerResourceCache;
+import edu.ucdenver.ccp.nlp.wrapper.banner.SharedBannerTagger;
 
 /**
  * This analysis engine wraps the BANNER entity tagging system into the CCP UIMA framework.
@@ -81,15 +82,34 @@ public class BannerEntityTagger_AE extends EntityTagger_AE {
 	@ExternalResource(key = POS_PATH_KEY)
 	DataResource posPathDR;
 
+	private static final String[] LEMMATISER_FILE_NAMES = { "adj.exc", "adj.index", "adv.exc", "adv.index",
+			"noun.exc", "stopwordexc.list", "umlserror.list", "verb.exc", "verb.index" };
+
+	private static final String[] POS_TAGGER_FILE_NAMES = { "lexDB.serial", "lexicon_all", "ngramOne.serial",
+			"rules_cap" };
+
+	/**
+	 * Parameter name used in the UIMA descriptor file for the maximum number of BANNER tagger
+	 * instances loaded for a given model. Tagger instances are shared by all BANNER analysis engines
+	 * in the JVM that use the same model; values &lt; 1 indicate no limit, i.e. one instance is
+	 * loaded per concurrently tagging thread.
+	 */
+	public static final String PARAM_MAX_TAGGER_INSTANCES = ConfigurationParameterFactory
+			.createConfigurationParameterName(BannerEntityTagger_AE.class, "maxTaggerInstances");
+
+	@ConfigurationParameter(defaultValue = "0", description = "the maximum number of BANNER tagger instances loaded for a given model. Instances are shared by all BANNER analysis engines in the JVM that use the same model. Values < 1 indicate no limit.")
+	private int maxTaggerInstances;
+
 	/**
 	 * The BANNER entity tagger requires a model file and a properties file to run. Both files are
 	 * defined in the descriptor for this Analysis Engine. It is loaded here, and the entity tagger
-	 * is initialized prior to processing any of the document text.
+	 * is initialized prior to processing any of the document text. The loaded model is shared with
+	 * any other BANNER analysis engines in the JVM that reference the same files.
 	 */
 	@Override
 	public void initialize(UimaContext context) throws ResourceInitializationException {
 		super.initialize(context);
-		entityTagger = new Banner_Util();
+		entityTagger = new SharedBannerTagger();
 
 		/*
 		 * Get the model file as defined by the Resource section of the descriptor for this Analysis
@@ -102,19 +122,35 @@ public class BannerEntityTagger_AE extends EntityTagger_AE {
 
 		/* initialize the BANNER tagging system */
 		try {
-			String[] args = { bannerPropertiesFile, bannerModelFile, lemmatiserDataDirectory, posTaggerDataDirectory };
+			String[] args = { bannerPropertiesFile, bannerModelFile, lemmatiserDataDirectory, posTaggerDataDirectory,
+					Integer.toString(maxTaggerInstances) };
 			entityTagger.initialize(ITagger.ENTITY_TAGGER, args);
 		} catch (InitializationException e) {
 			throw new ResourceInitializationException(e);
 		}
 	}
 
+	/**
+	 * The {@link SharedBannerTagger} hands each calling thread its own tagger instance, so sentences
+	 * can be tagged concurrently.
+	 */
+	@Override
+	protected boolean isSentenceProcessingThreadSafe() {
+		return true;
+	}
+
+	@Override
+	public void destroy() {
+		if (entityTagger != null) {
+			entityTagger.shutdown();
+		}
+		super.destroy();
+	}
+
 	public static AnalysisEngineDescription createAnalysisEngineDescription_BioCreative(TypeSystemDescription tsd,
 			Object... configurationData) throws ResourceInitializationException {
 		try {
-			File modelFile = File.createTempFile("gene_model_v02", "bin");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class, "/banner/models/gene_model_v02.bin",
-					modelFile);
+			File modelFile = BannerResourceCache.getFile(BannerEntityTagger_AE.class, "/banner/models/gene_model_v02.bin");
 			return createAnalysisEngineDescription(tsd, modelFile, configurationData);
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
@@ -129,9 +165,8 @@ public class BannerEntityTagger_AE extends EntityTagger_AE {
 	public static AnalysisEngineDescription createAnalysisEngineDescription_Disease(TypeSystemDescription tsd,
 			Object... configurationData) throws ResourceInitializationException {
 		try {
-			File modelFile = File.createTempFile("disease_model_AZDC-mod125", "bin");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/models/disease_model_AZDC-mod125.bin", modelFile);
+			File modelFile = BannerResourceCache.getFile(BannerEntityTagger_AE.class,
+					"/banner/models/disease_model_AZDC-mod125.bin");
 			return createAnalysisEngineDescription(tsd, modelFile, configurationData);
 		} catch (IOException e) {
 			throw new ResourceInitializationException(e);
@@ -156,54 +191,16 @@ public class BannerEntityTagger_AE extends EntityTagger_AE {
 			// BannerEntityModelFile BannerBioCreativeModelFile
 			// nlp-tools/BANNER/data/models/gene_model_v02.bin</fileUrl>
 
-			File propertiesFile = File.createTempFile("banner", "properties");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/properties/banner.properties", propertiesFile);
+			File propertiesFile = BannerResourceCache.getFile(BannerEntityTagger_AE.class,
+					"/banner/properties/banner.properties");
 			ExternalResourceFactory.bindResource(aed, PROPERTIES_FILE_KEY, propertiesFile);
 
-			File lemmatiserDirectory = FileUtil.createTemporaryDirectory("lemmatiser");
-			File adj_exc = new File(lemmatiserDirectory, "adj.exc");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/adj.exc", adj_exc);
-			File adj_index = new File(lemmatiserDirectory, "adj.index");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/adj.index", adj_index);
-			File adv_exc = new File(lemmatiserDirectory, "adv.exc");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/adv.exc", adv_exc);
-			File adv_index = new File(lemmatiserDirectory, "adv.index");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/adv.index", adv_index);
-			File noun_exc = new File(lemmatiserDirectory, "noun.exc");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/noun.exc", noun_exc);
-			File stopwordexc_list = new File(lemmatiserDirectory, "stopwordexc.list");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/stopwordexc.list", stopwordexc_list);
-			File umlserror_list = new File(lemmatiserDirectory, "umlserror.list");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/umlserror.list", umlserror_list);
-			File verb_exc = new File(lemmatiserDirectory, "verb.exc");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/verb.exc", verb_exc);
-			File verb_index = new File(lemmatiserDirectory, "verb.index");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/lemmatiser/verb.index", verb_index);
+			File lemmatiserDirectory = BannerResourceCache.getDirectory(BannerEntityTagger_AE.class,
+					"/banner/nlpdata/lemmatiser", LEMMATISER_FILE_NAMES);
 			ExternalResourceFactory.bindResource(aed, LEMMATISER_PATH_KEY, lemmatiserDirectory);
 
-			File taggerDirectory = FileUtil.createTemporaryDirectory("tagger");
-			File lexDB_serial = new File(taggerDirectory, "lexDB.serial");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/tagger/lexDB.serial", lexDB_serial);
-			File lexicon_all = new File(taggerDirectory, "lexicon_all");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/tagger/lexicon_all", lexicon_all);
-			File ngramOne_serial = new File(taggerDirectory, "ngramOne.serial");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class,
-					"/banner/nlpdata/tagger/ngramOne.serial", ngramOne_serial);
-			File rules_cap = new File(taggerDirectory, "rules_cap");
-			ClassPathUtil.copyClasspathResourceToFile(BannerEntityTagger_AE.class, "/banner/nlpdata/tagger/rules_cap",
-					rules_cap);
+			File taggerDirectory = BannerResourceCache.getDirectory(BannerEntityTagger_AE.class,
+					"/banner/nlpdata/tagger", POS_TAGGER_FILE_NAMES);
 			ExternalResourceFactory.bindResource(aed, POS_PATH_KEY, taggerDirectory);
 		} catch (InvalidXMLException x) {
 			throw new ResourceInitializationException(x);
@@ -0,0 +1,172 @@
+package edu.ucdenver.ccp.nlp.wrapper.banner;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.test.DefaultTestCase;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class BannerResourceCacheTest extends DefaultTestCase {
+
+	private static final String RESOURCE_DIRECTORY = "/edu/ucdenver/ccp/nlp/wrapper/banner";
+	private static final String RESOURCE_PATH = RESOURCE_DIRECTORY + "/sample-resource.txt";
+
+	private File cacheRoot;
+
+	@Before
+	public void setUp() throws IOException {
+		cacheRoot = folder.newFolder("banner-cache");
+		System.setProperty(BannerResourceCache.CACHE_DIRECTORY_PROPERTY, cacheRoot.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(BannerResourceCache.CACHE_DIRECTORY_PROPERTY);
+	}
+
+	@Test
+	public void testGetFile() throws IOException {
+		File file = BannerResourceCache.getFile(getClass(), RESOURCE_PATH);
+		assertTrue(file.isFile());
+		assertEquals("sample-resource.txt", file.getName());
+		assertEquals(BannerResourceCache.getDirectoryName(getClass(), new String[] { RESOURCE_PATH }), file
+				.getParentFile().getName());
+		assertEquals(file, BannerResourceCache.getFile(getClass(), RESOURCE_PATH));
+		assertEquals("Only the extracted directory should remain in the cache", 1, cacheRoot.listFiles().length);
+	}
+
+	@Test
+	public void testGetDirectory() throws IOException {
+		File directory = BannerResourceCache.getDirectory(getClass(), RESOURCE_DIRECTORY, "sample-resource.txt",
+				"sample-resource-2.txt");
+		assertTrue(new File(directory, "sample-resource.txt").isFile());
+		assertTrue(new File(directory, "sample-resource-2.txt").isFile());
+		assertFalse(directory.equals(BannerResourceCache.getFile(getClass(), RESOURCE_PATH).getParentFile()));
+		assertTrue("Other groups of resources should not be deleted", directory.isDirectory());
+	}
+
+	@Test
+	public void testStampChangesWithModificationTime() throws IOException, URISyntaxException {
+		String[] resourcePaths = new String[] { RESOURCE_PATH };
+		String stamp = BannerResourceCache.getStamp(getClass(), resourcePaths);
+		assertNotNull("Resources on the file system should be stamped", stamp);
+		assertEquals(stamp, BannerResourceCache.getStamp(getClass(), resourcePaths));
+
+		File resourceFile = new File(getClass().getResource(RESOURCE_PATH).toURI());
+		long lastModified = resourceFile.lastModified();
+		try {
+			assertTrue(resourceFile.setLastModified(lastModified + 10000));
+			assertFalse(stamp.equals(BannerResourceCache.getStamp(getClass(), resourcePaths)));
+		} finally {
+			resourceFile.setLastModified(lastModified);
+		}
+	}
+
+	/**
+	 * Extracting a modified resource should delete the directory of the earlier version
+	 */
+	@Test
+	public void testEarlierVersionIsDeleted() throws IOException, URISyntaxException {
+		File file = BannerResourceCache.getFile(getClass(), RESOURCE_PATH);
+		File resourceFile = new File(getClass().getResource(RESOURCE_PATH).toURI());
+		long lastModified = resourceFile.lastModified();
+		try {
+			assertTrue(resourceFile.setLastModified(lastModified + 10000));
+			File modifiedFile = BannerResourceCache.getFile(getClass(), RESOURCE_PATH);
+			assertFalse(file.getParentFile().equals(modifiedFile.getParentFile()));
+			assertTrue(modifiedFile.isFile());
+			assertFalse("The earlier version should have been deleted", file.getParentFile().exists());
+		} finally {
+			resourceFile.setLastModified(lastModified);
+		}
+	}
+
+	/**
+	 * A cache directory that is missing one of its files should be extracted again
+	 */
+	@Test
+	public void testMissingExtractedFileIsReplaced() throws IOException {
+		File directory = BannerResourceCache.getDirectory(getClass(), RESOURCE_DIRECTORY, "sample-resource.txt",
+				"sample-resource-2.txt");
+		File file = new File(directory, "sample-resource.txt");
+		assertTrue(file.delete());
+		assertEquals(directory, BannerResourceCache.getDirectory(getClass(), RESOURCE_DIRECTORY,
+				"sample-resource.txt", "sample-resource-2.txt"));
+		List<String> lines = Files.readAllLines(file.toPath());
+		assertEquals("sample BANNER resource", lines.get(0));
+	}
+
+	@Test
+	public void testDefaultCacheDirectoryIsTemporary() throws IOException {
+		System.clearProperty(BannerResourceCache.CACHE_DIRECTORY_PROPERTY);
+		String tmpDir = System.getProperty("java.io.tmpdir");
+		System.setProperty("java.io.tmpdir", folder.getRoot().getAbsolutePath());
+		try {
+			File defaultCacheRoot = BannerResourceCache.getCacheRoot();
+			assertEquals(folder.getRoot().getAbsoluteFile(), defaultCacheRoot.getParentFile().getAbsoluteFile());
+			assertTrue(defaultCacheRoot.isDirectory());
+		} finally {
+			System.setProperty("java.io.tmpdir", tmpDir);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCacheDirectoryWritableByOthersIsRejected() throws IOException {
+		Assume.assumeTrue(cacheRoot.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+		Files.setPosixFilePermissions(cacheRoot.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+		BannerResourceCache.getFile(getClass(), RESOURCE_PATH);
+	}
+
+}
@@ -0,0 +1,160 @@
+package edu.ucdenver.ccp.nlp.wrapper.banner;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.exception.InitializationException;
+import edu.ucdenver.ccp.nlp.core.interfaces.IEntityTagger;
+import edu.ucdenver.ccp.nlp.wrapper.banner.SharedBannerTagger.TaggerPool;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SharedBannerTaggerTest {
+
+	/**
+	 * Stands in for a BANNER tagger, recording whether it has been shut down
+	 */
+	private static class StubTagger implements IEntityTagger {
+		private int shutdownCount = 0;
+
+		@Override
+		public void initialize(int taggerType, String[] args) {
+			// nothing to load
+		}
+
+		@Override
+		public List<TextAnnotation> getEntitiesFromText(String inputText, String documentID) {
+			return new ArrayList<TextAnnotation>();
+		}
+
+		@Override
+		public void shutdown() {
+			shutdownCount++;
+		}
+	}
+
+	private static class StubTaggerPool extends TaggerPool {
+		private final List<StubTagger> taggers = new ArrayList<StubTagger>();
+
+		public StubTaggerPool(int maxInstances) {
+			super("key", new String[] { "properties", "model", "lemmatiser", "tagger" }, maxInstances);
+		}
+
+		@Override
+		IEntityTagger newTagger() {
+			StubTagger tagger = new StubTagger();
+			taggers.add(tagger);
+			return tagger;
+		}
+	}
+
+	@Test
+	public void testIdleInstancesAreReused() throws Exception {
+		StubTaggerPool pool = new StubTaggerPool(0);
+		IEntityTagger tagger = pool.borrow();
+		pool.giveBack(tagger);
+		assertSame(tagger, pool.borrow());
+		assertEquals(1, pool.taggers.size());
+	}
+
+	@Test
+	public void testClearShutsDownIdleAndReturnedInstances() throws Exception {
+		StubTaggerPool pool = new StubTaggerPool(0);
+		IEntityTagger idleTagger = pool.borrow();
+		IEntityTagger borrowedTagger = pool.borrow();
+		assertEquals(2, pool.taggers.size());
+		pool.giveBack(idleTagger);
+
+		pool.clear();
+		assertEquals("The idle instance should have been shut down", 1, pool.taggers.get(0).shutdownCount);
+		assertEquals("The borrowed instance should still be usable", 0, pool.taggers.get(1).shutdownCount);
+
+		pool.giveBack(borrowedTagger);
+		assertEquals("The borrowed instance should have been shut down when returned", 1,
+				pool.taggers.get(1).shutdownCount);
+		assertEquals(1, pool.taggers.get(0).shutdownCount);
+	}
+
+	@Test
+	public void testBorrowWaitsForAnInstanceWhenTheMaximumIsReached() throws Exception {
+		final StubTaggerPool pool = new StubTaggerPool(1);
+		final IEntityTagger tagger = pool.borrow();
+		Thread returner = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				pool.giveBack(tagger);
+			}
+		};
+		returner.start();
+		assertSame(tagger, pool.borrow());
+		returner.join();
+		assertEquals(1, pool.taggers.size());
+	}
+
+	@Test
+	public void testLoadFailureIsReportedToWaitingCallers() throws Exception {
+		StubTaggerPool pool = new StubTaggerPool(0) {
+			@Override
+			IEntityTagger newTagger() {
+				throw new IllegalStateException("model could not be read");
+			}
+		};
+		pool.load();
+		try {
+			pool.awaitLoaded();
+			fail("The load failure should have been reported");
+		} catch (InitializationException e) {
+			// expected
+		}
+	}
+
+}
@@ -77,6 +77,7 @@ import edu.ucdenver.ccp.common.file.FileWriterUtil.FileSuffixEnforcement;
 import edu.ucdenver.ccp.common.file.FileWriterUtil.WriteMode;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.dictionary.SharedDictionaryResource_impl;
 
 /* (non javadoc) 
 
@@ -592,6 +593,8 @@ public class ConceptMapperFactory {
 		// System.out.println(dictionaryFileResourceDesc.getResourceSpecifier().getAttributeValue("fileUrl"));
 		dictionaryFileResourceDesc.getResourceSpecifier()
 				.setAttributeValue("fileUrl", dictionaryFile.getAbsolutePath());
+		// load the dictionary once per JVM (and compile it to disk) instead of once per instance
+		dictionaryFileResourceDesc.setImplementationName(SharedDictionaryResource_impl.class.getName());
 		description.getResourceManagerConfiguration().setExternalResources(
 				new ExternalResourceDescription[] { dictionaryFileResourceDesc });
 
@@ -656,12 +659,13 @@ public class ConceptMapperFactory {
 		ExternalResourceFactory.createDependency(aeDescription, DEPENDENCY_KEY,
 				org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.class);
 
-		// Create a Resource on the key: DictionaryFileName, and class DictionaryResource_impl
+		// Create a Resource on the key: DictionaryFileName, and class SharedDictionaryResource_impl
+		// so that the dictionary is loaded once per JVM (and compiled to disk) instead of once per
+		// instance
 		ExternalResourceDescription resourceDescription = null;
 		{
 			resourceDescription = ExternalResourceFactory.createExternalResourceDescription(
-					org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource_impl.class, "file:///"
-							+ dictionaryFile.getAbsolutePath());
+					SharedDictionaryResource_impl.class, "file:///" + dictionaryFile.getAbsolutePath());
 		}
 
 		// Bind the two, tie that binding into the CM's descriptor
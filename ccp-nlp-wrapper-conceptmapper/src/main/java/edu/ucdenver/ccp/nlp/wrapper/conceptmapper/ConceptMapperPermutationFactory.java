@@ -58,6 +58,7 @@ import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.SearchStr
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.ConceptMapperStemmerFactory;
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.ConceptMapperStemmerFactory.StemmerType;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.tokenizer.OffsetTokenizerFactory;
 
 /**
  * @author Center for Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
@@ -108,6 +109,15 @@ public class ConceptMapperPermutationFactory {
 		public Class<? extends Stemmer> paramValue() {
 			return ConceptMapperStemmerFactory.getStemmerClass(stemmerType);
 		}
+
+		/**
+		 * @param cached
+		 *            if true, the returned stemmer class stores stems in a JVM-wide cache
+		 * @return the stemmer class for this parameter value
+		 */
+		public Class<? extends Stemmer> paramValue(boolean cached) {
+			return ConceptMapperStemmerFactory.getStemmerClass(stemmerType, cached);
+		}
 	}
 
 	/**
@@ -365,6 +375,99 @@ public class ConceptMapperPermutationFactory {
 				orderIndependentLookup, findAllMatches, replaceCommaWithAnd);
 	}
 
+	/**
+	 * Document tokenization depends only on the case match and stemmer parameters, so permutations
+	 * that share the returned key can share a single tokenization of each document.
+	 * 
+	 * @param conceptMapperPermutationNumber
+	 * @return a key identifying the tokenization used by the specified permutation
+	 */
+	public static String getTokenizationKey(int conceptMapperPermutationNumber) {
+		List<String> params = PARAM_COMBINATIONS.get(conceptMapperPermutationNumber);
+		return params.get(1) + " " + params.get(2);
+	}
+
+	/**
+	 * @param conceptMapperPermutationNumber
+	 * @param tsd
+	 * @return a description of the OffsetTokenizer configured for the specified permutation
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public static AnalysisEngineDescription buildTokenizerPermutation(int conceptMapperPermutationNumber,
+			TypeSystemDescription tsd) throws UIMAException, IOException {
+		return buildTokenizerPermutation(conceptMapperPermutationNumber, tsd, false);
+	}
+
+	/**
+	 * @param conceptMapperPermutationNumber
+	 * @param tsd
+	 * @param cacheStems
+	 *            if true, the tokenizer uses a stemmer class that caches stems (see
+	 *            {@link ConceptMapperStemmerFactory#getStemmerClass(StemmerType, boolean)}). The
+	 *            stemmer class name is part of the description, so compiled dictionaries are not
+	 *            shared between cached and uncached descriptions.
+	 * @return a description of the OffsetTokenizer configured for the specified permutation
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public static AnalysisEngineDescription buildTokenizerPermutation(int conceptMapperPermutationNumber,
+			TypeSystemDescription tsd, boolean cacheStems) throws UIMAException, IOException {
+		List<String> params = PARAM_COMBINATIONS.get(conceptMapperPermutationNumber);
+		return OffsetTokenizerFactory.buildOffsetTokenizerDescription(tsd, OffsetTokenizerFactory
+				.buildConfigurationData(getCaseMatchParamValue(params), getStemmerClass(params, cacheStems)));
+	}
+
+	/**
+	 * Returns a description of the ConceptMapper (without the tokenizer) for the specified
+	 * permutation. The CAS to process must already contain the token annotations produced by the
+	 * tokenizer description.
+	 * 
+	 * @param conceptMapperPermutationNumber
+	 * @param tsd
+	 * @param dictionaryFile
+	 * @param spanFeatureStructureClass
+	 * @param tokenizerDescription
+	 *            the description returned by
+	 *            {@link #buildTokenizerPermutation(int, TypeSystemDescription)} for this
+	 *            permutation; ConceptMapper uses it to tokenize the dictionary
+	 * @return
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public static AnalysisEngineDescription buildConceptMapperPermutation(int conceptMapperPermutationNumber,
+			TypeSystemDescription tsd, File dictionaryFile, Class<? extends Annotation> spanFeatureStructureClass,
+			AnalysisEngineDescription tokenizerDescription) throws UIMAException, IOException {
+		return buildConceptMapperPermutation(conceptMapperPermutationNumber, tsd, dictionaryFile,
+				spanFeatureStructureClass, tokenizerDescription, false);
+	}
+
+	/**
+	 * @param conceptMapperPermutationNumber
+	 * @param tsd
+	 * @param dictionaryFile
+	 * @param spanFeatureStructureClass
+	 * @param tokenizerDescription
+	 *            the description returned by
+	 *            {@link #buildTokenizerPermutation(int, TypeSystemDescription, boolean)} for this
+	 *            permutation, using the same cacheStems value
+	 * @param cacheStems
+	 *            if true, ConceptMapper uses a stemmer class that caches stems
+	 * @return
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public static AnalysisEngineDescription buildConceptMapperPermutation(int conceptMapperPermutationNumber,
+			TypeSystemDescription tsd, File dictionaryFile, Class<? extends Annotation> spanFeatureStructureClass,
+			AnalysisEngineDescription tokenizerDescription, boolean cacheStems) throws UIMAException, IOException {
+		List<String> params = PARAM_COMBINATIONS.get(conceptMapperPermutationNumber);
+		boolean replaceCommaWithAnd = false;
+		return ConceptMapperFactory.buildConceptMapperDescription(tsd, dictionaryFile, getCaseMatchParamValue(params),
+				getSearchStrategyParamValue(params), getStemmerClass(params, cacheStems), getStopWordList(params),
+				getOrderIndependentLookup(params), getFindAllMatches(params), replaceCommaWithAnd,
+				spanFeatureStructureClass, tokenizerDescription);
+	}
+
 	/**
 	 * @param paramValues
 	 * @return
@@ -388,8 +491,17 @@ public class ConceptMapperPermutationFactory {
 	 * @return
 	 */
 	private static Class<? extends Stemmer> getStemmerClass(List<String> paramValues) {
+		return getStemmerClass(paramValues, false);
+	}
+
+	/**
+	 * @param paramValues
+	 * @param cached
+	 * @return
+	 */
+	private static Class<? extends Stemmer> getStemmerClass(List<String> paramValues, boolean cached) {
 		String value = StringUtil.removePrefix(paramValues.get(2), STEMMER_KEY);
-		return ConceptMapperStemmerParam.valueOf(value).paramValue();
+		return ConceptMapperStemmerParam.valueOf(value).paramValue(cached);
 	}
 
 	/**
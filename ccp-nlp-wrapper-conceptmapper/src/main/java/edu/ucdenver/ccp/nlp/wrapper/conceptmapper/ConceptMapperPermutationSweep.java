@@ -0,0 +1,555 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.JCasFactory;
+
+import edu.ucdenver.ccp.datasource.fileparsers.obo.OntologyUtil.SynonymType;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.AnnotationComparator;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.PRFResult;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.SpanComparator;
+import edu.ucdenver.ccp.nlp.core.annotation.comparison.StrictSpanComparator;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.mention.comparison.IdenticalMentionComparator;
+import edu.ucdenver.ccp.nlp.core.mention.comparison.MentionComparator;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.annotation.impl.WrappedCCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.ConceptMapperStemmerFactory;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem.ConceptMapper2CCPTypeSystemConverter_AE;
+
+/**
+ * Evaluates a set of {@link ConceptMapperPermutationFactory} permutations against a gold standard
+ * corpus held in memory.
+ * <p>
+ * Running the full tokenizer + ConceptMapper + converter aggregate for each permutation
+ * re-tokenizes every document once per permutation, however tokenization depends only on the case
+ * match and stemmer parameters (see {@link ConceptMapperPermutationFactory#getTokenizationKey(int)}).
+ * This sweep therefore groups the permutations by tokenization key, tokenizes each document once
+ * per group, and keeps the tokenized documents as serialized CASes. The permutations in a group are
+ * then run concurrently, each with its own ConceptMapper + converter engine, starting every
+ * document from a copy of the shared tokenized CAS. Groups are processed one at a time so that only
+ * one tokenization of the corpus is held in memory. The stemmers used by the tokenizer and by
+ * ConceptMapper cache their stems (see {@link ConceptMapperStemmerFactory}), so the stems of frequent
+ * tokens are computed once per JVM rather than once per permutation.
+ * <p>
+ * For each permutation the output annotations are compared to the gold standard using the
+ * {@link AnnotationComparator}, and the PRF, documents processed per second and peak heap usage
+ * are reported. Peak heap usage is taken from the peak usage recorded by the JVM for each heap
+ * memory pool, reset at the start of each group, so short-lived allocations collected between
+ * samples are not missed. The heap is shared by the concurrently running permutations of a group,
+ * so the peak heap reported for a permutation is that of its whole group (including the tokenized
+ * corpus), and is an upper bound on its own footprint.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ConceptMapperPermutationSweep {
+
+	private static final Logger logger = Logger.getLogger(ConceptMapperPermutationSweep.class);
+
+	private final TypeSystemDescription tsd;
+
+	private final Map<SynonymType, File> synonymTypeToDictionaryFileMap;
+
+	private final Class<? extends Annotation> spanFeatureStructureClass;
+
+	private final AnalysisEngineDescription preprocessingDescription;
+
+	private final int threadCount;
+
+	private final SpanComparator spanComparator;
+
+	private final MentionComparator mentionComparator;
+
+	/**
+	 * @param tsd
+	 *            must include the ConceptMapper types as well as the type of the span feature
+	 *            structure class
+	 * @param synonymTypeToDictionaryFileMap
+	 *            the dictionary to use for each {@link SynonymType}; permutations whose synonym type
+	 *            is not in the map cannot be evaluated
+	 * @param spanFeatureStructureClass
+	 *            commonly edu.ucdenver.ccp.nlp.ext.uima.types.Sentence
+	 * @param preprocessingDescription
+	 *            optional, leave null if not desired; run once per document prior to tokenization,
+	 *            typically to add the span feature structure annotations
+	 * @param threadCount
+	 *            the number of permutations to run concurrently
+	 */
+	public ConceptMapperPermutationSweep(TypeSystemDescription tsd, Map<SynonymType, File> synonymTypeToDictionaryFileMap,
+			Class<? extends Annotation> spanFeatureStructureClass, AnalysisEngineDescription preprocessingDescription,
+			int threadCount) {
+		this(tsd, synonymTypeToDictionaryFileMap, spanFeatureStructureClass, preprocessingDescription, threadCount,
+				new StrictSpanComparator(), new IdenticalMentionComparator());
+	}
+
+	/**
+	 * @param tsd
+	 * @param synonymTypeToDictionaryFileMap
+	 * @param spanFeatureStructureClass
+	 * @param preprocessingDescription
+	 * @param threadCount
+	 * @param spanComparator
+	 *            used when comparing the output of each permutation to the gold standard
+	 * @param mentionComparator
+	 *            used when comparing the output of each permutation to the gold standard
+	 */
+	public ConceptMapperPermutationSweep(TypeSystemDescription tsd, Map<SynonymType, File> synonymTypeToDictionaryFileMap,
+			Class<? extends Annotation> spanFeatureStructureClass, AnalysisEngineDescription preprocessingDescription,
+			int threadCount, SpanComparator spanComparator, MentionComparator mentionComparator) {
+		this.tsd = tsd;
+		this.synonymTypeToDictionaryFileMap = synonymTypeToDictionaryFileMap;
+		this.spanFeatureStructureClass = spanFeatureStructureClass;
+		this.preprocessingDescription = preprocessingDescription;
+		this.threadCount = threadCount;
+		this.spanComparator = spanComparator;
+		this.mentionComparator = mentionComparator;
+	}
+
+	/**
+	 * A gold standard document
+	 * 
+	 * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+	 * 
+	 */
+	public static class SweepDocument {
+		private final String documentId;
+		private final String documentText;
+		private final Collection<TextAnnotation> goldAnnotations;
+
+		public SweepDocument(String documentId, String documentText, Collection<TextAnnotation> goldAnnotations) {
+			this.documentId = documentId;
+			this.documentText = documentText;
+			this.goldAnnotations = goldAnnotations;
+		}
+
+		public String getDocumentId() {
+			return documentId;
+		}
+
+		public String getDocumentText() {
+			return documentText;
+		}
+
+		public Collection<TextAnnotation> getGoldAnnotations() {
+			return goldAnnotations;
+		}
+	}
+
+	/**
+	 * The outcome of evaluating a single permutation
+	 * 
+	 * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+	 * 
+	 */
+	public static class SweepResult {
+		private final int permutationNumber;
+		private final PRFResult prf;
+		private final int documentCount;
+		private final long elapsedMillis;
+		private final long peakHeapBytes;
+		private final String failureMessage;
+
+		public SweepResult(int permutationNumber, PRFResult prf, int documentCount, long elapsedMillis,
+				long peakHeapBytes, String failureMessage) {
+			this.permutationNumber = permutationNumber;
+			this.prf = prf;
+			this.documentCount = documentCount;
+			this.elapsedMillis = elapsedMillis;
+			this.peakHeapBytes = peakHeapBytes;
+			this.failureMessage = failureMessage;
+		}
+
+		public int getPermutationNumber() {
+			return permutationNumber;
+		}
+
+		public List<String> getParameters() {
+			return ConceptMapperPermutationFactory.PARAM_COMBINATIONS.get(permutationNumber);
+		}
+
+		public PRFResult getPRFResult() {
+			return prf;
+		}
+
+		public int getDocumentCount() {
+			return documentCount;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		public double getDocumentsPerSecond() {
+			return documentCount / (Math.max(elapsedMillis, 1) / 1000.0);
+		}
+
+		/**
+		 * @return the peak heap usage while the group of permutations sharing this permutation's
+		 *         tokenization was running
+		 */
+		public long getPeakHeapBytes() {
+			return peakHeapBytes;
+		}
+
+		/**
+		 * @return null unless the permutation failed to run
+		 */
+		public String getFailureMessage() {
+			return failureMessage;
+		}
+
+		public boolean failed() {
+			return failureMessage != null;
+		}
+	}
+
+	/**
+	 * Evaluates all permutations listed in {@link ConceptMapperPermutationFactory#PARAM_COMBINATIONS}
+	 * 
+	 * @param documents
+	 * @return the results, ordered by permutation number
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public List<SweepResult> run(List<SweepDocument> documents) throws UIMAException, IOException {
+		List<Integer> permutationNumbers = new ArrayList<Integer>();
+		for (int i = 0; i < ConceptMapperPermutationFactory.PARAM_COMBINATIONS.size(); i++) {
+			permutationNumbers.add(i);
+		}
+		return run(documents, permutationNumbers);
+	}
+
+	/**
+	 * Evaluates the specified permutations. A permutation that fails is reported as a failed
+	 * {@link SweepResult} and does not stop the sweep.
+	 * 
+	 * @param documents
+	 * @param permutationNumbers
+	 * @return the results, ordered by permutation number
+	 * @throws UIMAException
+	 * @throws IOException
+	 */
+	public List<SweepResult> run(List<SweepDocument> documents, Collection<Integer> permutationNumbers)
+			throws UIMAException, IOException {
+		for (Integer permutationNumber : permutationNumbers) {
+			SynonymType synonymType = ConceptMapperPermutationFactory.getSynonymType(permutationNumber);
+			if (!synonymTypeToDictionaryFileMap.containsKey(synonymType)) {
+				throw new IllegalArgumentException("No dictionary was provided for synonym type " + synonymType
+						+ " required by permutation " + permutationNumber);
+			}
+		}
+
+		List<byte[]> preprocessedDocuments = preprocess(documents);
+		List<SweepResult> results = new ArrayList<SweepResult>();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (Map.Entry<String, List<Integer>> entry : groupByTokenizationKey(permutationNumbers).entrySet()) {
+				List<Integer> group = entry.getValue();
+				logger.info("Tokenizing " + documents.size() + " documents for " + entry.getKey() + " ("
+						+ group.size() + " permutations)");
+				AnalysisEngineDescription tokenizerDescription = ConceptMapperPermutationFactory
+						.buildTokenizerPermutation(group.get(0), tsd, true);
+				List<byte[]> tokenizedDocuments = process(tokenizerDescription, preprocessedDocuments);
+
+				resetPeakHeapUsage();
+				List<Future<SweepResult>> futures = new ArrayList<Future<SweepResult>>();
+				for (Integer permutationNumber : group) {
+					futures.add(executor.submit(new PermutationRunner(permutationNumber, tokenizerDescription,
+							documents, tokenizedDocuments)));
+				}
+				List<SweepResult> groupResults = new ArrayList<SweepResult>();
+				for (Future<SweepResult> future : futures) {
+					groupResults.add(future.get());
+				}
+				long peakHeapBytes = getPeakHeapUsage();
+				for (SweepResult result : groupResults) {
+					results.add(new SweepResult(result.getPermutationNumber(), result.getPRFResult(), result
+							.getDocumentCount(), result.getElapsedMillis(), peakHeapBytes, result.getFailureMessage()));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Permutation sweep was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error during permutation sweep", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Collections.sort(results, new Comparator<SweepResult>() {
+			@Override
+			public int compare(SweepResult r1, SweepResult r2) {
+				return r1.getPermutationNumber() - r2.getPermutationNumber();
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Resets the peak usage recorded for each heap memory pool to its current usage
+	 */
+	private static void resetPeakHeapUsage() {
+		for (MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (poolBean.getType() == MemoryType.HEAP && poolBean.isValid()) {
+				poolBean.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * @return the sum of the peak usage of each heap memory pool since the last call to
+	 *         {@link #resetPeakHeapUsage()}. The pools need not peak at the same time, so the sum
+	 *         is an upper bound on the peak heap usage.
+	 */
+	static long getPeakHeapUsage() {
+		long peakHeapBytes = 0;
+		for (MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (poolBean.getType() == MemoryType.HEAP && poolBean.isValid()) {
+				MemoryUsage peakUsage = poolBean.getPeakUsage();
+				if (peakUsage != null) {
+					peakHeapBytes += peakUsage.getUsed();
+				}
+			}
+		}
+		return peakHeapBytes;
+	}
+
+	/**
+	 * @param permutationNumbers
+	 * @return the permutation numbers grouped by tokenization key, in order of first appearance
+	 */
+	static Map<String, List<Integer>> groupByTokenizationKey(Collection<Integer> permutationNumbers) {
+		Map<String, List<Integer>> tokenizationKeyToPermutationsMap = new LinkedHashMap<String, List<Integer>>();
+		for (Integer permutationNumber : permutationNumbers) {
+			String key = ConceptMapperPermutationFactory.getTokenizationKey(permutationNumber);
+			List<Integer> group = tokenizationKeyToPermutationsMap.get(key);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				tokenizationKeyToPermutationsMap.put(key, group);
+			}
+			group.add(permutationNumber);
+		}
+		return tokenizationKeyToPermutationsMap;
+	}
+
+	/**
+	 * @return the serialized CAS for each document after running the optional preprocessing
+	 *         engine
+	 */
+	private List<byte[]> preprocess(List<SweepDocument> documents) throws UIMAException, IOException {
+		List<byte[]> serializedDocuments = new ArrayList<byte[]>(documents.size());
+		AnalysisEngine engine = (preprocessingDescription == null) ? null : UIMAFramework
+				.produceAnalysisEngine(preprocessingDescription);
+		try {
+			JCas jcas = JCasFactory.createJCas(tsd);
+			for (SweepDocument document : documents) {
+				jcas.reset();
+				jcas.setDocumentText(document.getDocumentText());
+				UIMA_Util.setDocumentID(jcas, document.getDocumentId());
+				if (engine != null) {
+					engine.process(jcas);
+				}
+				serializedDocuments.add(serialize(jcas));
+			}
+		} finally {
+			if (engine != null) {
+				engine.destroy();
+			}
+		}
+		return serializedDocuments;
+	}
+
+	/**
+	 * @return the serialized CAS for each input document after processing with the specified
+	 *         engine
+	 */
+	private List<byte[]> process(AnalysisEngineDescription description, List<byte[]> serializedDocuments)
+			throws UIMAException, IOException {
+		List<byte[]> processedDocuments = new ArrayList<byte[]>(serializedDocuments.size());
+		AnalysisEngine engine = UIMAFramework.produceAnalysisEngine(description);
+		try {
+			JCas jcas = JCasFactory.createJCas(tsd);
+			for (byte[] serializedDocument : serializedDocuments) {
+				deserialize(serializedDocument, jcas);
+				engine.process(jcas);
+				processedDocuments.add(serialize(jcas));
+			}
+		} finally {
+			engine.destroy();
+		}
+		return processedDocuments;
+	}
+
+	private static byte[] serialize(JCas jcas) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Serialization.serializeCAS(jcas.getCas(), baos);
+		return baos.toByteArray();
+	}
+
+	private static void deserialize(byte[] serializedDocument, JCas jcas) {
+		jcas.reset();
+		Serialization.deserializeCAS(jcas.getCas(), new ByteArrayInputStream(serializedDocument));
+	}
+
+	/**
+	 * Runs a single permutation over the tokenized documents and compares its output to the gold
+	 * standard
+	 */
+	private class PermutationRunner implements Callable<SweepResult> {
+
+		private final int permutationNumber;
+		private final AnalysisEngineDescription tokenizerDescription;
+		private final List<SweepDocument> documents;
+		private final List<byte[]> tokenizedDocuments;
+
+		public PermutationRunner(int permutationNumber, AnalysisEngineDescription tokenizerDescription,
+				List<SweepDocument> documents, List<byte[]> tokenizedDocuments) {
+			this.permutationNumber = permutationNumber;
+			this.tokenizerDescription = tokenizerDescription;
+			this.documents = documents;
+			this.tokenizedDocuments = tokenizedDocuments;
+		}
+
+		@Override
+		public SweepResult call() {
+			PRFResult prf = new PRFResult(0, 0, 0, "Permutation " + permutationNumber);
+			AnalysisEngine engine = null;
+			long start = System.currentTimeMillis();
+			try {
+				File dictionaryFile = synonymTypeToDictionaryFileMap.get(ConceptMapperPermutationFactory
+						.getSynonymType(permutationNumber));
+				AnalysisEngineDescription conceptMapperDescription = ConceptMapperPermutationFactory
+						.buildConceptMapperPermutation(permutationNumber, tsd, dictionaryFile,
+								spanFeatureStructureClass, tokenizerDescription, true);
+				engine = AnalysisEngineFactory.createAggregate(AnalysisEngineFactory.createAggregateDescription(
+						conceptMapperDescription,
+						ConceptMapper2CCPTypeSystemConverter_AE.createCompactAnalysisEngineDescription(tsd, false)));
+				JCas jcas = JCasFactory.createJCas(tsd);
+				AnnotationComparator annotationComparator = new AnnotationComparator();
+				for (int i = 0; i < documents.size(); i++) {
+					deserialize(tokenizedDocuments.get(i), jcas);
+					engine.process(jcas);
+					prf.add(annotationComparator.compare(documents.get(i).getGoldAnnotations(),
+							getConceptAnnotations(jcas), spanComparator, mentionComparator));
+				}
+				long elapsedMillis = System.currentTimeMillis() - start;
+				logger.info("Permutation " + permutationNumber + " complete in " + elapsedMillis + "ms. F: "
+						+ prf.getFmeasure());
+				return new SweepResult(permutationNumber, prf, documents.size(), elapsedMillis, 0, null);
+			} catch (Exception e) {
+				logger.error("Permutation " + permutationNumber + " failed.", e);
+				return new SweepResult(permutationNumber, prf, 0, System.currentTimeMillis() - start, 0, e.toString());
+			} finally {
+				if (engine != null) {
+					engine.destroy();
+				}
+			}
+		}
+
+		/**
+		 * @return the converted ConceptMapper output, excluding the converted token annotations
+		 */
+		private List<TextAnnotation> getConceptAnnotations(JCas jcas) {
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+			for (Iterator<CCPTextAnnotation> annotIter = UIMA_Util.getTextAnnotationIterator(jcas); annotIter
+					.hasNext();) {
+				CCPTextAnnotation ccpTA = annotIter.next();
+				if (!ccpTA.getClassMention().getMentionName().equals(ClassMentionType.TOKEN.typeName())) {
+					annotations.add(new WrappedCCPTextAnnotation(ccpTA));
+				}
+			}
+			return annotations;
+		}
+	}
+
+	/**
+	 * Prints a tab-delimited table with one row per permutation
+	 * 
+	 * @param results
+	 * @param ps
+	 */
+	public static void printResults(List<SweepResult> results, PrintStream ps) {
+		ps.println("permutation\tP\tR\tF\tTP\tFP\tFN\tdocs/sec\tgroup peak heap (MB)\tparameters");
+		for (SweepResult result : results) {
+			if (result.failed()) {
+				ps.println(result.getPermutationNumber() + "\tFAILED: " + result.getFailureMessage() + "\t"
+						+ result.getParameters());
+				continue;
+			}
+			PRFResult prf = result.getPRFResult();
+			ps.println(String.format("%d\t%.4f\t%.4f\t%.4f\t%d\t%d\t%d\t%.1f\t%d\t%s", result.getPermutationNumber(),
+					prf.getPrecision(), prf.getRecall(), prf.getFmeasure(), prf.getTruePositiveCount(),
+					prf.getFalsePositiveCount(), prf.getFalseNegativeCount(), result.getDocumentsPerSecond(),
+					result.getPeakHeapBytes() / (1024 * 1024), result.getParameters()));
+		}
+	}
+
+}
@@ -0,0 +1,603 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.dictionary;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.analysis_engine.annotator.AnnotatorContext;
+import org.apache.uima.analysis_engine.annotator.AnnotatorContextException;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource_impl;
+import org.apache.uima.conceptMapper.support.dictionaryResource.EntryPropertiesRoot;
+import org.apache.uima.conceptMapper.support.tokens.TokenFilter;
+import org.apache.uima.conceptMapper.support.tokens.TokenNormalizer;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/**
+ * A drop-in replacement for the ConceptMapper {@link DictionaryResource_impl} that avoids
+ * re-parsing the XML dictionary for every ConceptMapper instance.
+ * <p>
+ * The first time a dictionary is loaded with a given set of tokenizer, stemmer, case-matching and
+ * token filter settings, the tokenized entries are serialized to a compiled file written alongside
+ * the XML dictionary, named
+ * <code>&lt;dictionary file name&gt;.&lt;contents SHA-1&gt;.&lt;settings SHA-1&gt;.compiled</code>,
+ * so any change to either produces a new compiled file rather than a stale match. Subsequent loads
+ * (in this or any later JVM) read the compiled file instead of running the tokenizer over the XML.
+ * One compiled file is kept per combination of settings in use. When a compiled file is written
+ * for new dictionary contents, the compiled files for all earlier contents of that dictionary are
+ * deleted. {@link #deleteCompiledDictionaries(File)} removes all compiled files for a dictionary.
+ * <p>
+ * As a compiled file is deserialized, it is only read if it is owned by the current user and is not
+ * writable by other users, and only the classes that make up a compiled dictionary may be
+ * deserialized from it. Otherwise the dictionary is reloaded from the XML and recompiled.
+ * <p>
+ * Loaded dictionaries are also held in a JVM-wide registry, so all ConceptMapper instances in a
+ * process that use the same dictionary and settings (e.g. one per CPE processing thread) share a
+ * single read-only copy of the entries. Lookups on the shared copy are not synchronized. Shared
+ * resource objects are never notified when they are no longer in use, so the registry only holds
+ * soft references: a dictionary that is no longer referenced by any resource can be garbage
+ * collected. Registry entries for earlier versions of a dictionary file are dropped when a new
+ * version is loaded.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SharedDictionaryResource_impl extends DictionaryResource_impl {
+
+	private static final Logger logger = Logger.getLogger(SharedDictionaryResource_impl.class);
+
+	/**
+	 * Suffix appended (after the checksum) to the name of the XML dictionary to form the name of
+	 * the compiled dictionary file
+	 */
+	public static final String COMPILED_DICTIONARY_SUFFIX = ".compiled";
+
+	/**
+	 * The dictionary configuration parameters that influence how dictionary entries are tokenized
+	 * and stored, and therefore must be part of the compiled dictionary key
+	 */
+	private static final String[] DICTIONARY_PARAMETER_NAMES = new String[] { PARAM_ORDERINDEPENDENTLOOKUP,
+			PARAM_ATTRIBUTE_LIST, PARAM_XML_PARSER, "LanguageID", TokenNormalizer.PARAM_CASE_MATCH,
+			TokenNormalizer.PARAM_STEMMER_CLASS, TokenNormalizer.PARAM_STEMMER_DICT, "ReplaceCommaWithAND",
+			TokenFilter.PARAM_STOPWORDS, TokenFilter.PARAM_INCLUDEDTOKENCLASSES,
+			TokenFilter.PARAM_EXCLUDEDTOKENCLASSES, TokenFilter.PARAM_INCLUDEDTOKENTYPES,
+			TokenFilter.PARAM_EXCLUDEDTOKENTYPES };
+
+	/**
+	 * Matches the checksums in the name of a compiled dictionary file
+	 */
+	private static final Pattern COMPILED_DICTIONARY_CHECKSUMS_PATTERN = Pattern.compile("\\.([0-9a-f]{40})\\.[0-9a-f]{40}"
+			+ Pattern.quote(COMPILED_DICTIONARY_SUFFIX));
+
+	/* guarded by itself */
+	private static final Map<String, SoftReference<SharedDictionary>> sharedDictionaries = new HashMap<String, SoftReference<SharedDictionary>>();
+
+	private File dictionaryFile;
+
+	/*
+	 * strong reference to the shared dictionary in use by this resource; keeps it from being
+	 * collected while this resource is alive
+	 */
+	private SharedDictionary sharedDictionary;
+
+	private Map<String, DictEntriesByLength> sharedEntries;
+
+	@Override
+	public void load(DataResource data) throws ResourceInitializationException {
+		super.load(data);
+		dictionaryFile = toFile(data.getUrl());
+	}
+
+	@Override
+	public void loadDictionaryContents(AnnotatorContext context, org.apache.uima.conceptMapper.Logger cmLogger,
+			String tokenAnnotationName, String tokenTypeFeatureName, String tokenClassFeatureName,
+			String tokenizerDescriptor) throws ResourceInitializationException {
+		if (dictionaryFile == null || !dictionaryFile.isFile()) {
+			logger.warn("Unable to share dictionary that is not a local file. Loading a private copy.");
+			super.loadDictionaryContents(context, cmLogger, tokenAnnotationName, tokenTypeFeatureName,
+					tokenClassFeatureName, tokenizerDescriptor);
+			return;
+		}
+		String settings = getSettingsKey(context, tokenAnnotationName, tokenTypeFeatureName, tokenClassFeatureName,
+				tokenizerDescriptor);
+		SharedDictionary shared = getSharedDictionary(dictionaryFile, settings);
+		synchronized (shared) {
+			if (shared.entries == null) {
+				loadShared(shared, context, cmLogger, tokenAnnotationName, tokenTypeFeatureName,
+						tokenClassFeatureName, tokenizerDescriptor, settings);
+			} else {
+				logger.info("Reusing shared dictionary: " + dictionaryFile.getAbsolutePath());
+			}
+		}
+		sharedDictionary = shared;
+		dictImpl = shared.dictImpl;
+		entryPropertiesRoot = shared.entryPropertiesRoot;
+		sharedEntries = shared.entries;
+		setLoaded(true);
+	}
+
+	/**
+	 * @return the registered shared dictionary for the specified dictionary file and settings,
+	 *         registering a new (unloaded) shared dictionary if there is none or it has been
+	 *         garbage collected. Entries for earlier versions of the dictionary file, and entries
+	 *         that have been garbage collected, are removed from the registry.
+	 */
+	private static SharedDictionary getSharedDictionary(File dictionaryFile, String settings) {
+		String pathKey = dictionaryFile.getAbsolutePath() + "|";
+		String versionKey = pathKey + dictionaryFile.length() + "|" + dictionaryFile.lastModified() + "|";
+		String registryKey = versionKey + settings;
+		synchronized (sharedDictionaries) {
+			SoftReference<SharedDictionary> ref = sharedDictionaries.get(registryKey);
+			SharedDictionary shared = (ref == null) ? null : ref.get();
+			if (shared == null) {
+				for (Iterator<Entry<String, SoftReference<SharedDictionary>>> entryIter = sharedDictionaries
+						.entrySet().iterator(); entryIter.hasNext();) {
+					Entry<String, SoftReference<SharedDictionary>> entry = entryIter.next();
+					if (entry.getValue().get() == null
+							|| (entry.getKey().startsWith(pathKey) && !entry.getKey().startsWith(versionKey))) {
+						entryIter.remove();
+					}
+				}
+				shared = new SharedDictionary();
+				sharedDictionaries.put(registryKey, new SoftReference<SharedDictionary>(shared));
+			}
+			return shared;
+		}
+	}
+
+	/**
+	 * Populates the shared dictionary from the compiled dictionary file if one exists for the
+	 * current settings, otherwise loads the XML dictionary and writes the compiled file for use by
+	 * later loads
+	 */
+	private void loadShared(SharedDictionary shared, AnnotatorContext context,
+			org.apache.uima.conceptMapper.Logger cmLogger, String tokenAnnotationName, String tokenTypeFeatureName,
+			String tokenClassFeatureName, String tokenizerDescriptor, String settings)
+			throws ResourceInitializationException {
+		File compiledFile = getCompiledDictionaryFile(dictionaryFile, settings);
+		if (compiledFile.exists()) {
+			try {
+				checkOwnership(compiledFile);
+				readCompiledDictionary(compiledFile);
+				logger.info("Loaded compiled dictionary: " + compiledFile.getAbsolutePath());
+			} catch (IOException e) {
+				logger.warn("Unable to read compiled dictionary " + compiledFile.getAbsolutePath()
+						+ ". Reloading from XML.", e);
+				compiledFile.delete();
+			}
+		}
+		if (!compiledFile.exists()) {
+			dictImpl = new Hashtable<String, DictEntriesByLength>();
+			super.loadDictionaryContents(context, cmLogger, tokenAnnotationName, tokenTypeFeatureName,
+					tokenClassFeatureName, tokenizerDescriptor);
+			writeCompiledDictionary(compiledFile);
+			deleteOutdatedCompiledDictionaries(dictionaryFile, compiledFile);
+		}
+		shared.dictImpl = dictImpl;
+		shared.entryPropertiesRoot = entryPropertiesRoot;
+		shared.entries = new HashMap<String, DictEntriesByLength>(dictImpl);
+	}
+
+	/**
+	 * Ensures that nobody but the current user can have written the compiled dictionary file, as it
+	 * is deserialized when it is loaded
+	 */
+	private static void checkOwnership(File compiledFile) throws IOException {
+		Path compiledPath = compiledFile.toPath();
+		if (!compiledPath.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			return;
+		}
+		UserPrincipal owner = Files.getOwner(compiledPath);
+		/* a file created in the directory is owned by the current user */
+		Path probe = Files.createTempFile(compiledPath.getParent(), "owner", ".tmp");
+		UserPrincipal currentUser;
+		try {
+			currentUser = Files.getOwner(probe);
+		} finally {
+			Files.deleteIfExists(probe);
+		}
+		if (!owner.equals(currentUser)) {
+			throw new IOException("The compiled dictionary is owned by " + owner.getName()
+					+ " rather than by the current user.");
+		}
+		Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(compiledPath);
+		if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+				|| permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+			throw new IOException("The compiled dictionary is writable by other users.");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readCompiledDictionary(File compiledFile) throws IOException {
+		ObjectInputStream ois = new CompiledDictionaryInputStream(new BufferedInputStream(new FileInputStream(
+				compiledFile)));
+		try {
+			entryPropertiesRoot = (EntryPropertiesRoot) ois.readObject();
+			dictImpl = (Hashtable<String, DictEntriesByLength>) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} catch (ClassCastException e) {
+			throw new IOException(e);
+		} finally {
+			ois.close();
+		}
+	}
+
+	/**
+	 * Writes the compiled dictionary to a temporary file in the dictionary directory and then
+	 * renames it so that concurrent processes never observe a partially written file. Failure to
+	 * write is logged but not fatal as the dictionary has already been loaded.
+	 */
+	private void writeCompiledDictionary(File compiledFile) {
+		File tempFile = null;
+		try {
+			tempFile = File.createTempFile(compiledFile.getName(), ".tmp", compiledFile.getParentFile());
+			FileOutputStream fos = new FileOutputStream(tempFile);
+			try {
+				serializeEntries(fos);
+			} finally {
+				fos.close();
+			}
+			if (!tempFile.renameTo(compiledFile) && !compiledFile.exists()) {
+				throw new IOException("Unable to rename " + tempFile.getAbsolutePath() + " to "
+						+ compiledFile.getAbsolutePath());
+			}
+			logger.info("Wrote compiled dictionary: " + compiledFile.getAbsolutePath());
+		} catch (IOException e) {
+			logger.warn("Unable to write compiled dictionary " + compiledFile.getAbsolutePath(), e);
+		} finally {
+			if (tempFile != null && tempFile.exists()) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the compiled files for the specified dictionary that were compiled from dictionary
+	 * contents other than those of the specified (current) compiled file. Compiled files for the
+	 * current contents but other settings are retained.
+	 */
+	private static void deleteOutdatedCompiledDictionaries(File dictionaryFile, File compiledFile) {
+		String contentsChecksum = getContentsChecksum(dictionaryFile, compiledFile);
+		if (contentsChecksum == null) {
+			return;
+		}
+		for (File file : listCompiledDictionaries(dictionaryFile)) {
+			if (!contentsChecksum.equals(getContentsChecksum(dictionaryFile, file))) {
+				if (file.delete()) {
+					logger.info("Deleted outdated compiled dictionary: " + file.getAbsolutePath());
+				} else {
+					logger.warn("Unable to delete outdated compiled dictionary: " + file.getAbsolutePath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all compiled files for the specified dictionary. Dictionaries already loaded are not
+	 * affected; later loads recompile the dictionary.
+	 * 
+	 * @param dictionaryFile
+	 * @return true if all compiled files were deleted
+	 */
+	public static boolean deleteCompiledDictionaries(File dictionaryFile) {
+		boolean deleted = true;
+		for (File file : listCompiledDictionaries(dictionaryFile)) {
+			deleted &= file.delete();
+		}
+		return deleted;
+	}
+
+	/**
+	 * @return the compiled files for the specified dictionary
+	 */
+	static File[] listCompiledDictionaries(final File dictionaryFile) {
+		File[] files = dictionaryFile.getAbsoluteFile().getParentFile().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return getContentsChecksum(dictionaryFile, file) != null;
+			}
+		});
+		return (files == null) ? new File[0] : files;
+	}
+
+	/**
+	 * @return the dictionary contents checksum in the name of the specified compiled dictionary
+	 *         file, or null if the file is not a compiled file for the specified dictionary
+	 */
+	private static String getContentsChecksum(File dictionaryFile, File compiledFile) {
+		String name = compiledFile.getName();
+		String prefix = dictionaryFile.getName();
+		if (!name.startsWith(prefix)) {
+			return null;
+		}
+		Matcher matcher = COMPILED_DICTIONARY_CHECKSUMS_PATTERN.matcher(name.substring(prefix.length()));
+		return matcher.matches() ? matcher.group(1) : null;
+	}
+
+	@Override
+	public DictEntriesByLength getEntries(String key) {
+		if (sharedEntries != null) {
+			return sharedEntries.get(key);
+		}
+		return super.getEntries(key);
+	}
+
+	@Override
+	public Enumeration<String> keys() {
+		if (sharedEntries != null) {
+			return Collections.enumeration(sharedEntries.keySet());
+		}
+		return super.keys();
+	}
+
+	/**
+	 * @param dictionaryFile
+	 * @param settings
+	 * @return the compiled dictionary file for the specified XML dictionary file and settings. The
+	 *         file name includes a checksum of the dictionary contents followed by a checksum of
+	 *         the settings.
+	 * @throws ResourceInitializationException
+	 *             if the dictionary file cannot be read
+	 */
+	static File getCompiledDictionaryFile(File dictionaryFile, String settings)
+			throws ResourceInitializationException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digestFile(digest, dictionaryFile);
+			String contentsChecksum = toHex(digest.digest());
+			String settingsChecksum = toHex(digest.digest(settings.getBytes("UTF-8")));
+			return new File(dictionaryFile.getAbsoluteFile().getParentFile(), dictionaryFile.getName() + "."
+					+ contentsChecksum + "." + settingsChecksum + COMPILED_DICTIONARY_SUFFIX);
+		} catch (NoSuchAlgorithmException e) {
+			throw new ResourceInitializationException(e);
+		} catch (IOException e) {
+			throw new ResourceInitializationException(e);
+		}
+	}
+
+	/**
+	 * @return a string representation of the configuration that determines how dictionary entries
+	 *         are tokenized. The contents (rather than the path) of the tokenizer descriptor are
+	 *         used as descriptors are frequently written to temporary files.
+	 * @throws ResourceInitializationException
+	 */
+	private static String getSettingsKey(AnnotatorContext context, String tokenAnnotationName,
+			String tokenTypeFeatureName, String tokenClassFeatureName, String tokenizerDescriptor)
+			throws ResourceInitializationException {
+		StringBuilder sb = new StringBuilder();
+		sb.append(tokenAnnotationName).append('|').append(tokenTypeFeatureName).append('|')
+				.append(tokenClassFeatureName);
+		try {
+			for (String paramName : DICTIONARY_PARAMETER_NAMES) {
+				Object value = context.getConfigParameterValue(paramName);
+				sb.append('|').append(paramName).append('=');
+				sb.append((value instanceof Object[]) ? Arrays.toString((Object[]) value) : String.valueOf(value));
+			}
+		} catch (AnnotatorContextException e) {
+			throw new ResourceInitializationException(e);
+		}
+		sb.append('|');
+		File tokenizerDescriptorFile = new File(tokenizerDescriptor);
+		if (tokenizerDescriptorFile.isFile()) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				digestFile(digest, tokenizerDescriptorFile);
+				sb.append(toHex(digest.digest()));
+			} catch (NoSuchAlgorithmException e) {
+				throw new ResourceInitializationException(e);
+			} catch (IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+		} else {
+			sb.append(tokenizerDescriptor);
+		}
+		return sb.toString();
+	}
+
+	private static void digestFile(MessageDigest digest, File file) throws IOException {
+		InputStream is = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), digest);
+		try {
+			byte[] buffer = new byte[8192];
+			while (is.read(buffer) != -1) {
+				// reading updates the digest
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return the local file referenced by the input URL, or null if the URL does not reference a
+	 *         local file
+	 */
+	private static File toFile(URL url) {
+		if (url == null || !"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException e) {
+			try {
+				return new File(URLDecoder.decode(url.getPath(), "UTF-8"));
+			} catch (UnsupportedEncodingException e1) {
+				return new File(url.getPath());
+			}
+		} catch (IllegalArgumentException e) {
+			return new File(url.getPath());
+		}
+	}
+
+	/**
+	 * Removes all dictionaries from the JVM-wide registry. Dictionaries remain in use by any
+	 * ConceptMapper instances that have already been initialized.
+	 */
+	public static void clearSharedDictionaries() {
+		synchronized (sharedDictionaries) {
+			sharedDictionaries.clear();
+		}
+	}
+
+	/**
+	 * @return the number of dictionaries in the JVM-wide registry that have not been garbage
+	 *         collected
+	 */
+	static int getSharedDictionaryCount() {
+		synchronized (sharedDictionaries) {
+			int count = 0;
+			for (SoftReference<SharedDictionary> ref : sharedDictionaries.values()) {
+				if (ref.get() != null) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * An {@link ObjectInputStream} that only resolves the classes a compiled dictionary is made of:
+	 * the ConceptMapper dictionary classes (including the {@link EntryPropertiesRoot} and the
+	 * {@link DictEntriesByLength} implementations, which are inner classes of the dictionary
+	 * resource), this resource class, and the JDK strings, numbers and collections they hold. Any
+	 * other class in the stream causes an {@link InvalidClassException}.
+	 */
+	private static class CompiledDictionaryInputStream extends ObjectInputStream {
+
+		private static final String CONCEPTMAPPER_PACKAGE_PREFIX = "org.apache.uima.conceptMapper.";
+
+		private static final Set<String> ALLOWED_CLASS_NAMES = new HashSet<String>(Arrays.asList(
+				SharedDictionaryResource_impl.class.getName(), String.class.getName(), Boolean.class.getName(),
+				Character.class.getName(), Number.class.getName(), Byte.class.getName(), Short.class.getName(),
+				Integer.class.getName(), Long.class.getName(), Float.class.getName(), Double.class.getName(),
+				Enum.class.getName(), File.class.getName(), "java.lang.String$CaseInsensitiveComparator",
+				"java.util.Hashtable", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap",
+				"java.util.ArrayList", "java.util.LinkedList", "java.util.Vector", "java.util.HashSet",
+				"java.util.LinkedHashSet", "java.util.TreeSet"));
+
+		public CompiledDictionaryInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			String className = desc.getName();
+			if (!isAllowed(className)) {
+				throw new InvalidClassException(className, "Class is not part of a compiled dictionary");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("Proxy classes are not part of a compiled dictionary");
+		}
+
+		/**
+		 * @return true if the class, or for an array class its element class, may be deserialized
+		 */
+		private static boolean isAllowed(String className) {
+			String elementClassName = className;
+			while (elementClassName.startsWith("[")) {
+				elementClassName = elementClassName.substring(1);
+			}
+			if (elementClassName.length() != className.length()) {
+				if (elementClassName.length() == 1) {
+					/* array of a primitive type */
+					return true;
+				}
+				if (!elementClassName.startsWith("L") || !elementClassName.endsWith(";")) {
+					return false;
+				}
+				elementClassName = elementClassName.substring(1, elementClassName.length() - 1);
+			}
+			return ALLOWED_CLASS_NAMES.contains(elementClassName)
+					|| elementClassName.startsWith(CONCEPTMAPPER_PACKAGE_PREFIX)
+					|| elementClassName.startsWith(SharedDictionaryResource_impl.class.getName() + "$");
+		}
+	}
+
+	/**
+	 * Holder for a dictionary shared by all resources loaded with the same dictionary file and
+	 * settings
+	 */
+	private static class SharedDictionary {
+		private Hashtable<String, DictEntriesByLength> dictImpl;
+		private EntryPropertiesRoot entryPropertiesRoot;
+		private Map<String, DictEntriesByLength> entries;
+	}
+
+}
@@ -0,0 +1,638 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.log4j.Logger;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher.DictionaryTokenizer.Token;
+
+/**
+ * An immutable, token-level Aho-Corasick automaton compiled from a ConceptMapper dictionary (the
+ * XML format written by the ConceptMapperDictionaryBuilder and OboToDictionary). Dictionary
+ * entries are tokenized and normalized with a {@link DictionaryTokenizer}; matching consumes the
+ * tokens produced by the same tokenizer so that a single left-to-right pass over a span finds
+ * every dictionary entry it contains, independent of the size of the dictionary.
+ * <p>
+ * The automaton is stored in flat arrays (sorted child transitions per state, failure links and
+ * output links) and is never modified after construction, so a single instance can be shared by
+ * any number of threads.
+ * <p>
+ * If order-independent lookup is requested, entries are instead indexed by their sorted tokens
+ * and each contiguous window of tokens (up to the longest entry length) is sorted and looked up,
+ * mirroring the behavior of ConceptMapper.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DictionaryAutomaton {
+
+	private static final Logger logger = Logger.getLogger(DictionaryAutomaton.class);
+
+	private static final String TOKEN_ELEMENT = "token";
+	private static final String VARIANT_ELEMENT = "variant";
+	private static final String ID_ATTRIBUTE = "id";
+	private static final String CANONICAL_ATTRIBUTE = "canonical";
+	private static final String BASE_ATTRIBUTE = "base";
+
+	private static final int NO_STATE = -1;
+	private static final int ROOT = 0;
+
+	private final String[] conceptIds;
+	private final String[] canonicalNames;
+
+	private final Map<String, Integer> vocabulary;
+	private final int[] childOffsets;
+	private final int[] childTokenIds;
+	private final int[] childStates;
+	private final int[] failure;
+	private final int[] outputLink;
+	private final int[] depth;
+	private final int[][] stateConcepts;
+
+	private final Map<String, int[]> orderIndependentEntries;
+	private final int maxEntryLength;
+
+	private DictionaryAutomaton(Builder builder, boolean orderIndependentLookup) {
+		conceptIds = builder.conceptIds.toArray(new String[builder.conceptIds.size()]);
+		canonicalNames = builder.canonicalNames.toArray(new String[builder.canonicalNames.size()]);
+		maxEntryLength = builder.maxEntryLength;
+		if (orderIndependentLookup) {
+			orderIndependentEntries = new HashMap<String, int[]>();
+			for (Entry<String, Set<Integer>> entry : builder.sortedEntries.entrySet()) {
+				orderIndependentEntries.put(entry.getKey(), toArray(entry.getValue()));
+			}
+			vocabulary = Collections.emptyMap();
+			childOffsets = new int[] { 0, 0 };
+			childTokenIds = new int[0];
+			childStates = new int[0];
+			failure = new int[] { ROOT };
+			outputLink = new int[] { NO_STATE };
+			depth = new int[] { 0 };
+			stateConcepts = new int[1][];
+			return;
+		}
+		orderIndependentEntries = null;
+		vocabulary = builder.vocabulary;
+		int stateCount = builder.stateCount;
+		/* the transitions sorted by state and then token id are the child arrays of the states */
+		long[] transitionKeys = builder.transitions.getSortedKeys();
+		childOffsets = new int[stateCount + 1];
+		childTokenIds = new int[transitionKeys.length];
+		childStates = new int[transitionKeys.length];
+		for (int i = 0; i < transitionKeys.length; i++) {
+			int state = TransitionTable.getState(transitionKeys[i]);
+			int tokenId = TransitionTable.getTokenId(transitionKeys[i]);
+			childOffsets[state + 1]++;
+			childTokenIds[i] = tokenId;
+			childStates[i] = builder.transitions.get(state, tokenId);
+		}
+		for (int state = 0; state < stateCount; state++) {
+			childOffsets[state + 1] += childOffsets[state];
+		}
+		depth = Arrays.copyOf(builder.depth, stateCount);
+		stateConcepts = builder.getStateConcepts();
+		failure = new int[stateCount];
+		outputLink = new int[stateCount];
+		computeFailureLinks();
+	}
+
+	/**
+	 * Computes the failure link (longest proper suffix that is also a path in the trie) and the
+	 * output link (nearest state along the failure chain that ends a dictionary entry) for each
+	 * state, in breadth-first order.
+	 */
+	private void computeFailureLinks() {
+		Queue<Integer> queue = new LinkedList<Integer>();
+		failure[ROOT] = ROOT;
+		outputLink[ROOT] = NO_STATE;
+		for (int i = childOffsets[ROOT]; i < childOffsets[ROOT + 1]; i++) {
+			int child = childStates[i];
+			failure[child] = ROOT;
+			outputLink[child] = NO_STATE;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			for (int i = childOffsets[state]; i < childOffsets[state + 1]; i++) {
+				int tokenId = childTokenIds[i];
+				int child = childStates[i];
+				int fallback = failure[state];
+				int next = transition(fallback, tokenId);
+				while (next == NO_STATE && fallback != ROOT) {
+					fallback = failure[fallback];
+					next = transition(fallback, tokenId);
+				}
+				failure[child] = (next == NO_STATE) ? ROOT : next;
+				outputLink[child] = (stateConcepts[failure[child]] != null) ? failure[child]
+						: outputLink[failure[child]];
+				queue.add(child);
+			}
+		}
+	}
+
+	private int transition(int state, int tokenId) {
+		int index = Arrays.binarySearch(childTokenIds, childOffsets[state], childOffsets[state + 1], tokenId);
+		return (index < 0) ? NO_STATE : childStates[index];
+	}
+
+	private static int[] toArray(Set<Integer> set) {
+		int[] array = new int[set.size()];
+		int i = 0;
+		for (Integer value : set) {
+			array[i++] = value;
+		}
+		return array;
+	}
+
+	/**
+	 * @return the number of distinct concepts in the dictionary
+	 */
+	public int getConceptCount() {
+		return conceptIds.length;
+	}
+
+	/**
+	 * @param tokens
+	 *            the tokens of a single span (e.g. a sentence) as produced by the
+	 *            {@link DictionaryTokenizer} used to compile this automaton
+	 * @param findAllMatches
+	 *            if true, all (possibly overlapping) matches are returned; otherwise only the
+	 *            longest match starting at the leftmost position is kept and matching resumes
+	 *            after it (the ConceptMapper ContiguousMatch search strategy)
+	 * @return the matches found in the input tokens, ordered by start position
+	 */
+	public List<DictionaryMatch> match(List<Token> tokens, boolean findAllMatches) {
+		List<int[]> rawMatches = (orderIndependentEntries == null) ? scan(tokens) : scanOrderIndependent(tokens);
+		List<DictionaryMatch> matches = new ArrayList<DictionaryMatch>();
+		if (findAllMatches) {
+			Collections.sort(rawMatches, new Comparator<int[]>() {
+				@Override
+				public int compare(int[] m1, int[] m2) {
+					return (m1[0] != m2[0]) ? m1[0] - m2[0] : m1[1] - m2[1];
+				}
+			});
+			for (int[] rawMatch : rawMatches) {
+				addMatches(matches, tokens, rawMatch);
+			}
+			return matches;
+		}
+		/* keep the longest match starting at each token, then select leftmost-longest */
+		int[][] longest = new int[tokens.size()][];
+		for (int[] rawMatch : rawMatches) {
+			int[] current = longest[rawMatch[0]];
+			if (current == null || rawMatch[1] > current[1]) {
+				longest[rawMatch[0]] = rawMatch;
+			}
+		}
+		int index = 0;
+		while (index < longest.length) {
+			if (longest[index] == null) {
+				index++;
+			} else {
+				addMatches(matches, tokens, longest[index]);
+				index = longest[index][1] + 1;
+			}
+		}
+		return matches;
+	}
+
+	private void addMatches(List<DictionaryMatch> matches, List<Token> tokens, int[] rawMatch) {
+		int begin = tokens.get(rawMatch[0]).getBegin();
+		int end = tokens.get(rawMatch[1]).getEnd();
+		for (int i = 2; i < rawMatch.length; i++) {
+			matches.add(new DictionaryMatch(begin, end, conceptIds[rawMatch[i]], canonicalNames[rawMatch[i]]));
+		}
+	}
+
+	/**
+	 * Runs the automaton over the input tokens
+	 * 
+	 * @return raw matches in the form [first token index, last token index, concept indexes...]
+	 */
+	private List<int[]> scan(List<Token> tokens) {
+		List<int[]> rawMatches = new ArrayList<int[]>();
+		int state = ROOT;
+		for (int tokenIndex = 0; tokenIndex < tokens.size(); tokenIndex++) {
+			Integer tokenId = vocabulary.get(tokens.get(tokenIndex).getText());
+			if (tokenId == null) {
+				state = ROOT;
+				continue;
+			}
+			int next = transition(state, tokenId);
+			while (next == NO_STATE && state != ROOT) {
+				state = failure[state];
+				next = transition(state, tokenId);
+			}
+			state = (next == NO_STATE) ? ROOT : next;
+			for (int output = (stateConcepts[state] != null) ? state : outputLink[state]; output != NO_STATE; output = outputLink[output]) {
+				rawMatches.add(toRawMatch(tokenIndex - depth[output] + 1, tokenIndex, stateConcepts[output]));
+			}
+		}
+		return rawMatches;
+	}
+
+	/**
+	 * Looks up every contiguous window of tokens (up to the longest entry length) by its sorted
+	 * tokens
+	 * 
+	 * @return raw matches in the form [first token index, last token index, concept indexes...]
+	 */
+	private List<int[]> scanOrderIndependent(List<Token> tokens) {
+		List<int[]> rawMatches = new ArrayList<int[]>();
+		for (int begin = 0; begin < tokens.size(); begin++) {
+			int maxEnd = Math.min(tokens.size(), begin + maxEntryLength);
+			for (int end = begin + 1; end <= maxEnd; end++) {
+				String[] window = new String[end - begin];
+				for (int i = begin; i < end; i++) {
+					window[i - begin] = tokens.get(i).getText();
+				}
+				int[] concepts = orderIndependentEntries.get(toSortedKey(window));
+				if (concepts != null) {
+					rawMatches.add(toRawMatch(begin, end - 1, concepts));
+				}
+			}
+		}
+		return rawMatches;
+	}
+
+	private static int[] toRawMatch(int firstTokenIndex, int lastTokenIndex, int[] concepts) {
+		int[] rawMatch = new int[concepts.length + 2];
+		rawMatch[0] = firstTokenIndex;
+		rawMatch[1] = lastTokenIndex;
+		System.arraycopy(concepts, 0, rawMatch, 2, concepts.length);
+		return rawMatch;
+	}
+
+	private static String toSortedKey(String[] tokens) {
+		Arrays.sort(tokens);
+		StringBuilder sb = new StringBuilder();
+		for (String token : tokens) {
+			sb.append(token).append('\u0000');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Compiles an automaton from a ConceptMapper XML dictionary file
+	 * 
+	 * @param dictionaryFile
+	 * @param tokenizer
+	 *            used to tokenize and normalize the dictionary entries; the same tokenizer must be
+	 *            used to tokenize the text to match
+	 * @param orderIndependentLookup
+	 * @return
+	 * @throws IOException
+	 */
+	public static DictionaryAutomaton compile(File dictionaryFile, DictionaryTokenizer tokenizer,
+			boolean orderIndependentLookup) throws IOException {
+		long startTime = System.currentTimeMillis();
+		InputStream is = new BufferedInputStream(new FileInputStream(dictionaryFile));
+		try {
+			DictionaryAutomaton automaton = compile(is, tokenizer, orderIndependentLookup);
+			logger.info("Compiled " + automaton.getConceptCount() + " concepts from "
+					+ dictionaryFile.getAbsolutePath() + " in " + (System.currentTimeMillis() - startTime) + "ms");
+			return automaton;
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Compiles an automaton from a ConceptMapper XML dictionary
+	 * 
+	 * @param dictionaryStream
+	 * @param tokenizer
+	 * @param orderIndependentLookup
+	 * @return
+	 * @throws IOException
+	 */
+	public static DictionaryAutomaton compile(InputStream dictionaryStream, DictionaryTokenizer tokenizer,
+			boolean orderIndependentLookup) throws IOException {
+		Builder builder = new Builder(tokenizer, orderIndependentLookup);
+		try {
+			/* dictionary files are plain XML; entities are never resolved from outside the file */
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+			factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+			factory.newSAXParser().parse(new InputSource(dictionaryStream), builder);
+		} catch (ParserConfigurationException e) {
+			throw new IOException(e);
+		} catch (SAXException e) {
+			throw new IOException(e);
+		}
+		return new DictionaryAutomaton(builder, orderIndependentLookup);
+	}
+
+	/**
+	 * Accumulates the trie (or sorted entry index) while the dictionary XML is parsed. Large
+	 * dictionaries produce tens of millions of trie states, so the trie is accumulated in primitive
+	 * arrays rather than in per-state collections.
+	 */
+	private static class Builder extends DefaultHandler {
+		private final DictionaryTokenizer tokenizer;
+		private final boolean orderIndependentLookup;
+
+		private final List<String> conceptIds = new ArrayList<String>();
+		private final List<String> canonicalNames = new ArrayList<String>();
+		private final Map<String, Integer> conceptIndexes = new HashMap<String, Integer>();
+
+		private final Map<String, Integer> vocabulary = new HashMap<String, Integer>();
+		private final TransitionTable transitions = new TransitionTable();
+		private int stateCount = 0;
+		private int[] depth = new int[1024];
+
+		/* the (state, concept index) pairs of the dictionary entries, in the order they were added */
+		private int entryCount = 0;
+		private int[] entryStates = new int[1024];
+		private int[] entryConcepts = new int[1024];
+
+		private final Map<String, Set<Integer>> sortedEntries = new HashMap<String, Set<Integer>>();
+		private int maxEntryLength = 0;
+
+		private String currentId;
+		private String currentCanonical;
+
+		public Builder(DictionaryTokenizer tokenizer, boolean orderIndependentLookup) {
+			this.tokenizer = tokenizer;
+			this.orderIndependentLookup = orderIndependentLookup;
+			addState(0);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			if (TOKEN_ELEMENT.equals(qName)) {
+				currentId = attributes.getValue(ID_ATTRIBUTE);
+				currentCanonical = attributes.getValue(CANONICAL_ATTRIBUTE);
+			} else if (VARIANT_ELEMENT.equals(qName)) {
+				/* attributes on a variant override those of the enclosing token element */
+				String id = attributes.getValue(ID_ATTRIBUTE);
+				String canonical = attributes.getValue(CANONICAL_ATTRIBUTE);
+				addEntry(attributes.getValue(BASE_ATTRIBUTE), (id == null) ? currentId : id,
+						(canonical == null) ? currentCanonical : canonical);
+			}
+		}
+
+		private void addEntry(String text, String id, String canonical) {
+			if (text == null) {
+				return;
+			}
+			List<String> tokens = tokenizer.tokenizeToStrings(text);
+			if (tokens.isEmpty()) {
+				return;
+			}
+			int conceptIndex = getConceptIndex(id, canonical);
+			maxEntryLength = Math.max(maxEntryLength, tokens.size());
+			if (orderIndependentLookup) {
+				String key = toSortedKey(tokens.toArray(new String[tokens.size()]));
+				Set<Integer> keyConcepts = sortedEntries.get(key);
+				if (keyConcepts == null) {
+					keyConcepts = new LinkedHashSet<Integer>();
+					sortedEntries.put(key, keyConcepts);
+				}
+				keyConcepts.add(conceptIndex);
+				return;
+			}
+			int state = ROOT;
+			for (String token : tokens) {
+				Integer tokenId = vocabulary.get(token);
+				if (tokenId == null) {
+					tokenId = vocabulary.size();
+					vocabulary.put(token, tokenId);
+				}
+				int next = transitions.get(state, tokenId);
+				if (next == NO_STATE) {
+					next = addState(depth[state] + 1);
+					transitions.put(state, tokenId, next);
+				}
+				state = next;
+			}
+			if (entryCount == entryStates.length) {
+				entryStates = Arrays.copyOf(entryStates, 2 * entryCount);
+				entryConcepts = Arrays.copyOf(entryConcepts, 2 * entryCount);
+			}
+			entryStates[entryCount] = state;
+			entryConcepts[entryCount] = conceptIndex;
+			entryCount++;
+		}
+
+		private int addState(int stateDepth) {
+			if (stateCount == depth.length) {
+				depth = Arrays.copyOf(depth, 2 * stateCount);
+			}
+			depth[stateCount] = stateDepth;
+			return stateCount++;
+		}
+
+		/**
+		 * @return the distinct concept indexes of the entries ending at each state, in the order
+		 *         the entries were added; null for states at which no entry ends
+		 */
+		public int[][] getStateConcepts() {
+			int[] counts = new int[stateCount];
+			for (int i = 0; i < entryCount; i++) {
+				counts[entryStates[i]]++;
+			}
+			int[][] stateConcepts = new int[stateCount][];
+			for (int state = 0; state < stateCount; state++) {
+				if (counts[state] > 0) {
+					stateConcepts[state] = new int[counts[state]];
+					counts[state] = 0;
+				}
+			}
+			/* counts now holds the number of distinct concepts added to each state */
+			for (int i = 0; i < entryCount; i++) {
+				int[] concepts = stateConcepts[entryStates[i]];
+				int count = counts[entryStates[i]];
+				if (!contains(concepts, count, entryConcepts[i])) {
+					concepts[count] = entryConcepts[i];
+					counts[entryStates[i]]++;
+				}
+			}
+			for (int state = 0; state < stateCount; state++) {
+				if (stateConcepts[state] != null && counts[state] < stateConcepts[state].length) {
+					stateConcepts[state] = Arrays.copyOf(stateConcepts[state], counts[state]);
+				}
+			}
+			return stateConcepts;
+		}
+
+		private static boolean contains(int[] values, int length, int value) {
+			for (int i = 0; i < length; i++) {
+				if (values[i] == value) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int getConceptIndex(String id, String canonical) {
+			String key = id + "\u0000" + canonical;
+			Integer index = conceptIndexes.get(key);
+			if (index == null) {
+				index = conceptIds.size();
+				conceptIds.add(id);
+				canonicalNames.add(canonical);
+				conceptIndexes.put(key, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * An open-addressing hash table from (state, token id) to child state that stores each
+	 * transition in a single long key and an int value
+	 */
+	private static class TransitionTable {
+		private static final long EMPTY = -1L;
+
+		private long[] keys;
+		private int[] values;
+		private int size = 0;
+
+		public TransitionTable() {
+			allocate(1024);
+		}
+
+		private void allocate(int capacity) {
+			keys = new long[capacity];
+			Arrays.fill(keys, EMPTY);
+			values = new int[capacity];
+		}
+
+		private static long toKey(int state, int tokenId) {
+			return ((long) state << 32) | tokenId;
+		}
+
+		public static int getState(long key) {
+			return (int) (key >>> 32);
+		}
+
+		public static int getTokenId(long key) {
+			return (int) key;
+		}
+
+		private int getSlot(long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+		}
+
+		/**
+		 * @return the child state, or {@link DictionaryAutomaton#NO_STATE} if there is no such
+		 *         transition
+		 */
+		public int get(int state, int tokenId) {
+			long key = toKey(state, tokenId);
+			for (int slot = getSlot(key);; slot = (slot + 1) & (keys.length - 1)) {
+				if (keys[slot] == key) {
+					return values[slot];
+				}
+				if (keys[slot] == EMPTY) {
+					return NO_STATE;
+				}
+			}
+		}
+
+		/**
+		 * Adds a transition that is not yet in the table
+		 */
+		public void put(int state, int tokenId, int child) {
+			if (2 * (size + 1) > keys.length) {
+				long[] oldKeys = keys;
+				int[] oldValues = values;
+				allocate(2 * keys.length);
+				for (int i = 0; i < oldKeys.length; i++) {
+					if (oldKeys[i] != EMPTY) {
+						insert(oldKeys[i], oldValues[i]);
+					}
+				}
+			}
+			insert(toKey(state, tokenId), child);
+			size++;
+		}
+
+		private void insert(long key, int value) {
+			int slot = getSlot(key);
+			while (keys[slot] != EMPTY) {
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			keys[slot] = key;
+			values[slot] = value;
+		}
+
+		/**
+		 * @return the keys of all transitions, sorted by state and then by token id
+		 */
+		public long[] getSortedKeys() {
+			long[] sortedKeys = new long[size];
+			int i = 0;
+			for (long key : keys) {
+				if (key != EMPTY) {
+					sortedKeys[i++] = key;
+				}
+			}
+			Arrays.sort(sortedKeys);
+			return sortedKeys;
+		}
+	}
+
+}
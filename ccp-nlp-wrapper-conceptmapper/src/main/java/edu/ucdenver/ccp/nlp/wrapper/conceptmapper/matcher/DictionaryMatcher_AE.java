@@ -0,0 +1,305 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.uimafit.component.JCasAnnotator_ImplBase;
+import org.uimafit.descriptor.ConfigurationParameter;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.ConfigurationParameterFactory;
+
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotator;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.util.AnnotationProvenanceRegistry;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher.DictionaryTokenizer.Token;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem.CCPConceptMapperTypeSystemConverter_Util;
+
+/**
+ * A dictionary matcher that serves as a drop-in alternative to the OffsetTokenizer + ConceptMapper
+ * + ConceptMapper2CCPTypeSystemConverter_AE pipeline. It consumes the same XML dictionary files,
+ * compiles them into a token-level Aho-Corasick automaton ({@link DictionaryAutomaton}) and adds
+ * CCPTextAnnotations for matched concepts directly to the CAS. No intermediate token or
+ * OntologyTerm annotations are created.
+ * <p>
+ * Compiled automata are immutable and are shared by all instances of this annotator in the JVM
+ * that use the same dictionary file and tokenization settings, so the dictionary is only compiled
+ * (and held in memory) once regardless of the number of processing threads. A shared automaton is
+ * discarded when the last annotator using it is destroyed.
+ * <p>
+ * Only the ConceptMapper ContiguousMatch search strategy is supported.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DictionaryMatcher_AE extends JCasAnnotator_ImplBase {
+
+	private static final Logger logger = Logger.getLogger(DictionaryMatcher_AE.class);
+
+	private static final int ANNOTATOR_ID = 998;
+
+	public static final String PARAM_DICTIONARY_FILE = ConfigurationParameterFactory
+			.createConfigurationParameterName(DictionaryMatcher_AE.class, "dictionaryFile");
+	@ConfigurationParameter(mandatory = true, description = "The ConceptMapper XML dictionary file")
+	private File dictionaryFile;
+
+	public static final String PARAM_CASE_MATCH = ConfigurationParameterFactory.createConfigurationParameterName(
+			DictionaryMatcher_AE.class, "caseMatch");
+	@ConfigurationParameter(mandatory = false, defaultValue = "CASE_INSENSITIVE", description = "The name of the CaseMatchParamValue to use when normalizing tokens")
+	private String caseMatch;
+
+	public static final String PARAM_STEMMER_CLASS = ConfigurationParameterFactory.createConfigurationParameterName(
+			DictionaryMatcher_AE.class, "stemmerClassName");
+	@ConfigurationParameter(mandatory = false, description = "The name of the ConceptMapper Stemmer implementation to use. If not set, no stemming is performed.")
+	private String stemmerClassName;
+
+	public static final String PARAM_STOPWORDS = ConfigurationParameterFactory.createConfigurationParameterName(
+			DictionaryMatcher_AE.class, "stopwords");
+	@ConfigurationParameter(mandatory = false, description = "Words that are ignored in both the dictionary and the text")
+	private String[] stopwords;
+
+	public static final String PARAM_TOKEN_DELIMITERS = ConfigurationParameterFactory
+			.createConfigurationParameterName(DictionaryMatcher_AE.class, "tokenDelimiters");
+	@ConfigurationParameter(mandatory = false, description = "Characters, in addition to whitespace, that separate tokens. Defaults to the delimiters used by the ConceptMapper OffsetTokenizer descriptor.")
+	private String tokenDelimiters;
+
+	public static final String PARAM_ORDER_INDEPENDENT_LOOKUP = ConfigurationParameterFactory
+			.createConfigurationParameterName(DictionaryMatcher_AE.class, "orderIndependentLookup");
+	@ConfigurationParameter(mandatory = false, defaultValue = "false", description = "True if token order should be ignored when matching")
+	private boolean orderIndependentLookup;
+
+	public static final String PARAM_FIND_ALL_MATCHES = ConfigurationParameterFactory
+			.createConfigurationParameterName(DictionaryMatcher_AE.class, "findAllMatches");
+	@ConfigurationParameter(mandatory = false, defaultValue = "false", description = "True if all (including overlapping) matches should be returned, false to return only the longest matches")
+	private boolean findAllMatches;
+
+	public static final String PARAM_SPAN_TYPE = ConfigurationParameterFactory.createConfigurationParameterName(
+			DictionaryMatcher_AE.class, "spanTypeName");
+	@ConfigurationParameter(mandatory = false, description = "The name of the annotation type (commonly a sentence type) that bounds matches. If not set, the entire document text is matched.")
+	private String spanTypeName;
+
+	public static final String PARAM_ADD_CANON_SLOT = ConfigurationParameterFactory.createConfigurationParameterName(
+			DictionaryMatcher_AE.class, "addCanonSlot");
+	@ConfigurationParameter(mandatory = false, defaultValue = "false", description = "True if you want a slot with the canonical name")
+	private boolean addCanonSlot;
+
+	/* guarded by itself */
+	private static final Map<String, SharedAutomaton> sharedAutomata = new HashMap<String, SharedAutomaton>();
+
+	private DictionaryTokenizer tokenizer;
+	private SharedAutomaton sharedAutomaton;
+	private DictionaryAutomaton automaton;
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		CaseMatchParamValue caseMatchParamValue = CaseMatchParamValue.valueOf(caseMatch);
+		Stemmer stemmer = null;
+		if (stemmerClassName != null) {
+			try {
+				stemmer = (Stemmer) Class.forName(stemmerClassName).newInstance();
+			} catch (Exception e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+		tokenizer = new DictionaryTokenizer(caseMatchParamValue, stemmer, stopwords, tokenDelimiters);
+		String key = dictionaryFile.getAbsolutePath() + "|" + dictionaryFile.length() + "|"
+				+ dictionaryFile.lastModified() + "|" + caseMatchParamValue.name() + "|" + stemmerClassName + "|"
+				+ ((stopwords == null) ? null : Arrays.asList(stopwords)) + "|" + tokenDelimiters + "|"
+				+ orderIndependentLookup;
+		SharedAutomaton shared = acquireAutomaton(key);
+		try {
+			automaton = getAutomaton(shared);
+		} catch (ResourceInitializationException e) {
+			releaseAutomaton(shared);
+			throw e;
+		}
+		sharedAutomaton = shared;
+	}
+
+	/**
+	 * @return the automaton held by the specified shared automaton, compiling it if this is the
+	 *         first request for it
+	 * @throws ResourceInitializationException
+	 */
+	private DictionaryAutomaton getAutomaton(SharedAutomaton shared) throws ResourceInitializationException {
+		synchronized (shared) {
+			if (shared.automaton == null) {
+				try {
+					shared.automaton = DictionaryAutomaton.compile(dictionaryFile, tokenizer, orderIndependentLookup);
+				} catch (IOException e) {
+					throw new ResourceInitializationException(e);
+				}
+			} else {
+				logger.info("Reusing compiled dictionary: " + dictionaryFile.getAbsolutePath());
+			}
+			return shared.automaton;
+		}
+	}
+
+	/**
+	 * Releases this annotator's reference to the shared automaton. The automaton is discarded once
+	 * it is no longer referenced.
+	 */
+	@Override
+	public void destroy() {
+		if (sharedAutomaton != null) {
+			releaseAutomaton(sharedAutomaton);
+			sharedAutomaton = null;
+			automaton = null;
+		}
+		super.destroy();
+	}
+
+	private static SharedAutomaton acquireAutomaton(String key) {
+		synchronized (sharedAutomata) {
+			SharedAutomaton shared = sharedAutomata.get(key);
+			if (shared == null) {
+				shared = new SharedAutomaton(key);
+				sharedAutomata.put(key, shared);
+			}
+			shared.referenceCount++;
+			return shared;
+		}
+	}
+
+	private static void releaseAutomaton(SharedAutomaton shared) {
+		synchronized (sharedAutomata) {
+			if (--shared.referenceCount == 0) {
+				sharedAutomata.remove(shared.key);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of automata currently shared by annotators in the JVM
+	 */
+	static int getSharedAutomatonCount() {
+		synchronized (sharedAutomata) {
+			return sharedAutomata.size();
+		}
+	}
+
+	@Override
+	public void process(JCas jcas) throws AnalysisEngineProcessException {
+		CCPAnnotator annotator = AnnotationProvenanceRegistry.getAnnotator(jcas, ANNOTATOR_ID, "DictionaryMatcher",
+				"DictionaryMatcher", "CCP");
+		List<DictionaryMatch> matches = new ArrayList<DictionaryMatch>();
+		if (spanTypeName == null) {
+			matches.addAll(automaton.match(tokenizer.tokenize(jcas.getDocumentText(), 0), findAllMatches));
+		} else {
+			Type spanType = jcas.getTypeSystem().getType(spanTypeName);
+			if (spanType == null) {
+				throw new AnalysisEngineProcessException(new IllegalArgumentException("Unknown span type: "
+						+ spanTypeName));
+			}
+			for (FSIterator<Annotation> spanIter = jcas.getAnnotationIndex(spanType).iterator(); spanIter.hasNext();) {
+				Annotation span = spanIter.next();
+				List<Token> tokens = tokenizer.tokenize(span.getCoveredText(), span.getBegin());
+				matches.addAll(automaton.match(tokens, findAllMatches));
+			}
+		}
+		for (DictionaryMatch match : matches) {
+			CCPTextAnnotation ccpTA = CCPConceptMapperTypeSystemConverter_Util.createConceptAnnotation(jcas,
+					match.getBegin(), match.getEnd(), match.getId(), match.getCanonicalName(), addCanonSlot,
+					annotator);
+			ccpTA.addToIndexes();
+		}
+	}
+
+	/**
+	 * Holder for an automaton shared by all annotators using the same dictionary and settings
+	 */
+	private static class SharedAutomaton {
+		private final String key;
+		/* guarded by this */
+		private DictionaryAutomaton automaton;
+		/* guarded by DictionaryMatcher_AE.sharedAutomata */
+		private int referenceCount = 0;
+
+		public SharedAutomaton(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * @param tsd
+	 * @param dictionaryFile
+	 * @param caseMatchParamValue
+	 * @param stemmerClass
+	 *            optional, leave null if not desired
+	 * @param stopwords
+	 * @param orderIndependentLookup
+	 * @param findAllMatches
+	 * @param spanFeatureStructureClass
+	 *            commonly edu.ucdenver.ccp.nlp.ext.uima.types.Sentence; if null the entire
+	 *            document text is matched
+	 * @param addCanonicalSlot
+	 * @return
+	 * @throws ResourceInitializationException
+	 */
+	public static AnalysisEngineDescription createAnalysisEngineDescription(TypeSystemDescription tsd,
+			File dictionaryFile, CaseMatchParamValue caseMatchParamValue, Class<? extends Stemmer> stemmerClass,
+			String[] stopwords, boolean orderIndependentLookup, boolean findAllMatches,
+			Class<? extends Annotation> spanFeatureStructureClass, boolean addCanonicalSlot)
+			throws ResourceInitializationException {
+		return AnalysisEngineFactory.createPrimitiveDescription(DictionaryMatcher_AE.class, tsd,
+				PARAM_DICTIONARY_FILE, dictionaryFile.getAbsolutePath(), PARAM_CASE_MATCH, caseMatchParamValue.name(),
+				PARAM_STEMMER_CLASS, (stemmerClass == null) ? null : stemmerClass.getName(), PARAM_STOPWORDS,
+				(stopwords == null) ? new String[0] : stopwords, PARAM_ORDER_INDEPENDENT_LOOKUP,
+				orderIndependentLookup, PARAM_FIND_ALL_MATCHES, findAllMatches, PARAM_SPAN_TYPE,
+				(spanFeatureStructureClass == null) ? null : spanFeatureStructureClass.getName(),
+				PARAM_ADD_CANON_SLOT, addCanonicalSlot);
+	}
+
+}
@@ -0,0 +1,216 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
+
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.CachingStemmer;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.StemmerCache;
+
+/**
+ * Splits text into normalized tokens the same way the ConceptMapper OffsetTokenizer does: tokens
+ * are maximal runs of non-delimiter characters, case is folded according to the
+ * {@link CaseMatchParamValue}, and the token is then passed through the (optional) stemmer. Stop
+ * words are removed from the token stream as the ConceptMapper TokenFilter would.
+ * <p>
+ * Instances are immutable and may be shared across threads. A stemmer that is not already a
+ * {@link CachingStemmer} is wrapped in one, which caches stems and serializes calls to the
+ * underlying stemmer.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DictionaryTokenizer {
+
+	private static final String WHITESPACE_DELIMITERS = " \t\n\r\f";
+
+	/**
+	 * The token delimiters used by the OffsetTokenizer descriptor that is part of the ConceptMapper
+	 * distribution
+	 */
+	public static final String DEFAULT_TOKEN_DELIMITERS = "/-*&@(){}|[]><\\'`\":;,$%+.?!";
+
+	private static final Pattern INITIAL_CAP_PATTERN = Pattern.compile("^[A-Z][a-z]+$");
+	private static final Pattern HAS_DIGIT_PATTERN = Pattern.compile("[0-9]");
+
+	private final String delimiters;
+	private final CaseMatchParamValue caseMatch;
+	private final Stemmer stemmer;
+	private final Set<String> stopwords;
+
+	/**
+	 * @param caseMatch
+	 * @param stemmer
+	 *            optional, null if no stemming is desired
+	 * @param stopwords
+	 *            optional, null or empty if no stop words should be removed
+	 * @param tokenDelimiters
+	 *            characters (in addition to whitespace) that separate tokens. If null, the
+	 *            {@link #DEFAULT_TOKEN_DELIMITERS} are used.
+	 */
+	public DictionaryTokenizer(CaseMatchParamValue caseMatch, Stemmer stemmer, String[] stopwords,
+			String tokenDelimiters) {
+		this.caseMatch = caseMatch;
+		this.stemmer = (stemmer == null || stemmer instanceof CachingStemmer) ? stemmer : new CachingStemmer(
+				stemmer, StemmerCache.createDefault());
+		this.delimiters = WHITESPACE_DELIMITERS
+				+ ((tokenDelimiters == null) ? DEFAULT_TOKEN_DELIMITERS : tokenDelimiters);
+		Set<String> stopwordSet = new HashSet<String>();
+		if (stopwords != null) {
+			for (String stopword : stopwords) {
+				stopwordSet.add(stopword.toLowerCase());
+			}
+		}
+		this.stopwords = Collections.unmodifiableSet(stopwordSet);
+	}
+
+	/**
+	 * @param text
+	 * @param offset
+	 *            added to the token offsets, e.g. the start of the sentence in the document text
+	 * @return the normalized tokens (stop words excluded) in the input text
+	 */
+	public List<Token> tokenize(String text, int offset) {
+		List<Token> tokens = new ArrayList<Token>();
+		int length = text.length();
+		int index = 0;
+		while (index < length) {
+			while (index < length && isDelimiter(text.charAt(index))) {
+				index++;
+			}
+			if (index == length) {
+				break;
+			}
+			int start = index;
+			while (index < length && !isDelimiter(text.charAt(index))) {
+				index++;
+			}
+			String normalized = normalize(text.substring(start, index));
+			if (!isStopword(normalized)) {
+				tokens.add(new Token(normalized, start + offset, index + offset));
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * @param text
+	 * @return the normalized token texts (stop words excluded) in the input text
+	 */
+	public List<String> tokenizeToStrings(String text) {
+		List<String> tokenTexts = new ArrayList<String>();
+		for (Token token : tokenize(text, 0)) {
+			tokenTexts.add(token.getText());
+		}
+		return tokenTexts;
+	}
+
+	private boolean isDelimiter(char c) {
+		return delimiters.indexOf(c) >= 0;
+	}
+
+	private boolean isStopword(String token) {
+		return !stopwords.isEmpty() && stopwords.contains(token.toLowerCase());
+	}
+
+	/**
+	 * @param token
+	 * @return the token with case folded and stemmed according to the configuration of this
+	 *         tokenizer
+	 */
+	public String normalize(String token) {
+		String normalized = (shouldFoldCase(token)) ? token.trim().toLowerCase() : token;
+		if (stemmer != null) {
+			normalized = stemmer.stem(normalized.trim());
+		}
+		return normalized;
+	}
+
+	private boolean shouldFoldCase(String token) {
+		switch (caseMatch) {
+		case CASE_IGNORE:
+			return true;
+		case CASE_INSENSITIVE:
+			return INITIAL_CAP_PATTERN.matcher(token).matches();
+		case CASE_FOLD_DIGITS:
+			return HAS_DIGIT_PATTERN.matcher(token).find();
+		case CASE_SENSITIVE:
+			return false;
+		default:
+			throw new IllegalArgumentException("Unhandled case match value: " + caseMatch.name());
+		}
+	}
+
+	/**
+	 * A normalized token and its span in the original text
+	 */
+	public static class Token {
+		private final String text;
+		private final int begin;
+		private final int end;
+
+		public Token(String text, int begin, int end) {
+			this.text = text;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public int getBegin() {
+			return begin;
+		}
+
+		public int getEnd() {
+			return end;
+		}
+
+		@Override
+		public String toString() {
+			return text + " [" + begin + ".." + end + "]";
+		}
+	}
+
+}
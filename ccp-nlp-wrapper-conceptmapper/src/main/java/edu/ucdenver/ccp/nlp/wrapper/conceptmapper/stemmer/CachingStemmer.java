@@ -0,0 +1,94 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.FileNotFoundException;
+import java.text.ParseException;
+
+import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
+
+/**
+ * Wraps a {@link Stemmer} with a {@link StemmerCache}. Cache hits do not touch the wrapped
+ * stemmer. Cache misses call the wrapped stemmer while holding a lock on that stemmer instance, so
+ * instances of this class can be used from multiple threads while misses in different instances
+ * proceed in parallel.
+ * <p>
+ * ConceptMapper instantiates stemmers by class name, so the subclasses of this class provide
+ * zero-argument constructors that share one static cache per stemmer type.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class CachingStemmer implements Stemmer {
+
+	private final Stemmer stemmer;
+	private final StemmerCache cache;
+
+	public CachingStemmer(Stemmer stemmer, StemmerCache cache) {
+		this.stemmer = stemmer;
+		this.cache = cache;
+	}
+
+	@Override
+	public String stem(String token) {
+		if (token == null) {
+			return stemTokenUncached(token);
+		}
+		String stem = cache.get(token);
+		if (stem == null) {
+			stem = stemTokenUncached(token);
+			if (stem != null) {
+				cache.put(token, stem);
+			}
+		}
+		return stem;
+	}
+
+	private String stemTokenUncached(String token) {
+		synchronized (stemmer) {
+			return stemmer.stem(token);
+		}
+	}
+
+	@Override
+	public void initialize(String dictionary) throws FileNotFoundException, ParseException {
+		stemmer.initialize(dictionary);
+	}
+
+	public StemmerCache getCache() {
+		return cache;
+	}
+
+}
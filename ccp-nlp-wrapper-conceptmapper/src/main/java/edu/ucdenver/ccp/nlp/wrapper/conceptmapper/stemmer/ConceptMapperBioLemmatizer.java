@@ -52,12 +52,15 @@ import edu.ucdenver.ccp.nlp.biolemmatizer.LemmataEntry;
 import edu.ucdenver.ccp.nlp.biolemmatizer.LemmataEntry.Lemma;
 
 /**
+ * All instances share a single {@link BioLemmatizer}, which is not thread-safe, so calls to
+ * {@link #stem(String)} are serialized on it across all instances.
+ * 
  * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
  * 
  */
 public class ConceptMapperBioLemmatizer implements Stemmer {
 
-	private static BioLemmatizer bioLemmatizer = new BioLemmatizer();
+	private static final BioLemmatizer bioLemmatizer = new BioLemmatizer();
 
 	/*
 	 * (non-Javadoc)
@@ -69,7 +72,10 @@ public class ConceptMapperBioLemmatizer implements Stemmer {
 		if (bioLemmatizer == null) {
 			throw new RuntimeException("NULL BIOLEMMATIZER");
 		}
-		LemmataEntry entry = bioLemmatizer.lemmatizeByLexiconAndRules(token, null);
+		LemmataEntry entry;
+		synchronized (bioLemmatizer) {
+			entry = bioLemmatizer.lemmatizeByLexiconAndRules(token, null);
+		}
 		Set<String> lemmaStrs = new HashSet<String>();
 		for (Lemma lemma : entry.getLemmas()) {
 			lemmaStrs.add(lemma.getLemma());
@@ -42,12 +42,15 @@ import java.text.ParseException;
 import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
 
 /**
+ * Each instance has its own Porter stemmer, so instances must not be shared across threads
+ * without synchronization.
+ * 
  * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
  * 
  */
 public class ConceptMapperPorterStemmer implements Stemmer {
 
-	private static org.tartarus.martin.Stemmer stemmer = new org.tartarus.martin.Stemmer();
+	private final org.tartarus.martin.Stemmer stemmer = new org.tartarus.martin.Stemmer();
 
 	/*
 	 * (non-Javadoc)
@@ -48,12 +48,27 @@ public class ConceptMapperStemmerFactory {
 		PORTER, BIOLEMMATIZER, NONE
 	}
 	
+	/**
+	 * @param stemmerType
+	 * @return the (uncached) stemmer class for the specified type
+	 */
 	public static Class<? extends Stemmer> getStemmerClass(StemmerType stemmerType) {
+		return getStemmerClass(stemmerType, false);
+	}
+
+	/**
+	 * @param stemmerType
+	 * @param cached
+	 *            if true, the stemmer class returned stores stems in a {@link StemmerCache}
+	 *            shared by all instances
+	 * @return the stemmer class for the specified type
+	 */
+	public static Class<? extends Stemmer> getStemmerClass(StemmerType stemmerType, boolean cached) {
 		switch (stemmerType) {
 		case PORTER:
-			return ConceptMapperPorterStemmer.class;
+			return (cached) ? CachingConceptMapperPorterStemmer.class : ConceptMapperPorterStemmer.class;
 		case BIOLEMMATIZER:
-			return ConceptMapperBioLemmatizer.class;
+			return (cached) ? CachingConceptMapperBioLemmatizer.class : ConceptMapperBioLemmatizer.class;
 		case NONE:
 			return ConceptMapperNullStemmer.class;
 		default:
@@ -0,0 +1,170 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe token-to-stem cache. Entries are held in two generations: when the
+ * current generation reaches half of the maximum size it becomes the previous generation and the
+ * old previous generation is discarded. Entries found in the previous generation are copied into
+ * the current one, so frequently used tokens (the bulk of a Zipfian token stream) survive while
+ * rarely used tokens age out. Lookups do not lock.
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class StemmerCache {
+
+	/**
+	 * System property that sets the maximum number of entries in the caches created by
+	 * {@link #createDefault()}. A value of 0 disables caching.
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "ccp.conceptmapper.stemmer.cache.size";
+
+	public static final int DEFAULT_CACHE_SIZE = 100000;
+
+	private final int generationSize;
+	private volatile ConcurrentMap<String, String> current;
+	private volatile ConcurrentMap<String, String> previous;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * @param maxSize
+	 *            the maximum number of cached entries; 0 disables caching
+	 */
+	public StemmerCache(int maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Cache size must be >= 0: " + maxSize);
+		}
+		this.generationSize = (maxSize == 0) ? 0 : Math.max(1, maxSize / 2);
+		this.current = new ConcurrentHashMap<String, String>();
+		this.previous = new ConcurrentHashMap<String, String>();
+	}
+
+	/**
+	 * @return a cache sized by the {@link #CACHE_SIZE_PROPERTY} system property, or
+	 *         {@link #DEFAULT_CACHE_SIZE} if it is not set
+	 */
+	public static StemmerCache createDefault() {
+		return new StemmerCache(Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+	}
+
+	/**
+	 * @param token
+	 * @return the cached stem for the token, or null if it is not cached
+	 */
+	public String get(String token) {
+		String stem = current.get(token);
+		if (stem == null) {
+			stem = previous.get(token);
+			if (stem != null) {
+				put(token, stem);
+			}
+		}
+		if (stem == null) {
+			missCount.incrementAndGet();
+		} else {
+			hitCount.incrementAndGet();
+		}
+		return stem;
+	}
+
+	/**
+	 * @param token
+	 * @param stem
+	 */
+	public void put(String token, String stem) {
+		if (generationSize == 0) {
+			return;
+		}
+		current.put(token, stem);
+		if (current.size() >= generationSize) {
+			rotate();
+		}
+	}
+
+	private synchronized void rotate() {
+		if (current.size() >= generationSize) {
+			previous = current;
+			current = new ConcurrentHashMap<String, String>();
+		}
+	}
+
+	/**
+	 * Removes all entries and resets the hit and miss counts
+	 */
+	public synchronized void clear() {
+		current = new ConcurrentHashMap<String, String>();
+		previous = new ConcurrentHashMap<String, String>();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	/**
+	 * @return the approximate number of cached entries
+	 */
+	public int size() {
+		return current.size() + previous.size();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return the fraction of lookups that were found in the cache
+	 */
+	public double getHitRate() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+		return (total == 0) ? 0.0 : hits / (double) total;
+	}
+
+	@Override
+	public String toString() {
+		return "StemmerCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", hitRate=" + String.format("%.3f", getHitRate()) + "]";
+	}
+
+}
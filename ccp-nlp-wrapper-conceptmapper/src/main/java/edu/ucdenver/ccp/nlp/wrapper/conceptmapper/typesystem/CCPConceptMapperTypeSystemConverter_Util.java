@@ -33,13 +33,18 @@ package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
 import org.apache.uima.conceptMapper.support.tokenizer.TokenAnnotation;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.cas.IntegerArray;
 import org.apache.uima.jcas.cas.StringArray;
+import org.apache.uima.jcas.tcas.Annotation;
 
 import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
 import edu.ucdenver.ccp.nlp.core.mention.SlotMentionType;
@@ -49,6 +54,7 @@ import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.core.uima.mention.CCPClassMention;
 import edu.ucdenver.ccp.nlp.core.uima.mention.CCPIntegerSlotMention;
 import edu.ucdenver.ccp.nlp.core.uima.mention.CCPStringSlotMention;
+import edu.ucdenver.ccp.nlp.uima.util.AnnotationProvenanceRegistry;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.OntologyTerm;
 
@@ -69,36 +75,79 @@ public class CCPConceptMapperTypeSystemConverter_Util {
 
 	public static CCPTextAnnotation convertOntologyTerm(OntologyTerm ot, JCas jcas, boolean addSlotForCanonicalName) 
 	throws AnalysisEngineProcessException {
+		return createConceptAnnotation(jcas, ot.getBegin(), ot.getEnd(), ot.getID(), ot.getDictCanon(),
+				addSlotForCanonicalName, getConceptMapperAnnotator(jcas));
+	}
+
+	/**
+	 * @param jcas
+	 * @return the annotator assigned to annotations converted from ConceptMapper OntologyTerms
+	 */
+	public static CCPAnnotator getConceptMapperAnnotator(JCas jcas) {
+		return AnnotationProvenanceRegistry.getAnnotator(jcas, 999, "ConceptMapper", "ConceptMapper", "UIMA Sandbox");
+	}
+
+	/**
+	 * @param jcas
+	 * @return the annotator assigned to annotations converted from ConceptMapper TokenAnnotations
+	 */
+	public static CCPAnnotator getTokenizerAnnotator(JCas jcas) {
+		return AnnotationProvenanceRegistry.getAnnotator(jcas, 990, "ConceptMapper", "Tokenizer", "UIMA Sandbox");
+	}
 
-		String type = ot.getDictCanon(); // canonical name
-		String id = ot.getID();
+	/**
+	 * Creates a CCPTextAnnotation for a dictionary concept found in the text. The class mention name
+	 * is the concept identifier.
+	 * 
+	 * @param jcas
+	 * @param begin
+	 * @param end
+	 * @param id
+	 *            the concept identifier
+	 * @param type
+	 *            the canonical name of the concept
+	 * @param addSlotForCanonicalName
+	 * @param annotator
+	 * @return
+	 * @throws AnalysisEngineProcessException
+	 */
+	public static CCPTextAnnotation createConceptAnnotation(JCas jcas, int begin, int end, String id, String type,
+			boolean addSlotForCanonicalName, CCPAnnotator annotator) throws AnalysisEngineProcessException {
+		FSArray slotMentions = (addSlotForCanonicalName) ? createCanonicalNameSlotMentions(jcas, type) : null;
+		return createConceptAnnotation(jcas, begin, end, id, slotMentions, annotator);
+	}
 
+	/**
+	 * Creates a CCPTextAnnotation for a dictionary concept found in the text using the supplied
+	 * slot mentions. The slot mentions array must belong to this annotation only; the slotMentions
+	 * feature does not allow multiple references, so an array shared between class mentions would
+	 * be duplicated when the CAS is serialized to XMI.
+	 * 
+	 * @param jcas
+	 * @param begin
+	 * @param end
+	 * @param id
+	 *            the concept identifier
+	 * @param slotMentions
+	 *            optional, leave null if the class mention should have no slots
+	 * @param annotator
+	 * @return
+	 * @throws AnalysisEngineProcessException
+	 */
+	public static CCPTextAnnotation createConceptAnnotation(JCas jcas, int begin, int end, String id,
+			FSArray slotMentions, CCPAnnotator annotator) throws AnalysisEngineProcessException {
 		CCPTextAnnotation ccpTA = new CCPTextAnnotation(jcas);
-		ccpTA.setBegin(ot.getBegin());
-		ccpTA.setEnd(ot.getEnd());
+		ccpTA.setBegin(begin);
+		ccpTA.setEnd(end);
 		CCPClassMention ccpCM = new CCPClassMention(jcas);
 		ccpCM.setMentionName(id);
 
-		CCPAnnotator annotator = new CCPAnnotator(jcas);
-		annotator.setAffiliation("UIMA Sandbox");
-		annotator.setFirstName("ConceptMapper");
-		annotator.setLastName("ConceptMapper");
-		annotator.setAnnotatorID(999);
 		ccpTA.setAnnotator(annotator);
 
-		/* Add a slot for the type */
-		if (addSlotForCanonicalName) {
-			CCPStringSlotMention slot = new CCPStringSlotMention(jcas);
-			slot.setMentionName(SlotMentionType.CANONICAL_NAME.typeName());
-			StringArray slotValues = new StringArray(jcas,1);
-			slotValues.set(0,type);
-			slot.setSlotValues(slotValues);
-			       
-			FSArray slotMentions = new FSArray(jcas,1);
-			slotMentions.set(0, slot);
+		if (slotMentions != null) {
 			ccpCM.setSlotMentions(slotMentions);
 		}
-		       
+
 		try {
 			UIMA_Util.setCCPClassMentionForCCPTextAnnotation(ccpTA, ccpCM);
 		} catch (CASException e) {
@@ -107,16 +156,74 @@ public class CCPConceptMapperTypeSystemConverter_Util {
 
 		FSArray spans = new FSArray(jcas, 1);
 		CCPSpan ccpSpan = new CCPSpan(jcas);
-		ccpSpan.setSpanStart(ot.getBegin());
-		ccpSpan.setSpanEnd(ot.getEnd());
+		ccpSpan.setSpanStart(begin);
+		ccpSpan.setSpanEnd(end);
 		spans.set(0, ccpSpan);
 		ccpTA.setSpans(spans);
 
 		return ccpTA;
 	}
 
+	/**
+	 * @param jcas
+	 * @param canonicalName
+	 * @return a slot mentions array containing a single canonical name slot
+	 */
+	public static FSArray createCanonicalNameSlotMentions(JCas jcas, String canonicalName) {
+		CCPStringSlotMention slot = new CCPStringSlotMention(jcas);
+		slot.setMentionName(SlotMentionType.CANONICAL_NAME.typeName());
+		StringArray slotValues = new StringArray(jcas, 1);
+		slotValues.set(0, canonicalName);
+		slot.setSlotValues(slotValues);
+
+		FSArray slotMentions = new FSArray(jcas, 1);
+		slotMentions.set(0, slot);
+		return slotMentions;
+	}
+
+	/**
+	 * Converts all TokenAnnotations in the CAS to CCPTextAnnotations and removes the
+	 * TokenAnnotations from the CAS. This can be used to convert tokens that were left in place by
+	 * {@link ConceptMapper2CCPTypeSystemConverter_AE} in
+	 * {@link ConceptMapper2CCPTypeSystemConverter_AE.TokenConversionMode#DEFER} mode.
+	 * 
+	 * @param jcas
+	 * @return the number of tokens converted
+	 * @throws AnalysisEngineProcessException
+	 */
+	public static int convertTokens(JCas jcas) throws AnalysisEngineProcessException {
+		CCPAnnotator annotator = getTokenizerAnnotator(jcas);
+		List<CCPTextAnnotation> annotations2add = new ArrayList<CCPTextAnnotation>();
+		List<Annotation> annotations2remove = new ArrayList<Annotation>();
+		int tokenNumber = 0;
+		for (FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository().getAnnotationIndex(TokenAnnotation.type)
+				.iterator(); annotIter.hasNext();) {
+			TokenAnnotation token = (TokenAnnotation) annotIter.next();
+			CCPTextAnnotation ccpToken = convertToken(token, jcas, tokenNumber, annotator);
+			tokenNumber++;
+			if (ccpToken != null) {
+				annotations2add.add(ccpToken);
+				annotations2remove.add(token);
+			}
+		}
+
+		for (CCPTextAnnotation ccpTA : annotations2add) {
+			ccpTA.addToIndexes();
+		}
+
+		for (Annotation annot : annotations2remove) {
+			annot.removeFromIndexes();
+		}
+		return annotations2add.size();
+	}
+
 	public static CCPTextAnnotation convertToken(TokenAnnotation token, JCas jcas, int tokenNumber)
 			throws AnalysisEngineProcessException {
+		return convertToken(token, jcas, tokenNumber, getTokenizerAnnotator(jcas));
+	}
+
+	public static CCPTextAnnotation convertToken(TokenAnnotation token, JCas jcas, int tokenNumber,
+			CCPAnnotator annotator) throws AnalysisEngineProcessException {
 
 		CCPTextAnnotation ccpTA = new CCPTextAnnotation(jcas);
 		ccpTA.setBegin(token.getBegin());
@@ -149,11 +256,6 @@ public class CCPConceptMapperTypeSystemConverter_Util {
 		spans.set(0, ccpSpan);
 		ccpTA.setSpans(spans);
 
-		CCPAnnotator annotator = new CCPAnnotator(jcas);
-		annotator.setAffiliation("UIMA Sandbox");
-		annotator.setFirstName("ConceptMapper");
-		annotator.setLastName("Tokenizer");
-		annotator.setAnnotatorID(990);
 		ccpTA.setAnnotator(annotator);
 
 		return ccpTA;
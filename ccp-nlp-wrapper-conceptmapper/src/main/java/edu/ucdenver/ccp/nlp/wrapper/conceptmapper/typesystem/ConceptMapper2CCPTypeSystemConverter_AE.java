@@ -56,11 +56,13 @@ package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.conceptMapper.support.tokenizer.TokenAnnotation;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
@@ -69,6 +71,7 @@ import org.uimafit.factory.AnalysisEngineFactory;
 import org.uimafit.descriptor.ConfigurationParameter;
 import org.uimafit.factory.ConfigurationParameterFactory;
 
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPAnnotator;
 import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
 import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.OntologyTerm;
 
@@ -87,36 +90,66 @@ public class ConceptMapper2CCPTypeSystemConverter_AE extends JCasAnnotator_ImplB
                             description = "True if you want a slot with the canonical name")
     private boolean addCanonSlot=false;
 
+	/**
+	 * Determines what is done with the ConceptMapper TokenAnnotations
+	 */
+	public enum TokenConversionMode {
+		/**
+		 * Convert each TokenAnnotation to a CCPTextAnnotation and remove the TokenAnnotation
+		 */
+		CONVERT,
+		/**
+		 * Leave the TokenAnnotations in the CAS unconverted; they can be converted later, if
+		 * needed, using {@link CCPConceptMapperTypeSystemConverter_Util#convertTokens(JCas)}
+		 */
+		DEFER,
+		/**
+		 * Remove the TokenAnnotations from the CAS without converting them
+		 */
+		DROP
+	}
+
+	public final static String PARAM_TOKEN_CONVERSION_MODE = ConfigurationParameterFactory
+			.createConfigurationParameterName(ConceptMapper2CCPTypeSystemConverter_AE.class, "tokenConversionMode");
+	@ConfigurationParameter(mandatory = false, defaultValue = "CONVERT", description = "The name of the TokenConversionMode to use: CONVERT, DEFER or DROP")
+	private String tokenConversionMode;
+
+	private TokenConversionMode conversionMode;
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		conversionMode = TokenConversionMode.valueOf(tokenConversionMode);
+	}
+
 	/**
 	 * Cycle through all OntologyTerms and TokenAnnotations and converts to CCPTextAnnotations.
 	 * OntologyTerm and TokenAnnotation annotations are removed from the CAS once converted.
+	 * TokenAnnotations are handled as specified by the {@link TokenConversionMode}.
 	 */
 	@Override
 	public void process(JCas jcas) throws AnalysisEngineProcessException {
 		/* Convert OntologyTerm annotations */
+		CCPAnnotator annotator = CCPConceptMapperTypeSystemConverter_Util.getConceptMapperAnnotator(jcas);
 		List<CCPTextAnnotation> annotations2add = new ArrayList<CCPTextAnnotation>();
 		List<Annotation> annotations2remove = new ArrayList<Annotation>();
 		for (FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository().getAnnotationIndex(OntologyTerm.type)
 				.iterator(); annotIter.hasNext();) {
 			OntologyTerm ot = (OntologyTerm) annotIter.next();
-			CCPTextAnnotation ccpTA = CCPConceptMapperTypeSystemConverter_Util.convertOntologyTerm(ot, jcas, addCanonSlot);
+			CCPTextAnnotation ccpTA = CCPConceptMapperTypeSystemConverter_Util.createConceptAnnotation(jcas,
+					ot.getBegin(), ot.getEnd(), ot.getID(), getSlotMentions(ot, jcas),
+					annotator);
 			if (ccpTA != null) {
 				annotations2add.add(ccpTA);
 				annotations2remove.add(ot);
 			}
 		}
 
-		/* Now convert token annotations */
-		int tokenNumber = 0;
-		for (FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository().getAnnotationIndex(TokenAnnotation.type)
-				.iterator(); annotIter.hasNext();) {
-			TokenAnnotation token = (TokenAnnotation) annotIter.next();
-			CCPTextAnnotation ccpToken = CCPConceptMapperTypeSystemConverter_Util
-					.convertToken(token, jcas, tokenNumber);
-			tokenNumber++;
-			if (ccpToken != null) {
-				annotations2add.add(ccpToken);
-				annotations2remove.add(token);
+		/* Now handle token annotations */
+		if (conversionMode == TokenConversionMode.DROP) {
+			for (FSIterator<Annotation> annotIter = jcas.getJFSIndexRepository()
+					.getAnnotationIndex(TokenAnnotation.type).iterator(); annotIter.hasNext();) {
+				annotations2remove.add(annotIter.next());
 			}
 		}
 
@@ -127,6 +160,21 @@ public class ConceptMapper2CCPTypeSystemConverter_AE extends JCasAnnotator_ImplB
 		for (Annotation annot : annotations2remove) {
 			annot.removeFromIndexes();
 		}
+
+		if (conversionMode == TokenConversionMode.CONVERT) {
+			CCPConceptMapperTypeSystemConverter_Util.convertTokens(jcas);
+		}
+	}
+
+	/**
+	 * @return the slot mentions for the class mention of the annotation converted from the
+	 *         specified OntologyTerm, null if no slots are to be added
+	 */
+	private FSArray getSlotMentions(OntologyTerm ot, JCas jcas) {
+		if (!addCanonSlot) {
+			return null;
+		}
+		return CCPConceptMapperTypeSystemConverter_Util.createCanonicalNameSlotMentions(jcas, ot.getDictCanon());
 	}
 
 	public static AnalysisEngineDescription createAnalysisEngineDescription(TypeSystemDescription tsd)
@@ -140,4 +188,32 @@ public class ConceptMapper2CCPTypeSystemConverter_AE extends JCasAnnotator_ImplB
 		return AnalysisEngineFactory.createPrimitiveDescription(ConceptMapper2CCPTypeSystemConverter_AE.class, tsd, 
 			PARAM_ADD_CANON_SLOT, addCanonicalSlot);
 	}
+
+	/**
+	 * @param tsd
+	 * @param addCanonicalSlot
+	 * @param tokenConversionMode
+	 * @return
+	 * @throws ResourceInitializationException
+	 */
+	public static AnalysisEngineDescription createAnalysisEngineDescription(TypeSystemDescription tsd,
+			boolean addCanonicalSlot, TokenConversionMode tokenConversionMode)
+			throws ResourceInitializationException {
+		return AnalysisEngineFactory.createPrimitiveDescription(ConceptMapper2CCPTypeSystemConverter_AE.class, tsd,
+				PARAM_ADD_CANON_SLOT, addCanonicalSlot, PARAM_TOKEN_CONVERSION_MODE, tokenConversionMode.name());
+	}
+
+	/**
+	 * Returns a description of the converter in compact mode, i.e. the TokenAnnotations are dropped
+	 * rather than converted. Use this when only the concept annotations are needed downstream.
+	 * 
+	 * @param tsd
+	 * @param addCanonicalSlot
+	 * @return
+	 * @throws ResourceInitializationException
+	 */
+	public static AnalysisEngineDescription createCompactAnalysisEngineDescription(TypeSystemDescription tsd,
+			boolean addCanonicalSlot) throws ResourceInitializationException {
+		return createAnalysisEngineDescription(tsd, addCanonicalSlot, TokenConversionMode.DROP);
+	}
 }
@@ -0,0 +1,188 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.uimafit.component.JCasAnnotator_ImplBase;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.TypeSystemDescriptionFactory;
+
+import edu.ucdenver.ccp.datasource.fileparsers.obo.OntologyUtil.SynonymType;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperPermutationFactory.ConceptMapperStemmerParam;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperPermutationSweep.SweepDocument;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperPermutationSweep.SweepResult;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.dictionary.ConceptMapperDictionaryBuilder;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ConceptMapperPermutationSweepTest {
+
+	private static final String TEXT = "The NEF1 complex is part of the nucleotide-excision repair complex.";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Adds a single sentence covering the document text
+	 */
+	public static class DocumentSentence_AE extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jcas) {
+			new Sentence(jcas, 0, jcas.getDocumentText().length()).addToIndexes();
+		}
+	}
+
+	@Test
+	public void testGroupByTokenizationKey() {
+		List<Integer> permutationNumbers = new ArrayList<Integer>();
+		for (int i = 0; i < ConceptMapperPermutationFactory.PARAM_COMBINATIONS.size(); i++) {
+			permutationNumbers.add(i);
+		}
+		Map<String, List<Integer>> groups = ConceptMapperPermutationSweep.groupByTokenizationKey(permutationNumbers);
+		assertEquals("There should be one group per case match / stemmer combination",
+				CaseMatchParamValue.values().length * ConceptMapperStemmerParam.values().length, groups.size());
+
+		int permutationCount = 0;
+		for (List<Integer> group : groups.values()) {
+			List<String> firstParams = ConceptMapperPermutationFactory.PARAM_COMBINATIONS.get(group.get(0));
+			for (Integer permutationNumber : group) {
+				List<String> params = ConceptMapperPermutationFactory.PARAM_COMBINATIONS.get(permutationNumber);
+				assertEquals("Case match should be shared within a group", firstParams.get(1), params.get(1));
+				assertEquals("Stemmer should be shared within a group", firstParams.get(2), params.get(2));
+			}
+			permutationCount += group.size();
+		}
+		assertEquals(ConceptMapperPermutationFactory.PARAM_COMBINATIONS.size(), permutationCount);
+	}
+
+	/**
+	 * @return the number of the contiguous match, case insensitive permutation without stemming or
+	 *         stopwords that uses the specified "find all matches" setting
+	 */
+	private static int getPermutationNumber(String findAllMatches) {
+		List<String> params = Arrays.asList(ConceptMapperPermutationFactory.SEARCH_STRATEGY_KEY + "CONTIGUOUS_MATCH",
+				ConceptMapperPermutationFactory.CASE_MATCH_KEY + "CASE_INSENSITIVE",
+				ConceptMapperPermutationFactory.STEMMER_KEY + "NONE",
+				ConceptMapperPermutationFactory.STOPWORDS_KEY + "NONE",
+				ConceptMapperPermutationFactory.ORDER_INDEPENDENT_LOOKUP_KEY + "OFF",
+				ConceptMapperPermutationFactory.FIND_ALL_MATCHES_KEY + findAllMatches,
+				ConceptMapperPermutationFactory.SYNONYM_TYPE_KEY + "ALL");
+		int permutationNumber = ConceptMapperPermutationFactory.PARAM_COMBINATIONS.indexOf(params);
+		assertTrue(permutationNumber >= 0);
+		return permutationNumber;
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		File dictionaryFile = folder.newFile("cm-dict.xml");
+		ConceptMapperDictionaryBuilder builder = new ConceptMapperDictionaryBuilder(dictionaryFile, 0);
+		builder.addEntry("GO:0000109", Arrays.asList("nucleotide-excision repair complex"));
+		builder.addEntry("GO:0000110", Arrays.asList("NEF1 complex"));
+		builder.addEntry("GO:9999999", Arrays.asList("repair complex"));
+		builder.close();
+
+		TypeSystemDescription tsd = TypeSystemDescriptionFactory.createTypeSystemDescription(
+				"edu.ucdenver.ccp.nlp.core.uima.TypeSystem", "edu.ucdenver.ccp.nlp.wrapper.conceptmapper.TypeSystem",
+				"edu.ucdenver.ccp.nlp.wrapper.conceptmapper.TestTypeSystem", "analysis_engine.primitive.DictTerm",
+				"org.apache.uima.conceptMapper.support.tokenizer.TokenAnnotation", "uima.tt.TokenAnnotation");
+		AnalysisEngineDescription sentenceDescription = AnalysisEngineFactory.createPrimitiveDescription(
+				DocumentSentence_AE.class, tsd);
+
+		TextAnnotationFactory annotationFactory = TextAnnotationFactory.createFactoryWithDefaults("doc1");
+		List<TextAnnotation> goldAnnotations = Arrays.asList(
+				annotationFactory.createAnnotation(4, 16, "NEF1 complex", new DefaultClassMention("GO:0000110")),
+				annotationFactory.createAnnotation(32, 66, "nucleotide-excision repair complex",
+						new DefaultClassMention("GO:0000109")));
+		for (TextAnnotation goldAnnotation : goldAnnotations) {
+			/* matches the document collection ID assigned to the ConceptMapper output */
+			goldAnnotation.setDocumentCollectionID(0);
+		}
+		List<SweepDocument> documents = Collections.singletonList(new SweepDocument("doc1", TEXT,
+				goldAnnotations));
+
+		int longestMatchesPermutation = getPermutationNumber("NO");
+		int allMatchesPermutation = getPermutationNumber("YES");
+		ConceptMapperPermutationSweep sweep = new ConceptMapperPermutationSweep(tsd,
+				Collections.singletonMap(SynonymType.ALL, dictionaryFile), Sentence.class, sentenceDescription, 2);
+		List<SweepResult> results = sweep.run(documents, Arrays.asList(allMatchesPermutation,
+				longestMatchesPermutation));
+
+		assertEquals(2, results.size());
+		SweepResult longestMatchesResult = results.get(longestMatchesPermutation < allMatchesPermutation ? 0 : 1);
+		SweepResult allMatchesResult = results.get(longestMatchesPermutation < allMatchesPermutation ? 1 : 0);
+		assertEquals(longestMatchesPermutation, longestMatchesResult.getPermutationNumber());
+		for (SweepResult result : results) {
+			assertFalse(result.getFailureMessage(), result.failed());
+			assertEquals(1, result.getDocumentCount());
+			assertEquals(2, result.getPRFResult().getTruePositiveCount());
+			assertEquals(0, result.getPRFResult().getFalseNegativeCount());
+			assertTrue(result.getPeakHeapBytes() > 0);
+		}
+		assertEquals(0, longestMatchesResult.getPRFResult().getFalsePositiveCount());
+		assertEquals("The nested repair complex should be a false positive", 1, allMatchesResult.getPRFResult()
+				.getFalsePositiveCount());
+		assertEquals("Permutations sharing a tokenization share a peak heap measurement",
+				longestMatchesResult.getPeakHeapBytes(), allMatchesResult.getPeakHeapBytes());
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ConceptMapperPermutationSweep.printResults(results, new PrintStream(baos));
+		assertEquals(3, baos.toString().split("\n").length);
+	}
+
+}
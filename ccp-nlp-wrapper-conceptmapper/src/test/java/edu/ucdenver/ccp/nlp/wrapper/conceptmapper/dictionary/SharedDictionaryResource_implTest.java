@@ -0,0 +1,261 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.dictionary;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.Assume;
+import org.junit.Test;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.ResourceCreationSpecifierFactory;
+import org.uimafit.factory.TypeSystemDescriptionFactory;
+import org.uimafit.util.JCasUtil;
+
+import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.SearchStrategyParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.OntologyTerm;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.Sentence;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.tokenizer.OffsetTokenizerFactory;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class SharedDictionaryResource_implTest extends DefaultUIMATestCase {
+
+	private static final String TOKENIZER_XML_NAME = "analysis_engine/primitive/OffsetTokenizer.xml";
+
+	private static final String TEXT = "The NEF1 complex is part of the nucleotide-excision repair complex.";
+
+	private File dictionaryFile;
+	private File tokenizerXmlFile;
+
+	@Override
+	protected TypeSystemDescription getTypeSystem() {
+		return TypeSystemDescriptionFactory.createTypeSystemDescription("edu.ucdenver.ccp.nlp.core.uima.TypeSystem",
+				"edu.ucdenver.ccp.nlp.wrapper.conceptmapper.TypeSystem",
+				"edu.ucdenver.ccp.nlp.wrapper.conceptmapper.TestTypeSystem", "analysis_engine.primitive.DictTerm",
+				"org.apache.uima.conceptMapper.support.tokenizer.TokenAnnotation", "uima.tt.TokenAnnotation");
+	}
+
+	@Override
+	protected void initJCas() throws UIMAException, IOException {
+		jcas.setDocumentText(TEXT);
+		new Sentence(jcas, 0, TEXT.length()).addToIndexes();
+
+		SharedDictionaryResource_impl.clearSharedDictionaries();
+		dictionaryFile = folder.newFile("cm-dict.xml");
+		writeDictionary(false);
+		tokenizerXmlFile = folder.newFile("offset_tokenizer.xml");
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), TOKENIZER_XML_NAME, tokenizerXmlFile);
+	}
+
+	private void writeDictionary(boolean includeRepairComplex) throws IOException {
+		ConceptMapperDictionaryBuilder builder = new ConceptMapperDictionaryBuilder(dictionaryFile, 0);
+		builder.addEntry("GO:0000109", Arrays.asList("nucleotide-excision repair complex"));
+		builder.addEntry("GO:0000110", Arrays.asList("nucleotide-excision repair factor 1 complex", "NEF1 complex"));
+		if (includeRepairComplex) {
+			builder.addEntry("GO:9999999", Arrays.asList("repair complex"));
+		}
+		builder.close();
+	}
+
+	/**
+	 * Runs the OffsetTokenizer and ConceptMapper over a fresh copy of the test document
+	 * 
+	 * @return the IDs of the concepts found
+	 */
+	private List<String> runConceptMapper(CaseMatchParamValue caseMatchParamValue, boolean findAllMatches)
+			throws UIMAException, IOException {
+		jcas.reset();
+		jcas.setDocumentText(TEXT);
+		new Sentence(jcas, 0, TEXT.length()).addToIndexes();
+
+		Object[] tokenizerConfigData = OffsetTokenizerFactory.buildConfigurationData(caseMatchParamValue);
+		AnalysisEngineDescription tokenizerDescription = (AnalysisEngineDescription) ResourceCreationSpecifierFactory
+				.createResourceCreationSpecifier(tokenizerXmlFile.getAbsolutePath(), tokenizerConfigData);
+		tokenizerDescription.getAnalysisEngineMetaData().setTypeSystem(tsd);
+		AnalysisEngineDescription conceptMapperDescription = ConceptMapperFactory.buildConceptMapperDescription(tsd,
+				dictionaryFile, caseMatchParamValue, SearchStrategyParamValue.CONTIGUOUS_MATCH, null, new String[0],
+				false, findAllMatches, false, Sentence.class, tokenizerXmlFile);
+
+		AnalysisEngine tokenizerEngine = UIMAFramework.produceAnalysisEngine(tokenizerDescription);
+		AnalysisEngine conceptMapperEngine = AnalysisEngineFactory.createPrimitive(conceptMapperDescription);
+		tokenizerEngine.process(jcas);
+		conceptMapperEngine.process(jcas);
+		tokenizerEngine.destroy();
+		conceptMapperEngine.destroy();
+
+		List<String> ids = new ArrayList<String>();
+		for (OntologyTerm term : JCasUtil.iterate(jcas, OntologyTerm.class)) {
+			ids.add(term.getID());
+		}
+		return ids;
+	}
+
+	@Test
+	public void testCompiledDictionaryIsWrittenAndReused() throws UIMAException, IOException {
+		assertEquals(0, SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile).length);
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false));
+		File[] compiledFiles = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile);
+		assertEquals("The dictionary should have been compiled to disk", 1, compiledFiles.length);
+		File compiledFile = compiledFiles[0];
+		long compiledTime = compiledFile.lastModified() - 10000;
+		assertTrue(compiledFile.setLastModified(compiledTime));
+
+		/* a new JVM-wide registry must load the compiled file rather than recompile it */
+		SharedDictionaryResource_impl.clearSharedDictionaries();
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false));
+		compiledFiles = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile);
+		assertEquals(1, compiledFiles.length);
+		assertEquals(compiledFile, compiledFiles[0]);
+		assertEquals("The compiled file should not have been rewritten", compiledTime, compiledFile.lastModified());
+		assertEquals(1, SharedDictionaryResource_impl.getSharedDictionaryCount());
+	}
+
+	@Test
+	public void testCompiledDictionaryIsKeyedOnSettings() throws UIMAException, IOException {
+		runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false);
+		runConceptMapper(CaseMatchParamValue.CASE_SENSITIVE, false);
+		assertEquals("Each tokenization setting should have its own compiled dictionary", 2,
+				SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile).length);
+		assertEquals(2, SharedDictionaryResource_impl.getSharedDictionaryCount());
+
+		/* the search settings do not affect how the dictionary is tokenized */
+		runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, true);
+		assertEquals(2, SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile).length);
+	}
+
+	@Test
+	public void testCompiledDictionaryIsKeyedOnContents() throws UIMAException, IOException {
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, true));
+		File oldCompiledFile = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile)[0];
+
+		writeDictionary(true);
+		assertTrue(dictionaryFile.setLastModified(dictionaryFile.lastModified() + 10000));
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109", "GO:9999999"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, true));
+		File[] compiledFiles = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile);
+		assertEquals("The compiled file for the old contents should have been replaced", 1, compiledFiles.length);
+		assertFalse(oldCompiledFile.equals(compiledFiles[0]));
+		assertFalse(oldCompiledFile.exists());
+		assertEquals("The old version should have been dropped from the registry", 1,
+				SharedDictionaryResource_impl.getSharedDictionaryCount());
+
+		assertTrue(SharedDictionaryResource_impl.deleteCompiledDictionaries(dictionaryFile));
+		assertEquals(0, SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile).length);
+	}
+
+	@Test
+	public void testCompiledDictionaryWithUnexpectedClassIsRecompiled() throws UIMAException, IOException {
+		runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false);
+		File compiledFile = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile)[0];
+		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(compiledFile));
+		try {
+			oos.writeObject(new Date());
+		} finally {
+			oos.close();
+		}
+		long tamperedTime = compiledFile.lastModified() - 10000;
+		assertTrue(compiledFile.setLastModified(tamperedTime));
+
+		SharedDictionaryResource_impl.clearSharedDictionaries();
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false));
+		assertTrue("The compiled file should have been rewritten", compiledFile.lastModified() != tamperedTime);
+	}
+
+	@Test
+	public void testCompiledDictionaryWritableByOthersIsRecompiled() throws UIMAException, IOException {
+		runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false);
+		File compiledFile = SharedDictionaryResource_impl.listCompiledDictionaries(dictionaryFile)[0];
+		Assume.assumeTrue(compiledFile.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+		Files.setPosixFilePermissions(compiledFile.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+		long compiledTime = compiledFile.lastModified() - 10000;
+		assertTrue(compiledFile.setLastModified(compiledTime));
+
+		SharedDictionaryResource_impl.clearSharedDictionaries();
+		assertEquals(Arrays.asList("GO:0000110", "GO:0000109"),
+				runConceptMapper(CaseMatchParamValue.CASE_INSENSITIVE, false));
+		assertTrue("The compiled file should have been rewritten", compiledFile.lastModified() != compiledTime);
+		assertFalse(Files.getPosixFilePermissions(compiledFile.toPath()).contains(PosixFilePermission.OTHERS_WRITE));
+	}
+
+	@Test
+	public void testGetCompiledDictionaryFile() throws Exception {
+		File compiledFile = SharedDictionaryResource_impl.getCompiledDictionaryFile(dictionaryFile, "settings");
+		assertEquals(compiledFile, SharedDictionaryResource_impl.getCompiledDictionaryFile(dictionaryFile, "settings"));
+		String[] checksums = compiledFile.getName().split("\\.");
+		assertEquals(Arrays.asList("cm-dict", "xml", checksums[2], checksums[3], "compiled"), Arrays.asList(checksums));
+
+		String[] otherSettingsChecksums = SharedDictionaryResource_impl
+				.getCompiledDictionaryFile(dictionaryFile, "other settings").getName().split("\\.");
+		assertEquals(checksums[2], otherSettingsChecksums[2]);
+		assertFalse(checksums[3].equals(otherSettingsChecksums[3]));
+
+		writeDictionary(true);
+		String[] otherContentsChecksums = SharedDictionaryResource_impl
+				.getCompiledDictionaryFile(dictionaryFile, "settings").getName().split("\\.");
+		assertFalse(checksums[2].equals(otherContentsChecksums[2]));
+		assertEquals(checksums[3], otherContentsChecksums[3]);
+	}
+
+}
@@ -0,0 +1,171 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.matcher;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.Test;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.factory.TypeSystemDescriptionFactory;
+import org.uimafit.util.JCasUtil;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory.TokenNormalizerConfigParam.CaseMatchParamValue;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.Sentence;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.dictionary.ConceptMapperDictionaryBuilder;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class DictionaryMatcher_AETest extends DefaultUIMATestCase {
+
+	private static final String SENTENCE_1 = "Here is some text with some GO terms.";
+	private static final String SENTENCE_2 = "The NEF1 complex is known to be a part of the nucleotide-excision repair complex.";
+
+	private File dictionaryFile;
+
+	@Override
+	protected TypeSystemDescription getTypeSystem() {
+		return TypeSystemDescriptionFactory.createTypeSystemDescription("edu.ucdenver.ccp.nlp.core.uima.TypeSystem",
+				"edu.ucdenver.ccp.nlp.wrapper.conceptmapper.TestTypeSystem");
+	}
+
+	@Override
+	protected void initJCas() throws UIMAException, IOException {
+		jcas.setDocumentText(SENTENCE_1 + " " + SENTENCE_2);
+		new Sentence(jcas, 0, SENTENCE_1.length()).addToIndexes();
+		new Sentence(jcas, SENTENCE_1.length() + 1, SENTENCE_1.length() + 1 + SENTENCE_2.length()).addToIndexes();
+
+		dictionaryFile = folder.newFile("cm-dict.xml");
+		ConceptMapperDictionaryBuilder builder = new ConceptMapperDictionaryBuilder(dictionaryFile, 0);
+		builder.addEntry("GO:0000015", Arrays.asList("phosphopyruvate hydratase complex", "enolase complex"));
+		builder.addEntry("GO:0000109", Arrays.asList("nucleotide-excision repair complex"));
+		builder.addEntry("GO:0000110",
+				Arrays.asList("nucleotide-excision repair factor 1 complex", "NEF1 complex", "XPA-ERCC1-ERCC4 complex"));
+		builder.addEntry("GO:9999999", Arrays.asList("repair complex"));
+		builder.close();
+	}
+
+	private List<CCPTextAnnotation> runMatcher(CaseMatchParamValue caseMatch, String[] stopwords,
+			boolean orderIndependentLookup, boolean findAllMatches) throws UIMAException {
+		AnalysisEngineDescription description = DictionaryMatcher_AE.createAnalysisEngineDescription(tsd,
+				dictionaryFile, caseMatch, null, stopwords, orderIndependentLookup, findAllMatches, Sentence.class,
+				false);
+		AnalysisEngine engine = AnalysisEngineFactory.createPrimitive(description);
+		engine.process(jcas);
+		engine.destroy();
+		return CollectionsUtil.createList(JCasUtil.iterator(jcas, CCPTextAnnotation.class));
+	}
+
+	@Test
+	public void testLongestMatches() throws UIMAException {
+		List<CCPTextAnnotation> annotations = runMatcher(CaseMatchParamValue.CASE_INSENSITIVE, null, false, false);
+		assertEquals("Two concepts should have been found", 2, annotations.size());
+		assertEquals("NEF1 complex", annotations.get(0).getCoveredText());
+		assertEquals("GO:0000110", annotations.get(0).getClassMention().getMentionName());
+		assertEquals("nucleotide-excision repair complex", annotations.get(1).getCoveredText());
+		assertEquals("GO:0000109", annotations.get(1).getClassMention().getMentionName());
+	}
+
+	@Test
+	public void testFindAllMatches() throws UIMAException {
+		List<CCPTextAnnotation> annotations = runMatcher(CaseMatchParamValue.CASE_INSENSITIVE, null, false, true);
+		assertEquals("The nested repair complex should also have been found", 3, annotations.size());
+		assertEquals("repair complex", annotations.get(2).getCoveredText());
+		assertEquals("GO:9999999", annotations.get(2).getClassMention().getMentionName());
+	}
+
+	@Test
+	public void testCaseSensitive() throws UIMAException {
+		jcas.reset();
+		String text = "The nef1 complex and the NEF1 complex.";
+		jcas.setDocumentText(text);
+		new Sentence(jcas, 0, text.length()).addToIndexes();
+		List<CCPTextAnnotation> annotations = runMatcher(CaseMatchParamValue.CASE_SENSITIVE, null, false, false);
+		assertEquals(1, annotations.size());
+		assertEquals("NEF1 complex", annotations.get(0).getCoveredText());
+	}
+
+	@Test
+	public void testOrderIndependentLookupAndStopwords() throws UIMAException {
+		jcas.reset();
+		String text = "A complex of enolase was observed.";
+		jcas.setDocumentText(text);
+		new Sentence(jcas, 0, text.length()).addToIndexes();
+		assertEquals(0, runMatcher(CaseMatchParamValue.CASE_INSENSITIVE, null, true, false).size());
+		List<CCPTextAnnotation> annotations = runMatcher(CaseMatchParamValue.CASE_INSENSITIVE,
+				new String[] { "of" }, true, false);
+		assertEquals(1, annotations.size());
+		assertEquals("complex of enolase", annotations.get(0).getCoveredText());
+		assertEquals("GO:0000015", annotations.get(0).getClassMention().getMentionName());
+	}
+
+	@Test
+	public void testAutomatonIsSharedUntilLastAnnotatorIsDestroyed() throws UIMAException, IOException {
+		AnalysisEngineDescription description = DictionaryMatcher_AE.createAnalysisEngineDescription(tsd,
+				dictionaryFile, CaseMatchParamValue.CASE_INSENSITIVE, null, null, false, false, Sentence.class, false);
+		AnalysisEngine engine1 = AnalysisEngineFactory.createPrimitive(description);
+		AnalysisEngine engine2 = AnalysisEngineFactory.createPrimitive(description);
+		assertEquals(1, DictionaryMatcher_AE.getSharedAutomatonCount());
+		engine1.destroy();
+		assertEquals(1, DictionaryMatcher_AE.getSharedAutomatonCount());
+		engine2.destroy();
+		assertEquals(0, DictionaryMatcher_AE.getSharedAutomatonCount());
+
+		/* a rewritten dictionary is compiled anew rather than matched against the old automaton */
+		ConceptMapperDictionaryBuilder builder = new ConceptMapperDictionaryBuilder(dictionaryFile, 0);
+		builder.addEntry("GO:0000001", Arrays.asList("GO terms"));
+		builder.close();
+		assertTrue(dictionaryFile.setLastModified(dictionaryFile.lastModified() + 10000));
+		List<CCPTextAnnotation> annotations = runMatcher(CaseMatchParamValue.CASE_INSENSITIVE, null, false, false);
+		assertEquals(1, annotations.size());
+		assertEquals("GO terms", annotations.get(0).getCoveredText());
+		assertEquals(0, DictionaryMatcher_AE.getSharedAutomatonCount());
+	}
+
+}
@@ -0,0 +1,232 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
+
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.ConceptMapperStemmerFactory.StemmerType;
+
+/**
+ * Compares the throughput of an uncached stemmer with that of a {@link CachingStemmer} on a
+ * Zipf-distributed token stream, similar to the token frequencies found in biomedical text. The
+ * cached stemmer is timed cold (each pass starts from a new, empty cache) and warm (the cache has
+ * been populated by an earlier pass). The warm pass is then repeated with several threads sharing
+ * the cache.
+ * <p>
+ * Each mode runs a number of untimed warmup passes, so that the JIT has compiled the code under
+ * test, followed by a number of timed measurement passes. The mean, standard deviation and minimum
+ * pass times are reported. A garbage collection is requested before each pass so that collection of
+ * garbage from one pass is not charged to the next.
+ * <p>
+ * This is not a unit test; run it via the main method, optionally passing the stemmer type
+ * (PORTER or BIOLEMMATIZER, default PORTER), the number of tokens (default 1,000,000), the cache
+ * size (default {@link StemmerCache#DEFAULT_CACHE_SIZE}), the thread count (default 4), the number
+ * of warmup passes per mode (default 3) and the number of measurement passes per mode (default
+ * 5).
+ * 
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class StemmerCacheBenchmark {
+
+	private static final int VOCABULARY_SIZE = 50000;
+
+	private static final double ZIPF_EXPONENT = 1.0;
+
+	private static final String[] SUFFIXES = new String[] { "", "s", "ing", "ed", "ation", "ly", "es", "ity" };
+
+	public static void main(String[] args) throws Exception {
+		StemmerType stemmerType = (args.length > 0) ? StemmerType.valueOf(args[0]) : StemmerType.PORTER;
+		int tokenCount = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+		int cacheSize = (args.length > 2) ? Integer.parseInt(args[2]) : StemmerCache.DEFAULT_CACHE_SIZE;
+		int threadCount = (args.length > 3) ? Integer.parseInt(args[3]) : 4;
+		int warmupPasses = (args.length > 4) ? Integer.parseInt(args[4]) : 3;
+		int measurementPasses = (args.length > 5) ? Integer.parseInt(args[5]) : 5;
+
+		final Class<? extends Stemmer> stemmerClass = ConceptMapperStemmerFactory.getStemmerClass(stemmerType, false);
+		final String[] tokens = createZipfianTokens(tokenCount);
+		final Stemmer uncached = stemmerClass.newInstance();
+		final CachingStemmer warmCached = new CachingStemmer(stemmerClass.newInstance(), new StemmerCache(cacheSize));
+		final int coldCacheSize = cacheSize;
+
+		System.out.println("stemmer: " + stemmerType + " tokens: " + tokenCount + " cache size: " + cacheSize
+				+ " warmup passes: " + warmupPasses + " measurement passes: " + measurementPasses);
+		System.out.println("mode\tmean ms\tstd dev ms\tmin ms\ttokens/sec");
+		run("uncached", new Pass() {
+			@Override
+			public void run() {
+				stem(uncached, tokens);
+			}
+		}, warmupPasses, measurementPasses, tokens.length);
+		run("cached (cold)", new Pass() {
+			@Override
+			public void run() throws Exception {
+				stem(new CachingStemmer(stemmerClass.newInstance(), new StemmerCache(coldCacheSize)), tokens);
+			}
+		}, warmupPasses, measurementPasses, tokens.length);
+
+		stem(warmCached, tokens);
+		System.out.println("after populating pass: " + warmCached.getCache());
+		run("cached (warm)", new Pass() {
+			@Override
+			public void run() {
+				stem(warmCached, tokens);
+			}
+		}, warmupPasses, measurementPasses, tokens.length);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int i = 0; i < threadCount; i++) {
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						stem(warmCached, tokens);
+						return null;
+					}
+				});
+			}
+			run("cached (warm, " + threadCount + " threads)", new Pass() {
+				@Override
+				public void run() throws Exception {
+					for (Future<Void> future : executor.invokeAll(tasks)) {
+						future.get();
+					}
+				}
+			}, warmupPasses, measurementPasses, tokens.length * (long) threadCount);
+		} finally {
+			executor.shutdown();
+		}
+		System.out.println("final: " + warmCached.getCache());
+	}
+
+	/**
+	 * A single benchmark pass
+	 */
+	private interface Pass {
+		void run() throws Exception;
+	}
+
+	/**
+	 * Runs the warmup passes untimed, then times the measurement passes and reports the results
+	 * 
+	 * @param tokensPerPass
+	 *            the number of tokens stemmed by each pass, used to compute throughput
+	 */
+	private static void run(String mode, Pass pass, int warmupPasses, int measurementPasses, long tokensPerPass)
+			throws Exception {
+		for (int i = 0; i < warmupPasses; i++) {
+			System.gc();
+			pass.run();
+		}
+		double[] passMillis = new double[measurementPasses];
+		for (int i = 0; i < measurementPasses; i++) {
+			System.gc();
+			long start = System.nanoTime();
+			pass.run();
+			passMillis[i] = (System.nanoTime() - start) / 1000000.0;
+		}
+		double sum = 0;
+		double min = Double.MAX_VALUE;
+		for (double ms : passMillis) {
+			sum += ms;
+			min = Math.min(min, ms);
+		}
+		double mean = sum / measurementPasses;
+		double squaredDeviationSum = 0;
+		for (double ms : passMillis) {
+			squaredDeviationSum += (ms - mean) * (ms - mean);
+		}
+		double stdDev = Math.sqrt(squaredDeviationSum / measurementPasses);
+		System.out.println(String.format("%s\t%.1f\t%.1f\t%.1f\t%d", mode, mean, stdDev, min,
+				(long) (tokensPerPass / (Math.max(mean, 0.001) / 1000.0))));
+	}
+
+	/**
+	 * Stems all tokens
+	 */
+	private static void stem(Stemmer stemmer, String[] tokens) {
+		int length = 0;
+		for (String token : tokens) {
+			length += stemmer.stem(token).length();
+		}
+		if (length == 0) {
+			throw new IllegalStateException("No stems produced");
+		}
+	}
+
+	/**
+	 * @return tokens drawn from a synthetic vocabulary with Zipf-distributed frequencies
+	 */
+	private static String[] createZipfianTokens(int tokenCount) {
+		double[] cumulative = new double[VOCABULARY_SIZE];
+		double total = 0;
+		for (int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+			total += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			cumulative[rank] = total;
+		}
+		Random random = new Random(0);
+		String[] vocabulary = new String[VOCABULARY_SIZE];
+		for (int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+			vocabulary[rank] = createWord(random) + SUFFIXES[rank % SUFFIXES.length];
+		}
+		String[] tokens = new String[tokenCount];
+		for (int i = 0; i < tokenCount; i++) {
+			double r = random.nextDouble() * total;
+			int index = Arrays.binarySearch(cumulative, r);
+			tokens[i] = vocabulary[(index < 0) ? Math.min(-index - 1, VOCABULARY_SIZE - 1) : index];
+		}
+		return tokens;
+	}
+
+	private static String createWord(Random random) {
+		int length = 3 + random.nextInt(8);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + random.nextInt(26)));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,210 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.uima.conceptMapper.support.stemmer.Stemmer;
+import org.junit.Test;
+
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.stemmer.ConceptMapperStemmerFactory.StemmerType;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class StemmerCacheTest {
+
+	/**
+	 * Removes a trailing "s" and counts the number of calls
+	 */
+	private static class CountingStemmer implements Stemmer {
+		private final AtomicInteger callCount = new AtomicInteger();
+
+		@Override
+		public String stem(String token) {
+			callCount.incrementAndGet();
+			return (token.endsWith("s")) ? token.substring(0, token.length() - 1) : token;
+		}
+
+		@Override
+		public void initialize(String dictionary) throws FileNotFoundException, ParseException {
+		}
+	}
+
+	@Test
+	public void testHitAndMissCounts() {
+		CountingStemmer countingStemmer = new CountingStemmer();
+		CachingStemmer stemmer = new CachingStemmer(countingStemmer, new StemmerCache(100));
+		assertEquals("gene", stemmer.stem("genes"));
+		assertEquals("gene", stemmer.stem("genes"));
+		assertEquals("protein", stemmer.stem("proteins"));
+		assertEquals("gene", stemmer.stem("genes"));
+		assertEquals(2, countingStemmer.callCount.get());
+		assertEquals(2, stemmer.getCache().getHitCount());
+		assertEquals(2, stemmer.getCache().getMissCount());
+		assertEquals(0.5, stemmer.getCache().getHitRate(), 0.0001);
+	}
+
+	/**
+	 * @return tokens drawn from a vocabulary of the given size with Zipf-distributed frequencies
+	 *         (exponent 1), similar to the token frequencies found in biomedical text
+	 */
+	private static String[] createZipfianTokens(int vocabularySize, int tokenCount) {
+		double[] cumulative = new double[vocabularySize];
+		double total = 0;
+		for (int rank = 0; rank < vocabularySize; rank++) {
+			total += 1.0 / (rank + 1);
+			cumulative[rank] = total;
+		}
+		Random random = new Random(0);
+		String[] tokens = new String[tokenCount];
+		for (int i = 0; i < tokenCount; i++) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+			tokens[i] = "token" + ((index < 0) ? Math.min(-index - 1, vocabularySize - 1) : index) + "s";
+		}
+		return tokens;
+	}
+
+	/**
+	 * When the cache can hold the whole vocabulary, each distinct token should be stemmed exactly
+	 * once and every other lookup should be a hit
+	 */
+	@Test
+	public void testZipfianTokensAreStemmedOnce() {
+		String[] tokens = createZipfianTokens(2000, 100000);
+		Set<String> distinctTokens = new HashSet<String>(Arrays.asList(tokens));
+		CountingStemmer countingStemmer = new CountingStemmer();
+		CachingStemmer stemmer = new CachingStemmer(countingStemmer, new StemmerCache(10000));
+		for (String token : tokens) {
+			stemmer.stem(token);
+		}
+		assertEquals(distinctTokens.size(), countingStemmer.callCount.get());
+		assertEquals(distinctTokens.size(), stemmer.getCache().getMissCount());
+		assertEquals(tokens.length - distinctTokens.size(), stemmer.getCache().getHitCount());
+	}
+
+	/**
+	 * A cache holding a fraction of the vocabulary should still answer most lookups of a Zipfian
+	 * token stream, because the frequent tokens survive generation changes
+	 */
+	@Test
+	public void testBoundedCacheHitRateOnZipfianTokens() {
+		String[] tokens = createZipfianTokens(2000, 100000);
+		CountingStemmer countingStemmer = new CountingStemmer();
+		CachingStemmer stemmer = new CachingStemmer(countingStemmer, new StemmerCache(400));
+		for (String token : tokens) {
+			stemmer.stem(token);
+		}
+		assertTrue("Cache size should not exceed 400: " + stemmer.getCache().size(),
+				stemmer.getCache().size() <= 400);
+		assertEquals(stemmer.getCache().getMissCount(), countingStemmer.callCount.get());
+		assertTrue("Hit rate should exceed 0.5: " + stemmer.getCache(), stemmer.getCache().getHitRate() > 0.5);
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		StemmerCache cache = new StemmerCache(10);
+		for (int i = 0; i < 100; i++) {
+			cache.put("token" + i, "stem" + i);
+		}
+		assertTrue("Cache size should not exceed 10: " + cache.size(), cache.size() <= 10);
+		assertEquals("stem99", cache.get("token99"));
+	}
+
+	@Test
+	public void testZeroSizeDisablesCaching() {
+		CountingStemmer countingStemmer = new CountingStemmer();
+		CachingStemmer stemmer = new CachingStemmer(countingStemmer, new StemmerCache(0));
+		assertEquals("gene", stemmer.stem("genes"));
+		assertEquals("gene", stemmer.stem("genes"));
+		assertEquals(2, countingStemmer.callCount.get());
+		assertEquals(0, stemmer.getCache().size());
+	}
+
+	@Test
+	public void testCachingIsOptIn() {
+		assertEquals(ConceptMapperPorterStemmer.class, ConceptMapperStemmerFactory.getStemmerClass(StemmerType.PORTER));
+		assertEquals(ConceptMapperBioLemmatizer.class,
+				ConceptMapperStemmerFactory.getStemmerClass(StemmerType.BIOLEMMATIZER));
+		assertEquals(CachingConceptMapperPorterStemmer.class,
+				ConceptMapperStemmerFactory.getStemmerClass(StemmerType.PORTER, true));
+	}
+
+	@Test
+	public void testConcurrentStemming() throws Exception {
+		final CachingStemmer stemmer = new CachingStemmer(new CountingStemmer(), new StemmerCache(50));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						for (int i = 0; i < 10000; i++) {
+							String stem = "token" + (i % 200);
+							if (!stem.equals(stemmer.stem(stem + "s"))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(40000, stemmer.getCache().getHitCount() + stemmer.getCache().getMissCount());
+	}
+
+}
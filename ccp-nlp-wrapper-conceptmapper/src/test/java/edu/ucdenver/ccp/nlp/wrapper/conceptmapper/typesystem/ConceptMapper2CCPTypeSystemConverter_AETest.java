@@ -0,0 +1,169 @@
+package edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem;
+
+/*
+ * #%L
+ * Colorado Computational Pharmacology's nlp module
+ * %%
+ * Copyright (C) 2012 - 2014 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.conceptMapper.support.tokenizer.TokenAnnotation;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.Test;
+import org.uimafit.factory.AnalysisEngineFactory;
+import org.uimafit.util.JCasUtil;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMentionType;
+import edu.ucdenver.ccp.nlp.core.mention.SlotMentionType;
+import edu.ucdenver.ccp.nlp.core.uima.annotation.CCPTextAnnotation;
+import edu.ucdenver.ccp.nlp.core.uima.mention.CCPStringSlotMention;
+import edu.ucdenver.ccp.nlp.uima.test.DefaultUIMATestCase;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.ConceptMapperFactory;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.OntologyTerm;
+import edu.ucdenver.ccp.nlp.wrapper.conceptmapper.typesystem.ConceptMapper2CCPTypeSystemConverter_AE.TokenConversionMode;
+
+/**
+ * @author Colorado Computational Pharmacology, UC Denver; ccpsupport@ucdenver.edu
+ * 
+ */
+public class ConceptMapper2CCPTypeSystemConverter_AETest extends DefaultUIMATestCase {
+
+	private static final String DOCUMENT_TEXT = "enolase binds enolase complex";
+
+	@Override
+	protected TypeSystemDescription getTypeSystem() {
+		return ConceptMapperFactory.getDefaultConceptMapperTypeSystem();
+	}
+
+	@Override
+	protected void initJCas() throws UIMAException, IOException {
+		jcas.setDocumentText(DOCUMENT_TEXT);
+		addOntologyTerm(0, 7, "PR:000001", "enolase");
+		addOntologyTerm(14, 21, "PR:000001", "enolase");
+		addOntologyTerm(14, 29, "GO:0000015", "phosphopyruvate hydratase complex");
+		new TokenAnnotation(jcas, 0, 7).addToIndexes();
+		new TokenAnnotation(jcas, 8, 13).addToIndexes();
+		new TokenAnnotation(jcas, 14, 21).addToIndexes();
+		new TokenAnnotation(jcas, 22, 29).addToIndexes();
+	}
+
+	private void addOntologyTerm(int begin, int end, String id, String canonicalName) {
+		OntologyTerm ot = new OntologyTerm(jcas, begin, end);
+		ot.setID(id);
+		ot.setDictCanon(canonicalName);
+		ot.addToIndexes();
+	}
+
+	private void runConverter(AnalysisEngineDescription description) throws UIMAException {
+		AnalysisEngine engine = AnalysisEngineFactory.createPrimitive(description);
+		engine.process(jcas);
+		engine.destroy();
+	}
+
+	private List<CCPTextAnnotation> getConceptAnnotations() {
+		List<CCPTextAnnotation> conceptAnnotations = new ArrayList<CCPTextAnnotation>();
+		for (CCPTextAnnotation ccpTA : JCasUtil.iterate(jcas, CCPTextAnnotation.class)) {
+			if (!ccpTA.getClassMention().getMentionName().equals(ClassMentionType.TOKEN.typeName())) {
+				conceptAnnotations.add(ccpTA);
+			}
+		}
+		return conceptAnnotations;
+	}
+
+	private static String getCanonicalName(CCPTextAnnotation ccpTA) {
+		CCPStringSlotMention slot = (CCPStringSlotMention) ccpTA.getClassMention().getSlotMentions().get(0);
+		assertEquals(SlotMentionType.CANONICAL_NAME.typeName(), slot.getMentionName());
+		return slot.getSlotValues().get(0);
+	}
+
+	@Test
+	public void testConvertTokens() throws UIMAException {
+		runConverter(ConceptMapper2CCPTypeSystemConverter_AE.createAnalysisEngineDescription(tsd, true));
+		assertEquals(7, CollectionsUtil.createList(JCasUtil.iterator(jcas, CCPTextAnnotation.class)).size());
+		assertEquals(3, getConceptAnnotations().size());
+		assertEquals(0, CollectionsUtil.createList(JCasUtil.iterator(jcas, TokenAnnotation.class)).size());
+		assertEquals(0, CollectionsUtil.createList(JCasUtil.iterator(jcas, OntologyTerm.class)).size());
+
+		List<CCPTextAnnotation> conceptAnnotations = getConceptAnnotations();
+		assertFalse("Slot mentions should not be shared by default", conceptAnnotations.get(0).getClassMention()
+				.getSlotMentions().getAddress() == conceptAnnotations.get(2).getClassMention().getSlotMentions()
+				.getAddress());
+	}
+
+	@Test
+	public void testDeferTokens() throws UIMAException {
+		runConverter(ConceptMapper2CCPTypeSystemConverter_AE.createAnalysisEngineDescription(tsd, false,
+				TokenConversionMode.DEFER));
+		assertEquals(3, CollectionsUtil.createList(JCasUtil.iterator(jcas, CCPTextAnnotation.class)).size());
+		assertEquals(4, CollectionsUtil.createList(JCasUtil.iterator(jcas, TokenAnnotation.class)).size());
+
+		assertEquals(4, CCPConceptMapperTypeSystemConverter_Util.convertTokens(jcas));
+		assertEquals(7, CollectionsUtil.createList(JCasUtil.iterator(jcas, CCPTextAnnotation.class)).size());
+		assertEquals(0, CollectionsUtil.createList(JCasUtil.iterator(jcas, TokenAnnotation.class)).size());
+	}
+
+	@Test
+	public void testCompactMode() throws UIMAException {
+		runConverter(ConceptMapper2CCPTypeSystemConverter_AE.createCompactAnalysisEngineDescription(tsd, true));
+		assertEquals(3, CollectionsUtil.createList(JCasUtil.iterator(jcas, CCPTextAnnotation.class)).size());
+		assertEquals(0, CollectionsUtil.createList(JCasUtil.iterator(jcas, TokenAnnotation.class)).size());
+
+		List<CCPTextAnnotation> conceptAnnotations = getConceptAnnotations();
+		/* annotations are in index order: begin ascending, end descending */
+		CCPTextAnnotation enolase1 = conceptAnnotations.get(0);
+		CCPTextAnnotation enolaseComplex = conceptAnnotations.get(1);
+		CCPTextAnnotation enolase2 = conceptAnnotations.get(2);
+		assertEquals("PR:000001", enolase1.getClassMention().getMentionName());
+		assertEquals("PR:000001", enolase2.getClassMention().getMentionName());
+		assertEquals("GO:0000015", enolaseComplex.getClassMention().getMentionName());
+		assertFalse("Slot mention arrays must not be shared", enolase1.getClassMention().getSlotMentions()
+				.getAddress() == enolase2.getClassMention().getSlotMentions().getAddress());
+		assertNotSame("Slot mentions must not be shared", enolase1.getClassMention().getSlotMentions().get(0),
+				enolase2.getClassMention().getSlotMentions().get(0));
+		assertEquals("enolase", getCanonicalName(enolase1));
+		assertEquals("enolase", getCanonicalName(enolase2));
+		assertEquals("phosphopyruvate hydratase complex", getCanonicalName(enolaseComplex));
+		assertEquals("Annotations should share the annotator", enolase1.getAnnotator().getAddress(), enolaseComplex
+				.getAnnotator().getAddress());
+	}
+
+}